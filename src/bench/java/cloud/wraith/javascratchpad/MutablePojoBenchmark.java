@@ -0,0 +1,68 @@
+package cloud.wraith.javascratchpad;
+
+import java.io.ByteArrayInputStream;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A filter loop over NDJSON that keeps one record in four, refilling a MutablePojo against
+ * building every Pojo. Scores are per batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MutablePojoBenchmark {
+    @Param({"10000"})
+    public int batchSize;
+
+    private byte[] ndjson;
+
+    @Setup
+    public void setUp() {
+        final StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < batchSize; i++)
+            builder.append(PojoBenchmark.json(UUID.randomUUID().toString(), "name-" + i, i, Pojo.TypeOfThing.lookup(i & 3).name())).append('\n');
+
+        ndjson = builder.toString().getBytes();
+    }
+
+    @Benchmark
+    public int filterPojos() {
+        int matches = 0;
+
+        try (PojoStreams.Reader reader = PojoStreams.iterator(new ByteArrayInputStream(ndjson), PojoStreams.IGNORE_REJECTS)) {
+            while (reader.hasNext()) {
+                final Pojo pojo = reader.next();
+
+                if (pojo.getType() == Pojo.TypeOfThing.THIS_THING && pojo.getIntValue() >= 0)
+                    matches++;
+            }
+        }
+
+        return matches;
+    }
+
+    @Benchmark
+    public int filterInPlace() {
+        final MutablePojo record = MutablePojo.local();
+        int matches = 0;
+
+        try (PojoStreams.Reader reader = PojoStreams.iterator(new ByteArrayInputStream(ndjson), PojoStreams.IGNORE_REJECTS)) {
+            while (reader.readInto(record))
+                if (record.getType() == Pojo.TypeOfThing.THIS_THING && record.getIntValue() >= 0)
+                    matches++;
+        }
+
+        return matches;
+    }
+}
@@ -0,0 +1,95 @@
+package cloud.wraith.javascratchpad;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single-threaded against parallel parsing of a large batch. The parallel speed-up scales with the cores
+ * available to the common pool, so compare runs on the same host.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PojoBatchParserBenchmark {
+    @Param({"1000000"})
+    public int records;
+
+    private byte[] ndjson;
+    private byte[] array;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Pojo.TypeOfThing[] types = Pojo.TypeOfThing.values();
+        final StringBuilder lines = new StringBuilder();
+
+        for (int i = 0; i < records; i++)
+            lines.append(Pojo.of(UUID.randomUUID().toString(), "name-" + i, i, types[i % types.length]).orElseThrow().toJson().orElseThrow()).append('\n');
+
+        ndjson = lines.toString().getBytes(StandardCharsets.UTF_8);
+        array = ("[" + lines.toString().trim().replace('\n', ',') + "]").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Optional<List<Pojo>> sequentialReadList() {
+        return PojoCodec.readList(array);
+    }
+
+    @Benchmark
+    public long sequentialNdjsonTokenReader() {
+        final LongAdder sum = new LongAdder();
+
+        PojoFileReader.parse(ByteBuffer.wrap(ndjson), 0, pojo -> sum.add(pojo.getIntValue()), PojoStreams.IGNORE_REJECTS);
+
+        return sum.sum();
+    }
+
+    @Benchmark
+    public long sequentialNdjsonDatabind() {
+        final LongAdder sum = new LongAdder();
+
+        PojoStreams.stream(new ByteArrayInputStream(ndjson), PojoStreams.IGNORE_REJECTS).forEach(pojo -> sum.add(pojo.getIntValue()));
+
+        return sum.sum();
+    }
+
+    @Benchmark
+    public List<Pojo> parallelArrayOrdered() {
+        return PojoBatchParser.of().parse(array).getPojos();
+    }
+
+    @Benchmark
+    public List<Pojo> parallelNdjsonOrdered() {
+        return PojoBatchParser.of().parse(ndjson).getPojos();
+    }
+
+    @Benchmark
+    public long parallelNdjsonUnorderedSink() {
+        final LongAdder sum = new LongAdder();
+
+        PojoBatchParser.of().withOrdered(false).forEach(ByteBuffer.wrap(ndjson), pojo -> sum.add(pojo.getIntValue()));
+
+        return sum.sum();
+    }
+}
@@ -0,0 +1,90 @@
+package cloud.wraith.javascratchpad;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Writing a batch of Pojos as NDJSON, with a batch writer against looping over toBytes() and copying
+ * each array into the output. Scores are per batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PojoBatchWriterBenchmark {
+    @Param({"10000"})
+    public int batchSize;
+
+    private final PojoBatchWriter batchWriter = PojoBatchWriter.of();
+    private List<Pojo> pojos;
+    private ByteBuffer buffer;
+    private FileChannel devNull;
+
+    @Setup
+    public void setUp() throws IOException {
+        pojos = new ArrayList<>(batchSize);
+
+        for (int i = 0; i < batchSize; i++)
+            pojos.add(Pojo.of(UUID.randomUUID().toString(), "name-" + i, i, Pojo.TypeOfThing.lookup(i & 3)).orElseThrow());
+
+        buffer = ByteBuffer.allocateDirect(200 * batchSize);
+        devNull = FileChannel.open(Path.of("/dev/null"), StandardOpenOption.WRITE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        devNull.close();
+    }
+
+    @Benchmark
+    public int toBytesLoop() {
+        buffer.clear();
+
+        for (Pojo pojo : pojos)
+            buffer.put(pojo.toBytes().orElseThrow()).put((byte) '\n');
+
+        return buffer.position();
+    }
+
+    @Benchmark
+    public int writeBuffer() {
+        return batchWriter.write(pojos, PojoStreams.Format.NDJSON, buffer.clear());
+    }
+
+    @Benchmark
+    public long writeStream() {
+        return batchWriter.write(pojos, PojoStreams.Format.NDJSON, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long toBytesLoopChannel() throws IOException {
+        long written = 0;
+
+        for (Pojo pojo : pojos)
+            written += devNull.write(ByteBuffer.wrap(pojo.toBytes().orElseThrow()));
+
+        return written;
+    }
+
+    @Benchmark
+    public long writeChannel() {
+        return batchWriter.write(pojos, PojoStreams.Format.NDJSON, devNull);
+    }
+}
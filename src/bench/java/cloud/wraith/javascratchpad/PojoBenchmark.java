@@ -0,0 +1,227 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for every Pojo hot path, over batches of 1, 1k and 1M records.
+ * Each invocation processes a whole batch, so scores are per batch rather than per record.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PojoBenchmark {
+    private static final Pojo.TypeOfThing[] TYPES = Pojo.TypeOfThing.values();
+    private static final String INVALID_TYPE_OF_THING = "NOT_A_THING";
+
+    /**
+     * Raw field values and their json, valid or invalid as a whole batch.
+     */
+    @State(Scope.Benchmark)
+    public static class Records {
+        @Param({"1", "1000", "1000000"})
+        public int batchSize;
+
+        @Param({"VALID", "INVALID"})
+        public String validity;
+
+        public String[] ids;
+        public String[] names;
+        public int[] intValues;
+        public String[] typesOfThing;
+        public String[] jsons;
+        public byte[][] bytes;
+        public String jsonArray;
+        public byte[] jsonArrayBytes;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            final boolean valid = "VALID".equals(validity);
+
+            ids = new String[batchSize];
+            names = new String[batchSize];
+            intValues = new int[batchSize];
+            typesOfThing = new String[batchSize];
+            jsons = new String[batchSize];
+            bytes = new byte[batchSize][];
+
+            final StringBuilder array = new StringBuilder("[");
+
+            for (int i = 0; i < batchSize; i++) {
+                // Alternate the two ways a record can be rejected
+                ids[i] = valid || i % 2 == 0 ? UUID.randomUUID().toString() : "";
+                names[i] = "name-" + i;
+                intValues[i] = i;
+                typesOfThing[i] = valid || i % 2 == 1 ? TYPES[i % TYPES.length].name() : INVALID_TYPE_OF_THING;
+                jsons[i] = json(ids[i], names[i], intValues[i], typesOfThing[i]);
+                bytes[i] = jsons[i].getBytes();
+
+                if (i > 0)
+                    array.append(',');
+                array.append(jsons[i]);
+            }
+
+            jsonArray = array.append(']').toString();
+            jsonArrayBytes = jsonArray.getBytes();
+        }
+    }
+
+    /**
+     * Already constructed, valid Pojos and equal but distinct copies of them.
+     */
+    @State(Scope.Benchmark)
+    public static class Pojos {
+        @Param({"1", "1000", "1000000"})
+        public int batchSize;
+
+        public Pojo[] pojos;
+        public Pojo[] copies;
+        public List<Pojo> list;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            pojos = new Pojo[batchSize];
+            copies = new Pojo[batchSize];
+
+            for (int i = 0; i < batchSize; i++) {
+                pojos[i] = Pojo.of(UUID.randomUUID().toString(), "name-" + i, i, TYPES[i % TYPES.length].name()).orElseThrow();
+                copies[i] = Pojo.of(pojos[i].toJson().orElseThrow()).orElseThrow();
+            }
+
+            list = Arrays.asList(pojos);
+        }
+    }
+
+    static String json(String id, String name, int intValue, String typeOfThing) {
+        return "{\"id\":\"" + id + "\",\"name\":\"" + name + "\",\"intValue\":" + intValue + ",\"typeOfThing\":\"" + typeOfThing + "\"}";
+    }
+
+    @Benchmark
+    public void ofFields(Records records, Blackhole blackhole) {
+        for (int i = 0; i < records.batchSize; i++)
+            blackhole.consume(Pojo.of(records.ids[i], records.names[i], records.intValues[i], records.typesOfThing[i]));
+    }
+
+    @Benchmark
+    public void jsonCreator(Records records, Blackhole blackhole) {
+        for (int i = 0; i < records.batchSize; i++) {
+            try {
+
+                blackhole.consume(Pojo.jsonCreator(records.ids[i], records.names[i], records.intValues[i], records.typesOfThing[i]));
+
+            } catch (IllegalArgumentException e) {
+
+                blackhole.consume(e);
+
+            }
+        }
+    }
+
+    @Benchmark
+    public void ofString(Records records, Blackhole blackhole) {
+        for (int i = 0; i < records.batchSize; i++)
+            blackhole.consume(Pojo.of(records.jsons[i]));
+    }
+
+    @Benchmark
+    public void ofBytes(Records records, Blackhole blackhole) {
+        for (int i = 0; i < records.batchSize; i++)
+            blackhole.consume(Pojo.of(records.bytes[i]));
+    }
+
+    @Benchmark
+    public Optional<Pojo[]> readArray(Records records) {
+        return PojoCodec.readArray(records.jsonArrayBytes);
+    }
+
+    @Benchmark
+    public Optional<List<Pojo>> readList(Records records) {
+        return PojoCodec.readList(records.jsonArrayBytes);
+    }
+
+    @Benchmark
+    public void ofPojo(Pojos pojos, Blackhole blackhole) {
+        for (int i = 0; i < pojos.batchSize; i++)
+            blackhole.consume(Pojo.of(pojos.pojos[i]));
+    }
+
+    @Benchmark
+    public void cloneBatch(Pojos pojos, Blackhole blackhole) {
+        for (int i = 0; i < pojos.batchSize; i++)
+            blackhole.consume(pojos.pojos[i].clone());
+    }
+
+    @Benchmark
+    public void withIntValueBatch(Pojos pojos, Blackhole blackhole) {
+        for (int i = 0; i < pojos.batchSize; i++)
+            blackhole.consume(pojos.pojos[i].withIntValue(i + 1));
+    }
+
+    @Benchmark
+    public void toBuilderBatch(Pojos pojos, Blackhole blackhole) {
+        for (int i = 0; i < pojos.batchSize; i++)
+            blackhole.consume(pojos.pojos[i].toBuilder().name("renamed").intValue(i).build());
+    }
+
+    @Benchmark
+    public int equalsBatch(Pojos pojos) {
+        int matches = 0;
+
+        for (int i = 0; i < pojos.batchSize; i++)
+            if (pojos.pojos[i].equals(pojos.copies[i]))
+                matches++;
+
+        return matches;
+    }
+
+    @Benchmark
+    public int hashCodeBatch(Pojos pojos) {
+        int hash = 0;
+
+        for (int i = 0; i < pojos.batchSize; i++)
+            hash += pojos.pojos[i].hashCode();
+
+        return hash;
+    }
+
+    @Benchmark
+    public void toJson(Pojos pojos, Blackhole blackhole) {
+        for (int i = 0; i < pojos.batchSize; i++)
+            blackhole.consume(pojos.pojos[i].toJson());
+    }
+
+    @Benchmark
+    public void toBytes(Pojos pojos, Blackhole blackhole) {
+        for (int i = 0; i < pojos.batchSize; i++)
+            blackhole.consume(pojos.pojos[i].toBytes());
+    }
+
+    @Benchmark
+    public Optional<byte[]> writeArray(Pojos pojos) {
+        return PojoCodec.toBytes(pojos.pojos);
+    }
+
+    @Benchmark
+    public Optional<byte[]> writeList(Pojos pojos) {
+        return PojoCodec.toBytes(pojos.list);
+    }
+}
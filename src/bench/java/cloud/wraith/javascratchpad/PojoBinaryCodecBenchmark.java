@@ -0,0 +1,77 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Speed and size of the binary form against toJson() and toBytes().
+ * The size of each form is reported as a secondary result, in bytes per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PojoBinaryCodecBenchmark {
+    private final Pojo pojo = Pojo.of(UUID.randomUUID().toString(), "my-test-name", 12345, Pojo.TypeOfThing.SOME_THING).orElseThrow();
+    private final byte[] json = pojo.toBytes().orElseThrow();
+    private final String jsonString = pojo.toJson().orElseThrow();
+    private final byte[] binary = PojoBinaryCodec.encode(pojo);
+
+    /**
+     * Bytes written per record by the benchmark that uses this state.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long bytesPerRecord;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerRecord = 0;
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeBinary(Size size) {
+        final byte[] bytes = PojoBinaryCodec.encode(pojo);
+        size.bytesPerRecord = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public Optional<byte[]> encodeJsonBytes(Size size) {
+        size.bytesPerRecord = json.length;
+        return pojo.toBytes();
+    }
+
+    @Benchmark
+    public Optional<String> encodeJsonString(Size size) {
+        size.bytesPerRecord = jsonString.length();
+        return pojo.toJson();
+    }
+
+    @Benchmark
+    public Optional<Pojo> decodeBinary() {
+        return PojoBinaryCodec.decode(binary);
+    }
+
+    @Benchmark
+    public Optional<Pojo> decodeJsonBytes() {
+        return Pojo.of(json);
+    }
+
+    @Benchmark
+    public Optional<Pojo> decodeJsonString() {
+        return Pojo.of(jsonString);
+    }
+}
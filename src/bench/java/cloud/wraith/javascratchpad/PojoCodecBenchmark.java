@@ -0,0 +1,65 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-call cost of a new ObjectMapper per call (the old Pojo behaviour) against the shared PojoCodec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PojoCodecBenchmark {
+    private static final String JSON = "{\"id\":\"578da685-f6ea-4ffe-869a-49acbbc998b2\",\"name\":\"my-test-name\",\"intValue\":12345,\"typeOfThing\":\"SOME_THING\"}";
+    private static final byte[] BYTES = JSON.getBytes();
+    private static final Pojo POJO = Pojo.of(JSON).orElseThrow();
+
+    @Benchmark
+    public Pojo readStringNewMapper() throws IOException {
+        return (new ObjectMapper()).readValue(JSON, Pojo.class);
+    }
+
+    @Benchmark
+    public Pojo readStringSharedCodec() {
+        return PojoCodec.read(JSON).orElseThrow();
+    }
+
+    @Benchmark
+    public Pojo readBytesNewMapper() throws IOException {
+        return (new ObjectMapper()).readValue(BYTES, Pojo.class);
+    }
+
+    @Benchmark
+    public Pojo readBytesSharedCodec() {
+        return PojoCodec.read(BYTES).orElseThrow();
+    }
+
+    @Benchmark
+    public String writeStringNewMapper() throws IOException {
+        return (new ObjectMapper()).writeValueAsString(POJO);
+    }
+
+    @Benchmark
+    public String writeStringSharedCodec() {
+        return PojoCodec.toJson(POJO).orElseThrow();
+    }
+
+    @Benchmark
+    public byte[] writeBytesNewMapper() throws IOException {
+        return (new ObjectMapper()).writeValueAsBytes(POJO);
+    }
+
+    @Benchmark
+    public byte[] writeBytesSharedCodec() {
+        return PojoCodec.toBytes(POJO).orElseThrow();
+    }
+}
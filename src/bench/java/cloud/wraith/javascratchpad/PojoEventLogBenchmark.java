@@ -0,0 +1,134 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.savoirtech.logging.slf4j.json.LoggerFactory;
+import com.savoirtech.logging.slf4j.json.logger.Logger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.FileAppender;
+import org.apache.log4j.PatternLayout;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The time a caller spends logging a reject to a file, through the event log against the slf4j json
+ * logger and a log4j file appender on the caller's thread. Scores are sampled per call, so the
+ * percentiles show the stalls as well as the average.
+ *
+ * A caller that logs faster than the writer can write fills the ring, after which nearly every call
+ * takes the drop path. So the event log is measured twice: paced, where each call first waits, untimed,
+ * for the writer to bring the ring below half full, which is the cost of publishing; and flat out,
+ * which is mostly the cost of dropping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PojoEventLogBenchmark {
+    private static final JsonProcessingException CAUSE = new JsonParseException(null, "Unexpected end-of-input");
+    private static final Logger LOGGER = LoggerFactory.getLogger(PojoEventLogBenchmark.class);
+
+    private Path events;
+    private Path log;
+    private Writer writer;
+    private PojoEventLog.Running eventLog;
+    private FileAppender appender;
+    private long index;
+
+    /**
+     * Events the log dropped or sampled out during an iteration, reported beside the call times.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Drops {
+        public long dropped;
+        public long sampled;
+        private PojoEventLog.Stats start;
+
+        @Setup(Level.Iteration)
+        public void reset(PojoEventLogBenchmark benchmark) {
+            dropped = 0;
+            sampled = 0;
+            start = benchmark.eventLog.stats();
+        }
+
+        @TearDown(Level.Iteration)
+        public void count(PojoEventLogBenchmark benchmark) {
+            final PojoEventLog.Stats end = benchmark.eventLog.stats();
+
+            dropped = end.getDropped() - start.getDropped();
+            sampled = end.getSampled() - start.getSampled();
+        }
+    }
+
+    /**
+     * Holds each call back, outside the timed region, until the ring is less than half full.
+     */
+    @State(Scope.Thread)
+    public static class Pacer {
+        @Setup(Level.Invocation)
+        public void await(PojoEventLogBenchmark benchmark) {
+            PojoEventLog.Stats stats = benchmark.eventLog.stats();
+
+            while (stats.getPublished() - stats.getWritten() >= PojoEventLog.DEFAULT_CAPACITY / 2) {
+                Thread.onSpinWait();
+                stats = benchmark.eventLog.stats();
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        final org.apache.log4j.Logger logger = org.apache.log4j.Logger.getLogger(PojoEventLogBenchmark.class);
+
+        events = Files.createTempFile("events", ".ndjson");
+        log = Files.createTempFile("log", ".ndjson");
+        writer = Files.newBufferedWriter(events);
+        eventLog = PojoEventLog.of().start(writer);
+        appender = new FileAppender(new PatternLayout("%m%n"), log.toString());
+        logger.setAdditivity(false);
+        logger.addAppender(appender);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        eventLog.close();
+        writer.close();
+        appender.close();
+        Files.delete(events);
+        Files.delete(log);
+    }
+
+    @Benchmark
+    public void eventLog(Pacer pacer, Drops drops) {
+        eventLog.reject(index++, CAUSE);
+    }
+
+    @Benchmark
+    public void eventLogFull(Drops drops) {
+        eventLog.reject(index++, CAUSE);
+    }
+
+    @Benchmark
+    public void jsonLogger() {
+        LOGGER.info()
+            .message("Pojo rejected")
+            .field("index", index++)
+            .field("reason", PojoMetrics.reasonOf(CAUSE).name())
+            .field("message", CAUSE.getOriginalMessage())
+            .log();
+    }
+}
@@ -0,0 +1,119 @@
+package cloud.wraith.javascratchpad;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of reading a newline-delimited json file, reported in records/s and MB/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class PojoFileReaderBenchmark {
+
+    /**
+     * A temporary file of records, shared by every benchmark.
+     */
+    @State(Scope.Benchmark)
+    public static class File {
+        @Param({"1000000"})
+        public int records;
+
+        public Path path;
+        public long size;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            path = Files.createTempFile("pojos", ".ndjson");
+
+            final Pojo.TypeOfThing[] types = Pojo.TypeOfThing.values();
+
+            try (PojoStreams.Writer writer = PojoStreams.writer(path, PojoStreams.Format.NDJSON)) {
+                for (int i = 0; i < records; i++)
+                    writer.write(Pojo.of(UUID.randomUUID().toString(), "name-" + i, i, types[i % types.length]).orElseThrow());
+            }
+
+            size = Files.size(path);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Records and megabytes read, which JMH reports as rates per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long records;
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            records = 0;
+            megabytes = 0;
+        }
+
+        void add(File file) {
+            records += file.records;
+            megabytes += file.size / 1_000_000.0;
+        }
+    }
+
+    @Benchmark
+    public void mappedFileReader(File file, Counters counters, Blackhole blackhole) {
+        try (PojoFileReader reader = PojoFileReader.open(file.path)) {
+            reader.forEach(blackhole::consume, PojoStreams.IGNORE_REJECTS);
+        }
+
+        counters.add(file);
+    }
+
+    @Benchmark
+    public void streamingReader(File file, Counters counters, Blackhole blackhole) {
+        try (Stream<Pojo> pojos = PojoStreams.stream(file.path, PojoStreams.IGNORE_REJECTS)) {
+            for (Iterator<Pojo> iterator = pojos.iterator(); iterator.hasNext(); )
+                blackhole.consume(iterator.next());
+        }
+
+        counters.add(file);
+    }
+
+    @Benchmark
+    public void linesThroughPojoOfString(File file, Counters counters, Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file.path, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine())
+                blackhole.consume(Pojo.of(line));
+        }
+
+        counters.add(file);
+    }
+}
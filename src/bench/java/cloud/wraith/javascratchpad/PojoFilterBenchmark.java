@@ -0,0 +1,95 @@
+package cloud.wraith.javascratchpad;
+
+import java.io.ByteArrayInputStream;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Keeping the records where typeOfThing == THIS_THING &amp;&amp; intValue &gt;= N, out of a batch of
+ * NDJSON, with the filter pushed down to the parser against building every Pojo first.
+ * Selectivity is the percentage of records kept. Scores are per batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PojoFilterBenchmark {
+    @Param({"10000"})
+    public int batchSize;
+
+    @Param({"1", "25"})
+    public int selectivity;
+
+    private byte[][] lines;
+    private byte[] ndjson;
+    private int minIntValue;
+    private PojoFilter filter;
+
+    @Setup
+    public void setUp() {
+        final StringBuilder builder = new StringBuilder();
+
+        lines = new byte[batchSize][];
+
+        for (int i = 0; i < batchSize; i++) {
+            final String json = PojoBenchmark.json(UUID.randomUUID().toString(), "name-" + i, i, Pojo.TypeOfThing.lookup(i & 3).name());
+
+            lines[i] = json.getBytes();
+            builder.append(json).append('\n');
+        }
+
+        // One record in four is THIS_THING, so the int value bound sets the rest of the selectivity
+        ndjson = builder.toString().getBytes();
+        minIntValue = batchSize - batchSize * selectivity / 25;
+        filter = PojoFilter.all().withTypes(Pojo.TypeOfThing.THIS_THING).withIntValue(intValue -> intValue >= minIntValue);
+    }
+
+    @Benchmark
+    public int ofBytesThenFilter() {
+        int matches = 0;
+
+        for (byte[] line : lines) {
+            final Pojo pojo = Pojo.of(line).orElseThrow();
+
+            if (pojo.getType() == Pojo.TypeOfThing.THIS_THING && pojo.getIntValue() >= minIntValue)
+                matches++;
+        }
+
+        return matches;
+    }
+
+    @Benchmark
+    public int streamThenFilter() {
+        int matches = 0;
+
+        try (PojoStreams.Reader reader = PojoStreams.iterator(new ByteArrayInputStream(ndjson), PojoStreams.IGNORE_REJECTS)) {
+            while (reader.hasNext())
+                if (filter.test(reader.next()))
+                    matches++;
+        }
+
+        return matches;
+    }
+
+    @Benchmark
+    public int pushDown() {
+        int matches = 0;
+
+        try (PojoStreams.Reader reader = PojoStreams.iterator(new ByteArrayInputStream(ndjson), filter, PojoStreams.IGNORE_REJECTS)) {
+            while (reader.hasNext()) {
+                reader.next();
+                matches++;
+            }
+        }
+
+        return matches;
+    }
+}
@@ -0,0 +1,68 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Pojo as the key of a large HashMap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PojoHashMapBenchmark {
+    @Param({"100000"})
+    public int entries;
+
+    private Pojo[] pojos;
+    private Pojo[] copies;
+    private Map<Pojo, Integer> map;
+
+    @Setup
+    public void setUp() {
+        pojos = new Pojo[entries];
+        copies = new Pojo[entries];
+        map = new HashMap<>(2 * entries);
+
+        for (int i = 0; i < entries; i++) {
+            pojos[i] = Pojo.of(UUID.randomUUID().toString(), "name-" + i, i, Pojo.TypeOfThing.lookup(i & 3)).orElseThrow();
+            copies[i] = Pojo.of(pojos[i].toJson().orElseThrow()).orElseThrow();
+            map.put(pojos[i], i);
+        }
+
+        for (Pojo copy : copies)
+            copy.hashCode();
+    }
+
+    @Benchmark
+    public Integer get() {
+        return map.get(copies[ThreadLocalRandom.current().nextInt(entries)]);
+    }
+
+    @Benchmark
+    public Integer put() {
+        final int i = ThreadLocalRandom.current().nextInt(entries);
+        return map.put(copies[i], i);
+    }
+
+    @Benchmark
+    public Map<Pojo, Integer> putAll() {
+        final Map<Pojo, Integer> fresh = new HashMap<>(2 * entries);
+
+        for (int i = 0; i < entries; i++)
+            fresh.put(pojos[i], i);
+
+        return fresh;
+    }
+}
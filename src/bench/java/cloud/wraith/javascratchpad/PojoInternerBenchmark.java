@@ -0,0 +1,95 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The cost of interning on the json path, for a feed that resends a small set of distinct records.
+ * The hits, misses and bytes saved of each iteration are reported beside the scores.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PojoInternerBenchmark {
+    @Param({"100", "100000"})
+    public int distinct;
+
+    private byte[][] feed;
+    private int next;
+
+    /**
+     * The pools, and the hits, misses and estimated bytes saved of whichever one a benchmark uses. JMH
+     * sums them over the iterations, so the hit rate is hits over hits plus misses.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Pools {
+        public long hits;
+        public long misses;
+        public long bytesSaved;
+        private final PojoInterner weak = PojoInterner.weak();
+        private final PojoInterner bounded = PojoInterner.bounded(10_000);
+        private PojoInterner.Stats weakStart;
+        private PojoInterner.Stats boundedStart;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+            bytesSaved = 0;
+            weakStart = weak.stats();
+            boundedStart = bounded.stats();
+        }
+
+        @TearDown(Level.Iteration)
+        public void count() {
+            final PojoInterner.Stats weakEnd = weak.stats();
+            final PojoInterner.Stats boundedEnd = bounded.stats();
+
+            hits = weakEnd.getHits() - weakStart.getHits() + boundedEnd.getHits() - boundedStart.getHits();
+            misses = weakEnd.getMisses() - weakStart.getMisses() + boundedEnd.getMisses() - boundedStart.getMisses();
+            bytesSaved = weakEnd.getBytesSaved() - weakStart.getBytesSaved() + boundedEnd.getBytesSaved() - boundedStart.getBytesSaved();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        feed = new byte[distinct][];
+
+        for (int i = 0; i < distinct; i++)
+            feed[i] = PojoBenchmark.json(UUID.randomUUID().toString(), "name-" + i, i, "SOME_THING").getBytes();
+    }
+
+    private byte[] nextRecord() {
+        next = next + 1 == distinct ? 0 : next + 1;
+        return feed[next];
+    }
+
+    @Benchmark
+    public Optional<Pojo> ofBytes() {
+        return Pojo.of(nextRecord());
+    }
+
+    @Benchmark
+    public Optional<Pojo> ofBytesWeak(Pools pools) {
+        return pools.weak.of(nextRecord());
+    }
+
+    @Benchmark
+    public Optional<Pojo> ofBytesBounded(Pools pools) {
+        return pools.bounded.of(nextRecord());
+    }
+}
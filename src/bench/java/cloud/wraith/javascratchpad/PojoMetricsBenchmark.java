@@ -0,0 +1,61 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The instrumented Pojo operations with metrics off and on, to show what measuring costs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PojoMetricsBenchmark {
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    private byte[] json;
+    private Pojo pojo;
+
+    @Setup
+    public void setUp() {
+        pojo = Pojo.of("578da685-f6ea-4ffe-869a-49acbbc998b2", "my-test-name", 12345, Pojo.TypeOfThing.SOME_THING).orElseThrow();
+        json = pojo.toBytes().orElseThrow();
+
+        PojoMetrics.setEnabled(enabled);
+    }
+
+    @TearDown
+    public void tearDown() {
+        PojoMetrics.setEnabled(false);
+        PojoMetrics.reset();
+    }
+
+    @Benchmark
+    public Object ofBytes() {
+        return Pojo.of(json);
+    }
+
+    @Benchmark
+    public Object ofFields() {
+        return Pojo.of("578da685-f6ea-4ffe-869a-49acbbc998b2", "my-test-name", 12345, Pojo.TypeOfThing.SOME_THING);
+    }
+
+    @Benchmark
+    public Object toBytes() {
+        return pojo.toBytes();
+    }
+
+    @Benchmark
+    public Object cloneOf() {
+        return pojo.clone();
+    }
+}
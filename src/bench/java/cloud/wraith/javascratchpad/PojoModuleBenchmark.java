@@ -0,0 +1,95 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading and writing one Pojo through databind driven by Pojo's annotations, against PojoModule's
+ * hand-written serializer and deserializer. Warm throughput is per record. ColdStart times the first
+ * record in a fresh JVM, including building the mapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PojoModuleBenchmark {
+    private static final ObjectMapper ANNOTATED = new ObjectMapper();
+    private static final ObjectMapper MODULE = new ObjectMapper().registerModule(new PojoModule());
+
+    private final ObjectReader annotatedReader = ANNOTATED.readerFor(Pojo.class);
+    private final ObjectWriter annotatedWriter = ANNOTATED.writerFor(Pojo.class);
+    private final ObjectReader moduleReader = MODULE.readerFor(Pojo.class);
+    private final ObjectWriter moduleWriter = MODULE.writerFor(Pojo.class);
+
+    private Pojo pojo;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        pojo = Pojo.of(UUID.randomUUID().toString(), "my-test-name", 12345, Pojo.TypeOfThing.SOME_THING).orElseThrow();
+        bytes = pojo.toBytes().orElseThrow();
+    }
+
+    @Benchmark
+    public Pojo annotatedRead() throws IOException {
+        return annotatedReader.readValue(bytes);
+    }
+
+    @Benchmark
+    public Pojo moduleRead() throws IOException {
+        return moduleReader.readValue(bytes);
+    }
+
+    @Benchmark
+    public byte[] annotatedWrite() throws IOException {
+        return annotatedWriter.writeValueAsBytes(pojo);
+    }
+
+    @Benchmark
+    public byte[] moduleWrite() throws IOException {
+        return moduleWriter.writeValueAsBytes(pojo);
+    }
+
+    /**
+     * The first round trip in a fresh JVM, one shot per fork.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public static class ColdStart {
+        private static final byte[] BYTES = ("{\"id\":\"578da685-f6ea-4ffe-869a-49acbbc998b2\",\"name\":\"my-test-name\","
+            + "\"intValue\":12345,\"typeOfThing\":\"SOME_THING\"}").getBytes();
+
+        @Benchmark
+        public byte[] annotatedFirstRecord() throws IOException {
+            final ObjectMapper mapper = new ObjectMapper();
+
+            return mapper.writeValueAsBytes(mapper.readValue(BYTES, Pojo.class));
+        }
+
+        @Benchmark
+        public byte[] moduleFirstRecord() throws IOException {
+            final ObjectMapper mapper = new ObjectMapper().registerModule(new PojoModule());
+
+            return mapper.writeValueAsBytes(mapper.readValue(BYTES, Pojo.class));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package cloud.wraith.javascratchpad;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Parsing a stream of payloads with and without a PojoParseCache, where a share of the payloads are
+ * replays of one of the last thousand distinct payloads, each in an array of its own. The stream is
+ * larger than the cache and is parsed round and round, so payloads that are not replays stay misses.
+ * Scores are per payload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PojoParseCacheBenchmark {
+    private static final int PAYLOADS = 100_000;
+    private static final int RECENT = 1000;
+
+    @Param({"0", "0.25", "0.5", "0.75", "0.9"})
+    public double replayRatio;
+
+    private byte[][] payloads;
+    private int next;
+
+    /**
+     * The cache, and its hits and misses, reported beside the scores. JMH sums them over the
+     * iterations, so the hit rate is hits over hits plus misses.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Cache {
+        public long hits;
+        public long misses;
+        private final PojoParseCache cache = PojoParseCache.bySize(4096);
+        private PojoParseCache.Stats start;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+            start = cache.stats();
+        }
+
+        @TearDown(Level.Iteration)
+        public void count() {
+            final PojoParseCache.Stats end = cache.stats();
+
+            hits = end.getHits() - start.getHits();
+            misses = end.getMisses() - start.getMisses();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        final byte[][] recent = new byte[RECENT][];
+        int distinct = 0;
+
+        payloads = new byte[PAYLOADS][];
+
+        for (int i = 0; i < PAYLOADS; i++) {
+            if (distinct > 0 && random.nextDouble() < replayRatio) {
+                payloads[i] = recent[random.nextInt(Math.min(distinct, RECENT))].clone();
+            } else {
+                payloads[i] = PojoBenchmark.json(UUID.randomUUID().toString(), "name-" + i, i, Pojo.TypeOfThing.lookup(i & 3).name())
+                    .getBytes(StandardCharsets.UTF_8);
+                recent[distinct++ % RECENT] = payloads[i];
+            }
+        }
+    }
+
+    @Benchmark
+    public Optional<Pojo> uncached() {
+        return Pojo.of(payloads[next++ % PAYLOADS]);
+    }
+
+    @Benchmark
+    public Optional<Pojo> cached(Cache cache) {
+        return cache.cache.of(payloads[next++ % PAYLOADS]);
+    }
+}
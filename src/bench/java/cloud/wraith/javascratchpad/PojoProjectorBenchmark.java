@@ -0,0 +1,92 @@
+package cloud.wraith.javascratchpad;
+
+import java.io.ByteArrayInputStream;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reading only the id and int value of a batch of records, projected against building every Pojo,
+ * one object at a time, as a json array and as NDJSON. Scores are per batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PojoProjectorBenchmark {
+    private static final PojoProjector ID_AND_INT_VALUE = PojoCodec.project(EnumSet.of(PojoField.ID, PojoField.INT_VALUE));
+
+    @Param({"10000"})
+    public int batchSize;
+
+    private byte[][] objects;
+    private byte[] array;
+    private byte[] ndjson;
+
+    @Setup
+    public void setUp() {
+        final StringBuilder arrayBuilder = new StringBuilder("[");
+        final StringBuilder ndjsonBuilder = new StringBuilder();
+
+        objects = new byte[batchSize][];
+
+        for (int i = 0; i < batchSize; i++) {
+            final String json = PojoBenchmark.json(UUID.randomUUID().toString(), "a somewhat longer name-" + i, i, Pojo.TypeOfThing.lookup(i & 3).name());
+
+            objects[i] = json.getBytes();
+            arrayBuilder.append(i > 0 ? "," : "").append(json);
+            ndjsonBuilder.append(json).append('\n');
+        }
+
+        array = arrayBuilder.append(']').toString().getBytes();
+        ndjson = ndjsonBuilder.toString().getBytes();
+    }
+
+    @Benchmark
+    public void ofBytes(Blackhole blackhole) {
+        for (byte[] object : objects)
+            blackhole.consume(Pojo.of(object));
+    }
+
+    @Benchmark
+    public void projectBytes(Blackhole blackhole) {
+        for (byte[] object : objects)
+            blackhole.consume(ID_AND_INT_VALUE.read(object));
+    }
+
+    @Benchmark
+    public Optional<List<Pojo>> readList() {
+        return PojoCodec.readList(array);
+    }
+
+    @Benchmark
+    public Optional<List<PojoProjection>> projectList() {
+        return ID_AND_INT_VALUE.readList(array);
+    }
+
+    @Benchmark
+    public long streamNdjson() {
+        try (Stream<Pojo> pojos = PojoStreams.stream(new ByteArrayInputStream(ndjson), PojoStreams.IGNORE_REJECTS)) {
+            return pojos.mapToLong(Pojo::getIntValue).sum();
+        }
+    }
+
+    @Benchmark
+    public long projectNdjson() {
+        try (Stream<PojoProjection> projections = ID_AND_INT_VALUE.stream(new ByteArrayInputStream(ndjson), PojoStreams.IGNORE_REJECTS)) {
+            return projections.mapToLong(PojoProjection::getIntValue).sum();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Latency of PojoRepository lookups, with percentiles, against a HashMap keyed on getId().
+ *
+ * For the full 10M entries, run with -p entries=10000000 and a larger heap, eg. -jvmArgsAppend -Xmx16g.
+ * Run the write benchmarks with -t 64 for 64 writer threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PojoRepositoryBenchmark {
+    @Param({"1000000"})
+    public int entries;
+
+    private PojoRepository repository;
+    private Map<String, Pojo> map;
+    private String[] ids;
+    private long[] mostSignificantBits;
+    private long[] leastSignificantBits;
+
+    @Setup
+    public void setUp() {
+        repository = PojoRepository.create(entries);
+        map = new HashMap<>(2 * entries);
+        ids = new String[entries];
+        mostSignificantBits = new long[entries];
+        leastSignificantBits = new long[entries];
+
+        for (int i = 0; i < entries; i++) {
+            final UUID uuid = UUID.randomUUID();
+            final Pojo pojo = Pojo.of(uuid.toString(), "name-" + i, i, Pojo.TypeOfThing.lookup(i & 3)).orElseThrow();
+
+            ids[i] = pojo.getId();
+            mostSignificantBits[i] = uuid.getMostSignificantBits();
+            leastSignificantBits[i] = uuid.getLeastSignificantBits();
+            repository.put(pojo);
+            map.put(pojo.getId(), pojo);
+        }
+    }
+
+    @Benchmark
+    public Optional<Pojo> getById() {
+        return repository.get(ids[ThreadLocalRandom.current().nextInt(entries)]);
+    }
+
+    @Benchmark
+    public Optional<Pojo> getByUuidBits() {
+        final int i = ThreadLocalRandom.current().nextInt(entries);
+        return repository.get(mostSignificantBits[i], leastSignificantBits[i]);
+    }
+
+    @Benchmark
+    public Pojo getFromHashMap() {
+        return map.get(ids[ThreadLocalRandom.current().nextInt(entries)]);
+    }
+
+    @Benchmark
+    public Optional<Pojo> replace() {
+        final int i = ThreadLocalRandom.current().nextInt(entries);
+        return repository.put(Pojo.ofValidated(ids[i], "name-" + i, i, Pojo.TypeOfThing.lookup(i & 3)));
+    }
+
+    @Benchmark
+    public long rangeOfTen() {
+        final int min = ThreadLocalRandom.current().nextInt(entries - 10);
+        return repository.findByIntValue(min, min + 9).count();
+    }
+}
@@ -0,0 +1,55 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Random reads from an off-heap PojoStore, in place through a view and copied out as a Pojo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:MaxDirectMemorySize=4g"})
+public class PojoStoreBenchmark {
+    @Param({"1000000"})
+    public int records;
+
+    private PojoStore store;
+    private PojoStore.View view;
+
+    @Setup
+    public void setUp() {
+        store = PojoStore.create();
+
+        for (int i = 0; i < records; i++)
+            store.add(Pojo.of(UUID.randomUUID().toString(), "name-" + i, i, Pojo.TypeOfThing.lookup(i & 3)).orElseThrow());
+
+        view = store.view();
+    }
+
+    @Benchmark
+    public int viewIntValue() {
+        return view.moveTo(ThreadLocalRandom.current().nextInt(records)).getIntValue();
+    }
+
+    @Benchmark
+    public String viewName() {
+        return view.moveTo(ThreadLocalRandom.current().nextInt(records)).getName();
+    }
+
+    @Benchmark
+    public Pojo toPojo() {
+        return view.moveTo(ThreadLocalRandom.current().nextInt(records)).toPojo();
+    }
+}
@@ -0,0 +1,86 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Scans over a PojoTable against the same scans over a list of Pojos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PojoTableBenchmark {
+    @Param({"1000000"})
+    public int rows;
+
+    private List<Pojo> list;
+    private PojoTable table;
+
+    @Setup
+    public void setUp() {
+        list = new ArrayList<>(rows);
+        table = PojoTable.create(rows);
+
+        for (int i = 0; i < rows; i++) {
+            final Pojo pojo = Pojo.of(UUID.randomUUID().toString(), "name-" + i, i, Pojo.TypeOfThing.lookup(i & 3)).orElseThrow();
+            list.add(pojo);
+            table.append(pojo);
+        }
+    }
+
+    @Benchmark
+    public long sumByTypeList() {
+        long sum = 0;
+
+        for (Pojo pojo : list)
+            if (pojo.getType() == Pojo.TypeOfThing.SOME_THING)
+                sum += pojo.getIntValue();
+
+        return sum;
+    }
+
+    @Benchmark
+    public long sumByTypeTable() {
+        return table.sumIntValues(Pojo.TypeOfThing.SOME_THING);
+    }
+
+    @Benchmark
+    public long countBetweenList() {
+        long count = 0;
+
+        for (Pojo pojo : list)
+            if (pojo.getIntValue() >= 1000 && pojo.getIntValue() <= rows / 2)
+                count++;
+
+        return count;
+    }
+
+    @Benchmark
+    public long countBetweenTable() {
+        return table.countIntValuesBetween(1000, rows / 2);
+    }
+
+    @Benchmark
+    public int[] filterTable() {
+        return table.filter(Pojo.TypeOfThing.THIS_THING, 0, rows / 10);
+    }
+
+    @Benchmark
+    public String randomAccessTable() {
+        return table.getName(ThreadLocalRandom.current().nextInt(rows));
+    }
+}
@@ -1,13 +1,288 @@
 package cloud.wraith.javascratchpad;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
 /**
- * Hello world!
+ * Command line entry point. Reads Pojos as newline-delimited json or json arrays from files, or from
+ * stdin when there are none, and writes the valid ones that pass the filter to stdout or a file, through
+ * a PojoPipeline. On exit it reports the records read per second and how many were rejected, on stderr.
  *
+ * Options:
+ * <pre>
+ *   --format ndjson|json|binary  The output layout, newline-delimited json by default.
+ *   --output FILE                Write to a file instead of stdout.
+ *   --type TYPE[,TYPE...]        Keep only these types of thing. Can be repeated.
+ *   --min-int-value N            Keep only int values of at least N.
+ *   --max-int-value N            Keep only int values of at most N.
+ *   --batch-size N               The number of Pojos handed between stages at a time.
+ *   --queue-size N               The number of batches queued between stages.
+ *   --warm-up                    Exercise the Pojo json paths first, so the first record is not slowed by
+ *                                class loading and the interpreter. For invocations that can warm up
+ *                                before work arrives.
+ *   --train                      Exercise the Pojo json paths and exit. The training run for an AppCDS
+ *                                archive.
+ *   --report-startup             Report the time from launch to the first record written.
+ *   --event-log FILE             Log each reject, and a throughput summary at the end, as json lines to a
+ *                                file, from a background thread.
+ * </pre>
+ * Launch time is taken from the app.launched system property, in nanoseconds since the epoch, when
+ * the launcher sets it, otherwise from the start time of the process.
  */
-public class App
-{
-    public static void main( String[] args )
-    {
-        System.out.println( "Hello World!" );
+public final class App {
+    static final String LAUNCHED_PROPERTY = "app.launched";
+    static final int WARM_UP_ITERATIONS = 1000;
+
+    static final int OK = 0;
+    static final int FAILED = 1;
+    static final int USAGE = 2;
+
+    private static final String USAGE_MESSAGE = "Usage: app [--format ndjson|json|binary] [--output FILE] [--type TYPE[,TYPE...]]"
+        + " [--min-int-value N] [--max-int-value N] [--batch-size N] [--queue-size N] [--warm-up] [--train] [--report-startup]"
+        + " [--event-log FILE] [FILE...]";
+
+    /**
+     * Hide the constructor of a static utility class.
+     */
+    private App() {
+    }
+
+    public static void main(String[] args) {
+        // Chunks are written straight to the file descriptor, with no PrintStream or buffer in the way
+        System.exit(run(args, System.in, new FileOutputStream(FileDescriptor.out), System.err));
+    }
+
+    /**
+     * Run the app against the given streams.
+     *
+     * @param args The command line arguments
+     * @param in The input, when no files are given
+     * @param out The output, when no file is given, which is flushed when done
+     * @param err Where reports and errors go
+     * @return The exit status
+     */
+    static int run(String[] args, InputStream in, OutputStream out, PrintStream err) {
+        PojoPipeline pipeline = PojoPipeline.of();
+        final List<Pojo.TypeOfThing> types = new ArrayList<>();
+        final List<Path> paths = new ArrayList<>();
+        Path output = null;
+        Path eventLog = null;
+        int minIntValue = Integer.MIN_VALUE;
+        int maxIntValue = Integer.MAX_VALUE;
+        boolean warmUp = false;
+        boolean train = false;
+        boolean reportStartup = false;
+
+        try {
+
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--format":
+                        pipeline = pipeline.withOutput(output(value(args, ++i)));
+                        break;
+                    case "--output":
+                        output = Path.of(value(args, ++i));
+                        break;
+                    case "--type":
+                        for (String name : value(args, ++i).split(","))
+                            types.add(Pojo.TypeOfThing.valueOf(name));
+                        break;
+                    case "--min-int-value":
+                        minIntValue = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--max-int-value":
+                        maxIntValue = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--batch-size":
+                        pipeline = pipeline.withBatchSize(Integer.parseInt(value(args, ++i)));
+                        break;
+                    case "--queue-size":
+                        pipeline = pipeline.withQueueSize(Integer.parseInt(value(args, ++i)));
+                        break;
+                    case "--warm-up":
+                        warmUp = true;
+                        break;
+                    case "--train":
+                        train = true;
+                        break;
+                    case "--report-startup":
+                        reportStartup = true;
+                        break;
+                    case "--event-log":
+                        eventLog = Path.of(value(args, ++i));
+                        break;
+                    default:
+                        if (args[i].startsWith("--"))
+                            throw new IllegalArgumentException("Unknown option " + args[i]);
+                        paths.add(Path.of(args[i]));
+                }
+            }
+
+            if (!types.isEmpty() || minIntValue != Integer.MIN_VALUE || maxIntValue != Integer.MAX_VALUE) {
+                PojoFilter filter = PojoFilter.all().withIntValueBetween(minIntValue, maxIntValue);
+
+                if (!types.isEmpty())
+                    filter = filter.withTypes(types.get(0), types.subList(1, types.size()).toArray(new Pojo.TypeOfThing[0]));
+
+                pipeline = pipeline.withFilter(filter);
+            }
+
+        } catch (IllegalArgumentException e) {
+
+            err.println(e.getMessage());
+            err.println(USAGE_MESSAGE);
+            return USAGE;
+
+        }
+
+        if (train) {
+            warmUp();
+            return OK;
+        }
+
+        if (warmUp)
+            warmUp();
+
+        try {
+
+            final PojoPipeline.Result result;
+
+            if (Objects.isNull(eventLog)) {
+                result = run(pipeline, paths, output, in, out);
+            } else {
+                try (Writer events = Files.newBufferedWriter(eventLog); PojoEventLog.Running log = PojoEventLog.of().start(events)) {
+                    result = run(pipeline.withRejects(log), paths, output, in, out);
+                    log.throughput(result.getRead(), result.getRejected(), result.getElapsed().toNanos());
+                }
+            }
+
+            if (reportStartup && result.getFirstWrite().isPresent())
+                err.println("Time to first record: " + Duration.between(launched(), result.getFirstWrite().get()).toMillis() + "ms");
+
+            err.println(String.format("Read %d records in %dms, %.0f records/s: wrote %d, skipped %d, rejected %d",
+                result.getRead(), result.getElapsed().toMillis(), result.recordsPerSecond(),
+                result.getWritten(), result.getSkipped(), result.getRejected()));
+
+            return OK;
+
+        } catch (IOException | UncheckedIOException e) {
+
+            err.println("Failed: " + e.getMessage());
+            return FAILED;
+
+        }
+    }
+
+    private static PojoPipeline.Result run(PojoPipeline pipeline, List<Path> paths, Path output, InputStream in, OutputStream out)
+        throws IOException {
+
+        if (Objects.nonNull(output)) {
+            try (OutputStream file = Files.newOutputStream(output)) {
+                return paths.isEmpty() ? pipeline.run(in, file) : pipeline.run(paths, file);
+            }
+        }
+
+        return paths.isEmpty() ? pipeline.run(in, out) : pipeline.run(paths, out);
+    }
+
+    /**
+     * The value of an option, which is the next argument.
+     */
+    private static String value(String[] args, int i) {
+        if (i >= args.length)
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+
+        return args[i];
+    }
+
+    private static PojoPipeline.Output output(String format) {
+        switch (format) {
+            case "ndjson":
+                return PojoPipeline.Output.NDJSON;
+            case "json":
+                return PojoPipeline.Output.JSON_ARRAY;
+            case "binary":
+                return PojoPipeline.Output.BINARY;
+            default:
+                throw new IllegalArgumentException("Unknown format " + format);
+        }
+    }
+
+    /**
+     * Exercise the Pojo json paths a default number of times.
+     */
+    public static void warmUp() {
+        warmUp(WARM_UP_ITERATIONS);
+    }
+
+    /**
+     * Exercise the Pojo json paths, valid and invalid, one record at a time, in batches and as streams,
+     * so that their classes are loaded and initialised and the hottest methods compiled.
+     *
+     * @param iterations How many times to go round
+     */
+    public static void warmUp(int iterations) {
+        final Pojo.TypeOfThing[] types = Pojo.TypeOfThing.values();
+        final String invalid = "{\"id\":\"\",\"typeOfThing\":\"NOT_A_THING\"}";
+
+        for (int i = 0; i < iterations; i++) {
+            final Pojo pojo = Pojo.of(UUID.randomUUID().toString(), "warm-up-" + i, i, types[i % types.length]).orElseThrow();
+            final String json = pojo.toJson().orElseThrow();
+            final byte[] bytes = pojo.toBytes().orElseThrow();
+
+            Pojo.of(json).orElseThrow();
+            Pojo.of(bytes).orElseThrow();
+            Pojo.of(invalid).isPresent();
+
+            final Optional<List<Pojo>> list = PojoCodec.readList(PojoCodec.toBytes(List.of(pojo, pojo)).orElseThrow());
+            final ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+
+            try (PojoStreams.Writer writer = PojoStreams.writer(ndjson, PojoStreams.Format.NDJSON)) {
+                writer.writeAll(list.orElseThrow());
+            }
+
+            ndjson.writeBytes(invalid.getBytes(StandardCharsets.UTF_8));
+
+            try (PojoStreams.Reader reader = PojoStreams.iterator(new ByteArrayInputStream(ndjson.toByteArray()), PojoStreams.IGNORE_REJECTS)) {
+                reader.forEachRemaining(Pojo::hashCode);
+            }
+        }
+    }
+
+    /**
+     * The time since the launcher started the JVM, or since the process started.
+     */
+    static Duration sinceLaunch() {
+        return Duration.between(launched(), Instant.now());
+    }
+
+    /**
+     * When the launcher started the JVM, or when the process started.
+     */
+    static Instant launched() {
+        final String launched = System.getProperty(LAUNCHED_PROPERTY);
+
+        if (Objects.nonNull(launched) && launched.matches("\\d+"))
+            return Instant.ofEpochSecond(0, Long.parseLong(launched));
+
+        return ProcessHandle.current().info().startInstant().orElse(Instant.now());
     }
 }
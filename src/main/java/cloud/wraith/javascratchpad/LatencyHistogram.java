@@ -0,0 +1,206 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A fixed-size, log-linear histogram of latencies in nanoseconds, in the style of HdrHistogram.
+ *
+ * Values below 128 have a bucket each. Above that, each power of two is split into 64 buckets, so a
+ * value is reported to within 1/64th, about 1.6%, of what was recorded, from nanoseconds to centuries,
+ * in 3712 buckets. Recording is an atomic increment and a striped add, with no locks and no allocation,
+ * so it can be done from many threads on a hot path. Reads see the counts as they are, which may be mid-way
+ * through concurrent recording.
+ */
+@ThreadSafe
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos The latency in nanoseconds, where a negative value counts as zero
+     */
+    public void record(long nanos) {
+        final long value = Math.max(0, nanos);
+
+        counts.incrementAndGet(indexOf(value));
+        total.add(value);
+
+        if (value > max.get())
+            max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Record the time since a start time taken from System.nanoTime().
+     *
+     * @param startNanos The start time
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * The number of latencies recorded.
+     *
+     * @return The count
+     */
+    public long count() {
+        long count = 0;
+
+        for (int i = 0; i < BUCKETS; i++)
+            count += counts.get(i);
+
+        return count;
+    }
+
+    /**
+     * The largest latency recorded, exactly.
+     *
+     * @return The maximum in nanoseconds, or 0 if none were recorded
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * The mean of the latencies recorded, exactly.
+     *
+     * @return The mean in nanoseconds, or 0 if none were recorded
+     */
+    public double mean() {
+        final long count = count();
+
+        return count == 0 ? 0 : (double) total.sum() / count;
+    }
+
+    /**
+     * The latency at or below which a given percentage of the recorded latencies fall. This is the
+     * highest value in its bucket, but never more than the maximum.
+     *
+     * @param percentile The percentage, from 0 to 100
+     * @return The latency in nanoseconds, or 0 if none were recorded
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Percentile should be between 0 and 100");
+
+        final long[] snapshot = new long[BUCKETS];
+        long count = 0;
+
+        for (int i = 0; i < BUCKETS; i++)
+            count += snapshot[i] = counts.get(i);
+
+        if (count == 0)
+            return 0;
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+
+            if (seen >= rank)
+                return Math.min(highestValueAt(i), max());
+        }
+
+        return max();
+    }
+
+    /**
+     * Clear every count.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+
+        total.reset();
+        max.set(0);
+    }
+
+    /**
+     * Move every count into a new histogram and clear this one. Each bucket is taken in one atomic
+     * step, so a latency recorded meanwhile is in exactly one of the two, though its sum and maximum
+     * may be in the other.
+     *
+     * @return A histogram of what was recorded up to now
+     */
+    public LatencyHistogram drain() {
+        final LatencyHistogram drained = new LatencyHistogram();
+
+        for (int i = 0; i < BUCKETS; i++)
+            drained.counts.set(i, counts.getAndSet(i, 0));
+
+        drained.total.add(total.sumThenReset());
+        drained.max.set(max.getAndSet(0));
+        return drained;
+    }
+
+    /**
+     * A one line summary, in microseconds, eg.
+     * {@code count=1000 mean=12.3 p50=10.1 p90=20.2 p99=40.8 p99.9=80.1 max=95.0 (us)}.
+     *
+     * @return The summary
+     */
+    public String report() {
+        return String.format("count=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f (us)",
+            count(), micros(mean()), micros(percentile(50)), micros(percentile(90)), micros(percentile(99)),
+            micros(percentile(99.9)), micros(max()));
+    }
+
+    @Override
+    public String toString() {
+        return "{"
+            + " count='" + count() + "'"
+            + ", max='" + max() + "'"
+            + "}";
+    }
+
+    private static double micros(double nanos) {
+        return nanos / TimeUnit.MICROSECONDS.toNanos(1);
+    }
+
+    /**
+     * The bucket of a value: the value itself below 128, otherwise its top seven bits and its
+     * magnitude.
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    /**
+     * The lowest value that falls in a bucket.
+     */
+    static long lowestValueAt(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+
+        final int shift = (index - SUB_BUCKETS) / HALF + 1;
+        final long mantissa = (index - SUB_BUCKETS) % HALF + HALF;
+
+        return mantissa << shift;
+    }
+
+    /**
+     * The highest value that falls in a bucket.
+     */
+    static long highestValueAt(int index) {
+        return index == BUCKETS - 1 ? Long.MAX_VALUE : lowestValueAt(index + 1) - 1;
+    }
+}
@@ -0,0 +1,263 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * A reusable, mutable parsing target for Pojo, which a streaming reader refills in place.
+ *
+ * The id and name are held in growable char buffers and exposed as CharSequence views, so a record
+ * can be looked at, and usually thrown away, without building any Strings. Only freeze() makes an
+ * immutable Pojo, once the caller decides to keep the record. For example:
+ * <pre>
+ *   final MutablePojo record = MutablePojo.local();
+ *
+ *   while (reader.readInto(record))
+ *       if (record.getType() == Pojo.TypeOfThing.THIS_THING &amp;&amp; record.getIntValue() &gt; limit)
+ *           sink.accept(record.freeze().orElseThrow());
+ * </pre>
+ * An instance must stay on one thread. local() gives each thread its own.
+ */
+@NotThreadSafe
+public final class MutablePojo {
+    private static final ThreadLocal<MutablePojo> LOCAL = ThreadLocal.withInitial(MutablePojo::new);
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Text id = new Text();
+    private final Text name = new Text();
+    private int intValue;
+    private Pojo.TypeOfThing typeOfThing;
+
+    /**
+     * A growable run of chars, viewed as a CharSequence.
+     */
+    @NotThreadSafe
+    static final class Text implements CharSequence {
+        private char[] chars = new char[INITIAL_CAPACITY];
+        private int length;
+
+        void set(char[] source, int offset, int length) {
+            if (chars.length < length)
+                chars = new char[Math.max(length, 2 * chars.length)];
+
+            System.arraycopy(source, offset, chars, 0, length);
+            this.length = length;
+        }
+
+        void set(CharSequence source) {
+            final int length = Objects.isNull(source) ? 0 : source.length();
+
+            if (chars.length < length)
+                chars = new char[Math.max(length, 2 * chars.length)];
+
+            for (int i = 0; i < length; i++)
+                chars[i] = source.charAt(i);
+
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            Objects.checkIndex(index, length);
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            Objects.checkFromToIndex(start, end, length);
+            return new String(chars, start, end - start);
+        }
+
+        /**
+         * Whether the text is the same as a CharSequence, without allocating.
+         *
+         * @param other The other text
+         * @return True if the chars are the same
+         */
+        boolean contentEquals(CharSequence other) {
+            if (Objects.isNull(other) || other.length() != length)
+                return false;
+
+            for (int i = 0; i < length; i++)
+                if (chars[i] != other.charAt(i))
+                    return false;
+
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+
+    /**
+     * Hide the constructor. Use create() or local() instead.
+     */
+    private MutablePojo() {
+    }
+
+    /**
+     * A new, empty instance.
+     *
+     * @return The instance
+     */
+    public static MutablePojo create() {
+        return new MutablePojo();
+    }
+
+    /**
+     * The instance for the current thread, as last left.
+     *
+     * @return The instance
+     */
+    public static MutablePojo local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Reset every field to its default, as for a json object with no properties.
+     *
+     * @return This instance
+     */
+    public MutablePojo clear() {
+        id.length = 0;
+        name.length = 0;
+        intValue = 0;
+        typeOfThing = null;
+        return this;
+    }
+
+    /**
+     * Copy the values of a Pojo.
+     *
+     * @param pojo The Pojo
+     * @return This instance
+     */
+    public MutablePojo set(Pojo pojo) {
+        id.set(pojo.getId());
+        name.set(pojo.getName());
+        intValue = pojo.getIntValue();
+        typeOfThing = pojo.getType();
+        return this;
+    }
+
+    /**
+     * A view of the id, valid until this instance is next changed.
+     *
+     * @return The id
+     */
+    public CharSequence getId() {
+        return id;
+    }
+
+    /**
+     * A view of the name, valid until this instance is next changed.
+     *
+     * @return The name
+     */
+    public CharSequence getName() {
+        return name;
+    }
+
+    public int getIntValue() {
+        return intValue;
+    }
+
+    /**
+     * The type of thing.
+     *
+     * @return The type of thing, or null if the record did not have a valid one
+     */
+    public Pojo.TypeOfThing getType() {
+        return typeOfThing;
+    }
+
+    /**
+     * Whether the id is the same as a CharSequence, without allocating.
+     *
+     * @param other The other id
+     * @return True if they are the same
+     */
+    public boolean idEquals(CharSequence other) {
+        return id.contentEquals(other);
+    }
+
+    /**
+     * Whether the name is the same as a CharSequence, without allocating.
+     *
+     * @param other The other name
+     * @return True if they are the same
+     */
+    public boolean nameEquals(CharSequence other) {
+        return name.contentEquals(other);
+    }
+
+    public MutablePojo setId(CharSequence id) {
+        this.id.set(id);
+        return this;
+    }
+
+    public MutablePojo setName(CharSequence name) {
+        this.name.set(name);
+        return this;
+    }
+
+    public MutablePojo setIntValue(int intValue) {
+        this.intValue = intValue;
+        return this;
+    }
+
+    public MutablePojo setTypeOfThing(Pojo.TypeOfThing typeOfThing) {
+        this.typeOfThing = typeOfThing;
+        return this;
+    }
+
+    Text id() {
+        return id;
+    }
+
+    Text name() {
+        return name;
+    }
+
+    /**
+     * Validate the current values, by the same rules as Pojo, without allocating.
+     *
+     * @return The result of the validation, with a reason code if invalid
+     */
+    public PojoValidation validate() {
+        if (StringUtils.isBlank(id))
+            return PojoValidation.of(PojoValidation.Reason.BLANK_ID);
+        if (Objects.isNull(typeOfThing))
+            return PojoValidation.of(PojoValidation.Reason.INVALID_TYPE_OF_THING);
+
+        return PojoValidation.of(PojoValidation.Reason.VALID);
+    }
+
+    /**
+     * Make an immutable Pojo from the current values. This instance can then be refilled.
+     *
+     * @return The Pojo, or empty if the values are not valid
+     */
+    public Optional<Pojo> freeze() {
+        return validate().isValid()
+            ? Optional.<Pojo>of(Pojo.ofValidated(id.toString(), name.toString(), intValue, typeOfThing))
+            : Optional.<Pojo>empty();
+    }
+
+    @Override
+    public String toString() {
+        return "{" + " id='" + getId() + "'" + ", name='" + getName() + "'" + ", intValue='" + getIntValue() + "'" + ", typeOfThing='"
+            + getType() + "'" + "}";
+    }
+}
@@ -0,0 +1,142 @@
+package cloud.wraith.javascratchpad;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * An append-only column of strings, packed as length-prefixed UTF-8 into large byte pages.
+ *
+ * Each value costs its encoded bytes plus an eight byte address, rather than a String object and
+ * its backing array, and the column can grow well past the 2GB limit of a single array.
+ */
+@NotThreadSafe
+final class PackedUtf8Column {
+    static final int PAGE_SIZE = 1024 * 1024;
+    static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private byte[][] pages = new byte[1][];
+    private int pageCount;
+    private int pageOffset;
+    private long[] addresses;
+    private int size;
+    private long bytes;
+    private long pageBytes;
+
+    PackedUtf8Column(int capacity) {
+        this.addresses = new long[Math.max(capacity, 16)];
+    }
+
+    /**
+     * Append a value.
+     *
+     * @param value The value
+     * @return The index of the value
+     */
+    int add(String value) {
+        final byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        final int needed = varintSize(encoded.length) + encoded.length;
+
+        if (pageCount == 0 || pageOffset + needed > pages[pageCount - 1].length)
+            newPage(Math.max(PAGE_SIZE, needed));
+
+        final byte[] page = pages[pageCount - 1];
+        int offset = pageOffset;
+
+        for (int length = encoded.length; ; length >>>= 7) {
+            if ((length & ~0x7F) == 0) {
+                page[offset++] = (byte) length;
+                break;
+            }
+            page[offset++] = (byte) ((length & 0x7F) | 0x80);
+        }
+
+        System.arraycopy(encoded, 0, page, offset, encoded.length);
+
+        if (size == addresses.length)
+            addresses = Arrays.copyOf(addresses, grow(addresses.length));
+
+        addresses[size] = ((long) (pageCount - 1) << 32) | pageOffset;
+        pageOffset = offset + encoded.length;
+        bytes += needed;
+
+        return size++;
+    }
+
+    /**
+     * Decode a value.
+     *
+     * @param index The index of the value
+     * @return The value
+     */
+    String get(int index) {
+        final long address = addresses[index];
+        final byte[] page = pages[(int) (address >>> 32)];
+        int offset = (int) address;
+        int length = 0;
+
+        for (int shift = 0; ; shift += 7) {
+            final byte b = page[offset++];
+            length |= (b & 0x7F) << shift;
+            if (b >= 0)
+                break;
+        }
+
+        return new String(page, offset, length, StandardCharsets.UTF_8);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * An estimate of the heap used by the column, in bytes.
+     *
+     * @return The estimate
+     */
+    long estimatedHeapBytes() {
+        return pageBytes + 8L * addresses.length;
+    }
+
+    /**
+     * The number of bytes used by the encoded values, including their length prefixes.
+     *
+     * @return The number of bytes
+     */
+    long encodedBytes() {
+        return bytes;
+    }
+
+    private void newPage(int length) {
+        if (pageCount == pages.length)
+            pages = Arrays.copyOf(pages, pages.length * 2);
+
+        pages[pageCount++] = new byte[length];
+        pageBytes += length;
+        pageOffset = 0;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+
+        for (int remaining = value >>> 7; remaining != 0; remaining >>>= 7)
+            size++;
+
+        return size;
+    }
+
+    /**
+     * The next length of a growing array, half as large again.
+     *
+     * @param length The current length
+     * @return The new length
+     * @throws IllegalStateException if the array cannot grow any further
+     */
+    static int grow(int length) {
+        if (length >= MAX_ARRAY_LENGTH)
+            throw new IllegalStateException("Column is full at " + length + " values");
+
+        return (int) Math.min(length + (length >> 1) + 1L, MAX_ARRAY_LENGTH);
+    }
+}
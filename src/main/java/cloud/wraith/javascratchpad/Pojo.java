@@ -4,46 +4,218 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.Optional;
 
 import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
 
-import org.apache.commons.lang3.EnumUtils;
 import org.apache.commons.lang3.StringUtils;
 
 @Immutable
 @JsonIgnoreProperties(ignoreUnknown=true)
 public final class Pojo implements Cloneable {
+    private static final HashFunction STABLE_HASH = Hashing.farmHashFingerprint64();
+
     private final String id;
     private final String name;
     private final int intValue;
-    private final String typeOfThing;
+    private final TypeOfThing typeOfThing;
     private final String ignored;
 
+    /**
+     * The hash code, computed on first use and cached, as String does. Zero until then.
+     */
+    private int hash;
+
     public enum TypeOfThing {
         OTHER_THING,
         SOME_THING,
         THAT_THING,
         THIS_THING;
-    }
 
-    private void validateConstruction(String id, String name, int intValue, String typeOfThing, String ignored) {
-        if (StringUtils.isBlank(id))
-            throw new IllegalArgumentException("Id should not be blank");
+        private static final TypeOfThing[] VALUES = values();
+        private static final byte[][] UTF8_NAMES = new byte[VALUES.length][];
+
+        static {
+            for (TypeOfThing value : VALUES)
+                UTF8_NAMES[value.ordinal()] = value.name().getBytes(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Look up a type of thing by name, without allocating or throwing.
+         *
+         * @param name The name of the type of thing
+         * @return The type of thing, or null if the name is not one
+         */
+        public static TypeOfThing lookup(CharSequence name) {
+            if (Objects.isNull(name))
+                return null;
+
+            for (TypeOfThing value : VALUES)
+                if (value.name().contentEquals(name))
+                    return value;
+
+            return null;
+        }
+
+        /**
+         * Look up a type of thing by a name held in a slice of a char array, eg. a parser's text buffer.
+         *
+         * @param chars The buffer holding the name
+         * @param offset The offset of the name in the buffer
+         * @param length The length of the name
+         * @return The type of thing, or null if the name is not one
+         */
+        public static TypeOfThing lookup(char[] chars, int offset, int length) {
+            for (TypeOfThing value : VALUES) {
+                final String name = value.name();
+
+                if (name.length() != length)
+                    continue;
+
+                int i = 0;
+                while (i < length && name.charAt(i) == chars[offset + i])
+                    i++;
+
+                if (i == length)
+                    return value;
+            }
+
+            return null;
+        }
+
+        /**
+         * Look up a type of thing by a UTF-8 encoded name held in a slice of a byte array.
+         *
+         * @param bytes The buffer holding the name
+         * @param offset The offset of the name in the buffer
+         * @param length The length of the name in bytes
+         * @return The type of thing, or null if the name is not one
+         */
+        public static TypeOfThing lookup(byte[] bytes, int offset, int length) {
+            for (TypeOfThing value : VALUES) {
+                final byte[] name = UTF8_NAMES[value.ordinal()];
+
+                if (name.length != length)
+                    continue;
+
+                int i = 0;
+                while (i < length && name[i] == bytes[offset + i])
+                    i++;
+
+                if (i == length)
+                    return value;
+            }
+
+            return null;
+        }
+
+        /**
+         * Look up a type of thing by name.
+         *
+         * @param name The name of the type of thing
+         * @return The type of thing, or empty if the name is not one
+         */
+        public static Optional<TypeOfThing> of(CharSequence name) {
+            return Optional.<TypeOfThing>ofNullable(lookup(name));
+        }
+
+        /**
+         * Look up a type of thing by ordinal.
+         *
+         * @param ordinal The ordinal of the type of thing
+         * @return The type of thing, or null if the ordinal is out of range
+         */
+        public static TypeOfThing lookup(int ordinal) {
+            return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : null;
+        }
 
-        if (!EnumUtils.isValidEnum(Pojo.TypeOfThing.class, typeOfThing))
-            throw new IllegalArgumentException(String.format("Type of thing is [%s] but should be one of %s", typeOfThing, TypeOfThing.values().toString()));
+        /**
+         * The name as UTF-8 bytes. Shared, so must not be modified.
+         */
+        byte[] utf8Name() {
+            return UTF8_NAMES[ordinal()];
+        }
     }
 
-    private void validateConstruction(String id, String name, int intValue, String typeOfThing) {
-        validateConstruction(id, name, intValue, typeOfThing, StringUtils.EMPTY);
+    /**
+     * Builds a copy of a Pojo with some fields changed, validating only the fields that changed.
+     */
+    @NotThreadSafe
+    public static final class Builder {
+        private final Pojo source;
+        private String id;
+        private String name;
+        private int intValue;
+        private TypeOfThing typeOfThing;
+
+        private Builder(Pojo source) {
+            this.source = source;
+            this.id = source.id;
+            this.name = source.name;
+            this.intValue = source.intValue;
+            this.typeOfThing = source.typeOfThing;
+        }
+
+        public Builder id(String id) {
+            this.id = id;
+            return this;
+        }
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder intValue(int intValue) {
+            this.intValue = intValue;
+            return this;
+        }
+
+        public Builder typeOfThing(TypeOfThing typeOfThing) {
+            this.typeOfThing = typeOfThing;
+            return this;
+        }
+
+        public Builder typeOfThing(String typeOfThing) {
+            return typeOfThing(TypeOfThing.lookup(typeOfThing));
+        }
+
+        /**
+         * Validate the fields that differ from the source, without building.
+         *
+         * @return The result of the validation, with a reason code if invalid
+         */
+        public PojoValidation validate() {
+            if (id != source.id && StringUtils.isBlank(id))
+                return PojoValidation.of(PojoValidation.Reason.BLANK_ID);
+            if (typeOfThing != source.typeOfThing && Objects.isNull(typeOfThing))
+                return PojoValidation.of(PojoValidation.Reason.INVALID_TYPE_OF_THING);
+
+            return PojoValidation.of(PojoValidation.Reason.VALID);
+        }
+
+        /**
+         * Build the copy.
+         *
+         * @return The copy, the source itself if nothing changed, or empty if a changed field is not valid
+         */
+        public Optional<Pojo> build() {
+            if (!validate().isValid())
+                return Optional.<Pojo>empty();
+
+            final boolean unchanged = Objects.equals(id, source.id)
+                && Objects.requireNonNullElse(name, StringUtils.EMPTY).equals(source.name)
+                && intValue == source.intValue
+                && typeOfThing == source.typeOfThing;
+
+            return Optional.<Pojo>of(unchanged ? source : new Pojo(id, name, intValue, typeOfThing, source.ignored));
+        }
     }
 
     /**
@@ -54,24 +226,19 @@ public final class Pojo implements Cloneable {
         throw new IllegalArgumentException("Avoid the noargs constructor. Use the factory function instead.");
     }
 
-    private Pojo(String id, String name, int intValue, String typeOfThing, String ignored) {
-        validateConstruction(id, name, intValue, typeOfThing, ignored);
-
+    /**
+     * Construct from fields that have already been validated.
+     */
+    private Pojo(String id, String name, int intValue, TypeOfThing typeOfThing, String ignored) {
         this.id = Objects.requireNonNullElse(id, StringUtils.EMPTY);
         this.name = Objects.requireNonNullElse(name, StringUtils.EMPTY);
         this.intValue = intValue;
-        this.typeOfThing = Objects.requireNonNullElse(typeOfThing, StringUtils.EMPTY);
+        this.typeOfThing = typeOfThing;
         this.ignored = Objects.requireNonNullElse(ignored, StringUtils.EMPTY);
     }
 
-    private Pojo(String id, String name, int intValue, String typeOfThing) {
-        validateConstruction(id, name, intValue, typeOfThing);
-
-        this.id = Objects.requireNonNullElse(id, StringUtils.EMPTY);
-        this.name = Objects.requireNonNullElse(name, StringUtils.EMPTY);
-        this.intValue = intValue;
-        this.typeOfThing = Objects.requireNonNullElse(typeOfThing, StringUtils.EMPTY);
-        this.ignored = StringUtils.EMPTY;
+    private Pojo(String id, String name, int intValue, TypeOfThing typeOfThing) {
+        this(id, name, intValue, typeOfThing, StringUtils.EMPTY);
     }
 
     /**
@@ -81,7 +248,7 @@ public final class Pojo implements Cloneable {
      * @param name Value of name
      * @param intValue Value of intValue
      * @param typeOfThing Value of typeOfThing
-     * @return A new instance of Pojo
+     * @return A new instance of Pojo, or the pooled one if a PojoInterner is installed
      */
     public static Optional<Pojo> of(
         String id,
@@ -89,28 +256,87 @@ public final class Pojo implements Cloneable {
         int intValue,
         String typeOfThing
     ) {
-        try {
+        return of(id, name, intValue, TypeOfThing.lookup(typeOfThing));
+    }
 
-            return Optional.<Pojo>of(new Pojo(id, name, intValue, typeOfThing));
+    /**
+     * Declare a factory function, for a type of thing that is already an enum.
+     *
+     * @param id Value of id
+     * @param name Value of name
+     * @param intValue Value of intValue
+     * @param typeOfThing Value of typeOfThing
+     * @return A new instance of Pojo, or the pooled one if a PojoInterner is installed
+     */
+    public static Optional<Pojo> of(
+        String id,
+        String name,
+        int intValue,
+        TypeOfThing typeOfThing
+    ) {
+        if (!PojoMetrics.isEnabled())
+            return ofFields(id, name, intValue, typeOfThing);
 
-        } catch (IllegalArgumentException e) {
+        final long start = System.nanoTime();
+        final Optional<Pojo> pojo = ofFields(id, name, intValue, typeOfThing);
 
-            return Optional.<Pojo>empty();
+        PojoMetrics.record(PojoMetrics.Operation.OF_FIELDS, start, pojo.isPresent());
+        return pojo;
+    }
 
-        }
+    private static Optional<Pojo> ofFields(String id, String name, int intValue, TypeOfThing typeOfThing) {
+        final PojoValidation validation = PojoValidation.validate(id, name, intValue, typeOfThing);
+
+        if (validation.isValid())
+            return Optional.<Pojo>of(PojoInterner.canonical(new Pojo(id, name, intValue, typeOfThing)));
+
+        PojoMetrics.reject(validation.getReason());
+        return Optional.<Pojo>empty();
+    }
+
+    /**
+     * Construct from fields the caller has already validated, eg. with PojoValidation.
+     *
+     * @param id Value of id
+     * @param name Value of name
+     * @param intValue Value of intValue
+     * @param typeOfThing Value of typeOfThing
+     * @return A new instance of Pojo
+     */
+    static Pojo ofValidated(String id, String name, int intValue, TypeOfThing typeOfThing) {
+        return new Pojo(id, name, intValue, typeOfThing);
+    }
+
+    /**
+     * Validate the fields of a prospective Pojo, without constructing it.
+     * Never throws, so it is cheap to call for records that will be rejected.
+     *
+     * @param id Value of id
+     * @param name Value of name
+     * @param intValue Value of intValue
+     * @param typeOfThing Value of typeOfThing
+     * @return The result of the validation, with a reason code if invalid
+     */
+    public static PojoValidation validate(
+        String id,
+        String name,
+        int intValue,
+        String typeOfThing
+    ) {
+        return PojoValidation.validate(id, name, intValue, typeOfThing);
     }
 
     /**
-     * Returns a new instance of a Pojo as a duplicate (ie. a clone) of a supplied source instance.
+     * Returns a Pojo equal to a supplied source instance.
+     * Since a Pojo is immutable and the source is already valid, this is the source itself,
+     * without validation or allocation. Use clone() if a distinct instance is really needed.
      * Tolerates a source value of null, returning an empty Optional<Pojo>
      *
      * @param source The source Pojo instance
-     * @return A new instance of Pojo based on a clone of source
+     * @return The source
      */
     public static Optional<Pojo> of(Pojo source) {
-        return Objects.isNull(source)
-            ? Optional.<Pojo>empty()
-            : Optional.<Pojo>of(source.clone());
+        return Optional.<Pojo>ofNullable(source);
     }
 
     /**
@@ -118,24 +344,17 @@ public final class Pojo implements Cloneable {
      * Tolerates a source value of null, returning an empty Optional<Pojo>
      *
      * @param json The source json as a string
-     * @return A new instance of Pojo based on a clone of source
+     * @return A new instance of Pojo, or the pooled one if a PojoInterner is installed
      */
     public static Optional<Pojo> of(String json) {
-        try {
-
-            return Objects.isNull(json)
-                ? Optional.<Pojo>empty()
-                : Optional.<Pojo>of((new ObjectMapper()).readValue(json, Pojo.class));
-
-        } catch (JsonParseException | JsonMappingException e) {
+        if (!PojoMetrics.isEnabled())
+            return PojoCodec.read(json);
 
-            return Optional.<Pojo>empty();
+        final long start = System.nanoTime();
+        final Optional<Pojo> pojo = PojoCodec.read(json);
 
-        } catch (IOException e) {
-
-            return Optional.<Pojo>empty();
-
-        }
+        PojoMetrics.record(PojoMetrics.Operation.OF_JSON, start, pojo.isPresent());
+        return pojo;
     }
 
     /**
@@ -143,24 +362,17 @@ public final class Pojo implements Cloneable {
      * Tolerates a source value of null, returning an empty Optional<Pojo>
      *
      * @param bytes The source json as a byte array
-     * @return A new instance of Pojo based on a clone of source
+     * @return A new instance of Pojo, or the pooled one if a PojoInterner is installed
      */
     public static Optional<Pojo> of(byte[] bytes) {
-        try {
+        if (!PojoMetrics.isEnabled())
+            return PojoCodec.read(bytes);
 
-            return Objects.isNull(bytes)
-                ? Optional.<Pojo>empty()
-                : Optional.<Pojo>of((new ObjectMapper()).readValue(bytes, Pojo.class));
+        final long start = System.nanoTime();
+        final Optional<Pojo> pojo = PojoCodec.read(bytes);
 
-        } catch (JsonParseException | JsonMappingException e) {
-
-            return Optional.<Pojo>empty();
-
-        } catch (IOException e) {
-
-            return Optional.<Pojo>empty();
-
-        }
+        PojoMetrics.record(PojoMetrics.Operation.OF_BYTES, start, pojo.isPresent());
+        return pojo;
     }
 
     /**
@@ -170,7 +382,8 @@ public final class Pojo implements Cloneable {
      * @param name Value of name
      * @param intValue Value of intValue
      * @param typeOfThing Value of typeOfThing
-     * @return A new instance of Pojo
+     * @return A new instance of Pojo, or the pooled one if a PojoInterner is installed
+     * @throws IllegalArgumentException if the values are not valid, as Jackson expects of a creator
      */
     @JsonCreator
     public static Pojo jsonCreator(
@@ -179,7 +392,13 @@ public final class Pojo implements Cloneable {
         @JsonProperty(value="intValue") int intValue,
         @JsonProperty(value="typeOfThing") String typeOfThing
     ) {
-        return new Pojo(id, name, intValue, typeOfThing);
+        final TypeOfThing type = TypeOfThing.lookup(typeOfThing);
+        final PojoValidation validation = PojoValidation.validate(id, name, intValue, type);
+
+        if (!validation.isValid())
+            throw new IllegalArgumentException(validation.getMessage());
+
+        return PojoInterner.canonical(new Pojo(id, name, intValue, type));
     }
 
     @JsonProperty(value="id")
@@ -199,6 +418,16 @@ public final class Pojo implements Cloneable {
 
     @JsonProperty(value="typeOfThing")
     public String getTypeOfThing() {
+        return this.typeOfThing.name();
+    }
+
+    /**
+     * The type of thing as an enum, for EnumMap or switch based routing.
+     *
+     * @return The type of thing
+     */
+    @JsonIgnore
+    public TypeOfThing getType() {
         return this.typeOfThing;
     }
 
@@ -207,9 +436,98 @@ public final class Pojo implements Cloneable {
         return this.ignored;
     }
 
+    /**
+     * A new instance with the same values, which shares the strings and cached hash code of this one.
+     */
     @Override
     public Pojo clone() {
-        return new Pojo(this.id, this.name, this.intValue, this.typeOfThing, this.ignored);
+        if (!PojoMetrics.isEnabled())
+            return copy();
+
+        final long start = System.nanoTime();
+        final Pojo clone = copy();
+
+        PojoMetrics.record(PojoMetrics.Operation.CLONE, start, true);
+        return clone;
+    }
+
+    private Pojo copy() {
+        final Pojo clone = new Pojo(this.id, this.name, this.intValue, this.typeOfThing, this.ignored);
+        clone.hash = this.hash;
+        return clone;
+    }
+
+    /**
+     * A copy with a different id, which is the only field validated.
+     *
+     * @param id Value of id
+     * @return The copy, this Pojo if the id is the same, or empty if the id is blank
+     */
+    public Optional<Pojo> withId(String id) {
+        if (Objects.equals(this.id, id))
+            return Optional.<Pojo>of(this);
+
+        return StringUtils.isBlank(id)
+            ? Optional.<Pojo>empty()
+            : Optional.<Pojo>of(new Pojo(id, this.name, this.intValue, this.typeOfThing, this.ignored));
+    }
+
+    /**
+     * A copy with a different name. Any name is valid, and null is taken as empty.
+     *
+     * @param name Value of name
+     * @return The copy, or this Pojo if the name is the same
+     */
+    public Pojo withName(String name) {
+        return this.name.equals(Objects.requireNonNullElse(name, StringUtils.EMPTY))
+            ? this
+            : new Pojo(this.id, name, this.intValue, this.typeOfThing, this.ignored);
+    }
+
+    /**
+     * A copy with a different intValue. Any intValue is valid.
+     *
+     * @param intValue Value of intValue
+     * @return The copy, or this Pojo if the intValue is the same
+     */
+    public Pojo withIntValue(int intValue) {
+        return this.intValue == intValue
+            ? this
+            : new Pojo(this.id, this.name, intValue, this.typeOfThing, this.ignored);
+    }
+
+    /**
+     * A copy with a different type of thing.
+     *
+     * @param typeOfThing Value of typeOfThing
+     * @return The copy, this Pojo if the type is the same, or empty if the type is null
+     */
+    public Optional<Pojo> withTypeOfThing(TypeOfThing typeOfThing) {
+        if (this.typeOfThing == typeOfThing)
+            return Optional.<Pojo>of(this);
+
+        return Objects.isNull(typeOfThing)
+            ? Optional.<Pojo>empty()
+            : Optional.<Pojo>of(new Pojo(this.id, this.name, this.intValue, typeOfThing, this.ignored));
+    }
+
+    /**
+     * A copy with a different type of thing, given by name.
+     *
+     * @param typeOfThing Value of typeOfThing
+     * @return The copy, this Pojo if the type is the same, or empty if the type is not valid
+     */
+    public Optional<Pojo> withTypeOfThing(String typeOfThing) {
+        return withTypeOfThing(TypeOfThing.lookup(typeOfThing));
+    }
+
+    /**
+     * A builder for a derived copy, starting from the values of this Pojo.
+     *
+     * @return The builder
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
     }
 
     @Override
@@ -223,16 +541,47 @@ public final class Pojo implements Cloneable {
 
         Pojo pojo = (Pojo) o;
 
-        return Objects.equals(id, pojo.id)
-            && Objects.equals(name, pojo.name)
-            && intValue == pojo.intValue
-            && Objects.equals(typeOfThing, pojo.typeOfThing)
-            && Objects.equals(ignored, pojo.ignored);
+        // Cheapest comparisons first, the cached hashes when both are known and then the primitives
+        if (hash != 0 && pojo.hash != 0 && hash != pojo.hash)
+            return false;
+
+        return intValue == pojo.intValue
+            && typeOfThing == pojo.typeOfThing
+            && id.equals(pojo.id)
+            && name.equals(pojo.name)
+            && ignored.equals(pojo.ignored);
     }
 
+    /**
+     * The same value as {@code Objects.hash(id, name, intValue, getTypeOfThing(), ignored)}, but without
+     * allocating, and computed only once.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, intValue, typeOfThing, ignored);
+        int h = hash;
+
+        if (h == 0) {
+            h = 31 + id.hashCode();
+            h = 31 * h + name.hashCode();
+            h = 31 * h + intValue;
+            h = 31 * h + typeOfThing.name().hashCode();
+            h = 31 * h + ignored.hashCode();
+            hash = h;
+        }
+
+        return h;
+    }
+
+    /**
+     * A 64-bit hash of the id, for partitioning records across processes, files or shards.
+     *
+     * Unlike hashCode() it is stable, the FarmHash Fingerprint64 of the UTF-8 bytes of the id, so it
+     * is the same in every JVM and release. Equal Pojos, and every version of a record, share it.
+     *
+     * @return The hash
+     */
+    public long stableHash() {
+        return STABLE_HASH.hashString(id, StandardCharsets.UTF_8).asLong();
     }
 
     @Override
@@ -247,26 +596,24 @@ public final class Pojo implements Cloneable {
     }
 
     public Optional<String> toJson() {
-        try {
-
-            return Optional.<String>of((new ObjectMapper()).writeValueAsString(this));
+        if (!PojoMetrics.isEnabled())
+            return PojoCodec.toJson(this);
 
-        } catch (JsonProcessingException e) {
+        final long start = System.nanoTime();
+        final Optional<String> json = PojoCodec.toJson(this);
 
-            return Optional.<String>empty();
-
-        }
+        PojoMetrics.record(PojoMetrics.Operation.TO_JSON, start, json.isPresent());
+        return json;
     }
 
     public Optional<byte[]> toBytes() {
-        try {
-
-            return Optional.<byte[]>of((new ObjectMapper()).writeValueAsBytes(this));
+        if (!PojoMetrics.isEnabled())
+            return PojoCodec.toBytes(this);
 
-        } catch (JsonProcessingException e) {
+        final long start = System.nanoTime();
+        final Optional<byte[]> bytes = PojoCodec.toBytes(this);
 
-            return Optional.<byte[]>empty();
-
-        }
+        PojoMetrics.record(PojoMetrics.Operation.TO_BYTES, start, bytes.isPresent());
+        return bytes;
     }
 }
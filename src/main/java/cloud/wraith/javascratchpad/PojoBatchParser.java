@@ -0,0 +1,535 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Parses and validates a batch of Pojos in parallel.
+ *
+ * The input, newline-delimited json or a json array, is split into chunks at record boundaries and the
+ * chunks are parsed concurrently on a ForkJoinPool. Results can be delivered in input order, or in
+ * whatever order the chunks complete, which avoids holding back finished chunks behind slower ones.
+ */
+@Immutable
+public final class PojoBatchParser {
+    static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private static final byte NEWLINE = '\n';
+    private static final byte[] OPEN_ARRAY = {'['};
+    private static final byte[] CLOSE_ARRAY = {']'};
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final boolean ordered;
+
+    private PojoBatchParser(ForkJoinPool pool, int chunkSize, boolean ordered) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+        this.ordered = ordered;
+    }
+
+    /**
+     * Returns a parser that keeps input order, on the common pool, with 1MB chunks.
+     *
+     * @return A batch parser
+     */
+    public static PojoBatchParser of() {
+        return new PojoBatchParser(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE, true);
+    }
+
+    /**
+     * Returns a copy of this parser that runs on a different pool.
+     *
+     * @param pool The pool to parse chunks on
+     * @return A batch parser
+     */
+    public PojoBatchParser withPool(ForkJoinPool pool) {
+        return new PojoBatchParser(Objects.requireNonNull(pool), chunkSize, ordered);
+    }
+
+    /**
+     * Returns a copy of this parser with a different target chunk size.
+     * Chunks end on the first record boundary at or after this many bytes.
+     *
+     * @param chunkSize The target size of a chunk in bytes
+     * @return A batch parser
+     */
+    public PojoBatchParser withChunkSize(int chunkSize) {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("Chunk size should be positive");
+
+        return new PojoBatchParser(pool, chunkSize, ordered);
+    }
+
+    /**
+     * Returns a copy of this parser that does, or does not, keep input order when handing Pojos to a
+     * sink. The lists in a Result are always in input order, as stitching them together costs nothing.
+     *
+     * @param ordered Whether Pojos are delivered in input order
+     * @return A batch parser
+     */
+    public PojoBatchParser withOrdered(boolean ordered) {
+        return new PojoBatchParser(pool, chunkSize, ordered);
+    }
+
+    /**
+     * Parse a batch held in a byte array.
+     *
+     * @param input Newline-delimited json or a json array
+     * @return The Pojos and the per-chunk counts
+     */
+    public Result parse(byte[] input) {
+        return parse(ByteBuffer.wrap(input));
+    }
+
+    /**
+     * Parse a batch held in a buffer, between its position and limit.
+     *
+     * @param input Newline-delimited json or a json array
+     * @return The Pojos and the per-chunk counts
+     */
+    public Result parse(ByteBuffer input) {
+        final List<Chunk> chunks = split(input);
+
+        run(chunks, null);
+
+        return new Result(chunks);
+    }
+
+    /**
+     * Parse a batch held in a file. Newline-delimited files are mapped a window at a time and can be
+     * of any size; a json array must fit in a single mapping of up to 2GB.
+     *
+     * @param path A file of newline-delimited json or a json array
+     * @return The Pojos and the per-chunk counts
+     */
+    public Result parse(Path path) {
+        final List<Chunk> chunks = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            if (startsWithArray(channel)) {
+                chunks.addAll(split(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+            } else {
+                try (PojoFileReader reader = PojoFileReader.open(path)) {
+                    for (Iterator<ByteBuffer> slices = reader.slices(); slices.hasNext(); )
+                        chunks.addAll(split(slices.next(), chunks.size()));
+                }
+            }
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+
+        }
+
+        run(chunks, null);
+
+        return new Result(chunks);
+    }
+
+    /**
+     * Parse a batch, handing each Pojo to a sink as soon as its chunk, and in ordered mode every chunk
+     * before it, is done. In ordered mode the sink is called from one thread at a time; otherwise it
+     * is called concurrently and must be thread-safe.
+     *
+     * @param input Newline-delimited json or a json array
+     * @param sink Receives each valid Pojo
+     * @return The per-chunk counts, with no Pojos held in the result
+     */
+    public Result forEach(ByteBuffer input, Consumer<? super Pojo> sink) {
+        final List<Chunk> chunks = split(input);
+
+        run(chunks, Objects.requireNonNull(sink));
+
+        return new Result(chunks);
+    }
+
+    private void run(List<Chunk> chunks, Consumer<? super Pojo> sink) {
+        // Without order, a sink can take Pojos straight from the parsing threads, unbuffered
+        final Consumer<? super Pojo> direct = ordered ? null : sink;
+        CompletableFuture<Void> emitted = CompletableFuture.completedFuture(null);
+        final List<CompletableFuture<Chunk>> parsed = new ArrayList<>(chunks.size());
+
+        for (Chunk chunk : chunks) {
+            final CompletableFuture<Chunk> future = CompletableFuture.supplyAsync(() -> chunk.parse(direct), pool);
+            parsed.add(future);
+
+            if (ordered && Objects.nonNull(sink))
+                emitted = emitted.thenCombine(future, (ignored, done) -> done.drainTo(sink));
+        }
+
+        try {
+
+            CompletableFuture.allOf(parsed.toArray(new CompletableFuture<?>[0])).join();
+            emitted.join();
+
+        } catch (CompletionException e) {
+
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+
+        }
+    }
+
+    private List<Chunk> split(ByteBuffer input) {
+        return split(input, 0);
+    }
+
+    /**
+     * Split input into chunks of whole records, numbering them from a starting index.
+     */
+    private List<Chunk> split(ByteBuffer input, int firstIndex) {
+        final ByteBuffer buffer = input.slice();
+        final int start = skipWhitespace(buffer, 0);
+
+        return start < buffer.limit() && buffer.get(start) == '['
+            ? splitArray(buffer, start, firstIndex)
+            : splitLines(buffer, firstIndex);
+    }
+
+    private List<Chunk> splitLines(ByteBuffer buffer, int firstIndex) {
+        final List<Chunk> chunks = new ArrayList<>();
+
+        for (int start = 0; start < buffer.limit(); ) {
+            int end = (int) Math.min((long) start + chunkSize, buffer.limit());
+
+            while (end < buffer.limit() && buffer.get(end - 1) != NEWLINE)
+                end++;
+
+            chunks.add(new Chunk(firstIndex + chunks.size(), slice(buffer, start, end), false));
+            start = end;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Find the commas between the top level elements of an array, and cut a chunk at the first one past
+     * each chunk size.
+     */
+    private List<Chunk> splitArray(ByteBuffer buffer, int open, int firstIndex) {
+        final List<Chunk> chunks = new ArrayList<>();
+        int start = open + 1;
+
+        for (int i = start; ; i++) {
+            i = skipElement(buffer, i);
+
+            // An unterminated array still gets its last chunk, to be rejected by the parser
+            if (i == buffer.limit() || buffer.get(i) != ',') {
+                chunks.add(new Chunk(firstIndex + chunks.size(), slice(buffer, start, i), true));
+                return chunks;
+            }
+
+            if (i - start >= chunkSize) {
+                chunks.add(new Chunk(firstIndex + chunks.size(), slice(buffer, start, i), true));
+                start = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Find the end of the array element that starts at an offset, tracking nesting and strings: the comma
+     * after it, the bracket that closes the array, or the limit if there is neither.
+     */
+    static int skipElement(ByteBuffer buffer, int from) {
+        int depth = 0;
+        boolean inString = false;
+
+        for (int i = from; i < buffer.limit(); i++) {
+            final byte b = buffer.get(i);
+
+            if (inString) {
+                if (b == '\\')
+                    i++;
+                else if (b == '"')
+                    inString = false;
+            } else if (b == '"') {
+                inString = true;
+            } else if (b == '[' || b == '{') {
+                depth++;
+            } else if (b == ']' || b == '}') {
+                if (depth-- == 0)
+                    return i;
+            } else if (b == ',' && depth == 0) {
+                return i;
+            }
+        }
+
+        return buffer.limit();
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int start, int end) {
+        return buffer.duplicate().limit(end).position(start).slice();
+    }
+
+    private static int skipWhitespace(ByteBuffer buffer, int from) {
+        int i = from;
+
+        while (i < buffer.limit() && Character.isWhitespace(buffer.get(i)))
+            i++;
+
+        return i;
+    }
+
+    private static boolean startsWithArray(FileChannel channel) throws IOException {
+        final ByteBuffer head = ByteBuffer.allocate(256);
+
+        for (long position = 0; channel.read(head, position) > 0; position += head.limit()) {
+            head.flip();
+            final int start = skipWhitespace(head, 0);
+
+            if (start < head.limit())
+                return head.get(start) == '[';
+
+            head.clear();
+        }
+
+        return false;
+    }
+
+    /**
+     * A contiguous run of whole records, and the outcome of parsing it.
+     */
+    private static final class Chunk implements Consumer<Pojo>, PojoStreams.RejectHandler {
+        private final int index;
+        private final ByteBuffer records;
+        private final boolean arrayElements;
+        private final List<Pojo> pojos = new ArrayList<>();
+        private Consumer<? super Pojo> sink;
+        private long accepted;
+        private long rejected;
+
+        private Chunk(int index, ByteBuffer records, boolean arrayElements) {
+            this.index = index;
+            this.records = records;
+            this.arrayElements = arrayElements;
+        }
+
+        private Chunk parse(Consumer<? super Pojo> sink) {
+            this.sink = Objects.isNull(sink) ? pojos::add : sink;
+
+            if (arrayElements)
+                parseElements();
+            else
+                PojoFileReader.parse(records, 0, this, this);
+
+            return this;
+        }
+
+        /**
+         * Parse the elements of a chunk of an array. Malformed json is rejected as one element, and parsing
+         * starts again after the comma that ends that element.
+         */
+        private void parseElements() {
+            for (int from = 0; from >= 0; )
+                from = parseElements(from);
+        }
+
+        /**
+         * Parse the elements of a chunk from an offset, by putting the brackets back around them.
+         *
+         * @return The offset to parse from again after malformed json, or -1 at the end of the chunk
+         */
+        private int parseElements(int from) {
+            final InputStream elements = new SequenceInputStream(Collections.enumeration(List.of(
+                new ByteArrayInputStream(OPEN_ARRAY),
+                new ByteBufferBackedInputStream(records.duplicate().position(from)),
+                new ByteArrayInputStream(CLOSE_ARRAY)
+            )));
+
+            try (JsonParser parser = PojoCodec.factory().createParser(elements)) {
+
+                // The offset in the chunk of the element being read, if one is
+                int start = from;
+                boolean reading = false;
+
+                try {
+
+                    parser.nextToken();
+                    final JsonStreamContext elementsContext = parser.getParsingContext();
+
+                    for (JsonToken token = parser.nextToken(); token != null && token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                        start = from + (int) PojoTokenReader.tokenOffset(parser) - OPEN_ARRAY.length;
+                        reading = true;
+
+                        try {
+
+                            if (token == JsonToken.START_OBJECT) {
+                                accept(PojoTokenReader.read(parser));
+                            } else {
+                                parser.skipChildren();
+                                rejected++;
+                            }
+
+                        } catch (JsonMappingException e) {
+
+                            // Skip first, so an element whose rest is malformed is only rejected once, for that
+                            while (parser.getParsingContext() != elementsContext && parser.nextToken() != null)
+                                parser.skipChildren();
+
+                            rejected++;
+
+                        }
+
+                        reading = false;
+                    }
+
+                    return -1;
+
+                } catch (JsonParseException e) {
+
+                    // Between elements, the parser fails on the character after the last one it read
+                    if (!reading && Objects.nonNull(e.getLocation()))
+                        start = Math.max(from, from + (int) e.getLocation().getByteOffset() - OPEN_ARRAY.length - 1);
+
+                    rejected++;
+
+                    final int end = skipElement(records, start);
+                    return end < records.limit() && records.get(end) == ',' ? end + 1 : -1;
+
+                }
+
+            } catch (IOException e) {
+
+                throw new UncheckedIOException(e);
+
+            }
+        }
+
+        @Override
+        public void accept(Pojo pojo) {
+            accepted++;
+            sink.accept(pojo);
+        }
+
+        @Override
+        public void reject(long index, JsonProcessingException cause) {
+            rejected++;
+        }
+
+        private Void drainTo(Consumer<? super Pojo> target) {
+            pojos.forEach(target);
+            pojos.clear();
+            return null;
+        }
+    }
+
+    /**
+     * Counts of the records accepted and rejected in one chunk.
+     */
+    @Immutable
+    public static final class ChunkStats {
+        private final int index;
+        private final int bytes;
+        private final long accepted;
+        private final long rejected;
+
+        private ChunkStats(Chunk chunk) {
+            this.index = chunk.index;
+            this.bytes = chunk.records.remaining();
+            this.accepted = chunk.accepted;
+            this.rejected = chunk.rejected;
+        }
+
+        public int getIndex() {
+            return this.index;
+        }
+
+        public int getBytes() {
+            return this.bytes;
+        }
+
+        public long getAccepted() {
+            return this.accepted;
+        }
+
+        public long getRejected() {
+            return this.rejected;
+        }
+
+        @Override
+        public String toString() {
+            return "{" +
+                " index='" + getIndex() + "'" +
+                ", bytes='" + getBytes() + "'" +
+                ", accepted='" + getAccepted() + "'" +
+                ", rejected='" + getRejected() + "'" +
+                "}";
+        }
+    }
+
+    /**
+     * The outcome of parsing a batch.
+     */
+    @Immutable
+    public static final class Result {
+        private final List<Pojo> pojos;
+        private final List<ChunkStats> chunks;
+
+        private Result(List<Chunk> parsed) {
+            final List<ChunkStats> stats = new ArrayList<>(parsed.size());
+            int size = 0;
+
+            for (Chunk chunk : parsed) {
+                stats.add(new ChunkStats(chunk));
+                size += chunk.pojos.size();
+            }
+
+            final List<Pojo> all = new ArrayList<>(size);
+            for (Chunk chunk : parsed)
+                all.addAll(chunk.pojos);
+
+            this.pojos = Collections.unmodifiableList(all);
+            this.chunks = Collections.unmodifiableList(stats);
+        }
+
+        /**
+         * The valid Pojos, in input order. Empty when they were handed to a sink instead.
+         *
+         * @return The Pojos
+         */
+        public List<Pojo> getPojos() {
+            return this.pojos;
+        }
+
+        public List<ChunkStats> getChunks() {
+            return this.chunks;
+        }
+
+        public long getAccepted() {
+            return chunks.stream().mapToLong(ChunkStats::getAccepted).sum();
+        }
+
+        public long getRejected() {
+            return chunks.stream().mapToLong(ChunkStats::getRejected).sum();
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package cloud.wraith.javascratchpad;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Stream;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Serialises a batch of Pojos as a json array or newline-delimited json, straight into a ByteBuffer,
+ * an OutputStream or a WritableByteChannel.
+ *
+ * Unlike looping over toBytes(), no byte array is made per Pojo: the generator's recycled buffer is
+ * copied once into the target. Writes to a channel go through direct buffers taken from a pool that is
+ * reused across calls, and several full buffers are handed to the channel in one gathering write.
+ * The channel should be in blocking mode. The target is never closed.
+ */
+@ThreadSafe
+public final class PojoBatchWriter {
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    static final int DEFAULT_POOL_SIZE = 16;
+
+    private final int chunkSize;
+    private final int poolSize;
+    private final BlockingQueue<ByteBuffer> pool;
+
+    private PojoBatchWriter(int chunkSize, int poolSize) {
+        this.chunkSize = chunkSize;
+        this.poolSize = poolSize;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * Returns a writer with its own pool of sixteen 64KB buffers.
+     *
+     * @return A batch writer
+     */
+    public static PojoBatchWriter of() {
+        return new PojoBatchWriter(DEFAULT_CHUNK_SIZE, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Returns a writer, with a new pool, whose buffers are a different size.
+     *
+     * @param chunkSize The size of a pooled buffer in bytes
+     * @return A batch writer
+     */
+    public PojoBatchWriter withChunkSize(int chunkSize) {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("Chunk size should be positive");
+
+        return new PojoBatchWriter(chunkSize, poolSize);
+    }
+
+    /**
+     * Returns a writer, with a new pool, that keeps a different number of buffers. This is also the
+     * most buffers handed to a channel in one gathering write.
+     *
+     * @param poolSize The number of buffers to keep
+     * @return A batch writer
+     */
+    public PojoBatchWriter withPoolSize(int poolSize) {
+        if (poolSize <= 0)
+            throw new IllegalArgumentException("Pool size should be positive");
+
+        return new PojoBatchWriter(chunkSize, poolSize);
+    }
+
+    /**
+     * Write Pojos into a buffer, from its position. If they do not all fit, the position is left where
+     * it was and nothing is written.
+     *
+     * @param pojos The Pojos to write
+     * @param format The layout to write
+     * @param target The buffer
+     * @return The number of bytes written
+     * @throws BufferOverflowException if the buffer has too little room
+     */
+    public int write(Iterable<Pojo> pojos, PojoStreams.Format format, ByteBuffer target) {
+        final BufferSink sink = new BufferSink(Objects.requireNonNull(target));
+
+        try (PojoStreams.Writer writer = PojoStreams.writer(sink, format)) {
+            writer.writeAll(pojos);
+        }
+
+        return sink.finish();
+    }
+
+    /**
+     * Write Pojos into a buffer, from its position. If they do not all fit, the position is left where
+     * it was and nothing is written.
+     *
+     * @param pojos The Pojos to write
+     * @param format The layout to write
+     * @param target The buffer
+     * @return The number of bytes written
+     * @throws BufferOverflowException if the buffer has too little room
+     */
+    public int write(Pojo[] pojos, PojoStreams.Format format, ByteBuffer target) {
+        return write(Arrays.asList(pojos), format, target);
+    }
+
+    /**
+     * Write Pojos into a buffer, from its position. If they do not all fit, the position is left where
+     * it was, nothing is written and the stream is consumed.
+     *
+     * @param pojos The Pojos to write
+     * @param format The layout to write
+     * @param target The buffer
+     * @return The number of bytes written
+     * @throws BufferOverflowException if the buffer has too little room
+     */
+    public int write(Stream<Pojo> pojos, PojoStreams.Format format, ByteBuffer target) {
+        return write(pojos::iterator, format, target);
+    }
+
+    /**
+     * Write Pojos to an output stream, which is flushed but not closed.
+     *
+     * @param pojos The Pojos to write
+     * @param format The layout to write
+     * @param out The output
+     * @return The number of bytes written
+     * @throws UncheckedIOException if the output cannot be written
+     */
+    public long write(Iterable<Pojo> pojos, PojoStreams.Format format, OutputStream out) {
+        final StreamSink sink = new StreamSink(Objects.requireNonNull(out));
+
+        try (PojoStreams.Writer writer = PojoStreams.writer(sink, format)) {
+            writer.writeAll(pojos);
+        }
+
+        return sink.count;
+    }
+
+    /**
+     * Write Pojos to an output stream, which is flushed but not closed.
+     *
+     * @param pojos The Pojos to write
+     * @param format The layout to write
+     * @param out The output
+     * @return The number of bytes written
+     * @throws UncheckedIOException if the output cannot be written
+     */
+    public long write(Pojo[] pojos, PojoStreams.Format format, OutputStream out) {
+        return write(Arrays.asList(pojos), format, out);
+    }
+
+    /**
+     * Write Pojos to an output stream, which is flushed but not closed.
+     *
+     * @param pojos The Pojos to write
+     * @param format The layout to write
+     * @param out The output
+     * @return The number of bytes written
+     * @throws UncheckedIOException if the output cannot be written
+     */
+    public long write(Stream<Pojo> pojos, PojoStreams.Format format, OutputStream out) {
+        return write(pojos::iterator, format, out);
+    }
+
+    /**
+     * Write Pojos to a channel through pooled buffers, with gathering writes where the channel supports
+     * them. The channel is not closed.
+     *
+     * @param pojos The Pojos to write
+     * @param format The layout to write
+     * @param channel The channel, in blocking mode
+     * @return The number of bytes written
+     * @throws UncheckedIOException if the channel cannot be written
+     */
+    public long write(Iterable<Pojo> pojos, PojoStreams.Format format, WritableByteChannel channel) {
+        final ChannelSink sink = new ChannelSink(Objects.requireNonNull(channel));
+
+        // Closing the writer closes the sink, which writes what is left and returns the buffers
+        try (PojoStreams.Writer writer = PojoStreams.writer(sink, format)) {
+            writer.writeAll(pojos);
+        }
+
+        return sink.count;
+    }
+
+    /**
+     * Write Pojos to a channel through pooled buffers, with gathering writes where the channel supports
+     * them. The channel is not closed.
+     *
+     * @param pojos The Pojos to write
+     * @param format The layout to write
+     * @param channel The channel, in blocking mode
+     * @return The number of bytes written
+     * @throws UncheckedIOException if the channel cannot be written
+     */
+    public long write(Pojo[] pojos, PojoStreams.Format format, WritableByteChannel channel) {
+        return write(Arrays.asList(pojos), format, channel);
+    }
+
+    /**
+     * Write Pojos to a channel through pooled buffers, with gathering writes where the channel supports
+     * them. The channel is not closed.
+     *
+     * @param pojos The Pojos to write
+     * @param format The layout to write
+     * @param channel The channel, in blocking mode
+     * @return The number of bytes written
+     * @throws UncheckedIOException if the channel cannot be written
+     */
+    public long write(Stream<Pojo> pojos, PojoStreams.Format format, WritableByteChannel channel) {
+        return write(pojos::iterator, format, channel);
+    }
+
+    /**
+     * The number of buffers waiting in the pool.
+     */
+    int pooled() {
+        return pool.size();
+    }
+
+    private ByteBuffer acquire() {
+        final ByteBuffer buffer = pool.poll();
+
+        return Objects.nonNull(buffer) ? buffer : ByteBuffer.allocateDirect(chunkSize);
+    }
+
+    private void release(ByteBuffer buffer) {
+        // A full pool means this buffer was made for a burst, so it is left to the garbage collector
+        pool.offer(buffer.clear());
+    }
+
+    /**
+     * Copies into a caller's buffer, remembering an overflow rather than failing mid-record.
+     */
+    private static final class BufferSink extends OutputStream {
+        private final ByteBuffer target;
+        private final int start;
+        private boolean overflowed;
+
+        BufferSink(ByteBuffer target) {
+            this.target = target;
+            this.start = target.position();
+        }
+
+        @Override
+        public void write(int b) {
+            if (overflowed || !target.hasRemaining())
+                overflowed = true;
+            else
+                target.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            if (overflowed || target.remaining() < length)
+                overflowed = true;
+            else
+                target.put(bytes, offset, length);
+        }
+
+        int finish() {
+            if (overflowed) {
+                target.position(start);
+                throw new BufferOverflowException();
+            }
+
+            return target.position() - start;
+        }
+    }
+
+    /**
+     * Passes through to a caller's stream, which is flushed but not closed.
+     */
+    private static final class StreamSink extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        StreamSink(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            count += length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * Fills pooled buffers and hands them to a caller's channel, as many at once as the pool holds.
+     */
+    private final class ChannelSink extends OutputStream {
+        private final WritableByteChannel channel;
+        private final ByteBuffer[] chunks = new ByteBuffer[poolSize];
+        private int filled;
+        private long count;
+        private boolean closed;
+
+        ChannelSink(WritableByteChannel channel) {
+            this.channel = channel;
+            chunks[0] = acquire();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            final ByteBuffer chunk = chunks[filled];
+
+            chunk.put((byte) b);
+            count++;
+
+            if (!chunk.hasRemaining())
+                nextChunk();
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                final ByteBuffer chunk = chunks[filled];
+                final int part = Math.min(length, chunk.remaining());
+
+                chunk.put(bytes, offset, part);
+                offset += part;
+                length -= part;
+                count += part;
+
+                if (!chunk.hasRemaining())
+                    nextChunk();
+            }
+        }
+
+        private void nextChunk() throws IOException {
+            if (++filled == chunks.length)
+                drain();
+
+            if (Objects.isNull(chunks[filled]))
+                chunks[filled] = acquire();
+        }
+
+        /**
+         * Write every filled buffer, and the partly filled one, then start again from the first.
+         */
+        private void drain() throws IOException {
+            final int used = Math.min(filled + 1, chunks.length);
+
+            long remaining = 0;
+
+            for (int i = 0; i < used; i++)
+                remaining += chunks[i].flip().remaining();
+
+            if (channel instanceof GatheringByteChannel) {
+                while (remaining > 0)
+                    remaining -= ((GatheringByteChannel) channel).write(chunks, 0, used);
+            } else {
+                for (int i = 0; i < used; i++)
+                    while (chunks[i].hasRemaining())
+                        channel.write(chunks[i]);
+            }
+
+            for (int i = 0; i < used; i++)
+                chunks[i].clear();
+
+            filled = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed)
+                return;
+
+            closed = true;
+
+            try {
+
+                if (filled > 0 || chunks[0].position() > 0)
+                    drain();
+
+            } finally {
+
+                for (int i = 0; i < chunks.length; i++) {
+                    if (Objects.nonNull(chunks[i]))
+                        release(chunks[i]);
+                    chunks[i] = null;
+                }
+
+            }
+        }
+    }
+}
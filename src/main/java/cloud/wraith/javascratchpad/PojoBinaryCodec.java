@@ -0,0 +1,329 @@
+package cloud.wraith.javascratchpad;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Compact, versioned binary serialisation of Pojo, alongside the json form.
+ *
+ * Each record is self-delimiting, so records can simply be concatenated in a stream or buffer:
+ * <pre>
+ *   byte     version, currently 1
+ *   byte     flags, bit 0 set when the id is packed as a UUID
+ *   id       16 bytes, most significant first, when packed, otherwise a varint length and UTF-8 bytes
+ *   name     varint length and UTF-8 bytes
+ *   intValue zig-zag varint
+ *   byte     ordinal of the type of thing
+ * </pre>
+ * The ignored property is not written, just as it is not written to json.
+ */
+@ThreadSafe
+public final class PojoBinaryCodec {
+    static final byte VERSION = 1;
+    static final int FLAG_UUID_ID = 1;
+
+    private static final int MAX_VARINT_SIZE = 5;
+
+    /**
+     * Hide the constructor of a static utility class.
+     */
+    private PojoBinaryCodec() {
+    }
+
+    /**
+     * Serialise a Pojo to a new byte array.
+     *
+     * @param pojo The Pojo
+     * @return The binary form
+     */
+    public static byte[] encode(Pojo pojo) {
+        final ByteBuffer buffer = ByteBuffer.allocate(maxEncodedSize(pojo));
+
+        encode(pojo, buffer);
+
+        final byte[] bytes = new byte[buffer.position()];
+        buffer.flip().get(bytes);
+
+        return bytes;
+    }
+
+    /**
+     * Serialise a Pojo into a buffer at its position, advancing it.
+     *
+     * @param pojo The Pojo
+     * @param buffer The target
+     * @throws BufferOverflowException if the buffer is too small, in which case its position is unchanged
+     */
+    public static void encode(Pojo pojo, ByteBuffer buffer) {
+        final int start = buffer.position();
+
+        try {
+
+            final boolean packed = Uuids.isCanonical(pojo.getId());
+
+            buffer.put(VERSION);
+            buffer.put((byte) (packed ? FLAG_UUID_ID : 0));
+
+            if (packed) {
+                buffer.putLong(Uuids.mostSignificantBits(pojo.getId()));
+                buffer.putLong(Uuids.leastSignificantBits(pojo.getId()));
+            } else {
+                putString(buffer, pojo.getId());
+            }
+
+            putString(buffer, pojo.getName());
+            putVarint(buffer, zigZag(pojo.getIntValue()));
+            buffer.put((byte) pojo.getType().ordinal());
+
+        } catch (BufferOverflowException e) {
+
+            buffer.position(start);
+            throw e;
+
+        }
+    }
+
+    /**
+     * Serialise a Pojo to a stream.
+     *
+     * @param pojo The Pojo
+     * @param out The target
+     * @throws IOException if the stream cannot be written
+     */
+    public static void encode(Pojo pojo, OutputStream out) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(maxEncodedSize(pojo));
+
+        encode(pojo, buffer);
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    /**
+     * Deserialise a Pojo from a byte array holding exactly one record.
+     *
+     * @param bytes The binary form
+     * @return The Pojo, or empty if the bytes are not a valid Pojo
+     */
+    public static Optional<Pojo> decode(byte[] bytes) {
+        if (Objects.isNull(bytes))
+            return Optional.<Pojo>empty();
+
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final Optional<Pojo> pojo = decode(buffer);
+
+        return buffer.hasRemaining() ? Optional.<Pojo>empty() : pojo;
+    }
+
+    /**
+     * Deserialise the next Pojo from a buffer, advancing its position past the record.
+     *
+     * @param buffer The source
+     * @return The Pojo, or empty if the record is not a valid Pojo, in which case the position is unchanged
+     */
+    public static Optional<Pojo> decode(ByteBuffer buffer) {
+        final int start = buffer.position();
+
+        try {
+
+            if (buffer.get() != VERSION)
+                return reset(buffer, start);
+
+            final int flags = buffer.get();
+            final String id = (flags & FLAG_UUID_ID) != 0
+                ? Uuids.toString(buffer.getLong(), buffer.getLong())
+                : getString(buffer);
+            final String name = getString(buffer);
+            final int intValue = unZigZag(getVarint(buffer));
+            final Pojo.TypeOfThing typeOfThing = Pojo.TypeOfThing.lookup(buffer.get());
+
+            if (!PojoValidation.validate(id, name, intValue, typeOfThing).isValid())
+                return reset(buffer, start);
+
+            return Optional.<Pojo>of(Pojo.ofValidated(id, name, intValue, typeOfThing));
+
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+
+            return reset(buffer, start);
+
+        }
+    }
+
+    /**
+     * Deserialise the next Pojo from a stream.
+     *
+     * @param in The source
+     * @return The Pojo, or empty at the end of the stream
+     * @throws StreamCorruptedException if the record is not a valid Pojo
+     * @throws EOFException if the stream ends part way through a record
+     * @throws IOException if the stream cannot be read
+     */
+    public static Optional<Pojo> decode(InputStream in) throws IOException {
+        final int version = in.read();
+
+        if (version < 0)
+            return Optional.<Pojo>empty();
+        if (version != VERSION)
+            throw new StreamCorruptedException("Unsupported version " + version);
+
+        final int flags = readByte(in);
+        final String id;
+
+        if ((flags & FLAG_UUID_ID) != 0) {
+            final ByteBuffer uuid = ByteBuffer.wrap(readFully(in, 2 * Long.BYTES));
+            id = Uuids.toString(uuid.getLong(), uuid.getLong());
+        } else {
+            id = new String(readFully(in, readVarint(in)), StandardCharsets.UTF_8);
+        }
+
+        final String name = new String(readFully(in, readVarint(in)), StandardCharsets.UTF_8);
+        final int intValue = unZigZag(readVarint(in));
+        final Pojo.TypeOfThing typeOfThing = Pojo.TypeOfThing.lookup(readByte(in));
+        final PojoValidation validation = PojoValidation.validate(id, name, intValue, typeOfThing);
+
+        if (!validation.isValid())
+            throw new StreamCorruptedException(validation.getMessage());
+
+        return Optional.<Pojo>of(Pojo.ofValidated(id, name, intValue, typeOfThing));
+    }
+
+    /**
+     * Convert the json form of a Pojo to the binary form.
+     *
+     * @param json The json as a byte array
+     * @return The binary form, or empty if the json is not a valid Pojo
+     */
+    public static Optional<byte[]> fromJson(byte[] json) {
+        return Pojo.of(json).map(PojoBinaryCodec::encode);
+    }
+
+    /**
+     * Convert the binary form of a Pojo to the json form.
+     *
+     * @param bytes The binary form
+     * @return The json as a byte array, or empty if the bytes are not a valid Pojo
+     */
+    public static Optional<byte[]> toJson(byte[] bytes) {
+        return decode(bytes).flatMap(Pojo::toBytes);
+    }
+
+    /**
+     * An upper bound on the size of the binary form of a Pojo.
+     *
+     * @param pojo The Pojo
+     * @return The maximum number of bytes needed
+     */
+    static int maxEncodedSize(Pojo pojo) {
+        // A UTF-16 char never takes more than 3 bytes in UTF-8
+        return 2 + 3 * MAX_VARINT_SIZE + 1
+            + 3 * pojo.getId().length()
+            + 3 * pojo.getName().length();
+    }
+
+    static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void putVarint(ByteBuffer buffer, int value) {
+        int remaining = value;
+
+        while ((remaining & ~0x7F) != 0) {
+            buffer.put((byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+
+        buffer.put((byte) remaining);
+    }
+
+    static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+
+        for (int shift = 0; shift < 7 * MAX_VARINT_SIZE; shift += 7) {
+            final byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+
+            if (b >= 0)
+                return value;
+        }
+
+        throw new IllegalArgumentException("Varint is longer than " + MAX_VARINT_SIZE + " bytes");
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        putVarint(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        final int length = getVarint(buffer);
+
+        if (length < 0 || length > buffer.remaining())
+            throw new BufferUnderflowException();
+
+        if (buffer.hasArray()) {
+            final String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Optional<Pojo> reset(ByteBuffer buffer, int position) {
+        buffer.position(position);
+        return Optional.<Pojo>empty();
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        final int b = in.read();
+
+        if (b < 0)
+            throw new EOFException("Stream ended part way through a record");
+
+        return b;
+    }
+
+    private static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 7 * MAX_VARINT_SIZE; shift += 7) {
+            final int b = readByte(in);
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0)
+                return value;
+        }
+
+        throw new StreamCorruptedException("Varint is longer than " + MAX_VARINT_SIZE + " bytes");
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        if (length < 0)
+            throw new StreamCorruptedException("Negative length " + length);
+
+        final byte[] bytes = in.readNBytes(length);
+
+        if (bytes.length != length)
+            throw new EOFException("Stream ended part way through a record");
+
+        return bytes;
+    }
+}
@@ -0,0 +1,327 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Shared, pre-configured Jackson codec for Pojo.
+ *
+ * Holds a single ObjectMapper and the readers/writers derived from it. Readers and writers are immutable
+ * and thread-safe, so the introspection of Pojo's annotations is done once per JVM rather than once per call.
+ * The mapper has PojoModule registered, so Pojos are read and written by hand-written streaming code.
+ */
+@ThreadSafe
+public final class PojoCodec {
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new PojoModule());
+
+    private static final ObjectReader READER = MAPPER.readerFor(Pojo.class);
+    private static final ObjectReader ARRAY_READER = MAPPER.readerFor(Pojo[].class);
+    private static final ObjectReader LIST_READER = MAPPER.readerFor(new TypeReference<List<Pojo>>() {});
+
+    private static final ObjectWriter WRITER = MAPPER.writerFor(Pojo.class);
+    private static final ObjectWriter ARRAY_WRITER = MAPPER.writerFor(Pojo[].class);
+    private static final ObjectWriter LIST_WRITER = MAPPER.writerFor(new TypeReference<List<Pojo>>() {});
+
+    /**
+     * Hide the constructor of a static utility class.
+     */
+    private PojoCodec() {
+    }
+
+    /**
+     * Deserialise a Pojo from json supplied as a string.
+     * Tolerates a source value of null, or json of null, returning an empty Optional<Pojo>
+     *
+     * @param json The source json as a string
+     * @return The deserialised Pojo, or empty if the json is not a valid Pojo
+     */
+    public static Optional<Pojo> read(String json) {
+        try {
+
+            return Objects.isNull(json)
+                ? Optional.<Pojo>empty()
+                : Optional.<Pojo>ofNullable(READER.readValue(json));
+
+        } catch (IOException e) {
+
+            PojoMetrics.reject(e);
+            return Optional.<Pojo>empty();
+
+        }
+    }
+
+    /**
+     * Deserialise a Pojo from json supplied as a byte array.
+     * Tolerates a source value of null, or json of null, returning an empty Optional<Pojo>
+     *
+     * @param bytes The source json as a byte array
+     * @return The deserialised Pojo, or empty if the json is not a valid Pojo
+     */
+    public static Optional<Pojo> read(byte[] bytes) {
+        try {
+
+            return Objects.isNull(bytes)
+                ? Optional.<Pojo>empty()
+                : Optional.<Pojo>ofNullable(READER.readValue(bytes));
+
+        } catch (IOException e) {
+
+            PojoMetrics.reject(e);
+            return Optional.<Pojo>empty();
+
+        }
+    }
+
+    /**
+     * Deserialise an array of Pojos from a json array supplied as a string.
+     *
+     * @param json The source json array as a string
+     * @return The deserialised array, or empty if the json is null or any element is not a valid Pojo
+     */
+    public static Optional<Pojo[]> readArray(String json) {
+        try {
+
+            return Objects.isNull(json)
+                ? Optional.<Pojo[]>empty()
+                : withoutNulls(ARRAY_READER.<Pojo[]>readValue(json));
+
+        } catch (IOException e) {
+
+            return Optional.<Pojo[]>empty();
+
+        }
+    }
+
+    /**
+     * Deserialise an array of Pojos from a json array supplied as a byte array.
+     *
+     * @param bytes The source json array as a byte array
+     * @return The deserialised array, or empty if the json is null or any element is not a valid Pojo
+     */
+    public static Optional<Pojo[]> readArray(byte[] bytes) {
+        try {
+
+            return Objects.isNull(bytes)
+                ? Optional.<Pojo[]>empty()
+                : withoutNulls(ARRAY_READER.<Pojo[]>readValue(bytes));
+
+        } catch (IOException e) {
+
+            return Optional.<Pojo[]>empty();
+
+        }
+    }
+
+    /**
+     * Deserialise a list of Pojos from a json array supplied as a string.
+     *
+     * @param json The source json array as a string
+     * @return The deserialised list, or empty if the json is null or any element is not a valid Pojo
+     */
+    public static Optional<List<Pojo>> readList(String json) {
+        try {
+
+            return Objects.isNull(json)
+                ? Optional.<List<Pojo>>empty()
+                : withoutNulls(LIST_READER.<List<Pojo>>readValue(json));
+
+        } catch (IOException e) {
+
+            return Optional.<List<Pojo>>empty();
+
+        }
+    }
+
+    /**
+     * Deserialise a list of Pojos from a json array supplied as a byte array.
+     *
+     * @param bytes The source json array as a byte array
+     * @return The deserialised list, or empty if the json is null or any element is not a valid Pojo
+     */
+    public static Optional<List<Pojo>> readList(byte[] bytes) {
+        try {
+
+            return Objects.isNull(bytes)
+                ? Optional.<List<Pojo>>empty()
+                : withoutNulls(LIST_READER.<List<Pojo>>readValue(bytes));
+
+        } catch (IOException e) {
+
+            return Optional.<List<Pojo>>empty();
+
+        }
+    }
+
+    /**
+     * Jackson reads json of null as a null array, and null elements as null Pojos, neither of which is valid.
+     */
+    private static Optional<Pojo[]> withoutNulls(Pojo[] pojos) {
+        return Objects.isNull(pojos) || Arrays.stream(pojos).anyMatch(Objects::isNull)
+            ? Optional.<Pojo[]>empty()
+            : Optional.<Pojo[]>of(pojos);
+    }
+
+    /**
+     * Jackson reads json of null as a null list, and null elements as null Pojos, neither of which is valid.
+     */
+    private static Optional<List<Pojo>> withoutNulls(List<Pojo> pojos) {
+        return Objects.isNull(pojos) || pojos.stream().anyMatch(Objects::isNull)
+            ? Optional.<List<Pojo>>empty()
+            : Optional.<List<Pojo>>of(pojos);
+    }
+
+    /**
+     * Serialise a Pojo to json as a string.
+     *
+     * @param pojo The Pojo to serialise
+     * @return The json, or empty if serialisation fails
+     */
+    public static Optional<String> toJson(Pojo pojo) {
+        try {
+
+            return Optional.<String>of(WRITER.writeValueAsString(pojo));
+
+        } catch (JsonProcessingException e) {
+
+            return Optional.<String>empty();
+
+        }
+    }
+
+    /**
+     * Serialise a Pojo to json as a byte array.
+     *
+     * @param pojo The Pojo to serialise
+     * @return The json, or empty if serialisation fails
+     */
+    public static Optional<byte[]> toBytes(Pojo pojo) {
+        try {
+
+            return Optional.<byte[]>of(WRITER.writeValueAsBytes(pojo));
+
+        } catch (JsonProcessingException e) {
+
+            return Optional.<byte[]>empty();
+
+        }
+    }
+
+    /**
+     * Serialise an array of Pojos to a json array as a string.
+     *
+     * @param pojos The Pojos to serialise
+     * @return The json, or empty if serialisation fails
+     */
+    public static Optional<String> toJson(Pojo[] pojos) {
+        try {
+
+            return Optional.<String>of(ARRAY_WRITER.writeValueAsString(pojos));
+
+        } catch (JsonProcessingException e) {
+
+            return Optional.<String>empty();
+
+        }
+    }
+
+    /**
+     * Serialise a list of Pojos to a json array as a string.
+     *
+     * @param pojos The Pojos to serialise
+     * @return The json, or empty if serialisation fails
+     */
+    public static Optional<String> toJson(List<Pojo> pojos) {
+        try {
+
+            return Optional.<String>of(LIST_WRITER.writeValueAsString(pojos));
+
+        } catch (JsonProcessingException e) {
+
+            return Optional.<String>empty();
+
+        }
+    }
+
+    /**
+     * Serialise an array of Pojos to a json array as a byte array.
+     *
+     * @param pojos The Pojos to serialise
+     * @return The json, or empty if serialisation fails
+     */
+    public static Optional<byte[]> toBytes(Pojo[] pojos) {
+        try {
+
+            return Optional.<byte[]>of(ARRAY_WRITER.writeValueAsBytes(pojos));
+
+        } catch (JsonProcessingException e) {
+
+            return Optional.<byte[]>empty();
+
+        }
+    }
+
+    /**
+     * Serialise a list of Pojos to a json array as a byte array.
+     *
+     * @param pojos The Pojos to serialise
+     * @return The json, or empty if serialisation fails
+     */
+    public static Optional<byte[]> toBytes(List<Pojo> pojos) {
+        try {
+
+            return Optional.<byte[]>of(LIST_WRITER.writeValueAsBytes(pojos));
+
+        } catch (JsonProcessingException e) {
+
+            return Optional.<byte[]>empty();
+
+        }
+    }
+
+    /**
+     * A projector that reads only the given fields of Pojo json, skipping the rest of each record.
+     *
+     * @param fields The fields to read
+     * @return The projector
+     * @throws IllegalArgumentException if no fields are given
+     */
+    public static PojoProjector project(EnumSet<PojoField> fields) {
+        return new PojoProjector(Objects.requireNonNull(fields));
+    }
+
+    static JsonFactory factory() {
+        return MAPPER.getFactory();
+    }
+
+    static ObjectReader reader() {
+        return READER;
+    }
+
+    /**
+     * A reader of another type from the same configuration, eg. a Map for reading json that is not a Pojo.
+     * Readers are immutable, so the shared mapper cannot be reconfigured through one.
+     *
+     * @param type The type to read
+     * @return The reader
+     */
+    static ObjectReader reader(Class<?> type) {
+        return MAPPER.readerFor(type);
+    }
+
+    static ObjectWriter writer() {
+        return WRITER;
+    }
+}
@@ -0,0 +1,482 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Logs Pojo events, rejects, parse failures and throughput summaries, as newline-delimited json, without
+ * the calling thread formatting anything or waiting on I/O.
+ *
+ * Callers copy an event's fields into the next free slot of a fixed ring of preallocated slots, claimed
+ * with a compare-and-set rather than a lock, and go on. A single writer thread takes the slots in order,
+ * a batch at a time, formats them with a Jackson generator and flushes once per batch. When the writer
+ * has nothing to do it sleeps for a millisecond rather than have callers wake it.
+ *
+ * When the ring is full an event is dropped and counted rather than waited for. With sampling, once the
+ * ring is three quarters full only one reject in so many is kept, and the rest are counted as sampled,
+ * leaving room for the throughput summaries. The writer logs the counts of both whenever they change.
+ */
+@Immutable
+public final class PojoEventLog {
+    static final int DEFAULT_CAPACITY = 8192;
+    static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int REJECT = 0;
+    private static final int THROUGHPUT = 1;
+    // Set in the tail on close, so no caller can claim a slot once the writer may have finished
+    private static final long CLOSED = 1L << 62;
+
+    private final int capacity;
+    private final int batchSize;
+    private final int sampling;
+
+    private PojoEventLog(int capacity, int batchSize, int sampling) {
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.sampling = sampling;
+    }
+
+    /**
+     * Returns a log with room for 8192 events, written 256 at a time, that drops events only when full.
+     *
+     * @return A log, not yet started
+     */
+    public static PojoEventLog of() {
+        return new PojoEventLog(DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, 1);
+    }
+
+    /**
+     * Returns a copy of this log with room for a different number of events.
+     *
+     * @param capacity The number of slots in the ring, a power of two
+     * @return A log
+     */
+    public PojoEventLog withCapacity(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacity should be a positive power of two");
+
+        return new PojoEventLog(capacity, batchSize, sampling);
+    }
+
+    /**
+     * Returns a copy of this log that writes a different number of events at a time.
+     *
+     * @param batchSize The most events written between flushes
+     * @return A log
+     */
+    public PojoEventLog withBatchSize(int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Batch size should be positive");
+
+        return new PojoEventLog(capacity, batchSize, sampling);
+    }
+
+    /**
+     * Returns a copy of this log that samples rejects when the ring is three quarters full.
+     *
+     * @param oneIn Keep one reject in this many, or 1 to keep every reject until the ring is full
+     * @return A log
+     */
+    public PojoEventLog withSampling(int oneIn) {
+        if (oneIn <= 0)
+            throw new IllegalArgumentException("Sampling should be positive");
+
+        return new PojoEventLog(capacity, batchSize, oneIn);
+    }
+
+    /**
+     * Start the writer thread.
+     *
+     * @param writer Where the events go, flushed after each batch but not closed
+     * @return The running log, to be closed when done
+     * @throws UncheckedIOException if a generator cannot be made for the writer
+     */
+    public Running start(Writer writer) {
+        try {
+
+            return new Running(Objects.requireNonNull(writer));
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+
+        }
+    }
+
+    /**
+     * An event, copied in by a caller and read out by the writer. Who may touch it is decided by its
+     * sequence in the ring.
+     */
+    @NotThreadSafe
+    private static final class Slot {
+        private int kind;
+        private long time;
+        private String thread;
+        private long first;
+        private long second;
+        private long third;
+        private JsonProcessingException cause;
+    }
+
+    /**
+     * A started log. It is also a reject handler, for a PojoPipeline or PojoIngestServer, so every reject
+     * is logged with its index and reason.
+     */
+    @ThreadSafe
+    public final class Running implements PojoStreams.RejectHandler, Closeable {
+        private final Slot[] slots = new Slot[capacity];
+        // A slot is free for the caller claiming position n when its sequence is n, and ready for the
+        // writer when it is n + 1; the writer then frees it for position n + capacity
+        private final AtomicLongArray sequences = new AtomicLongArray(capacity);
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong head = new AtomicLong();
+        private final int mask = capacity - 1;
+        private final int sampleFrom = capacity - capacity / 4;
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder sampled = new LongAdder();
+        private final LongAdder written = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final Writer writer;
+        private final Thread thread;
+        private JsonGenerator generator;
+        private long droppedLogged;
+        private long sampledLogged;
+        private volatile boolean closed;
+
+        private Running(Writer writer) throws IOException {
+            for (int i = 0; i < capacity; i++) {
+                slots[i] = new Slot();
+                sequences.set(i, i);
+            }
+
+            this.writer = writer;
+            this.generator = generator();
+            this.thread = new Thread(this::drain, "pojo-event-log-writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private JsonGenerator generator() throws IOException {
+            final JsonGenerator generator = PojoCodec.factory().createGenerator(writer);
+
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            return generator;
+        }
+
+        /**
+         * Log a record that could not be read as a Pojo, as a reject if it failed validation or as a
+         * parse failure if it was not a Pojo at all.
+         *
+         * @param index The zero based position of the record in its input
+         * @param cause Why the record was rejected
+         */
+        @Override
+        public void reject(long index, JsonProcessingException cause) {
+            publish(REJECT, index, 0, 0, cause, sampling > 1);
+        }
+
+        /**
+         * Log a throughput summary. Summaries are never sampled.
+         *
+         * @param records The records read
+         * @param rejected The records rejected
+         * @param elapsedNanos The time taken
+         */
+        public void throughput(long records, long rejected, long elapsedNanos) {
+            publish(THROUGHPUT, records, rejected, elapsedNanos, null, false);
+        }
+
+        private void publish(int kind, long first, long second, long third, JsonProcessingException cause, boolean sample) {
+            long claim = tail.get();
+
+            if ((claim & CLOSED) != 0) {
+                dropped.increment();
+                return;
+            }
+
+            if (sample && claim - head.get() >= sampleFrom && ThreadLocalRandom.current().nextInt(sampling) != 0) {
+                sampled.increment();
+                return;
+            }
+
+            for (;;) {
+                final int i = (int) claim & mask;
+                final long free = sequences.get(i) - claim;
+
+                if (free == 0 && tail.compareAndSet(claim, claim + 1)) {
+                    final Slot slot = slots[i];
+
+                    slot.kind = kind;
+                    slot.time = System.currentTimeMillis();
+                    slot.thread = Thread.currentThread().getName();
+                    slot.first = first;
+                    slot.second = second;
+                    slot.third = third;
+                    slot.cause = cause;
+                    sequences.lazySet(i, claim + 1);
+                    return;
+                }
+
+                claim = tail.get();
+
+                if (free < 0 || (claim & CLOSED) != 0) {
+                    dropped.increment();
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            while (!closed) {
+                if (write() == 0)
+                    LockSupport.parkNanos(IDLE_NANOS);
+            }
+
+            // Callers that claimed a slot before the close finish filling it almost at once
+            while (write() > 0 || (tail.get() & ~CLOSED) != head.get())
+                Thread.onSpinWait();
+        }
+
+        /**
+         * Write the events that are ready, up to a batch, and the drop counts if they have changed.
+         *
+         * @return The number of events taken from the ring
+         */
+        private int write() {
+            final long droppedNow = dropped.sum();
+            final long sampledNow = sampled.sum();
+            long position = head.get();
+            int taken = 0;
+
+            try {
+
+                for (; taken < batchSize; taken++, position++) {
+                    final int i = (int) position & mask;
+
+                    if (sequences.get(i) != position + 1)
+                        break;
+
+                    try {
+
+                        format(slots[i]);
+
+                    } finally {
+
+                        slots[i].thread = null;
+                        slots[i].cause = null;
+                        sequences.lazySet(i, position + capacity);
+                        head.lazySet(position + 1);
+
+                    }
+                }
+
+                final boolean counts = droppedNow != droppedLogged || sampledNow != sampledLogged;
+
+                if (counts) {
+                    generator.writeStartObject();
+                    generator.writeStringField("@timestamp", Instant.now().toString());
+                    generator.writeStringField("event", "dropped");
+                    generator.writeNumberField("dropped", droppedNow);
+                    generator.writeNumberField("sampled", sampledNow);
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                    droppedLogged = droppedNow;
+                    sampledLogged = sampledNow;
+                }
+
+                if (taken > 0 || counts) {
+                    generator.flush();
+                    written.add(taken);
+                    batches.increment();
+                }
+
+            } catch (IOException e) {
+
+                failures.increment();
+                recover();
+
+            }
+
+            return taken;
+        }
+
+        private void recover() {
+            try {
+
+                generator = generator();
+
+            } catch (IOException e) {
+
+                // The json factory does not fail to wrap a writer
+
+            }
+        }
+
+        private void format(Slot slot) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("@timestamp", Instant.ofEpochMilli(slot.time).toString());
+
+            if (slot.kind == REJECT) {
+                final PojoMetrics.RejectReason reason = PojoMetrics.reasonOf(slot.cause);
+                final boolean invalid = reason == PojoMetrics.RejectReason.BLANK_ID || reason == PojoMetrics.RejectReason.INVALID_TYPE_OF_THING;
+
+                generator.writeStringField("event", invalid ? "reject" : "parseFailure");
+                generator.writeStringField("thread", slot.thread);
+                generator.writeNumberField("index", slot.first);
+                generator.writeStringField("reason", reason.name());
+                generator.writeStringField("message", slot.cause.getOriginalMessage());
+            } else {
+                generator.writeStringField("event", "throughput");
+                generator.writeStringField("thread", slot.thread);
+                generator.writeNumberField("records", slot.first);
+                generator.writeNumberField("rejected", slot.second);
+                generator.writeNumberField("elapsedMillis", TimeUnit.NANOSECONDS.toMillis(slot.third));
+                generator.writeNumberField("recordsPerSecond", slot.third > 0 ? Math.round(slot.first * 1e9 / slot.third) : 0);
+            }
+
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        /**
+         * The counts so far.
+         *
+         * @return A snapshot of the counts
+         */
+        public Stats stats() {
+            return new Stats(tail.get() & ~CLOSED, written.sum(), dropped.sum(), sampled.sum(), batches.sum(), failures.sum());
+        }
+
+        /**
+         * Stop taking events, and wait for the writer to write those already taken. Events logged after
+         * closing are dropped.
+         */
+        @Override
+        public void close() {
+            if (closed)
+                return;
+
+            tail.getAndAccumulate(CLOSED, (claim, bit) -> claim | bit);
+            closed = true;
+            LockSupport.unpark(thread);
+
+            try {
+
+                thread.join();
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+
+            }
+        }
+    }
+
+    /**
+     * The counts of a running log.
+     */
+    @Immutable
+    public static final class Stats {
+        private final long published;
+        private final long written;
+        private final long dropped;
+        private final long sampled;
+        private final long batches;
+        private final long failures;
+
+        Stats(long published, long written, long dropped, long sampled, long batches, long failures) {
+            this.published = published;
+            this.written = written;
+            this.dropped = dropped;
+            this.sampled = sampled;
+            this.batches = batches;
+            this.failures = failures;
+        }
+
+        /**
+         * The number of events put on the ring.
+         *
+         * @return The count of events
+         */
+        public long getPublished() {
+            return published;
+        }
+
+        /**
+         * The number of events written and flushed.
+         *
+         * @return The count of events
+         */
+        public long getWritten() {
+            return written;
+        }
+
+        /**
+         * The number of events dropped because the ring was full or the log was closed.
+         *
+         * @return The count of events
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * The number of rejects left out by sampling.
+         *
+         * @return The count of events
+         */
+        public long getSampled() {
+            return sampled;
+        }
+
+        /**
+         * The number of flushes.
+         *
+         * @return The count of batches
+         */
+        public long getBatches() {
+            return batches;
+        }
+
+        /**
+         * The number of batches that failed to be written.
+         *
+         * @return The count of batches
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        @Override
+        public String toString() {
+            return "{"
+                + " published='" + published + "'"
+                + ", written='" + written + "'"
+                + ", dropped='" + dropped + "'"
+                + ", sampled='" + sampled + "'"
+                + ", batches='" + batches + "'"
+                + ", failures='" + failures + "'"
+                + "}";
+        }
+    }
+}
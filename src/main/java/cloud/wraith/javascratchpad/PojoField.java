@@ -0,0 +1,26 @@
+package cloud.wraith.javascratchpad;
+
+/**
+ * The properties of a Pojo, as named in its json.
+ */
+public enum PojoField {
+    ID(PojoTokenReader.ID),
+    NAME(PojoTokenReader.NAME),
+    INT_VALUE(PojoTokenReader.INT_VALUE),
+    TYPE_OF_THING(PojoTokenReader.TYPE_OF_THING);
+
+    private final String jsonName;
+
+    PojoField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    /**
+     * The name of the property in json.
+     *
+     * @return The name
+     */
+    public String getJsonName() {
+        return jsonName;
+    }
+}
@@ -0,0 +1,270 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Reads Pojos from a newline-delimited json file through memory-mapped windows.
+ *
+ * The file is mapped a window at a time, each window trimmed back to the last record boundary in it,
+ * so files larger than 2GB are read without ever copying the content into a byte array or a string.
+ * Records are decoded straight from the mapped bytes, so the only allocation per record is the Pojo.
+ */
+public final class PojoFileReader implements Closeable {
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final byte NEWLINE = '\n';
+
+    private final FileChannel channel;
+    private final int windowSize;
+
+    private PojoFileReader(FileChannel channel, int windowSize) {
+        this.channel = channel;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Open a file for reading with the default window size.
+     *
+     * @param path The newline-delimited json file
+     * @return A reader over the file
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public static PojoFileReader open(Path path) {
+        return open(path, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Open a file for reading.
+     *
+     * @param path The newline-delimited json file
+     * @param windowSize The size in bytes of each mapped window, grown when a single record is larger
+     * @return A reader over the file
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public static PojoFileReader open(Path path, int windowSize) {
+        if (windowSize <= 0)
+            throw new IllegalArgumentException("Window size should be positive");
+
+        try {
+
+            return new PojoFileReader(FileChannel.open(path, StandardOpenOption.READ), windowSize);
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+
+        }
+    }
+
+    /**
+     * Returns the file as a sequence of mapped slices, each holding only whole records.
+     *
+     * @return An iterator of read-only slices, mapped lazily
+     */
+    public Iterator<ByteBuffer> slices() {
+        return new Iterator<ByteBuffer>() {
+            private long position;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            public ByteBuffer next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                final ByteBuffer slice = map(position);
+                position += slice.remaining();
+
+                return slice;
+            }
+        };
+    }
+
+    /**
+     * Parse every record in the file, in order.
+     *
+     * @param sink Receives each valid Pojo
+     * @param rejects Receives each record that is not a valid Pojo
+     * @return The number of records read, accepted or rejected
+     */
+    public long forEach(Consumer<? super Pojo> sink, PojoStreams.RejectHandler rejects) {
+        long index = 0;
+
+        for (Iterator<ByteBuffer> slices = slices(); slices.hasNext(); )
+            index += parse(slices.next(), index, sink, rejects);
+
+        return index;
+    }
+
+    /**
+     * The size of the file in bytes.
+     *
+     * @return The size
+     */
+    public long size() {
+        try {
+
+            return channel.size();
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+
+            channel.close();
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+
+        }
+    }
+
+    /**
+     * Map the window starting at a position, trimmed to end after its last newline.
+     */
+    private ByteBuffer map(long position) {
+        final long remaining = size() - position;
+
+        try {
+
+            for (long length = Math.min(windowSize, remaining); ; length = Math.min(Math.min(length * 2, Integer.MAX_VALUE), remaining)) {
+                final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                if (length == remaining)
+                    return window;
+
+                final int end = lastIndexOf(window, NEWLINE);
+
+                if (end >= 0)
+                    return window.limit(end + 1).slice();
+
+                if (length == Integer.MAX_VALUE)
+                    throw new IOException("Record at byte " + position + " is longer than " + Integer.MAX_VALUE + " bytes");
+            }
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+
+        }
+    }
+
+    private static int lastIndexOf(ByteBuffer buffer, byte value) {
+        for (int i = buffer.limit() - 1; i >= buffer.position(); i--)
+            if (buffer.get(i) == value)
+                return i - buffer.position();
+
+        return -1;
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte value, int from) {
+        for (int i = buffer.position() + from; i < buffer.limit(); i++)
+            if (buffer.get(i) == value)
+                return i - buffer.position();
+
+        return -1;
+    }
+
+    /**
+     * Parse the newline-delimited records of a slice. Malformed json is rejected as one record, and
+     * parsing starts again with a fresh parser on the line after the one where that record began.
+     *
+     * @param slice The records, which are not consumed
+     * @param firstIndex The index in the whole input of the first record in the slice
+     * @param sink Receives each valid Pojo
+     * @param rejects Receives each record that is not a valid Pojo
+     * @return The number of records read, accepted or rejected
+     */
+    static long parse(ByteBuffer slice, long firstIndex, Consumer<? super Pojo> sink, PojoStreams.RejectHandler rejects) {
+        final ByteBuffer remaining = slice.duplicate();
+        long index = firstIndex;
+
+        while (remaining.hasRemaining()) {
+            try (JsonParser parser = PojoCodec.factory().createParser(new ByteBufferBackedInputStream(remaining.duplicate()))) {
+
+                // The offset in the remaining bytes of the record being read, if one is
+                long start = 0;
+                boolean reading = false;
+
+                try {
+
+                    for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                        final long current = index++;
+
+                        start = PojoTokenReader.tokenOffset(parser);
+                        reading = true;
+
+                        try {
+
+                            if (token == JsonToken.START_OBJECT) {
+                                sink.accept(PojoTokenReader.read(parser));
+                            } else {
+                                parser.skipChildren();
+                                rejects.reject(current, JsonMappingException.from(parser, "Expected a json object but found " + token));
+                            }
+
+                        } catch (JsonMappingException e) {
+
+                            // Skip first, so a record whose rest is malformed is only rejected once, for that
+                            while (parser.getParsingContext().getParent() != null && parser.nextToken() != null)
+                                parser.skipChildren();
+
+                            rejects.reject(current, e);
+
+                        }
+
+                        reading = false;
+                    }
+
+                    remaining.position(remaining.limit());
+
+                } catch (JsonParseException e) {
+
+                    // A record that has not started yet is the malformed token itself, and a record that has
+                    // may only fail once the parser is on a later line
+                    if (!reading)
+                        start = PojoTokenReader.tokenOffset(parser);
+
+                    rejects.reject(reading ? index - 1 : index++, e);
+
+                    final int next = indexOf(remaining, NEWLINE, (int) Math.max(0, Math.min(start, remaining.remaining())));
+                    remaining.position(next < 0 ? remaining.limit() : remaining.position() + next + 1);
+
+                }
+
+            } catch (IOException e) {
+
+                throw new UncheckedIOException(e);
+
+            }
+        }
+
+        return index - firstIndex;
+    }
+}
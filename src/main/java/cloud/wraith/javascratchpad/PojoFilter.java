@@ -0,0 +1,136 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A predicate on the id, int value and type of thing of a Pojo, that a streaming reader can push
+ * down to the parser.
+ *
+ * Each condition is checked as soon as its field has been read, so a record that fails one is
+ * skipped token by token without reading the rest of it or building any Strings. For example:
+ * <pre>
+ *   final PojoFilter filter = PojoFilter.all()
+ *       .withTypes(Pojo.TypeOfThing.THIS_THING)
+ *       .withIntValue(intValue -&gt; intValue &gt; limit);
+ *
+ *   try (PojoStreams.Reader reader = PojoStreams.iterator(in, filter, PojoStreams.IGNORE_REJECTS)) {
+ *       reader.forEachRemaining(sink);
+ *   }
+ * </pre>
+ * The id condition sees a CharSequence view that is only valid for the duration of the call.
+ */
+@Immutable
+public final class PojoFilter {
+    private static final PojoFilter ALL = new PojoFilter(EnumSet.allOf(Pojo.TypeOfThing.class), null, null);
+
+    private final Set<Pojo.TypeOfThing> types;
+    private final IntPredicate intValues;
+    private final Predicate<CharSequence> ids;
+
+    private PojoFilter(Set<Pojo.TypeOfThing> types, IntPredicate intValues, Predicate<CharSequence> ids) {
+        this.types = types;
+        this.intValues = intValues;
+        this.ids = ids;
+    }
+
+    /**
+     * A filter that accepts every record.
+     *
+     * @return The filter
+     */
+    public static PojoFilter all() {
+        return ALL;
+    }
+
+    /**
+     * A copy of this filter that only accepts the given types of thing.
+     *
+     * @param first A type of thing to accept
+     * @param rest Any other types of thing to accept
+     * @return The new filter
+     */
+    public PojoFilter withTypes(Pojo.TypeOfThing first, Pojo.TypeOfThing... rest) {
+        return new PojoFilter(EnumSet.of(first, rest), intValues, ids);
+    }
+
+    /**
+     * A copy of this filter that only accepts int values matching a condition, in place of any
+     * previous one.
+     *
+     * @param intValues The condition
+     * @return The new filter
+     */
+    public PojoFilter withIntValue(IntPredicate intValues) {
+        return new PojoFilter(types, Objects.requireNonNull(intValues), ids);
+    }
+
+    /**
+     * A copy of this filter that only accepts int values in a range.
+     *
+     * @param min The lowest int value to accept
+     * @param max The highest int value to accept
+     * @return The new filter
+     * @throws IllegalArgumentException if min is greater than max
+     */
+    public PojoFilter withIntValueBetween(int min, int max) {
+        if (min > max)
+            throw new IllegalArgumentException("Min " + min + " is greater than max " + max);
+
+        return withIntValue(intValue -> intValue >= min && intValue <= max);
+    }
+
+    /**
+     * A copy of this filter that only accepts ids matching a condition, in place of any previous one.
+     * The condition should not keep the CharSequence it is given.
+     *
+     * @param ids The condition
+     * @return The new filter
+     */
+    public PojoFilter withId(Predicate<CharSequence> ids) {
+        return new PojoFilter(types, intValues, Objects.requireNonNull(ids));
+    }
+
+    /**
+     * Whether a Pojo passes every condition.
+     *
+     * @param pojo The Pojo
+     * @return True if it is accepted
+     */
+    public boolean test(Pojo pojo) {
+        return acceptsType(pojo.getType()) && acceptsIntValue(pojo.getIntValue()) && acceptsId(pojo.getId());
+    }
+
+    /**
+     * Whether the current values of a MutablePojo pass every condition.
+     *
+     * @param pojo The MutablePojo
+     * @return True if it is accepted
+     */
+    public boolean test(MutablePojo pojo) {
+        return acceptsType(pojo.getType()) && acceptsIntValue(pojo.getIntValue()) && acceptsId(pojo.getId());
+    }
+
+    boolean acceptsType(Pojo.TypeOfThing typeOfThing) {
+        return Objects.isNull(typeOfThing) || types.contains(typeOfThing);
+    }
+
+    boolean acceptsIntValue(int intValue) {
+        return Objects.isNull(intValues) || intValues.test(intValue);
+    }
+
+    boolean acceptsId(CharSequence id) {
+        return Objects.isNull(ids) || ids.test(id);
+    }
+
+    @Override
+    public String toString() {
+        return "{" + " types='" + types + "'" + ", intValues='" + (Objects.nonNull(intValues) ? "filtered" : "all") + "'" + ", ids='"
+            + (Objects.nonNull(ids) ? "filtered" : "all") + "'" + "}";
+    }
+}
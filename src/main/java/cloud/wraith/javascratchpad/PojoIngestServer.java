@@ -0,0 +1,764 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Accepts newline-delimited Pojo json from many concurrent producers on local TCP connections, and hands
+ * the valid Pojos to consumers in batches.
+ *
+ * Connections are spread over a few event loops, each a single thread with its own Selector, rather
+ * than given a thread each. Each connection reads into a buffer of its own, kept for the life of the
+ * connection and then recycled for the next one. Only whole lines are parsed; a partial record stays at
+ * the front of the buffer for the next read, and a record longer than the largest buffer is rejected
+ * and skipped. Each loop gathers Pojos into batches, handed on when full or when the loop has read all
+ * that is ready, through a bounded queue to the consumer threads.
+ *
+ * When the queue is full a loop waits for room before it reads any more, so the kernel's socket
+ * buffers fill and the producers' writes block, rather than memory growing.
+ */
+@Immutable
+public final class PojoIngestServer {
+    static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    static final int DEFAULT_MAX_RECORD_SIZE = 1024 * 1024;
+    static final int DEFAULT_BATCH_SIZE = 256;
+    static final int DEFAULT_QUEUE_SIZE = 64;
+
+    private static final int MAX_POOLED_BUFFERS = 256;
+    private static final byte NEWLINE = '\n';
+
+    private final int loops;
+    private final int consumers;
+    private final int bufferSize;
+    private final int maxRecordSize;
+    private final int batchSize;
+    private final int queueSize;
+    private final PojoStreams.RejectHandler rejects;
+
+    private PojoIngestServer(int loops, int consumers, int bufferSize, int maxRecordSize, int batchSize, int queueSize,
+        PojoStreams.RejectHandler rejects) {
+
+        this.loops = loops;
+        this.consumers = consumers;
+        this.bufferSize = bufferSize;
+        this.maxRecordSize = maxRecordSize;
+        this.batchSize = batchSize;
+        this.queueSize = queueSize;
+        this.rejects = rejects;
+    }
+
+    /**
+     * Returns a server with an event loop for every two processors and a single consumer thread, 16KB
+     * connection buffers grown up to 1MB for long records, and up to 64 batches of 256 Pojos queued.
+     *
+     * @return A server, not yet started
+     */
+    public static PojoIngestServer of() {
+        return new PojoIngestServer(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 1, DEFAULT_BUFFER_SIZE,
+            DEFAULT_MAX_RECORD_SIZE, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_SIZE, PojoStreams.IGNORE_REJECTS);
+    }
+
+    /**
+     * Returns a copy of this server with a different number of event loops.
+     *
+     * @param loops The number of event loop threads
+     * @return A server
+     */
+    public PojoIngestServer withLoops(int loops) {
+        if (loops <= 0)
+            throw new IllegalArgumentException("Loops should be positive");
+
+        return new PojoIngestServer(loops, consumers, bufferSize, maxRecordSize, batchSize, queueSize, rejects);
+    }
+
+    /**
+     * Returns a copy of this server with a different number of consumer threads. With more than one,
+     * the consumer is called concurrently and must be thread-safe.
+     *
+     * @param consumers The number of consumer threads
+     * @return A server
+     */
+    public PojoIngestServer withConsumers(int consumers) {
+        if (consumers <= 0)
+            throw new IllegalArgumentException("Consumers should be positive");
+
+        return new PojoIngestServer(loops, consumers, bufferSize, maxRecordSize, batchSize, queueSize, rejects);
+    }
+
+    /**
+     * Returns a copy of this server with different sizes of connection buffer.
+     *
+     * @param bufferSize The initial size of a connection's buffer in bytes
+     * @param maxRecordSize The size a buffer may grow to for a single record
+     * @return A server
+     */
+    public PojoIngestServer withBufferSize(int bufferSize, int maxRecordSize) {
+        if (bufferSize <= 0 || maxRecordSize < bufferSize)
+            throw new IllegalArgumentException("Buffer size should be positive and no more than the max record size");
+
+        return new PojoIngestServer(loops, consumers, bufferSize, maxRecordSize, batchSize, queueSize, rejects);
+    }
+
+    /**
+     * Returns a copy of this server that hands on a different number of Pojos at a time.
+     *
+     * @param batchSize The most Pojos in a batch
+     * @return A server
+     */
+    public PojoIngestServer withBatchSize(int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Batch size should be positive");
+
+        return new PojoIngestServer(loops, consumers, bufferSize, maxRecordSize, batchSize, queueSize, rejects);
+    }
+
+    /**
+     * Returns a copy of this server that queues a different number of batches for the consumers.
+     *
+     * @param queueSize The capacity of the queue
+     * @return A server
+     */
+    public PojoIngestServer withQueueSize(int queueSize) {
+        if (queueSize <= 0)
+            throw new IllegalArgumentException("Queue size should be positive");
+
+        return new PojoIngestServer(loops, consumers, bufferSize, maxRecordSize, batchSize, queueSize, rejects);
+    }
+
+    /**
+     * Returns a copy of this server that also passes rejected records to a handler. The handler is
+     * called from an event loop, concurrently when there is more than one, with the index of the
+     * record on its connection.
+     *
+     * @param rejects Receives the records that are not valid Pojos
+     * @return A server
+     */
+    public PojoIngestServer withRejects(PojoStreams.RejectHandler rejects) {
+        return new PojoIngestServer(loops, consumers, bufferSize, maxRecordSize, batchSize, queueSize, Objects.requireNonNull(rejects));
+    }
+
+    /**
+     * Start listening.
+     *
+     * @param address The address to bind, eg. port 0 on the loopback address for any free port
+     * @param consumer Receives each batch of valid Pojos, which it then owns
+     * @return The running server, to be closed when done
+     * @throws UncheckedIOException if the address cannot be bound
+     */
+    public Running start(InetSocketAddress address, Consumer<? super List<Pojo>> consumer) {
+        try {
+
+            return new Running(Objects.requireNonNull(address), Objects.requireNonNull(consumer));
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "{"
+            + " loops='" + loops + "'"
+            + ", consumers='" + consumers + "'"
+            + ", bufferSize='" + bufferSize + "'"
+            + ", maxRecordSize='" + maxRecordSize + "'"
+            + ", batchSize='" + batchSize + "'"
+            + ", queueSize='" + queueSize + "'"
+            + "}";
+    }
+
+    /**
+     * A server that is listening, until it is closed.
+     */
+    @ThreadSafe
+    public final class Running implements Closeable {
+        private final ServerSocketChannel server;
+        private final Consumer<? super List<Pojo>> consumer;
+        private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueSize);
+        private final Loop[] eventLoops = new Loop[loops];
+        private final Thread[] loopThreads = new Thread[loops];
+        private final Thread[] consumerThreads = new Thread[consumers];
+        private final LatencyHistogram handOff = new LatencyHistogram();
+
+        private final LongAdder connections = new LongAdder();
+        private final LongAdder open = new LongAdder();
+        private final LongAdder records = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder stalls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Running(InetSocketAddress address, Consumer<? super List<Pojo>> consumer) throws IOException {
+            this.server = ServerSocketChannel.open();
+            this.consumer = consumer;
+
+            try {
+
+                server.bind(address, 1024);
+                server.configureBlocking(false);
+
+                for (int i = 0; i < loops; i++)
+                    eventLoops[i] = new Loop(Selector.open());
+
+                server.register(eventLoops[0].selector, SelectionKey.OP_ACCEPT);
+
+            } catch (IOException e) {
+
+                server.close();
+                for (Loop loop : eventLoops)
+                    if (Objects.nonNull(loop))
+                        loop.selector.close();
+                throw e;
+
+            }
+
+            for (int i = 0; i < loops; i++)
+                loopThreads[i] = start(eventLoops[i], "pojo-ingest-loop-" + i);
+
+            for (int i = 0; i < consumers; i++)
+                consumerThreads[i] = start(this::consume, "pojo-ingest-consumer-" + i);
+        }
+
+        private Thread start(Runnable task, String name) {
+            final Thread thread = new Thread(task, name);
+
+            thread.setDaemon(true);
+            thread.start();
+            return thread;
+        }
+
+        /**
+         * The address the server is bound to, with the port it was given.
+         *
+         * @return The address
+         */
+        public InetSocketAddress address() {
+            try {
+
+                return (InetSocketAddress) server.getLocalAddress();
+
+            } catch (IOException e) {
+
+                throw new UncheckedIOException(e);
+
+            }
+        }
+
+        /**
+         * The counts so far.
+         *
+         * @return A snapshot of the counts
+         */
+        public Stats stats() {
+            return new Stats(connections.sum(), open.sum(), records.sum(), rejected.sum(), bytes.sum(), batches.sum(),
+                stalls.sum(), failures.sum());
+        }
+
+        /**
+         * The time from the first Pojo of each batch being read until a consumer takes the batch.
+         *
+         * @return The live histogram
+         */
+        public LatencyHistogram handOffLatency() {
+            return handOff;
+        }
+
+        /**
+         * Stop accepting and reading, hand the last batches to the consumers, and wait for them to be
+         * consumed.
+         */
+        @Override
+        public void close() {
+            // Only the first close hands each consumer its end, so none is left blocked on a full queue
+            if (!closed.compareAndSet(false, true))
+                return;
+
+            for (Loop loop : eventLoops)
+                loop.selector.wakeup();
+
+            try {
+
+                for (Thread thread : loopThreads)
+                    thread.join();
+
+                for (int i = 0; i < consumers; i++)
+                    queue.put(Batch.END);
+
+                for (Thread thread : consumerThreads)
+                    thread.join();
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+
+            }
+        }
+
+        private void consume() {
+            try {
+
+                for (Batch batch = queue.take(); batch != Batch.END; batch = queue.take()) {
+                    handOff.recordSince(batch.started);
+
+                    try {
+
+                        consumer.accept(batch.pojos);
+
+                    } catch (Throwable e) {
+
+                        // Even an error must not end the thread, or the loops block on a full queue
+                        failures.increment();
+
+                    }
+                }
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+
+            }
+        }
+
+        /**
+         * An event loop, which owns its selector, its connections, its spare buffers and the batch it
+         * is filling.
+         */
+        private final class Loop implements Runnable, PojoStreams.RejectHandler {
+            private final Selector selector;
+            private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+            private final ArrayDeque<ByteBuffer> buffers = new ArrayDeque<>();
+            private List<Pojo> batch = new ArrayList<>(batchSize);
+            private long started;
+            private int next;
+
+            Loop(Selector selector) {
+                this.selector = selector;
+            }
+
+            @Override
+            public void run() {
+                try {
+
+                    while (!closed.get()) {
+                        selector.select();
+                        register();
+
+                        for (Iterator<SelectionKey> keys = selector.selectedKeys().iterator(); keys.hasNext(); ) {
+                            final SelectionKey key = keys.next();
+
+                            keys.remove();
+
+                            if (!key.isValid())
+                                continue;
+                            if (key.isAcceptable())
+                                accept();
+                            else if (key.isReadable())
+                                read(key);
+                        }
+
+                        handOff();
+                    }
+
+                } catch (IOException e) {
+
+                    // A broken selector ends the loop, and its connections with it
+
+                } catch (InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+
+                } finally {
+
+                    shutDown();
+
+                }
+            }
+
+            private void accept() throws IOException {
+                for (SocketChannel channel = server.accept(); Objects.nonNull(channel); channel = server.accept()) {
+                    final Loop loop = eventLoops[next++ % eventLoops.length];
+
+                    channel.configureBlocking(false);
+                    connections.increment();
+                    open.increment();
+                    loop.accepted.add(channel);
+
+                    if (loop != this)
+                        loop.selector.wakeup();
+                }
+
+                register();
+            }
+
+            private void register() throws IOException {
+                for (SocketChannel channel = accepted.poll(); Objects.nonNull(channel); channel = accepted.poll())
+                    channel.register(selector, SelectionKey.OP_READ, new Connection(buffer()));
+            }
+
+            private void read(SelectionKey key) throws InterruptedException {
+                final Connection connection = (Connection) key.attachment();
+                int read;
+
+                try {
+
+                    read = ((SocketChannel) key.channel()).read(connection.buffer);
+
+                } catch (IOException e) {
+
+                    read = -1;
+
+                }
+
+                if (read > 0) {
+                    bytes.add(read);
+                    connection.parse(this, false);
+                } else if (read < 0) {
+                    connection.parse(this, true);
+                    close(key);
+                }
+            }
+
+            /**
+             * Take a Pojo into the batch, handing the batch on when it is full.
+             */
+            void add(Pojo pojo) {
+                if (batch.isEmpty())
+                    started = System.nanoTime();
+
+                batch.add(pojo);
+                records.increment();
+
+                if (batch.size() == batchSize)
+                    handOffUninterruptibly();
+            }
+
+            private void handOffUninterruptibly() {
+                try {
+
+                    handOff();
+
+                } catch (InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+
+                }
+            }
+
+            /**
+             * Hand the batch to the consumers, waiting for room in the queue when it is full.
+             */
+            private void handOff() throws InterruptedException {
+                if (batch.isEmpty())
+                    return;
+
+                final Batch full = new Batch(batch, started);
+
+                if (!queue.offer(full)) {
+                    stalls.increment();
+                    queue.put(full);
+                }
+
+                batches.increment();
+                batch = new ArrayList<>(batchSize);
+            }
+
+            @Override
+            public void reject(long index, JsonProcessingException cause) {
+                rejected.increment();
+                rejects.reject(index, cause);
+            }
+
+            private ByteBuffer buffer() {
+                final ByteBuffer buffer = buffers.poll();
+
+                return Objects.nonNull(buffer) ? buffer : ByteBuffer.allocate(bufferSize);
+            }
+
+            private void close(SelectionKey key) {
+                final Connection connection = (Connection) key.attachment();
+
+                key.cancel();
+                open.decrement();
+
+                try {
+
+                    key.channel().close();
+
+                } catch (IOException e) {
+
+                    // Nothing more can be read from it either way
+
+                }
+
+                // A buffer grown for a long record is left to the garbage collector
+                if (connection.buffer.capacity() == bufferSize && buffers.size() < MAX_POOLED_BUFFERS)
+                    buffers.push(connection.buffer.clear());
+            }
+
+            private void shutDown() {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() instanceof Connection)
+                        close(key);
+                }
+
+                for (SocketChannel channel = accepted.poll(); Objects.nonNull(channel); channel = accepted.poll()) {
+                    open.decrement();
+
+                    try {
+
+                        channel.close();
+
+                    } catch (IOException e) {
+
+                        // Never read from
+
+                    }
+                }
+
+                handOffUninterruptibly();
+
+                try {
+
+                    selector.close();
+
+                    if (this == eventLoops[0])
+                        server.close();
+
+                } catch (IOException e) {
+
+                    // Closing anyway
+
+                }
+            }
+        }
+    }
+
+    /**
+     * The read state of a connection: its buffer, in write mode between reads, and the index of its
+     * next record.
+     */
+    @NotThreadSafe
+    private final class Connection {
+        private ByteBuffer buffer;
+        private long index;
+        private boolean discarding;
+
+        Connection(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Parse the whole lines in the buffer, and at the end of the input whatever is left, keeping a
+         * partial line for the next read.
+         */
+        void parse(Running.Loop loop, boolean end) {
+            buffer.flip();
+
+            if (discarding) {
+                final int newline = indexOf(buffer, NEWLINE);
+
+                if (newline < 0) {
+                    buffer.clear();
+                    return;
+                }
+
+                buffer.position(newline + 1);
+                discarding = false;
+            }
+
+            final int last = end ? buffer.limit() - 1 : lastIndexOf(buffer, NEWLINE);
+
+            if (last >= buffer.position()) {
+                index += PojoFileReader.parse(buffer.duplicate().limit(last + 1).slice(), index, loop::add, loop);
+                buffer.position(last + 1);
+            }
+
+            buffer.compact();
+
+            if (!buffer.hasRemaining()) {
+                if (buffer.capacity() < maxRecordSize) {
+                    buffer = ByteBuffer.allocate(Math.min(maxRecordSize, buffer.capacity() * 2)).put(buffer.flip());
+                } else {
+                    loop.reject(index++, new JsonParseException(null, "Record longer than " + maxRecordSize + " bytes"));
+                    buffer.clear();
+                    discarding = true;
+                }
+            }
+        }
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte value) {
+        for (int i = buffer.position(); i < buffer.limit(); i++)
+            if (buffer.get(i) == value)
+                return i;
+
+        return -1;
+    }
+
+    private static int lastIndexOf(ByteBuffer buffer, byte value) {
+        for (int i = buffer.limit() - 1; i >= buffer.position(); i--)
+            if (buffer.get(i) == value)
+                return i;
+
+        return -1;
+    }
+
+    /**
+     * Pojos on their way to a consumer, and when the first of them was read.
+     */
+    private static final class Batch {
+        static final Batch END = new Batch(List.of(), 0);
+
+        private final List<Pojo> pojos;
+        private final long started;
+
+        Batch(List<Pojo> pojos, long started) {
+            this.pojos = pojos;
+            this.started = started;
+        }
+    }
+
+    /**
+     * The counts of a running server.
+     */
+    @Immutable
+    public static final class Stats {
+        private final long connections;
+        private final long open;
+        private final long records;
+        private final long rejected;
+        private final long bytes;
+        private final long batches;
+        private final long stalls;
+        private final long failures;
+
+        Stats(long connections, long open, long records, long rejected, long bytes, long batches, long stalls, long failures) {
+            this.connections = connections;
+            this.open = open;
+            this.records = records;
+            this.rejected = rejected;
+            this.bytes = bytes;
+            this.batches = batches;
+            this.stalls = stalls;
+            this.failures = failures;
+        }
+
+        /**
+         * The number of connections accepted.
+         *
+         * @return The count of connections
+         */
+        public long getConnections() {
+            return connections;
+        }
+
+        /**
+         * The number of connections open now.
+         *
+         * @return The count of connections
+         */
+        public long getOpen() {
+            return open;
+        }
+
+        /**
+         * The number of valid Pojos read.
+         *
+         * @return The count of Pojos
+         */
+        public long getRecords() {
+            return records;
+        }
+
+        /**
+         * The number of records that were not valid Pojos, or were too long.
+         *
+         * @return The count of records
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * The number of bytes read.
+         *
+         * @return The count of bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * The number of batches handed to the consumers.
+         *
+         * @return The count of batches
+         */
+        public long getBatches() {
+            return batches;
+        }
+
+        /**
+         * The number of times an event loop found the queue full and waited, reading nothing, until
+         * there was room.
+         *
+         * @return The count of stalls
+         */
+        public long getStalls() {
+            return stalls;
+        }
+
+        /**
+         * The number of batches the consumer threw on.
+         *
+         * @return The count of batches
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        @Override
+        public String toString() {
+            return "{"
+                + " connections='" + connections + "'"
+                + ", open='" + open + "'"
+                + ", records='" + records + "'"
+                + ", rejected='" + rejected + "'"
+                + ", bytes='" + bytes + "'"
+                + ", batches='" + batches + "'"
+                + ", stalls='" + stalls + "'"
+                + ", failures='" + failures + "'"
+                + "}";
+        }
+    }
+}
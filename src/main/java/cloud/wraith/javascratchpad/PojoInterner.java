@@ -0,0 +1,256 @@
+package cloud.wraith.javascratchpad;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * An optional canonicalising pool of Pojos, so that equal records that are read again and again
+ * share one instance, and with it their id and name Strings.
+ *
+ * A weak pool holds a Pojo only while something else refers to it, so it is bounded by the live
+ * set. A bounded pool holds at most a fixed number of Pojos, evicting the least recently used.
+ * The type of thing needs no pooling, since it is held as an enum whose names are constants.
+ *
+ * A pool can be installed, so that Pojo's factories, Pojo.jsonCreator and the json readers, through
+ * PojoModule and PojoTokenReader, all return pooled instances. A pool is only consulted once a Pojo
+ * has been built, so its id, name and the Pojo itself are still allocated for each record; a duplicate
+ * just becomes garbage straight away instead of being retained. Without an installed pool, the
+ * factories here mirror those of Pojo, and intern() can be mapped over any stream of Pojos,
+ * eg. {@code PojoStreams.stream(in, rejects).map(interner::intern)}.
+ */
+@ThreadSafe
+public final class PojoInterner {
+    private static final int OBJECT_HEADER = 12;
+    private static final int REFERENCE = 4;
+
+    private static volatile PojoInterner installed;
+
+    private final UnaryOperator<Pojo> pool;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * A snapshot of the effectiveness of a pool.
+     */
+    @Immutable
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long bytesSaved;
+
+        private Stats(long hits, long misses, long bytesSaved) {
+            this.hits = hits;
+            this.misses = misses;
+            this.bytesSaved = bytesSaved;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * The fraction of Pojos that were already in the pool.
+         *
+         * @return The hit rate, from 0 to 1, or 0 before any Pojo is interned
+         */
+        public double getHitRate() {
+            final long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        /**
+         * An estimate of the heap not retained, because duplicates were dropped for a pooled Pojo.
+         *
+         * @return The number of bytes
+         */
+        public long getBytesSaved() {
+            return bytesSaved;
+        }
+
+        @Override
+        public String toString() {
+            return "{" + " hits='" + getHits() + "'" + ", misses='" + getMisses() + "'" + ", hitRate='" + getHitRate() + "'" + ", bytesSaved='"
+                + getBytesSaved() + "'" + "}";
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param pool Returns the pooled Pojo equal to its argument, adding the argument if there is none
+     */
+    private PojoInterner(UnaryOperator<Pojo> pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * A pool that holds Pojos by weak reference, so they are dropped once nothing else uses them.
+     *
+     * @return The interner
+     */
+    public static PojoInterner weak() {
+        final Interner<Pojo> interner = Interners.newWeakInterner();
+        return new PojoInterner(interner::intern);
+    }
+
+    /**
+     * A pool that holds at most a fixed number of Pojos, evicting the least recently used.
+     *
+     * @param maximumSize The maximum number of Pojos
+     * @return The interner
+     */
+    public static PojoInterner bounded(long maximumSize) {
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("Maximum size should be positive: " + maximumSize);
+
+        final ConcurrentMap<Pojo, Pojo> map = CacheBuilder.newBuilder().maximumSize(maximumSize).<Pojo, Pojo>build().asMap();
+
+        return new PojoInterner(pojo -> {
+            final Pojo pooled = map.putIfAbsent(pojo, pojo);
+            return pooled == null ? pojo : pooled;
+        });
+    }
+
+    /**
+     * Plug a pool into Pojo's factories and the json path, or unplug it. Pojos built before, and those
+     * copied by MutablePojo, the binary codec and the stores, are not pooled.
+     *
+     * @param interner The pool, or null for none
+     */
+    public static void install(PojoInterner interner) {
+        installed = interner;
+    }
+
+    /**
+     * The pooled instance of a newly built Pojo if a pool is installed, or else the Pojo itself.
+     */
+    static Pojo canonical(Pojo pojo) {
+        final PojoInterner interner = installed;
+
+        return Objects.isNull(interner) ? pojo : interner.intern(pojo);
+    }
+
+    /**
+     * The pooled Pojo equal to a Pojo, which is added to the pool if there is none.
+     *
+     * @param pojo The Pojo
+     * @return The canonical instance
+     */
+    public Pojo intern(Pojo pojo) {
+        final Pojo pooled = pool.apply(Objects.requireNonNull(pojo, "pojo"));
+
+        if (pooled == pojo) {
+            misses.increment();
+        } else {
+            hits.increment();
+            bytesSaved.add(estimatedSize(pojo));
+        }
+
+        return pooled;
+    }
+
+    /**
+     * Declare a factory function, returning a pooled instance.
+     *
+     * @param id Value of id
+     * @param name Value of name
+     * @param intValue Value of intValue
+     * @param typeOfThing Value of typeOfThing
+     * @return The canonical instance of Pojo
+     */
+    public Optional<Pojo> of(String id, String name, int intValue, String typeOfThing) {
+        return pooled(Pojo.of(id, name, intValue, typeOfThing));
+    }
+
+    /**
+     * Declare a factory function, for a type of thing that is already an enum, returning a pooled instance.
+     *
+     * @param id Value of id
+     * @param name Value of name
+     * @param intValue Value of intValue
+     * @param typeOfThing Value of typeOfThing
+     * @return The canonical instance of Pojo
+     */
+    public Optional<Pojo> of(String id, String name, int intValue, Pojo.TypeOfThing typeOfThing) {
+        return pooled(Pojo.of(id, name, intValue, typeOfThing));
+    }
+
+    /**
+     * Deserialise json supplied as a string, returning a pooled instance.
+     *
+     * @param json The source json as a string
+     * @return The canonical instance of Pojo
+     */
+    public Optional<Pojo> of(String json) {
+        return pooled(PojoCodec.read(json));
+    }
+
+    /**
+     * Deserialise json supplied as a byte array, returning a pooled instance.
+     *
+     * @param bytes The source json as a byte array
+     * @return The canonical instance of Pojo
+     */
+    public Optional<Pojo> of(byte[] bytes) {
+        return pooled(PojoCodec.read(bytes));
+    }
+
+    /**
+     * Intern a Pojo from a factory, unless this pool is installed and the factory has done so already.
+     */
+    private Optional<Pojo> pooled(Optional<Pojo> pojo) {
+        return installed == this ? pojo : pojo.map(this::intern);
+    }
+
+    /**
+     * A snapshot of the hits, misses and bytes saved so far.
+     *
+     * @return The stats
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), bytesSaved.sum());
+    }
+
+    /**
+     * An estimate of the heap retained by a Pojo and its id and name, with compressed references.
+     *
+     * @param pojo The Pojo
+     * @return The number of bytes
+     */
+    static long estimatedSize(Pojo pojo) {
+        // Header, four references and an int
+        return align(OBJECT_HEADER + 4 * REFERENCE + Integer.BYTES)
+            + estimatedSize(pojo.getId())
+            + estimatedSize(pojo.getName());
+    }
+
+    private static long estimatedSize(String value) {
+        boolean latin1 = true;
+
+        for (int i = 0; i < value.length() && latin1; i++)
+            latin1 = value.charAt(i) < 256;
+
+        // Header, a reference, hash, hash flag and coder, then the backing array
+        return align(OBJECT_HEADER + REFERENCE + Integer.BYTES + 2)
+            + align(OBJECT_HEADER + Integer.BYTES + (latin1 ? 1 : 2) * value.length());
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
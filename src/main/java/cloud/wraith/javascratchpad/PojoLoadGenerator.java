@@ -0,0 +1,320 @@
+package cloud.wraith.javascratchpad;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A load generator for PojoIngestServer, running the server and its producers in one process on the
+ * loopback interface.
+ *
+ * Each producer thread owns a share of the connections and writes to them in turn, a few newline-delimited
+ * records at a time. Each record's name carries the time it was meant to be sent, so the consumer can
+ * record the end-to-end latency, from producer to consumer, in a histogram. With a target rate, writes are
+ * paced to a schedule and timed from when they were due rather than when they were made, so a stalled
+ * producer shows up as latency instead of hiding it. Without one, producers write as fast as the server
+ * lets them, and latency includes waiting on back-pressure.
+ *
+ * Options:
+ * <pre>
+ *   --connections N        Connections to open, 1000 by default.
+ *   --producers N          Producer threads, 2 by default.
+ *   --seconds N            How long to measure for, 10 by default.
+ *   --warm-up-seconds N    How long to write for first, without measuring, 2 by default.
+ *   --records-per-write N  Records in each write, 10 by default.
+ *   --rate N               Records per second in total, as fast as possible by default.
+ *   --loops N              The server's event loops.
+ * </pre>
+ */
+public final class PojoLoadGenerator {
+    static final int OK = 0;
+    static final int FAILED = 1;
+    static final int USAGE = 2;
+
+    private static final String USAGE_MESSAGE = "Usage: load [--connections N] [--producers N] [--seconds N]"
+        + " [--warm-up-seconds N] [--records-per-write N] [--rate N] [--loops N]";
+    private static final String NAME_PREFIX = "t";
+
+    /**
+     * Hide the constructor of a static utility class.
+     */
+    private PojoLoadGenerator() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    /**
+     * Run a load test and report on it.
+     *
+     * @param args The command line arguments
+     * @param out Where the report goes
+     * @param err Where errors go
+     * @return The exit status
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        int connections = 1000;
+        int producers = 2;
+        int seconds = 10;
+        int warmUpSeconds = 2;
+        int recordsPerWrite = 10;
+        long rate = 0;
+        PojoIngestServer server = PojoIngestServer.of();
+
+        try {
+
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--connections":
+                        connections = positive(args, ++i);
+                        break;
+                    case "--producers":
+                        producers = positive(args, ++i);
+                        break;
+                    case "--seconds":
+                        seconds = positive(args, ++i);
+                        break;
+                    case "--warm-up-seconds":
+                        warmUpSeconds = nonNegative(args, ++i);
+                        break;
+                    case "--records-per-write":
+                        recordsPerWrite = positive(args, ++i);
+                        break;
+                    case "--rate":
+                        rate = positive(args, ++i);
+                        break;
+                    case "--loops":
+                        server = server.withLoops(positive(args, ++i));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+
+            // Each producer needs a connection of its own, and a rate of at least one record a second
+            if (connections < producers)
+                throw new IllegalArgumentException("--connections should be at least --producers");
+            if (rate > 0 && rate < producers)
+                throw new IllegalArgumentException("--rate should be at least --producers");
+
+        } catch (IllegalArgumentException e) {
+
+            err.println(e.getMessage());
+            err.println(USAGE_MESSAGE);
+            return USAGE;
+
+        }
+
+        final LatencyHistogram endToEnd = new LatencyHistogram();
+        final LongAdder received = new LongAdder();
+        final LongAdder sent = new LongAdder();
+
+        try {
+
+            final PojoIngestServer.Running running = server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), batch -> {
+                final long now = System.nanoTime();
+
+                for (Pojo pojo : batch)
+                    endToEnd.record(now - Long.parseLong(pojo.getName().substring(NAME_PREFIX.length())));
+
+                received.add(batch.size());
+            });
+            final long elapsed;
+            final long measured;
+
+            try (running) {
+
+                final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmUpSeconds + seconds);
+                final List<Thread> threads = new ArrayList<>(producers);
+                final List<Producer> work = new ArrayList<>(producers);
+
+                for (int p = 0; p < producers; p++) {
+                    final int share = connections / producers + (p < connections % producers ? 1 : 0);
+                    final long pace = rate / producers + (p < rate % producers ? 1 : 0);
+                    final Producer producer = new Producer(running.address(), share, recordsPerWrite, pace, end, sent);
+                    final Thread thread = new Thread(producer, "pojo-load-producer-" + p);
+
+                    work.add(producer);
+                    threads.add(thread);
+                    thread.start();
+                }
+
+                // Start measuring once class loading, compilation and connecting are out of the way
+                Thread.sleep(TimeUnit.SECONDS.toMillis(warmUpSeconds));
+
+                final long start = System.nanoTime();
+                final long warmedUp = sent.sum();
+
+                endToEnd.reset();
+                running.handOffLatency().reset();
+
+                for (Thread thread : threads)
+                    thread.join();
+
+                elapsed = System.nanoTime() - start;
+                measured = sent.sum() - warmedUp;
+
+                for (Producer producer : work)
+                    if (Objects.nonNull(producer.failure))
+                        throw producer.failure;
+
+                // Let the server read what is still in flight before it closes
+                while (received.sum() + running.stats().getRejected() < sent.sum() && System.nanoTime() - end < TimeUnit.SECONDS.toNanos(10))
+                    Thread.sleep(10);
+
+            }
+
+            // The stats are final once closing has handed on what was still buffered
+            final PojoIngestServer.Stats stats = running.stats();
+
+            out.println(String.format("Sent %d records on %d connections in %.1fs: %.0f records/s", measured, stats.getConnections(),
+                elapsed / 1e9, measured * 1e9 / elapsed));
+            out.println(String.format("Received %d records in %d batches, rejected %d, stalled %d times", received.sum(),
+                stats.getBatches(), stats.getRejected(), stats.getStalls()));
+            out.println("End to end  " + endToEnd.report());
+            out.println("Hand-off    " + running.handOffLatency().report());
+            return OK;
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            return FAILED;
+
+        } catch (UncheckedIOException e) {
+
+            err.println("Failed: " + e.getMessage());
+            return FAILED;
+
+        }
+    }
+
+    /**
+     * The value of an option, which is the next argument.
+     */
+    private static String value(String[] args, int i) {
+        if (i >= args.length)
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+
+        return args[i];
+    }
+
+    private static int nonNegative(String[] args, int i) {
+        final int value = Integer.parseInt(value(args, i));
+
+        if (value < 0)
+            throw new IllegalArgumentException(args[i - 1] + " should not be negative");
+
+        return value;
+    }
+
+    private static int positive(String[] args, int i) {
+        final int value = Integer.parseInt(value(args, i));
+
+        if (value <= 0)
+            throw new IllegalArgumentException(args[i - 1] + " should be positive");
+
+        return value;
+    }
+
+    /**
+     * Writes to its own connections in turn, each write a few records stamped with when they were due.
+     */
+    private static final class Producer implements Runnable {
+        private final InetSocketAddress address;
+        private final int connections;
+        private final int recordsPerWrite;
+        private final long rate;
+        private final long end;
+        private final LongAdder sent;
+        private final StringBuilder records = new StringBuilder();
+        private UncheckedIOException failure;
+
+        Producer(InetSocketAddress address, int connections, int recordsPerWrite, long rate, long end, LongAdder sent) {
+            this.address = address;
+            this.connections = connections;
+            this.recordsPerWrite = recordsPerWrite;
+            this.rate = rate;
+            this.end = end;
+            this.sent = sent;
+        }
+
+        @Override
+        public void run() {
+            final List<SocketChannel> channels = new ArrayList<>(connections);
+            final List<String> ids = new ArrayList<>(connections);
+
+            try {
+
+                for (int i = 0; i < connections; i++) {
+                    channels.add(SocketChannel.open(address));
+                    ids.add(UUID.randomUUID().toString());
+                }
+
+                final long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(recordsPerWrite) / rate : 0;
+                long due = System.nanoTime();
+
+                for (int write = 0; due < end && System.nanoTime() < end; write++) {
+                    if (interval > 0) {
+                        due += interval;
+                        LockSupport.parkNanos(due - System.nanoTime());
+                    } else {
+                        due = System.nanoTime();
+                    }
+
+                    final int c = write % connections;
+                    final ByteBuffer buffer = ByteBuffer.wrap(records(ids.get(c), write, due));
+
+                    while (buffer.hasRemaining())
+                        channels.get(c).write(buffer);
+
+                    sent.add(recordsPerWrite);
+                }
+
+            } catch (IOException e) {
+
+                failure = new UncheckedIOException(e);
+
+            } finally {
+
+                for (SocketChannel channel : channels) {
+                    try {
+
+                        channel.close();
+
+                    } catch (IOException e) {
+
+                        // The server sees the end of the input either way
+
+                    }
+                }
+
+            }
+        }
+
+        private byte[] records(String id, int write, long due) {
+            records.setLength(0);
+
+            for (int i = 0; i < recordsPerWrite; i++) {
+                records.append("{\"id\":\"").append(id)
+                    .append("\",\"name\":\"").append(NAME_PREFIX).append(due)
+                    .append("\",\"intValue\":").append(write)
+                    .append(",\"typeOfThing\":\"SOME_THING\"}\n");
+            }
+
+            return records.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
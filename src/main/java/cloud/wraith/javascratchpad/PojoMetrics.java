@@ -0,0 +1,417 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
+import com.savoirtech.logging.slf4j.json.LoggerFactory;
+import com.savoirtech.logging.slf4j.json.logger.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Counts and latencies of the Pojo codec operations, and counts of rejected Pojos by reason.
+ *
+ * Off by default, or on from startup with -Dpojo.metrics=true, and switchable at any time. When off, an
+ * instrumented operation costs one volatile read. When on, it also reads the clock twice and records
+ * into striped LongAdder counters and a LatencyHistogram, without locks or allocation; the clock is
+ * most of the cost, and is as much as the cheapest operations themselves take.
+ *
+ * A Reporter logs a snapshot periodically, as a json object, through the slf4j json logger.
+ */
+@ThreadSafe
+public final class PojoMetrics {
+    public static final String ENABLED_PROPERTY = "pojo.metrics";
+
+    /**
+     * The instrumented operations.
+     */
+    public enum Operation {
+        /** Pojo.of(String), parsing json. */
+        OF_JSON,
+        /** Pojo.of(byte[]), parsing json. */
+        OF_BYTES,
+        /** Pojo.of(id, name, intValue, typeOfThing), validating fields. */
+        OF_FIELDS,
+        /** Pojo.toJson(). */
+        TO_JSON,
+        /** Pojo.toBytes(). */
+        TO_BYTES,
+        /** Pojo.clone(). */
+        CLONE;
+    }
+
+    /**
+     * Why a Pojo was not made.
+     */
+    public enum RejectReason {
+        /** The id was missing or blank. */
+        BLANK_ID,
+        /** The type of thing was missing or not one of the values. */
+        INVALID_TYPE_OF_THING,
+        /** The json was well-formed, but not a Pojo, eg. an array, or a string for the int value. */
+        MISMATCHED_INPUT,
+        /** The json was not well-formed. */
+        MALFORMED_JSON;
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final RejectReason[] REJECT_REASONS = RejectReason.values();
+
+    private static final LongAdder[] CALLS = adders(OPERATIONS.length);
+    private static final LongAdder[] FAILURES = adders(OPERATIONS.length);
+    private static final LatencyHistogram[] LATENCIES = new LatencyHistogram[OPERATIONS.length];
+    private static final LongAdder[] REJECTS = adders(REJECT_REASONS.length);
+
+    private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    static {
+        for (int i = 0; i < LATENCIES.length; i++)
+            LATENCIES[i] = new LatencyHistogram();
+    }
+
+    /**
+     * Hide the constructor of a static utility class.
+     */
+    private PojoMetrics() {
+    }
+
+    private static LongAdder[] adders(int count) {
+        final LongAdder[] adders = new LongAdder[count];
+
+        for (int i = 0; i < count; i++)
+            adders[i] = new LongAdder();
+
+        return adders;
+    }
+
+    /**
+     * Whether operations are being measured.
+     *
+     * @return True if metrics are on
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turn metrics on or off. What has been recorded is kept.
+     *
+     * @param enabled Whether operations should be measured
+     */
+    public static void setEnabled(boolean enabled) {
+        PojoMetrics.enabled = enabled;
+    }
+
+    /**
+     * Record an operation that started at a time taken from System.nanoTime().
+     *
+     * @param operation The operation
+     * @param startNanos When it started
+     * @param succeeded Whether it produced a result
+     */
+    static void record(Operation operation, long startNanos, boolean succeeded) {
+        final long nanos = System.nanoTime() - startNanos;
+        final int i = operation.ordinal();
+
+        CALLS[i].increment();
+        LATENCIES[i].record(nanos);
+
+        if (!succeeded)
+            FAILURES[i].increment();
+    }
+
+    /**
+     * Count a Pojo that failed validation, if metrics are on.
+     *
+     * @param reason The reason it failed
+     */
+    static void reject(PojoValidation.Reason reason) {
+        if (!enabled)
+            return;
+
+        if (reason == PojoValidation.Reason.BLANK_ID)
+            REJECTS[RejectReason.BLANK_ID.ordinal()].increment();
+        else if (reason == PojoValidation.Reason.INVALID_TYPE_OF_THING)
+            REJECTS[RejectReason.INVALID_TYPE_OF_THING.ordinal()].increment();
+    }
+
+    /**
+     * Count json that could not be read as a Pojo, if metrics are on.
+     *
+     * @param cause Why it could not be read
+     */
+    static void reject(IOException cause) {
+        if (!enabled)
+            return;
+
+        REJECTS[reasonOf(cause).ordinal()].increment();
+    }
+
+    static RejectReason reasonOf(IOException cause) {
+        if (cause instanceof InvalidDefinitionException) {
+            final String message = ((InvalidDefinitionException) cause).getOriginalMessage();
+
+            if (PojoValidation.Reason.BLANK_ID.getMessage().equals(message))
+                return RejectReason.BLANK_ID;
+            if (PojoValidation.Reason.INVALID_TYPE_OF_THING.getMessage().equals(message))
+                return RejectReason.INVALID_TYPE_OF_THING;
+        }
+
+        return cause instanceof JsonParseException ? RejectReason.MALFORMED_JSON : RejectReason.MISMATCHED_INPUT;
+    }
+
+    /**
+     * The counts and latencies since startup or the last reset.
+     *
+     * @return A snapshot
+     */
+    public static Snapshot snapshot() {
+        return new Snapshot(false);
+    }
+
+    /**
+     * The counts and latencies since startup or the last reset, clearing them as they are taken, so
+     * that each one recorded meanwhile is in this snapshot or the next and never lost.
+     *
+     * @return A snapshot
+     */
+    public static Snapshot snapshotThenReset() {
+        return new Snapshot(true);
+    }
+
+    /**
+     * Clear every count and latency.
+     */
+    public static void reset() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            CALLS[i].reset();
+            FAILURES[i].reset();
+            LATENCIES[i].reset();
+        }
+
+        for (LongAdder rejects : REJECTS)
+            rejects.reset();
+    }
+
+    /**
+     * Start logging a snapshot at a fixed period, and once more on close. Each snapshot covers the time
+     * since the one before, so the metrics are reset as each is taken.
+     *
+     * @param period The time between snapshots
+     * @return The reporter, to be closed when done
+     */
+    public static Reporter report(Duration period) {
+        if (period.isNegative() || period.isZero())
+            throw new IllegalArgumentException("Period should be positive");
+
+        return new Reporter(period);
+    }
+
+    /**
+     * The counts and latencies of each operation, and the counts of rejects by reason, at one time.
+     * Counts may be mid-way through concurrent recording.
+     */
+    @Immutable
+    public static final class Snapshot {
+        private final long[] calls = new long[OPERATIONS.length];
+        private final long[] failures = new long[OPERATIONS.length];
+        private final long[][] latencies = new long[OPERATIONS.length][];
+        private final long[] rejects = new long[REJECT_REASONS.length];
+
+        private Snapshot(boolean reset) {
+            for (int i = 0; i < OPERATIONS.length; i++) {
+                final LatencyHistogram histogram = reset ? LATENCIES[i].drain() : LATENCIES[i];
+
+                calls[i] = reset ? CALLS[i].sumThenReset() : CALLS[i].sum();
+                failures[i] = reset ? FAILURES[i].sumThenReset() : FAILURES[i].sum();
+                latencies[i] = new long[] {
+                    Math.round(histogram.mean()), histogram.percentile(50), histogram.percentile(99), histogram.percentile(99.9), histogram.max()
+                };
+            }
+
+            for (int i = 0; i < REJECT_REASONS.length; i++)
+                rejects[i] = reset ? REJECTS[i].sumThenReset() : REJECTS[i].sum();
+        }
+
+        /**
+         * The number of calls of an operation.
+         *
+         * @param operation The operation
+         * @return The count of calls
+         */
+        public long getCalls(Operation operation) {
+            return calls[operation.ordinal()];
+        }
+
+        /**
+         * The number of calls of an operation that returned nothing.
+         *
+         * @param operation The operation
+         * @return The count of calls
+         */
+        public long getFailures(Operation operation) {
+            return failures[operation.ordinal()];
+        }
+
+        /**
+         * The latency of an operation at a percentile, 50, 99 or 99.9.
+         *
+         * @param operation The operation
+         * @param percentile The percentile
+         * @return The latency in nanoseconds
+         */
+        public long getLatency(Operation operation, double percentile) {
+            if (percentile == 50)
+                return latencies[operation.ordinal()][1];
+            if (percentile == 99)
+                return latencies[operation.ordinal()][2];
+            if (percentile == 99.9)
+                return latencies[operation.ordinal()][3];
+
+            throw new IllegalArgumentException("Percentile should be 50, 99 or 99.9");
+        }
+
+        /**
+         * The longest latency of an operation.
+         *
+         * @param operation The operation
+         * @return The latency in nanoseconds
+         */
+        public long getMaxLatency(Operation operation) {
+            return latencies[operation.ordinal()][4];
+        }
+
+        /**
+         * The number of rejects for a reason.
+         *
+         * @param reason The reason
+         * @return The count of rejects
+         */
+        public long getRejects(RejectReason reason) {
+            return rejects[reason.ordinal()];
+        }
+
+        /**
+         * The operations that were called, by name, each with its counts and latencies in nanoseconds.
+         *
+         * @return A map for the json logger
+         */
+        public Map<String, Map<String, Long>> operations() {
+            final Map<String, Map<String, Long>> operations = new LinkedHashMap<>();
+
+            for (int i = 0; i < OPERATIONS.length; i++) {
+                if (calls[i] == 0)
+                    continue;
+
+                final Map<String, Long> operation = new LinkedHashMap<>();
+
+                operation.put("calls", calls[i]);
+                operation.put("failures", failures[i]);
+                operation.put("meanNanos", latencies[i][0]);
+                operation.put("p50Nanos", latencies[i][1]);
+                operation.put("p99Nanos", latencies[i][2]);
+                operation.put("p999Nanos", latencies[i][3]);
+                operation.put("maxNanos", latencies[i][4]);
+                operations.put(OPERATIONS[i].name(), operation);
+            }
+
+            return operations;
+        }
+
+        /**
+         * The count of rejects by reason.
+         *
+         * @return A map for the json logger
+         */
+        public Map<String, Long> rejects() {
+            final Map<String, Long> reasons = new LinkedHashMap<>();
+
+            for (int i = 0; i < REJECT_REASONS.length; i++)
+                reasons.put(REJECT_REASONS[i].name(), rejects[i]);
+
+            return reasons;
+        }
+
+        @Override
+        public String toString() {
+            return "{"
+                + " operations='" + operations() + "'"
+                + ", rejects='" + rejects() + "'"
+                + "}";
+        }
+    }
+
+    /**
+     * Logs a snapshot at a fixed period from a daemon thread, eg.
+     * <pre>
+     * {"message":"Pojo metrics","periodMillis":10000,"operations":{"OF_BYTES":{"calls":1000,...}},"rejects":{"BLANK_ID":3,...}}
+     * </pre>
+     * The logger is only set up when the first reporter is made, so metrics cost nothing at startup.
+     */
+    @ThreadSafe
+    public static final class Reporter implements Closeable {
+        private static final Logger LOGGER = LoggerFactory.getLogger(PojoMetrics.class);
+
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            final Thread thread = new Thread(task, "pojo-metrics-reporter");
+
+            thread.setDaemon(true);
+            return thread;
+        });
+        private long last = System.nanoTime();
+
+        private Reporter(Duration period) {
+            scheduler.scheduleAtFixedRate(this::report, period.toNanos(), period.toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Log a snapshot of the time since the last one, and reset the metrics.
+         */
+        synchronized void report() {
+            final Snapshot snapshot = snapshotThenReset();
+            final long now = System.nanoTime();
+
+            LOGGER.info()
+                .message("Pojo metrics")
+                .field("periodMillis", TimeUnit.NANOSECONDS.toMillis(now - last))
+                .map("operations", snapshot.operations())
+                .map("rejects", snapshot.rejects())
+                .log();
+
+            last = now;
+        }
+
+        /**
+         * Stop reporting, after logging a last snapshot.
+         */
+        @Override
+        public void close() {
+            if (scheduler.isShutdown())
+                return;
+
+            scheduler.shutdown();
+
+            try {
+
+                scheduler.awaitTermination(1, TimeUnit.SECONDS);
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+
+            }
+
+            report();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * A Jackson module with a hand-written, streaming serializer and deserializer for Pojo.
+ *
+ * They read and write the same json as the annotations on Pojo, property for property and byte for
+ * byte, but go straight to the JsonGenerator and JsonParser, with no reflection, no creator and no
+ * property buffering on the way. PojoCodec's mapper registers it. Another ObjectMapper can too, eg.
+ * {@code new ObjectMapper().registerModule(new PojoModule())}. Without it, the annotations still apply.
+ */
+public final class PojoModule extends SimpleModule {
+    private static final long serialVersionUID = 1L;
+
+    public PojoModule() {
+        super(PojoModule.class.getSimpleName());
+
+        addSerializer(Pojo.class, new Serializer());
+        addDeserializer(Pojo.class, new Deserializer());
+    }
+
+    /**
+     * Writes the properties in the order databind does for the annotations: id, name, intValue,
+     * typeOfThing. Property names and type names are pre-encoded.
+     */
+    static final class Serializer extends StdSerializer<Pojo> {
+        private static final long serialVersionUID = 1L;
+
+        private static final SerializableString ID = new SerializedString(PojoTokenReader.ID);
+        private static final SerializableString NAME = new SerializedString(PojoTokenReader.NAME);
+        private static final SerializableString INT_VALUE = new SerializedString(PojoTokenReader.INT_VALUE);
+        private static final SerializableString TYPE_OF_THING = new SerializedString(PojoTokenReader.TYPE_OF_THING);
+        private static final SerializableString[] TYPE_NAMES = new SerializableString[Pojo.TypeOfThing.values().length];
+
+        static {
+            for (Pojo.TypeOfThing type : Pojo.TypeOfThing.values())
+                TYPE_NAMES[type.ordinal()] = new SerializedString(type.name());
+        }
+
+        Serializer() {
+            super(Pojo.class);
+        }
+
+        @Override
+        public void serialize(Pojo pojo, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(pojo);
+            generator.writeFieldName(ID);
+            generator.writeString(pojo.getId());
+            generator.writeFieldName(NAME);
+            generator.writeString(pojo.getName());
+            generator.writeFieldName(INT_VALUE);
+            generator.writeNumber(pojo.getIntValue());
+            generator.writeFieldName(TYPE_OF_THING);
+            generator.writeString(TYPE_NAMES[pojo.getType().ordinal()]);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Reads with PojoTokenReader, which follows the same rules as databind does with Pojo.jsonCreator,
+     * and reports an invalid Pojo with the same InvalidDefinitionException.
+     */
+    static final class Deserializer extends StdDeserializer<Pojo> {
+        private static final long serialVersionUID = 1L;
+
+        Deserializer() {
+            super(Pojo.class);
+        }
+
+        @Override
+        public Pojo deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() != JsonToken.START_OBJECT)
+                return (Pojo) context.handleUnexpectedToken(Pojo.class, parser);
+
+            return PojoTokenReader.read(parser);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package cloud.wraith.javascratchpad;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A bounded cache of parsed Pojos by their raw json bytes, for inputs where the same payloads are
+ * replayed again and again, so a replay returns the Pojo already parsed rather than parsing it again.
+ *
+ * Entries are keyed on the FarmHash Fingerprint64 of the bytes, and each keeps a copy of its bytes, so
+ * a hit is verified byte for byte and two payloads that share a hash are never confused. A payload
+ * whose hash is held by another is parsed and not cached, leaving the resident entry in place. Payloads
+ * that are not valid Pojos are cached too, as empty results, since rejecting them costs the most.
+ *
+ * Entries live without locks in a fixed table of sets of four, found by hash. A new entry takes an empty
+ * place in its set, or the place of the entry with the fewest recent hits, the least recently used of
+ * those that tie, and the counts of the others
+ * in the set are then halved so that old favourites age out; a payload that is never replayed only
+ * displaces the coldest of four, so a run of new payloads does not flush those that are replayed. A
+ * cache is bounded by the number of entries or by an estimate of the heap they retain; once it is full,
+ * a payload is only cached in place of another.
+ */
+@ThreadSafe
+public final class PojoParseCache {
+    private static final HashFunction HASH = Hashing.farmHashFingerprint64();
+    // The entry, the array header and the Optional, roughly
+    private static final int ENTRY_OVERHEAD = 80;
+    // A weight to size the table of a cache bounded by weight
+    private static final int TYPICAL_WEIGHT = 400;
+    private static final int WAYS = 4;
+
+    private final AtomicReferenceArray<Entry> table;
+    private final int setMask;
+    private final boolean weighed;
+    private final long maximumWeight;
+    private final ToLongFunction<byte[]> hash;
+    private final AtomicLong weight = new AtomicLong();
+    private final AtomicLong entries = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    // Ticks on each miss, without synchronisation; a lost tick only blurs which of two entries is older
+    private long clock;
+
+    /**
+     * A snapshot of the effectiveness of a cache.
+     */
+    @Immutable
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long collisions;
+        private final long entries;
+
+        private Stats(long hits, long misses, long evictions, long collisions, long entries) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.collisions = collisions;
+            this.entries = entries;
+        }
+
+        /**
+         * The number of payloads answered from the cache without parsing.
+         *
+         * @return The count of hits
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * The number of payloads parsed, including those whose hash was held by another.
+         *
+         * @return The count of misses
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * The number of entries replaced by a newly parsed payload.
+         *
+         * @return The count of evictions
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * The number of payloads whose hash matched a cached entry with different bytes.
+         *
+         * @return The count of collisions
+         */
+        public long getCollisions() {
+            return collisions;
+        }
+
+        /**
+         * The number of payloads cached now.
+         *
+         * @return The count of entries
+         */
+        public long getEntries() {
+            return entries;
+        }
+
+        /**
+         * The fraction of payloads that were already parsed.
+         *
+         * @return The hit rate, from 0 to 1, or 0 before any payload is parsed
+         */
+        public double getHitRate() {
+            final long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "{"
+                + " hits='" + hits + "'"
+                + ", misses='" + misses + "'"
+                + ", hitRate='" + getHitRate() + "'"
+                + ", evictions='" + evictions + "'"
+                + ", collisions='" + collisions + "'"
+                + ", entries='" + entries + "'"
+                + "}";
+        }
+    }
+
+    /**
+     * A payload and what it parsed to, with a count of its recent hits.
+     */
+    private static final class Entry {
+        private final long hash;
+        private final byte[] bytes;
+        private final Optional<Pojo> pojo;
+        private final long weight;
+        // Counted and stamped without synchronisation; a lost write only changes which entry is evicted
+        private int uses;
+        private long used;
+
+        Entry(long hash, byte[] bytes, Optional<Pojo> pojo, boolean weighed, long used) {
+            this.hash = hash;
+            this.used = used;
+            this.bytes = bytes;
+            this.pojo = pojo;
+            this.weight = weighed ? ENTRY_OVERHEAD + bytes.length + pojo.map(PojoInterner::estimatedSize).orElse(0L) : 1;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param entries The number of entries the cache holds, roughly
+     * @param weighed Whether entries are weighed by their size, or count one each
+     * @param maximumWeight The most the entries may weigh in all
+     * @param hash The hash of a payload
+     */
+    private PojoParseCache(long entries, boolean weighed, long maximumWeight, ToLongFunction<byte[]> hash) {
+        final long places = Math.max(WAYS, Long.highestOneBit(Math.min(entries, 1 << 30) - 1) << 1);
+
+        this.table = new AtomicReferenceArray<>((int) places);
+        this.setMask = (int) places - WAYS;
+        this.weighed = weighed;
+        this.maximumWeight = maximumWeight;
+        this.hash = hash;
+    }
+
+    /**
+     * A cache that holds at most a fixed number of payloads.
+     *
+     * @param maximumSize The maximum number of payloads
+     * @return The cache
+     */
+    public static PojoParseCache bySize(long maximumSize) {
+        if (maximumSize <= 0)
+            throw new IllegalArgumentException("Maximum size should be positive: " + maximumSize);
+
+        return new PojoParseCache(maximumSize, false, maximumSize, PojoParseCache::fingerprint);
+    }
+
+    /**
+     * A cache that holds payloads and their Pojos up to an estimated size in bytes, so a few large
+     * payloads take the room of many small ones.
+     *
+     * @param maximumBytes The maximum estimated size of the entries
+     * @return The cache
+     */
+    public static PojoParseCache byWeight(long maximumBytes) {
+        if (maximumBytes <= 0)
+            throw new IllegalArgumentException("Maximum bytes should be positive: " + maximumBytes);
+
+        return new PojoParseCache(Math.max(1, maximumBytes / TYPICAL_WEIGHT), true, maximumBytes, PojoParseCache::fingerprint);
+    }
+
+    /**
+     * Returns an empty cache of the same size that keys payloads on a different hash, eg. a weak one to
+     * make collisions.
+     *
+     * @param hash The hash of a payload
+     * @return The cache
+     */
+    PojoParseCache withHash(ToLongFunction<byte[]> hash) {
+        return new PojoParseCache(table.length(), weighed, maximumWeight, hash);
+    }
+
+    private static long fingerprint(byte[] bytes) {
+        return HASH.hashBytes(bytes).asLong();
+    }
+
+    /**
+     * Deserialise json supplied as a byte array, returning the Pojo already parsed from the same bytes
+     * if there is one. The bytes are copied when cached, so the caller may reuse the array.
+     * Tolerates a source value of null, returning an empty Optional<Pojo>
+     *
+     * @param bytes The source json as a byte array
+     * @return The Pojo, the same instance for each replay of the bytes while they are cached
+     */
+    public Optional<Pojo> of(byte[] bytes) {
+        if (Objects.isNull(bytes))
+            return Optional.<Pojo>empty();
+
+        final long key = hash.applyAsLong(bytes);
+        final int set = (int) (key ^ key >>> Integer.SIZE) & setMask;
+
+        for (int i = set; i < set + WAYS; i++) {
+            final Entry entry = table.get(i);
+
+            if (Objects.nonNull(entry) && entry.hash == key) {
+                if (Arrays.equals(entry.bytes, bytes)) {
+                    entry.uses++;
+                    entry.used = clock;
+                    hits.increment();
+                    return entry.pojo;
+                }
+
+                collisions.increment();
+                misses.increment();
+                return Pojo.of(bytes);
+            }
+        }
+
+        final Optional<Pojo> pojo = Pojo.of(bytes);
+
+        misses.increment();
+        put(set, new Entry(key, bytes.clone(), pojo, weighed, ++clock));
+
+        return pojo;
+    }
+
+    /**
+     * Put an entry in an empty place in its set if the weight allows, or else in place of the entry with
+     * the fewest recent hits, and of those the least recently used. Gives up rather than retry if another thread changes the place first.
+     *
+     * @param set The first place of the set
+     * @param entry The new entry
+     */
+    private void put(int set, Entry entry) {
+        int empty = -1;
+        int coldest = -1;
+        Entry victim = null;
+
+        for (int i = set; i < set + WAYS; i++) {
+            final Entry resident = table.get(i);
+
+            if (Objects.isNull(resident)) {
+                empty = i;
+            } else if (Objects.isNull(victim) || resident.uses < victim.uses
+                || (resident.uses == victim.uses && resident.used < victim.used)) {
+                coldest = i;
+                victim = resident;
+            }
+        }
+
+        if (empty >= 0 && weight.addAndGet(entry.weight) <= maximumWeight) {
+            if (table.compareAndSet(empty, null, entry))
+                entries.incrementAndGet();
+            else
+                weight.addAndGet(-entry.weight);
+
+            return;
+        }
+
+        if (empty >= 0)
+            weight.addAndGet(-entry.weight);
+
+        if (Objects.isNull(victim))
+            return;
+
+        final long added = entry.weight - victim.weight;
+
+        if ((weight.addAndGet(added) > maximumWeight && added > 0) || !table.compareAndSet(coldest, victim, entry)) {
+            weight.addAndGet(-added);
+            return;
+        }
+
+        evictions.increment();
+
+        for (int i = set; i < set + WAYS; i++) {
+            final Entry resident = table.get(i);
+
+            if (Objects.nonNull(resident))
+                resident.uses >>= 1;
+        }
+    }
+
+    /**
+     * Drop every payload, keeping the stats.
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < table.length(); i++) {
+            final Entry entry = table.getAndSet(i, null);
+
+            if (Objects.nonNull(entry)) {
+                weight.addAndGet(-entry.weight);
+                entries.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * A snapshot of the hits, misses, evictions and collisions so far.
+     *
+     * @return The stats
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), collisions.sum(), entries.get());
+    }
+}
@@ -0,0 +1,507 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Reads, validates, filters and converts Pojos in three stages, each on its own thread and joined by
+ * bounded queues, so that parsing, serialising and writing overlap on different cores.
+ *
+ * <pre>
+ *   parse    reads each input in turn, newline-delimited json or a json array, drops the records that
+ *            fail the filter as they are parsed, counts those that are not valid Pojos, and hands on
+ *            batches of Pojos
+ *   convert  serialises each batch into a chunk of bytes in the output format
+ *   write    writes each chunk to the output
+ * </pre>
+ * The queues are bounded, so a slow stage holds back the ones before it instead of letting batches pile
+ * up in memory, and the chunks are recycled. The first batch is a single record, so that the first
+ * record is not held back behind a full batch.
+ */
+@Immutable
+public final class PojoPipeline {
+    static final int DEFAULT_BATCH_SIZE = 1024;
+    static final int DEFAULT_QUEUE_SIZE = 8;
+
+    private static final AtomicInteger RUNS = new AtomicInteger();
+
+    /**
+     * The layout of the output.
+     */
+    public enum Output {
+        /** One json object per line. */
+        NDJSON,
+        /** A single json array of objects. */
+        JSON_ARRAY,
+        /** Concatenated PojoBinaryCodec records. */
+        BINARY;
+    }
+
+    private final PojoFilter filter;
+    private final Output output;
+    private final int batchSize;
+    private final int queueSize;
+    private final PojoStreams.RejectHandler rejects;
+
+    private PojoPipeline(PojoFilter filter, Output output, int batchSize, int queueSize, PojoStreams.RejectHandler rejects) {
+        this.filter = filter;
+        this.output = output;
+        this.batchSize = batchSize;
+        this.queueSize = queueSize;
+        this.rejects = rejects;
+    }
+
+    /**
+     * Returns a pipeline that keeps every valid Pojo and writes newline-delimited json, in batches of
+     * 1024 records, with up to eight batches queued between stages.
+     *
+     * @return A pipeline
+     */
+    public static PojoPipeline of() {
+        return new PojoPipeline(null, Output.NDJSON, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_SIZE, PojoStreams.IGNORE_REJECTS);
+    }
+
+    /**
+     * Returns a copy of this pipeline that keeps only the Pojos that pass a filter.
+     *
+     * @param filter The filter
+     * @return A pipeline
+     */
+    public PojoPipeline withFilter(PojoFilter filter) {
+        return new PojoPipeline(Objects.requireNonNull(filter), output, batchSize, queueSize, rejects);
+    }
+
+    /**
+     * Returns a copy of this pipeline that writes a different layout.
+     *
+     * @param output The layout to write
+     * @return A pipeline
+     */
+    public PojoPipeline withOutput(Output output) {
+        return new PojoPipeline(filter, Objects.requireNonNull(output), batchSize, queueSize, rejects);
+    }
+
+    /**
+     * Returns a copy of this pipeline that hands on a different number of Pojos at a time.
+     *
+     * @param batchSize The number of Pojos in a batch
+     * @return A pipeline
+     */
+    public PojoPipeline withBatchSize(int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Batch size should be positive");
+
+        return new PojoPipeline(filter, output, batchSize, queueSize, rejects);
+    }
+
+    /**
+     * Returns a copy of this pipeline that queues a different number of batches, and of chunks,
+     * between stages.
+     *
+     * @param queueSize The capacity of each queue
+     * @return A pipeline
+     */
+    public PojoPipeline withQueueSize(int queueSize) {
+        if (queueSize <= 0)
+            throw new IllegalArgumentException("Queue size should be positive");
+
+        return new PojoPipeline(filter, output, batchSize, queueSize, rejects);
+    }
+
+    /**
+     * Returns a copy of this pipeline that also passes rejected records to a handler. The handler is
+     * called from the parse stage, with the index of the record in its own input.
+     *
+     * @param rejects Receives the records that are not valid Pojos
+     * @return A pipeline
+     */
+    public PojoPipeline withRejects(PojoStreams.RejectHandler rejects) {
+        return new PojoPipeline(filter, output, batchSize, queueSize, Objects.requireNonNull(rejects));
+    }
+
+    /**
+     * Run the pipeline over a single input, which is closed. The output is flushed but not closed.
+     *
+     * @param in The input
+     * @param out The output
+     * @return The counts and timings of the run
+     * @throws UncheckedIOException if the input cannot be read or the output written
+     */
+    public Result run(InputStream in, OutputStream out) {
+        Objects.requireNonNull(in);
+
+        return execute(List.<Callable<InputStream>>of(() -> in), out);
+    }
+
+    /**
+     * Run the pipeline over files, read one after the other as if they were a single input. The output
+     * is flushed but not closed.
+     *
+     * @param paths The files
+     * @param out The output
+     * @return The counts and timings of the run
+     * @throws UncheckedIOException if a file cannot be read or the output written
+     */
+    public Result run(List<Path> paths, OutputStream out) {
+        final List<Callable<InputStream>> inputs = new ArrayList<>(paths.size());
+
+        for (Path path : paths)
+            inputs.add(() -> Files.newInputStream(path));
+
+        return execute(inputs, out);
+    }
+
+    /**
+     * Run the pipeline over inputs, which are opened one at a time, when the one before is done.
+     * The output is flushed but not closed.
+     *
+     * @param inputs Opens each input
+     * @param out The output
+     * @return The counts and timings of the run
+     * @throws UncheckedIOException if an input cannot be read or the output written
+     */
+    private Result execute(List<Callable<InputStream>> inputs, OutputStream out) {
+        final Run run = new Run(inputs, Objects.requireNonNull(out));
+        final int id = RUNS.incrementAndGet();
+        final AtomicInteger stage = new AtomicInteger();
+        final ExecutorService stages = Executors.newFixedThreadPool(3, task -> {
+            final Thread thread = new Thread(task, "pojo-pipeline-" + id + "-" + stage.incrementAndGet());
+
+            thread.setDaemon(true);
+            return thread;
+        });
+        final ExecutorCompletionService<Void> done = new ExecutorCompletionService<>(stages);
+
+        try {
+
+            done.submit(run::parse);
+            done.submit(run::convert);
+            done.submit(run::write);
+
+            for (int i = 0; i < 3; i++)
+                done.take().get();
+
+            return run.result();
+
+        } catch (ExecutionException e) {
+
+            // The first stage to fail stops the run; shutting down interrupts the others
+            if (e.getCause() instanceof IOException)
+                throw new UncheckedIOException((IOException) e.getCause());
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+
+        } finally {
+
+            stages.shutdownNow();
+
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "{"
+            + " filter='" + filter + "'"
+            + ", output='" + output + "'"
+            + ", batchSize='" + batchSize + "'"
+            + ", queueSize='" + queueSize + "'"
+            + "}";
+    }
+
+    /**
+     * The queues and counters of one run. Each counter is written by a single stage, and read once
+     * every stage is done.
+     */
+    private final class Run implements PojoStreams.RejectHandler {
+        private final List<Pojo> endOfBatches = new ArrayList<>(0);
+        private final ByteArrayOutputStream endOfChunks = new ByteArrayOutputStream(0);
+
+        private final List<Callable<InputStream>> inputs;
+        private final OutputStream out;
+        private final BlockingQueue<List<Pojo>> batches = new ArrayBlockingQueue<>(queueSize);
+        private final BlockingQueue<ByteArrayOutputStream> chunks = new ArrayBlockingQueue<>(queueSize);
+        private final BlockingQueue<ByteArrayOutputStream> free = new ArrayBlockingQueue<>(queueSize + 2);
+        private final long start = System.nanoTime();
+
+        private long read;
+        private long skipped;
+        private long rejected;
+        private long bytes;
+        private Instant firstWrite;
+        private long end;
+
+        Run(List<Callable<InputStream>> inputs, OutputStream out) {
+            this.inputs = inputs;
+            this.out = out;
+        }
+
+        Void parse() throws Exception {
+            // The first batch is a single record, and the rest are full
+            List<Pojo> batch = new ArrayList<>(1);
+            int limit = 1;
+
+            for (Callable<InputStream> input : inputs) {
+                try (PojoStreams.Reader reader = PojoStreams.iterator(input.call(), filter, this)) {
+                    while (reader.hasNext()) {
+                        batch.add(reader.next());
+
+                        if (batch.size() == limit) {
+                            batches.put(batch);
+                            batch = new ArrayList<>(batchSize);
+                            limit = batchSize;
+                        }
+                    }
+
+                    read += reader.count();
+                    skipped += reader.skipped();
+                }
+            }
+
+            if (!batch.isEmpty())
+                batches.put(batch);
+
+            batches.put(endOfBatches);
+            return null;
+        }
+
+        Void convert() throws Exception {
+            final ChunkSink sink = new ChunkSink(chunk());
+
+            if (output == Output.BINARY) {
+                ByteBuffer scratch = ByteBuffer.allocate(256);
+
+                for (List<Pojo> batch = batches.take(); batch != endOfBatches; batch = batches.take()) {
+                    for (Pojo pojo : batch) {
+                        if (scratch.capacity() < PojoBinaryCodec.maxEncodedSize(pojo))
+                            scratch = ByteBuffer.allocate(PojoBinaryCodec.maxEncodedSize(pojo));
+
+                        PojoBinaryCodec.encode(pojo, scratch.clear());
+                        sink.write(scratch.array(), 0, scratch.position());
+                    }
+
+                    chunks.put(sink.swap(chunk()));
+                }
+            } else {
+                final PojoStreams.Format format = output == Output.NDJSON ? PojoStreams.Format.NDJSON : PojoStreams.Format.JSON_ARRAY;
+
+                // One writer for the whole run, so a json array is opened, separated and closed once
+                try (PojoStreams.Writer writer = PojoStreams.writer(sink, format)) {
+                    for (List<Pojo> batch = batches.take(); batch != endOfBatches; batch = batches.take()) {
+                        writer.writeAll(batch).flush();
+                        chunks.put(sink.swap(chunk()));
+                    }
+                }
+            }
+
+            chunks.put(sink.swap(null));
+            chunks.put(endOfChunks);
+            return null;
+        }
+
+        Void write() throws Exception {
+            for (ByteArrayOutputStream chunk = chunks.take(); chunk != endOfChunks; chunk = chunks.take()) {
+                if (chunk.size() > 0) {
+                    chunk.writeTo(out);
+                    bytes += chunk.size();
+
+                    if (Objects.isNull(firstWrite)) {
+                        out.flush();
+                        firstWrite = Instant.now();
+                    }
+                }
+
+                chunk.reset();
+                free.offer(chunk);
+            }
+
+            out.flush();
+            end = System.nanoTime();
+            return null;
+        }
+
+        @Override
+        public void reject(long index, JsonProcessingException cause) {
+            rejected++;
+            rejects.reject(index, cause);
+        }
+
+        private ByteArrayOutputStream chunk() {
+            final ByteArrayOutputStream chunk = free.poll();
+
+            return Objects.nonNull(chunk) ? chunk : new ByteArrayOutputStream(batchSize * 128);
+        }
+
+        Result result() {
+            return new Result(read, read - skipped - rejected, skipped, rejected, bytes, Duration.ofNanos(end - start), firstWrite);
+        }
+    }
+
+    /**
+     * Passes writes through to the current chunk, which the convert stage swaps for an empty one each
+     * time it hands a chunk on. Closing does nothing.
+     */
+    private static final class ChunkSink extends OutputStream {
+        private ByteArrayOutputStream chunk;
+
+        ChunkSink(ByteArrayOutputStream chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public void write(int b) {
+            chunk.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            chunk.write(bytes, offset, length);
+        }
+
+        ByteArrayOutputStream swap(ByteArrayOutputStream next) {
+            final ByteArrayOutputStream full = chunk;
+
+            chunk = next;
+            return full;
+        }
+    }
+
+    /**
+     * The counts and timings of a run.
+     */
+    @Immutable
+    public static final class Result {
+        private final long read;
+        private final long written;
+        private final long skipped;
+        private final long rejected;
+        private final long bytes;
+        private final Duration elapsed;
+        private final Instant firstWrite;
+
+        Result(long read, long written, long skipped, long rejected, long bytes, Duration elapsed, Instant firstWrite) {
+            this.read = read;
+            this.written = written;
+            this.skipped = skipped;
+            this.rejected = rejected;
+            this.bytes = bytes;
+            this.elapsed = elapsed;
+            this.firstWrite = firstWrite;
+        }
+
+        /**
+         * The number of records read, whether written, skipped or rejected.
+         *
+         * @return The count of records
+         */
+        public long getRead() {
+            return read;
+        }
+
+        /**
+         * The number of Pojos written.
+         *
+         * @return The count of Pojos
+         */
+        public long getWritten() {
+            return written;
+        }
+
+        /**
+         * The number of records that failed the filter.
+         *
+         * @return The count of records
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * The number of records that were not valid Pojos.
+         *
+         * @return The count of records
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * The number of bytes written.
+         *
+         * @return The count of bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * The time from the start of the run until the output was flushed for the last time.
+         *
+         * @return The elapsed time
+         */
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        /**
+         * When the first record was written and flushed.
+         *
+         * @return The time, or empty if nothing was written
+         */
+        public Optional<Instant> getFirstWrite() {
+            return Optional.<Instant>ofNullable(firstWrite);
+        }
+
+        /**
+         * The number of records read per second of the run.
+         *
+         * @return The throughput
+         */
+        public double recordsPerSecond() {
+            return elapsed.isZero() ? 0 : read * 1e9 / elapsed.toNanos();
+        }
+
+        @Override
+        public String toString() {
+            return "{"
+                + " read='" + read + "'"
+                + ", written='" + written + "'"
+                + ", skipped='" + skipped + "'"
+                + ", rejected='" + rejected + "'"
+                + ", bytes='" + bytes + "'"
+                + ", elapsed='" + elapsed + "'"
+                + "}";
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.Objects;
+import java.util.Set;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A lightweight view of some of the fields of a Pojo, as read by a PojoProjector.
+ *
+ * Only the projected fields are decoded, and only they are validated: a projected id must not be
+ * blank and a projected type of thing must be a known one. Asking for a field that was not projected
+ * is an error rather than a default value, so that a missing projection cannot pass for data.
+ */
+@Immutable
+public final class PojoProjection {
+    private final Set<PojoField> fields;
+    private final String id;
+    private final String name;
+    private final int intValue;
+    private final Pojo.TypeOfThing typeOfThing;
+
+    PojoProjection(Set<PojoField> fields, String id, String name, int intValue, Pojo.TypeOfThing typeOfThing) {
+        this.fields = fields;
+        this.id = id;
+        this.name = name;
+        this.intValue = intValue;
+        this.typeOfThing = typeOfThing;
+    }
+
+    /**
+     * The fields in this projection.
+     *
+     * @return An unmodifiable set of fields
+     */
+    public Set<PojoField> getFields() {
+        return fields;
+    }
+
+    /**
+     * Whether a field is in this projection.
+     *
+     * @param field The field
+     * @return True if it was projected
+     */
+    public boolean has(PojoField field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * @throws IllegalStateException if the id was not projected
+     */
+    public String getId() {
+        check(PojoField.ID);
+        return id;
+    }
+
+    /**
+     * @throws IllegalStateException if the name was not projected
+     */
+    public String getName() {
+        check(PojoField.NAME);
+        return name;
+    }
+
+    /**
+     * @throws IllegalStateException if the int value was not projected
+     */
+    public int getIntValue() {
+        check(PojoField.INT_VALUE);
+        return intValue;
+    }
+
+    /**
+     * @throws IllegalStateException if the type of thing was not projected
+     */
+    public Pojo.TypeOfThing getType() {
+        check(PojoField.TYPE_OF_THING);
+        return typeOfThing;
+    }
+
+    private void check(PojoField field) {
+        if (!fields.contains(field))
+            throw new IllegalStateException("Field " + field + " is not in the projection " + fields);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (Objects.isNull(o))
+            return false;
+        if (o == this)
+            return true;
+        if (!(o instanceof PojoProjection))
+            return false;
+
+        PojoProjection projection = (PojoProjection) o;
+
+        return intValue == projection.intValue
+            && typeOfThing == projection.typeOfThing
+            && fields.equals(projection.fields)
+            && Objects.equals(id, projection.id)
+            && Objects.equals(name, projection.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fields, id, name, intValue, typeOfThing);
+    }
+
+    @Override
+    public String toString() {
+        return "{" +
+            " fields='" + getFields() + "'" +
+            ", id='" + id + "'" +
+            ", name='" + name + "'" +
+            ", intValue='" + intValue + "'" +
+            ", typeOfThing='" + typeOfThing + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,213 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Reads only some of the fields of Pojo json, as a PojoProjection, from a single object, a json array
+ * or a stream of newline-delimited json. Obtain one from PojoCodec.project().
+ *
+ * The other properties are skipped at token level by the streaming parser, so they are never decoded
+ * and no Strings are built for them. Projecting only the id and int value, for example, saves building
+ * the name and looking up the type of thing for every record.
+ */
+@Immutable
+public final class PojoProjector {
+    private final EnumSet<PojoField> fields;
+    private final Set<PojoField> view;
+
+    PojoProjector(EnumSet<PojoField> fields) {
+        if (fields.isEmpty())
+            throw new IllegalArgumentException("A projection needs at least one field");
+
+        this.fields = EnumSet.copyOf(fields);
+        this.view = Collections.unmodifiableSet(this.fields);
+    }
+
+    /**
+     * The fields this projector reads.
+     *
+     * @return An unmodifiable set of fields
+     */
+    public Set<PojoField> getFields() {
+        return view;
+    }
+
+    /**
+     * Project a single json object supplied as a string.
+     *
+     * @param json The source json as a string
+     * @return The projection, or empty if the json is not an object or a projected field is invalid
+     */
+    public Optional<PojoProjection> read(String json) {
+        try {
+
+            return Objects.isNull(json)
+                ? Optional.<PojoProjection>empty()
+                : readObject(PojoCodec.factory().createParser(json));
+
+        } catch (IOException e) {
+
+            return Optional.<PojoProjection>empty();
+
+        }
+    }
+
+    /**
+     * Project a single json object supplied as a byte array.
+     *
+     * @param bytes The source json as a byte array
+     * @return The projection, or empty if the json is not an object or a projected field is invalid
+     */
+    public Optional<PojoProjection> read(byte[] bytes) {
+        try {
+
+            return Objects.isNull(bytes)
+                ? Optional.<PojoProjection>empty()
+                : readObject(PojoCodec.factory().createParser(bytes));
+
+        } catch (IOException e) {
+
+            return Optional.<PojoProjection>empty();
+
+        }
+    }
+
+    /**
+     * Project every object of a json array supplied as a string.
+     *
+     * @param json The source json array as a string
+     * @return The projections, or empty if any element cannot be projected
+     */
+    public Optional<List<PojoProjection>> readList(String json) {
+        try {
+
+            return Objects.isNull(json)
+                ? Optional.<List<PojoProjection>>empty()
+                : readArray(PojoCodec.factory().createParser(json));
+
+        } catch (IOException e) {
+
+            return Optional.<List<PojoProjection>>empty();
+
+        }
+    }
+
+    /**
+     * Project every object of a json array supplied as a byte array.
+     *
+     * @param bytes The source json array as a byte array
+     * @return The projections, or empty if any element cannot be projected
+     */
+    public Optional<List<PojoProjection>> readList(byte[] bytes) {
+        try {
+
+            return Objects.isNull(bytes)
+                ? Optional.<List<PojoProjection>>empty()
+                : readArray(PojoCodec.factory().createParser(bytes));
+
+        } catch (IOException e) {
+
+            return Optional.<List<PojoProjection>>empty();
+
+        }
+    }
+
+    /**
+     * Returns a sequential stream of the projections of the records in a stream of newline-delimited
+     * json or a json array. Closing the stream closes the input.
+     *
+     * @param in The input
+     * @param rejects Receives the records that cannot be projected
+     * @return A lazily parsed stream of projections
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    public Stream<PojoProjection> stream(InputStream in, PojoStreams.RejectHandler rejects) {
+        try {
+
+            final Reader reader = new Reader(Objects.requireNonNull(in), Objects.requireNonNull(rejects));
+
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(reader::close);
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+
+        }
+    }
+
+    private Optional<PojoProjection> readObject(JsonParser parser) throws IOException {
+        try (parser) {
+
+            return parser.nextToken() == JsonToken.START_OBJECT
+                ? Optional.<PojoProjection>of(PojoTokenReader.project(parser, fields, view))
+                : Optional.<PojoProjection>empty();
+
+        }
+    }
+
+    private Optional<List<PojoProjection>> readArray(JsonParser parser) throws IOException {
+        try (parser) {
+
+            if (parser.nextToken() != JsonToken.START_ARRAY)
+                return Optional.<List<PojoProjection>>empty();
+
+            final List<PojoProjection> projections = new ArrayList<>();
+
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token != JsonToken.START_OBJECT)
+                    return Optional.<List<PojoProjection>>empty();
+
+                projections.add(PojoTokenReader.project(parser, fields, view));
+            }
+
+            return Optional.<List<PojoProjection>>of(projections);
+
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "{" + " fields='" + getFields() + "'" + "}";
+    }
+
+    /**
+     * Incremental reader of projections.
+     */
+    private final class Reader extends PojoStreams.RecordReader<PojoProjection> {
+        private PojoProjection projection;
+
+        Reader(InputStream in, PojoStreams.RejectHandler rejects) throws IOException {
+            super(in, rejects);
+        }
+
+        @Override
+        boolean read(JsonParser parser) throws IOException {
+            projection = PojoTokenReader.project(parser, fields, view);
+            return true;
+        }
+
+        @Override
+        PojoProjection current() {
+            return projection;
+        }
+    }
+}
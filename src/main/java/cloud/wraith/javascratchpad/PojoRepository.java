@@ -0,0 +1,428 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * An in-memory, concurrent repository of Pojos, indexed by id, type of thing, name and intValue.
+ *
+ * The primary index is split into lock stripes chosen by the hash of the id, so writers to
+ * different stripes never contend. Ids that are canonical UUIDs are held as a primitive 128-bit
+ * key in an open addressing table, and are read under an optimistic stamp without taking a lock.
+ * Other ids fall back to a map in the same stripe.
+ *
+ * Secondary indexes are updated while the stripe of the id is locked, so the indexes agree with
+ * the primary index for each id. Queries on them are weakly consistent, like the concurrent
+ * collections they are built on, and may or may not see writes made while they run.
+ */
+@ThreadSafe
+public final class PojoRepository {
+    private static final int STRIPES = 256;
+    private static final int MIN_CAPACITY = 16;
+
+    private static final Comparator<Pojo> BY_NAME = Comparator.comparing(Pojo::getName).thenComparing(Pojo::getId);
+    private static final Comparator<Pojo> BY_INT_VALUE = Comparator.comparingInt(Pojo::getIntValue).thenComparing(Pojo::getId);
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<Pojo.TypeOfThing, Set<Pojo>> byType = new EnumMap<>(Pojo.TypeOfThing.class);
+    private final ConcurrentSkipListSet<Pojo> byName = new ConcurrentSkipListSet<>(BY_NAME);
+    private final ConcurrentSkipListSet<Pojo> byIntValue = new ConcurrentSkipListSet<>(BY_INT_VALUE);
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * The arrays of an open addressing table, replaced together when the table grows.
+     */
+    private static final class Table {
+        final long[] mostSignificantBits;
+        final long[] leastSignificantBits;
+        final Pojo[] values;
+
+        Table(int capacity) {
+            this.mostSignificantBits = new long[capacity];
+            this.leastSignificantBits = new long[capacity];
+            this.values = new Pojo[capacity];
+        }
+    }
+
+    /**
+     * One lock stripe of the primary index.
+     */
+    @SuppressWarnings("serial")
+    private static final class Stripe extends StampedLock {
+        private volatile Table table;
+        private int uuids;
+        private final Map<String, Pojo> others = new HashMap<>();
+
+        Stripe(int capacity) {
+            this.table = new Table(capacity);
+        }
+
+        Pojo find(long msb, long lsb) {
+            final Table table = this.table;
+            final int mask = table.values.length - 1;
+
+            for (int i = slot(msb, lsb) & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                final Pojo value = table.values[i];
+
+                if (value == null)
+                    return null;
+                if (table.mostSignificantBits[i] == msb && table.leastSignificantBits[i] == lsb)
+                    return value;
+            }
+
+            return null;
+        }
+
+        Pojo put(long msb, long lsb, Pojo pojo) {
+            if (2 * (uuids + 1) > table.values.length)
+                resize(2 * table.values.length);
+
+            final Table table = this.table;
+            final int mask = table.values.length - 1;
+            int i = slot(msb, lsb) & mask;
+
+            while (table.values[i] != null) {
+                if (table.mostSignificantBits[i] == msb && table.leastSignificantBits[i] == lsb) {
+                    final Pojo previous = table.values[i];
+                    table.values[i] = pojo;
+                    return previous;
+                }
+                i = (i + 1) & mask;
+            }
+
+            table.mostSignificantBits[i] = msb;
+            table.leastSignificantBits[i] = lsb;
+            table.values[i] = pojo;
+            uuids++;
+
+            return null;
+        }
+
+        Pojo remove(long msb, long lsb) {
+            final Table table = this.table;
+            final int mask = table.values.length - 1;
+            int i = slot(msb, lsb) & mask;
+
+            while (table.values[i] != null) {
+                if (table.mostSignificantBits[i] == msb && table.leastSignificantBits[i] == lsb) {
+                    final Pojo previous = table.values[i];
+                    shiftBack(table, i);
+                    uuids--;
+                    return previous;
+                }
+                i = (i + 1) & mask;
+            }
+
+            return null;
+        }
+
+        /**
+         * Close the gap left at a slot by moving later entries of the same probe run back into it.
+         */
+        private static void shiftBack(Table table, int gap) {
+            final int mask = table.values.length - 1;
+            int free = gap;
+
+            for (int i = (free + 1) & mask; table.values[i] != null; i = (i + 1) & mask) {
+                final int home = slot(table.mostSignificantBits[i], table.leastSignificantBits[i]) & mask;
+
+                if (((i - home) & mask) >= ((i - free) & mask)) {
+                    table.mostSignificantBits[free] = table.mostSignificantBits[i];
+                    table.leastSignificantBits[free] = table.leastSignificantBits[i];
+                    table.values[free] = table.values[i];
+                    free = i;
+                }
+            }
+
+            table.values[free] = null;
+        }
+
+        private void resize(int capacity) {
+            final Table from = table;
+            final Table to = new Table(capacity);
+            final int mask = capacity - 1;
+
+            for (int j = 0; j < from.values.length; j++) {
+                if (from.values[j] == null)
+                    continue;
+
+                int i = slot(from.mostSignificantBits[j], from.leastSignificantBits[j]) & mask;
+
+                while (to.values[i] != null)
+                    i = (i + 1) & mask;
+
+                to.mostSignificantBits[i] = from.mostSignificantBits[j];
+                to.leastSignificantBits[i] = from.leastSignificantBits[j];
+                to.values[i] = from.values[j];
+            }
+
+            table = to;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param expectedSize The number of Pojos to size the primary index for
+     */
+    private PojoRepository(int expectedSize) {
+        final int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, 2 * expectedSize / STRIPES)) << 1);
+
+        for (int i = 0; i < STRIPES; i++)
+            stripes[i] = new Stripe(capacity);
+
+        for (Pojo.TypeOfThing type : Pojo.TypeOfThing.values())
+            byType.put(type, ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * An empty repository.
+     *
+     * @return The repository
+     */
+    public static PojoRepository create() {
+        return create(0);
+    }
+
+    /**
+     * An empty repository sized for a known number of Pojos, which avoids rehashing as it fills.
+     *
+     * @param expectedSize The expected number of Pojos
+     * @return The repository
+     */
+    public static PojoRepository create(int expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("Expected size should not be negative: " + expectedSize);
+
+        return new PojoRepository(expectedSize);
+    }
+
+    /**
+     * Add a Pojo, replacing any with the same id.
+     *
+     * @param pojo The Pojo
+     * @return The Pojo replaced, or empty if there was none
+     */
+    public Optional<Pojo> put(Pojo pojo) {
+        Objects.requireNonNull(pojo, "pojo");
+
+        final String id = pojo.getId();
+        final boolean uuid = Uuids.isCanonical(id);
+        final long msb = uuid ? Uuids.mostSignificantBits(id) : 0;
+        final long lsb = uuid ? Uuids.leastSignificantBits(id) : 0;
+        final Stripe stripe = uuid ? stripe(msb, lsb) : stripe(id);
+        final long stamp = stripe.writeLock();
+
+        try {
+
+            final Pojo previous = uuid ? stripe.put(msb, lsb, pojo) : stripe.others.put(id, pojo);
+
+            if (previous != null)
+                unindex(previous);
+            else
+                size.increment();
+
+            index(pojo);
+
+            return Optional.ofNullable(previous);
+
+        } finally {
+
+            stripe.unlockWrite(stamp);
+
+        }
+    }
+
+    /**
+     * Find a Pojo by id.
+     *
+     * @param id The id
+     * @return The Pojo, or empty if there is none
+     */
+    public Optional<Pojo> get(String id) {
+        if (Uuids.isCanonical(id))
+            return get(Uuids.mostSignificantBits(id), Uuids.leastSignificantBits(id));
+        if (id == null)
+            return Optional.<Pojo>empty();
+
+        final Stripe stripe = stripe(id);
+        final long stamp = stripe.readLock();
+
+        try {
+
+            return Optional.ofNullable(stripe.others.get(id));
+
+        } finally {
+
+            stripe.unlockRead(stamp);
+
+        }
+    }
+
+    /**
+     * Find a Pojo by a UUID id, given as its two halves, without taking a lock in the common case.
+     *
+     * @param mostSignificantBits The high 64 bits of the id
+     * @param leastSignificantBits The low 64 bits of the id
+     * @return The Pojo, or empty if there is none
+     */
+    public Optional<Pojo> get(long mostSignificantBits, long leastSignificantBits) {
+        final Stripe stripe = stripe(mostSignificantBits, leastSignificantBits);
+        final long optimistic = stripe.tryOptimisticRead();
+
+        if (optimistic != 0) {
+            final Pojo pojo = stripe.find(mostSignificantBits, leastSignificantBits);
+
+            if (stripe.validate(optimistic))
+                return Optional.ofNullable(pojo);
+        }
+
+        final long stamp = stripe.readLock();
+
+        try {
+
+            return Optional.ofNullable(stripe.find(mostSignificantBits, leastSignificantBits));
+
+        } finally {
+
+            stripe.unlockRead(stamp);
+
+        }
+    }
+
+    /**
+     * Whether there is a Pojo with an id.
+     *
+     * @param id The id
+     * @return True if there is
+     */
+    public boolean contains(String id) {
+        return get(id).isPresent();
+    }
+
+    /**
+     * Remove a Pojo by id.
+     *
+     * @param id The id
+     * @return The Pojo removed, or empty if there was none
+     */
+    public Optional<Pojo> remove(String id) {
+        if (id == null)
+            return Optional.<Pojo>empty();
+
+        final boolean uuid = Uuids.isCanonical(id);
+        final long msb = uuid ? Uuids.mostSignificantBits(id) : 0;
+        final long lsb = uuid ? Uuids.leastSignificantBits(id) : 0;
+        final Stripe stripe = uuid ? stripe(msb, lsb) : stripe(id);
+        final long stamp = stripe.writeLock();
+
+        try {
+
+            final Pojo previous = uuid ? stripe.remove(msb, lsb) : stripe.others.remove(id);
+
+            if (previous != null) {
+                unindex(previous);
+                size.decrement();
+            }
+
+            return Optional.ofNullable(previous);
+
+        } finally {
+
+            stripe.unlockWrite(stamp);
+
+        }
+    }
+
+    /**
+     * The Pojos of a type of thing, in no particular order.
+     *
+     * @param type The type of thing
+     * @return The Pojos
+     */
+    public Stream<Pojo> findByType(Pojo.TypeOfThing type) {
+        return byType.get(Objects.requireNonNull(type, "type")).stream();
+    }
+
+    /**
+     * The Pojos with a name that starts with a prefix, in order of name and then id.
+     *
+     * @param prefix The prefix
+     * @return The Pojos
+     */
+    public Stream<Pojo> findByNamePrefix(String prefix) {
+        Objects.requireNonNull(prefix, "prefix");
+
+        return byName.tailSet(Pojo.ofValidated("", prefix, 0, Pojo.TypeOfThing.OTHER_THING))
+            .stream()
+            .takeWhile(pojo -> pojo.getName().startsWith(prefix));
+    }
+
+    /**
+     * The Pojos with an intValue in a range, in order of intValue and then id.
+     *
+     * @param min The lowest intValue, inclusive
+     * @param max The highest intValue, inclusive
+     * @return The Pojos
+     */
+    public Stream<Pojo> findByIntValue(int min, int max) {
+        return byIntValue.tailSet(Pojo.ofValidated("", "", min, Pojo.TypeOfThing.OTHER_THING))
+            .stream()
+            .takeWhile(pojo -> pojo.getIntValue() <= max);
+    }
+
+    /**
+     * The number of Pojos.
+     *
+     * @return The number of Pojos
+     */
+    public long size() {
+        return size.sum();
+    }
+
+    private void index(Pojo pojo) {
+        byType.get(pojo.getType()).add(pojo);
+        byName.add(pojo);
+        byIntValue.add(pojo);
+    }
+
+    private void unindex(Pojo pojo) {
+        byType.get(pojo.getType()).remove(pojo);
+        byName.remove(pojo);
+        byIntValue.remove(pojo);
+    }
+
+    private Stripe stripe(long msb, long lsb) {
+        return stripes[(slot(msb, lsb) >>> 24) & (STRIPES - 1)];
+    }
+
+    private Stripe stripe(String id) {
+        final int h = id.hashCode() * 0x9E3779B9;
+        return stripes[(h >>> 24) & (STRIPES - 1)];
+    }
+
+    /**
+     * Spread the bits of a 128-bit key. The high bits choose the stripe and the low bits the slot.
+     */
+    private static int slot(long msb, long lsb) {
+        final long h = (msb ^ Long.rotateLeft(lsb, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "{" + " size='" + size() + "'" + "}";
+    }
+}
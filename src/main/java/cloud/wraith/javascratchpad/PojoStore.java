@@ -0,0 +1,495 @@
+package cloud.wraith.javascratchpad;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * An off-heap store of Pojos, kept in direct ByteBuffer segments so a large, long-lived set of
+ * records adds nothing to the work of the garbage collector.
+ *
+ * Each record is reached by a long handle, which stays the same until the record is freed, even
+ * across compaction. The handle table is itself held off-heap, so the heap stays flat however many
+ * records are added. Fields are read in place through a View, and a Pojo is only built on request.
+ * A handle is a slot in the table and a generation. Freed slots are reused, so the table only grows
+ * with the most records live at once, but each reuse moves the generation on, so a stale handle is
+ * reported as missing rather than reading another record, until a slot has been reused 2^31 times.
+ *
+ * Each record is laid out as:
+ * <pre>
+ *   long     handle
+ *   int      length of the whole record
+ *   int      intValue
+ *   byte     ordinal of the type of thing
+ *   byte     flags, bit 0 set when the id is packed as a UUID
+ *   id       16 bytes, most significant first, when packed, otherwise a varint length and UTF-8 bytes
+ *   name     varint length and UTF-8 bytes
+ * </pre>
+ *
+ * Freeing only marks a record as dead. Its space is reclaimed by an explicit call to compact(),
+ * which slides live records down over the dead ones and releases the segments left empty. A released
+ * segment is only dropped, not freed, so its direct memory is returned when the garbage collector
+ * finds it unreachable, and counts against -XX:MaxDirectMemorySize until then. Freeing it eagerly
+ * would need an unsupported JDK API, and would crash the JVM if a stale View read it afterwards.
+ *
+ * Changes must be confined to one thread, or externally synchronised. Reads may run in parallel
+ * while nothing is changing the store.
+ */
+@NotThreadSafe
+public final class PojoStore {
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    static final int LOCATIONS_PER_CHUNK = 1 << 17;
+
+    private static final int HANDLE = 0;
+    private static final int LENGTH = 8;
+    private static final int INT_VALUE = 12;
+    private static final int TYPE = 16;
+    private static final int FLAGS = 17;
+    private static final int ID = 18;
+    private static final int MAX_VARINT_SIZE = 5;
+
+    // A free slot's entry holds this bit, the generation its next handle takes and the next free slot
+    private static final long FREE = Long.MIN_VALUE;
+    private static final long NO_SLOT = 0xFFFFFFFFL;
+    private static final int GENERATION_SHIFT = 32;
+
+    private final int segmentSize;
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private final List<ByteBuffer> locations = new ArrayList<>();
+    private long nextSlot;
+    private long freeSlot = NO_SLOT;
+    private long size;
+    private long liveBytes;
+    private byte[] scratch = new byte[256];
+
+    /**
+     * A view of one record in the store, reading its fields in place.
+     *
+     * A view is invalidated by compact() and by freeing its record, and must be moved again.
+     */
+    @NotThreadSafe
+    public final class View {
+        private long handle = -1;
+        private ByteBuffer segment;
+        private int offset;
+
+        private View() {
+        }
+
+        /**
+         * Point the view at another record.
+         *
+         * @param handle The handle of the record
+         * @return This view
+         * @throws NoSuchElementException if there is no such record
+         */
+        public View moveTo(long handle) {
+            final long location = location(handle);
+
+            if (location == 0)
+                throw new NoSuchElementException("No record for handle " + handle);
+
+            this.handle = handle;
+            this.segment = segments.get(segmentOf(location));
+            this.offset = offsetOf(location);
+
+            return this;
+        }
+
+        public long getHandle() {
+            return handle;
+        }
+
+        public String getId() {
+            if ((segment.get(offset + FLAGS) & PojoBinaryCodec.FLAG_UUID_ID) != 0)
+                return Uuids.toString(segment.getLong(offset + ID), segment.getLong(offset + ID + Long.BYTES));
+
+            return readString(segment, offset + ID);
+        }
+
+        public String getName() {
+            return readString(segment, nameOffset(segment, offset));
+        }
+
+        public int getIntValue() {
+            return segment.getInt(offset + INT_VALUE);
+        }
+
+        public String getTypeOfThing() {
+            return getType().name();
+        }
+
+        public Pojo.TypeOfThing getType() {
+            return Pojo.TypeOfThing.lookup(segment.get(offset + TYPE));
+        }
+
+        /**
+         * Copy the record out of the store.
+         *
+         * @return The Pojo
+         */
+        public Pojo toPojo() {
+            return Pojo.ofValidated(getId(), getName(), getIntValue(), getType());
+        }
+
+        @Override
+        public String toString() {
+            return "{" + " handle='" + getHandle() + "'" + ", id='" + getId() + "'" + ", name='" + getName() + "'" + ", intValue='" + getIntValue()
+                + "'" + ", typeOfThing='" + getTypeOfThing() + "'" + "}";
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param segmentSize The size of each direct buffer segment
+     */
+    private PojoStore(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * An empty store with 64MB segments.
+     *
+     * @return The store
+     */
+    public static PojoStore create() {
+        return create(DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * An empty store.
+     *
+     * @param segmentSize The size of each direct buffer segment, which bounds the size of a record
+     * @return The store
+     */
+    public static PojoStore create(int segmentSize) {
+        if (segmentSize < 1024)
+            throw new IllegalArgumentException("Segment size should be at least 1024 bytes: " + segmentSize);
+
+        return new PojoStore(segmentSize);
+    }
+
+    /**
+     * Copy a Pojo into the store.
+     *
+     * @param pojo The Pojo
+     * @return The handle of the record
+     * @throws IllegalArgumentException if the Pojo cannot fit in a segment
+     */
+    public long add(Pojo pojo) {
+        Objects.requireNonNull(pojo, "pojo");
+
+        final int maxSize = maxRecordSize(pojo);
+
+        if (maxSize > segmentSize)
+            throw new IllegalArgumentException("Pojo of up to " + maxSize + " bytes does not fit in a segment of " + segmentSize);
+
+        if (segments.isEmpty() || last(segments).remaining() < maxSize)
+            segments.add(ByteBuffer.allocateDirect(segmentSize));
+
+        final long handle = claimHandle();
+        final ByteBuffer segment = last(segments);
+        final int offset = segment.position();
+        final boolean packed = Uuids.isCanonical(pojo.getId());
+
+        segment.putLong(handle);
+        segment.putInt(0);
+        segment.putInt(pojo.getIntValue());
+        segment.put((byte) pojo.getType().ordinal());
+        segment.put((byte) (packed ? PojoBinaryCodec.FLAG_UUID_ID : 0));
+
+        if (packed) {
+            segment.putLong(Uuids.mostSignificantBits(pojo.getId()));
+            segment.putLong(Uuids.leastSignificantBits(pojo.getId()));
+        } else {
+            PojoBinaryCodec.putString(segment, pojo.getId());
+        }
+
+        PojoBinaryCodec.putString(segment, pojo.getName());
+
+        final int length = segment.position() - offset;
+        segment.putInt(offset + LENGTH, length);
+        setLocation(handle, location(segments.size() - 1, offset));
+        size++;
+        liveBytes += length;
+
+        return handle;
+    }
+
+    /**
+     * Whether a handle refers to a record in the store.
+     *
+     * @param handle The handle
+     * @return True unless the record was freed or never added
+     */
+    public boolean contains(long handle) {
+        return location(handle) != 0;
+    }
+
+    /**
+     * Copy a record out of the store.
+     *
+     * @param handle The handle of the record
+     * @return The Pojo, or empty if there is no such record
+     */
+    public Optional<Pojo> get(long handle) {
+        return contains(handle) ? Optional.<Pojo>of(view(handle).toPojo()) : Optional.<Pojo>empty();
+    }
+
+    /**
+     * A view of a record, which reads its fields in place.
+     *
+     * @param handle The handle of the record
+     * @return The view
+     * @throws NoSuchElementException if there is no such record
+     */
+    public View view(long handle) {
+        return new View().moveTo(handle);
+    }
+
+    /**
+     * A view that is not yet pointing at a record, for reuse with moveTo.
+     *
+     * @return The view
+     */
+    public View view() {
+        return new View();
+    }
+
+    /**
+     * Mark a record as dead. Its space is reclaimed by the next compaction, and its handle's slot is
+     * reused under a new handle.
+     *
+     * @param handle The handle of the record
+     * @return True if the record was in the store
+     */
+    public boolean free(long handle) {
+        final long location = location(handle);
+
+        if (location == 0)
+            return false;
+
+        final long generation = ((handle >>> GENERATION_SHIFT) + 1) & Integer.MAX_VALUE;
+
+        liveBytes -= segments.get(segmentOf(location)).getInt(offsetOf(location) + LENGTH);
+        setEntry(slotOf(handle), FREE | generation << GENERATION_SHIFT | freeSlot);
+        freeSlot = slotOf(handle);
+        size--;
+
+        return true;
+    }
+
+    /**
+     * Slide the live records down over the dead ones, and release the segments left empty to the
+     * garbage collector. Handles are unchanged, but every View must be moved again.
+     *
+     * @return The number of bytes reclaimed
+     */
+    public long compact() {
+        final long before = usedBytes();
+        int target = 0;
+        int written = 0;
+
+        for (int source = 0; source < segments.size(); source++) {
+            final ByteBuffer segment = segments.get(source);
+            final int end = segment.position();
+
+            for (int offset = 0; offset < end; ) {
+                final long handle = segment.getLong(offset + HANDLE);
+                final int length = segment.getInt(offset + LENGTH);
+
+                if (location(handle) == location(source, offset)) {
+                    if (written + length > segmentSize) {
+                        segments.get(target).position(written);
+                        target++;
+                        written = 0;
+                    }
+
+                    if (target != source || written != offset)
+                        move(segment, offset, segments.get(target), written, length);
+
+                    setLocation(handle, location(target, written));
+                    written += length;
+                }
+
+                offset += length;
+            }
+        }
+
+        if (!segments.isEmpty()) {
+            segments.get(target).position(written);
+            segments.subList(written == 0 ? target : target + 1, segments.size()).clear();
+        }
+
+        return before - usedBytes();
+    }
+
+    /**
+     * The number of live records.
+     *
+     * @return The number of records
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * The bytes taken by live records.
+     *
+     * @return The number of bytes
+     */
+    public long liveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * The bytes written to segments, live or dead.
+     *
+     * @return The number of bytes
+     */
+    public long usedBytes() {
+        long used = 0;
+
+        for (ByteBuffer segment : segments)
+            used += segment.position();
+
+        return used;
+    }
+
+    /**
+     * The off-heap memory allocated for segments and handles, not counting released segments the
+     * garbage collector has yet to free.
+     *
+     * @return The number of bytes
+     */
+    public long allocatedBytes() {
+        return (long) segments.size() * segmentSize + (long) locations.size() * LOCATIONS_PER_CHUNK * Long.BYTES;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    private void move(ByteBuffer from, int fromOffset, ByteBuffer to, int toOffset, int length) {
+        if (scratch.length < length)
+            scratch = new byte[Math.max(length, 2 * scratch.length)];
+
+        final ByteBuffer source = from.duplicate();
+        source.position(fromOffset);
+        source.get(scratch, 0, length);
+
+        final ByteBuffer target = to.duplicate();
+        target.position(toOffset);
+        target.put(scratch, 0, length);
+    }
+
+    /**
+     * Take the slot freed most recently, with the generation its entry holds, or else a new slot.
+     */
+    private long claimHandle() {
+        if (freeSlot != NO_SLOT) {
+            final long slot = freeSlot;
+            final long entry = entry(slot);
+
+            freeSlot = entry & NO_SLOT;
+            return (entry & ~FREE & ~NO_SLOT) | slot;
+        }
+
+        if ((nextSlot & (LOCATIONS_PER_CHUNK - 1)) == 0)
+            locations.add(ByteBuffer.allocateDirect(LOCATIONS_PER_CHUNK * Long.BYTES));
+
+        return nextSlot++;
+    }
+
+    /**
+     * The location of a live record, or zero. A slot reused since the handle was freed holds a record
+     * with a later handle, so the handle the record was written with is checked too.
+     */
+    private long location(long handle) {
+        if (handle < 0 || slotOf(handle) >= nextSlot)
+            return 0;
+
+        final long location = entry(slotOf(handle));
+
+        if (location <= 0 || segments.get(segmentOf(location)).getLong(offsetOf(location) + HANDLE) != handle)
+            return 0;
+
+        return location;
+    }
+
+    private void setLocation(long handle, long location) {
+        setEntry(slotOf(handle), location);
+    }
+
+    private long entry(long slot) {
+        return locations.get((int) (slot / LOCATIONS_PER_CHUNK)).getLong((int) (slot % LOCATIONS_PER_CHUNK) * Long.BYTES);
+    }
+
+    private void setEntry(long slot, long entry) {
+        locations.get((int) (slot / LOCATIONS_PER_CHUNK)).putLong((int) (slot % LOCATIONS_PER_CHUNK) * Long.BYTES, entry);
+    }
+
+    private static long slotOf(long handle) {
+        return handle & NO_SLOT;
+    }
+
+    /**
+     * Pack a segment and offset, with zero kept to mean no record.
+     */
+    private static long location(int segment, int offset) {
+        return ((long) (segment + 1) << 32) | offset;
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> 32) - 1;
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    private static int nameOffset(ByteBuffer segment, int offset) {
+        if ((segment.get(offset + FLAGS) & PojoBinaryCodec.FLAG_UUID_ID) != 0)
+            return offset + ID + 2 * Long.BYTES;
+
+        int position = offset + ID;
+        int length = 0;
+
+        for (int shift = 0; ; shift += 7) {
+            final byte b = segment.get(position++);
+            length |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return position + length;
+        }
+    }
+
+    private static String readString(ByteBuffer segment, int offset) {
+        final ByteBuffer buffer = segment.duplicate();
+        buffer.position(offset);
+
+        return PojoBinaryCodec.getString(buffer);
+    }
+
+    private static int maxRecordSize(Pojo pojo) {
+        // A UTF-16 char never takes more than 3 bytes in UTF-8
+        return ID + 2 * MAX_VARINT_SIZE
+            + Math.max(2 * Long.BYTES, 3 * pojo.getId().length())
+            + 3 * pojo.getName().length();
+    }
+
+    private static <T> T last(List<T> list) {
+        return list.get(list.size() - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "{" + " size='" + size() + "'" + ", liveBytes='" + liveBytes() + "'" + ", usedBytes='" + usedBytes() + "'" + ", allocatedBytes='"
+            + allocatedBytes() + "'" + "}";
+    }
+}
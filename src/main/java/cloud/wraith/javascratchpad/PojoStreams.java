@@ -0,0 +1,771 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming, constant memory reading and writing of Pojos as newline-delimited json or a json array.
+ *
+ * Records are parsed one at a time from the underlying stream, so memory use does not depend on the
+ * size of the input. Records that are not valid Pojos are passed to a reject handler and skipped.
+ */
+public final class PojoStreams {
+    private static final ObjectWriter WRITER = PojoCodec.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    /**
+     * The layout of a stream of Pojos.
+     */
+    public enum Format {
+        /** One json object per line. */
+        NDJSON,
+        /** A single json array of objects. */
+        JSON_ARRAY;
+    }
+
+    /**
+     * Receives the records that could not be read as a Pojo.
+     */
+    @FunctionalInterface
+    public interface RejectHandler {
+        /**
+         * Called once for each rejected record.
+         *
+         * @param index The zero based position of the record in the input
+         * @param cause Why the record was rejected
+         */
+        void reject(long index, JsonProcessingException cause);
+    }
+
+    /**
+     * A handler that silently drops rejected records.
+     */
+    public static final RejectHandler IGNORE_REJECTS = (index, cause) -> { };
+
+    /**
+     * Hide the constructor of a static utility class.
+     */
+    private PojoStreams() {
+    }
+
+    /**
+     * Returns an iterator over the Pojos in a stream of newline-delimited json or a json array.
+     * The layout is detected from the first token. Closing the iterator closes the input.
+     *
+     * @param in The input
+     * @param rejects Receives the records that are not valid Pojos
+     * @return An iterator that parses records as they are requested
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    public static Reader iterator(InputStream in, RejectHandler rejects) {
+        return iterator(in, null, rejects);
+    }
+
+    /**
+     * Returns an iterator over the Pojos in a stream of newline-delimited json or a json array that
+     * pass a filter. The filter is checked field by field as each record is parsed, and a record that
+     * fails it is skipped without being built. Closing the iterator closes the input.
+     *
+     * @param in The input
+     * @param filter The filter, or null to accept every record
+     * @param rejects Receives the records that pass the filter but are not valid Pojos
+     * @return An iterator that parses records as they are requested
+     * @throws UncheckedIOException if the input cannot be read
+     */
+    public static Reader iterator(InputStream in, PojoFilter filter, RejectHandler rejects) {
+        try {
+
+            return new Reader(Objects.requireNonNull(in), filter, Objects.requireNonNull(rejects));
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+
+        }
+    }
+
+    /**
+     * Returns a sequential stream of the Pojos in a stream of newline-delimited json or a json array.
+     * Closing the stream closes the input.
+     *
+     * @param in The input
+     * @param rejects Receives the records that are not valid Pojos
+     * @return A lazily parsed stream of Pojos
+     */
+    public static Stream<Pojo> stream(InputStream in, RejectHandler rejects) {
+        return stream(in, null, rejects);
+    }
+
+    /**
+     * Returns a sequential stream of the Pojos in a stream of newline-delimited json or a json array
+     * that pass a filter. Closing the stream closes the input.
+     *
+     * @param in The input
+     * @param filter The filter, or null to accept every record
+     * @param rejects Receives the records that pass the filter but are not valid Pojos
+     * @return A lazily parsed stream of Pojos
+     */
+    public static Stream<Pojo> stream(InputStream in, PojoFilter filter, RejectHandler rejects) {
+        final Reader reader = iterator(in, filter, rejects);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(reader::close);
+    }
+
+    /**
+     * Returns a sequential stream of the Pojos in a file of newline-delimited json or a json array.
+     * The stream should be closed, eg. with try-with-resources, to close the file.
+     *
+     * @param path The file
+     * @param rejects Receives the records that are not valid Pojos
+     * @return A lazily parsed stream of Pojos
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public static Stream<Pojo> stream(Path path, RejectHandler rejects) {
+        try {
+
+            return stream(Files.newInputStream(path), rejects);
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+
+        }
+    }
+
+    /**
+     * Returns a writer that serialises Pojos one at a time. Closing the writer closes the output.
+     *
+     * @param out The output
+     * @param format The layout to write
+     * @return A writer
+     * @throws UncheckedIOException if the output cannot be written
+     */
+    public static Writer writer(OutputStream out, Format format) {
+        try {
+
+            return new Writer(PojoCodec.factory().createGenerator(Objects.requireNonNull(out), JsonEncoding.UTF8), Objects.requireNonNull(format));
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+
+        }
+    }
+
+    /**
+     * Returns a writer that serialises Pojos one at a time to a file, replacing any existing content.
+     *
+     * @param path The file
+     * @param format The layout to write
+     * @return A writer
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public static Writer writer(Path path, Format format) {
+        try {
+
+            return writer(Files.newOutputStream(path), format);
+
+        } catch (IOException e) {
+
+            throw new UncheckedIOException(e);
+
+        }
+    }
+
+    /**
+     * Incremental reader of records, one record of lookahead at a time, from a stream of newline-delimited
+     * json or a json array. Subclasses decide how each json object is read.
+     *
+     * Malformed json in newline-delimited input is rejected as one record, and reading starts again with a
+     * fresh parser on the line after the one where that record began. Malformed json in an array cannot be
+     * resynchronised, so it ends the input.
+     *
+     * @param <T> The type of record
+     */
+    abstract static class RecordReader<T> implements Iterator<T>, Closeable {
+        private final RetainingInput input;
+        private final RejectHandler rejects;
+        private JsonParser parser;
+        private JsonStreamContext records;
+        // The position in the input of the parser's first byte, and of the record being read
+        private long base;
+        private long start;
+        private long index;
+        private boolean array;
+        private boolean reading;
+        private boolean ready;
+        private boolean done;
+
+        RecordReader(InputStream in, RejectHandler rejects) throws IOException {
+            this.input = new RetainingInput(in);
+            this.rejects = rejects;
+            this.parser = parser();
+        }
+
+        /**
+         * Read the json object at the parser's current token, leaving the parser on its END_OBJECT.
+         *
+         * @param parser A parser whose current token is START_OBJECT
+         * @return True if the record was kept, so that current() returns it, or false if it was skipped
+         * @throws JsonMappingException if the object is not a valid record
+         * @throws IOException if the input is malformed or cannot be read
+         */
+        abstract boolean read(JsonParser parser) throws IOException;
+
+        /**
+         * The record last kept by read().
+         *
+         * @return The record
+         */
+        abstract T current();
+
+        @Override
+        public boolean hasNext() {
+            if (!ready && !done)
+                ready = advance();
+
+            return ready;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            ready = false;
+            return current();
+        }
+
+        /**
+         * The number of records read so far, accepted or rejected.
+         *
+         * @return The count of records
+         */
+        public long count() {
+            return index;
+        }
+
+        @Override
+        public void close() {
+            done = true;
+            ready = false;
+
+            try (input) {
+
+                parser.close();
+
+            } catch (IOException e) {
+
+                throw new UncheckedIOException(e);
+
+            }
+        }
+
+        /**
+         * Whether a record has been read by hasNext() but not yet taken by next().
+         */
+        boolean isReady() {
+            return ready;
+        }
+
+        /**
+         * Take the record read by hasNext(), as next() does.
+         */
+        T take() {
+            ready = false;
+            return current();
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        /**
+         * Read up to the next record that is kept, passing invalid records to the reject handler.
+         *
+         * @return True if a record was kept, or false at the end of the input
+         */
+        final boolean advance() {
+            try {
+
+                while (true) {
+                    try {
+
+                        return advanceParser();
+
+                    } catch (JsonParseException e) {
+
+                        // A record that has not started yet is the malformed token itself
+                        if (!reading)
+                            start = base + PojoTokenReader.tokenOffset(parser);
+
+                        rejects.reject(reading ? index - 1 : index++, e);
+                        reading = false;
+
+                        if (array) {
+                            close();
+                            return false;
+                        }
+
+                        resynchronise();
+
+                    }
+                }
+
+            } catch (IOException e) {
+
+                close();
+                throw new UncheckedIOException(e);
+
+            }
+        }
+
+        private boolean advanceParser() throws IOException {
+            // The first token tells us whether the records are inside an array or at the root
+            if (Objects.isNull(records))
+                records = parser.getParsingContext();
+
+            JsonToken token = parser.nextToken();
+
+            if (index == 0 && token == JsonToken.START_ARRAY && records.inRoot()) {
+                records = parser.getParsingContext();
+                array = true;
+                input.retain(false);
+                token = parser.nextToken();
+            }
+
+            while (Objects.nonNull(token) && token != JsonToken.END_ARRAY) {
+                final long position = index++;
+
+                reading = true;
+
+                if (!array) {
+                    start = base + PojoTokenReader.tokenOffset(parser);
+                    input.mark(start);
+                }
+
+                try {
+
+                    if (token == JsonToken.START_OBJECT) {
+                        if (read(parser)) {
+                            reading = false;
+                            return true;
+                        }
+                    } else {
+                        parser.skipChildren();
+                        rejects.reject(position, JsonMappingException.from(parser, "Expected a json object but found " + token));
+                    }
+
+                } catch (JsonMappingException e) {
+
+                    // Skip first, so a record whose rest is malformed is only rejected once, for that
+                    skipToRecords();
+                    rejects.reject(position, e);
+
+                }
+
+                reading = false;
+                token = parser.nextToken();
+            }
+
+            close();
+            return false;
+        }
+
+        /**
+         * Skip the rest of a partially read record, back out to the level that holds the records.
+         */
+        private void skipToRecords() throws IOException {
+            while (parser.getParsingContext() != records && Objects.nonNull(parser.nextToken()))
+                parser.skipChildren();
+        }
+
+        /**
+         * Drop the parser and start a fresh one on the line after the one where the failed record began.
+         */
+        private void resynchronise() throws IOException {
+            parser.close();
+            input.skipLine(start);
+            base = input.position();
+            parser = parser();
+            records = parser.getParsingContext();
+        }
+
+        private JsonParser parser() throws IOException {
+            // The input outlives each parser, and is closed with the reader
+            return PojoCodec.factory().createParser(input).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        }
+    }
+
+    /**
+     * An input that keeps the bytes it has handed out since a mark, so that reading can start again from
+     * a line that a parser has already read past.
+     */
+    private static final class RetainingInput extends InputStream {
+        private static final int BUFFER_SIZE = 16 * 1024;
+
+        private final InputStream in;
+        private byte[] buffer = new byte[BUFFER_SIZE];
+        // The position in the input of the first byte in the buffer
+        private long offset;
+        // Indices in the buffer: bytes before the mark may be dropped, bytes from position on are next
+        private int mark;
+        private int position;
+        private int limit;
+        private boolean retain = true;
+
+        RetainingInput(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * The position in the input of the next byte to be handed out.
+         */
+        long position() {
+            return offset + position;
+        }
+
+        /**
+         * Let the bytes before a position in the input be dropped.
+         */
+        void mark(long at) {
+            mark = (int) Math.max(mark, Math.min(at - offset, position));
+        }
+
+        /**
+         * Whether to keep the bytes after the mark, or drop every byte once it is handed out.
+         */
+        void retain(boolean retain) {
+            this.retain = retain;
+        }
+
+        /**
+         * Hand out bytes again, or skip ahead, from just after the first newline at or after a kept position
+         * in the input, or from the end of the input if there is none.
+         */
+        void skipLine(long from) throws IOException {
+            int i = (int) Math.max(from - offset, mark);
+
+            while (true) {
+                for (; i < limit; i++) {
+                    if (buffer[i] == '\n') {
+                        position = i + 1;
+                        mark = position;
+                        return;
+                    }
+                }
+
+                // The rest of the buffer is all on the same line
+                position = limit;
+                mark = limit;
+
+                if (!fill())
+                    return;
+
+                i = position;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && !fill())
+                return -1;
+
+            return buffer[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (position == limit && !fill())
+                return -1;
+
+            final int length = Math.min(len, limit - position);
+
+            System.arraycopy(buffer, position, bytes, off, length);
+            position += length;
+
+            return length;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        /**
+         * Read more of the input into the buffer, first dropping the bytes before the mark.
+         *
+         * @return False at the end of the input
+         */
+        private boolean fill() throws IOException {
+            final int keep = retain ? mark : position;
+
+            if (keep > 0) {
+                System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+                offset += keep;
+                position -= keep;
+                limit -= keep;
+                mark = 0;
+            }
+
+            if (limit == buffer.length)
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+            final int read = in.read(buffer, limit, buffer.length - limit);
+
+            if (read < 0)
+                return false;
+
+            limit += read;
+            return true;
+        }
+    }
+
+    /**
+     * Incremental reader of Pojos, one record of lookahead at a time.
+     */
+    public static final class Reader extends RecordReader<Pojo> {
+        private final PojoFilter filter;
+        private long skipped;
+        private long accepted;
+        private Pojo pojo;
+        private MutablePojo target;
+        private MutablePojo scratch;
+
+        private Reader(InputStream in, PojoFilter filter, RejectHandler rejects) throws IOException {
+            super(in, rejects);
+            this.filter = filter;
+        }
+
+        /**
+         * Read the next valid record into a reusable target, in place of next(), so that records can be
+         * filtered without building a Pojo or any Strings. Invalid records go to the reject handler.
+         *
+         * @param target The target to refill
+         * @return True if a record was read, or false at the end of the input
+         */
+        public boolean readInto(MutablePojo target) {
+            if (isReady()) {
+                target.set(take());
+                return true;
+            }
+
+            if (isDone())
+                return false;
+
+            this.target = target;
+
+            try {
+
+                return advance();
+
+            } finally {
+
+                this.target = null;
+
+            }
+        }
+
+        /**
+         * The number of records read so far that did not pass the filter.
+         *
+         * @return The count of skipped records
+         */
+        public long skipped() {
+            return skipped;
+        }
+
+        /**
+         * The number of records read so far that passed the filter and were valid.
+         *
+         * @return The count of accepted records
+         */
+        public long accepted() {
+            return accepted;
+        }
+
+        /**
+         * The fraction of the records read so far that were accepted.
+         *
+         * @return The selectivity, from 0 to 1, or 0 if no record has been read
+         */
+        public double selectivity() {
+            return count() == 0 ? 0 : (double) accepted / count();
+        }
+
+        @Override
+        public void close() {
+            pojo = null;
+            super.close();
+        }
+
+        @Override
+        boolean read(JsonParser parser) throws IOException {
+            if (Objects.isNull(target) && Objects.isNull(filter)) {
+                pojo = PojoCodec.reader().readValue(parser);
+                accepted++;
+                return true;
+            }
+
+            final MutablePojo into = Objects.nonNull(target) ? target : scratch();
+
+            if (!PojoTokenReader.readInto(parser, into, Objects.nonNull(filter) ? filter : PojoFilter.all())) {
+                skipped++;
+                return false;
+            }
+
+            // A record read into a caller's target is handed over there, not through next()
+            if (Objects.isNull(target))
+                pojo = into.freeze().orElseThrow();
+
+            accepted++;
+            return true;
+        }
+
+        @Override
+        Pojo current() {
+            return pojo;
+        }
+
+        /**
+         * The buffer that filtered records are read into before they are frozen.
+         */
+        private MutablePojo scratch() {
+            if (Objects.isNull(scratch))
+                scratch = MutablePojo.create();
+
+            return scratch;
+        }
+    }
+
+    /**
+     * Incremental writer of Pojos.
+     */
+    public static final class Writer implements Closeable, Flushable {
+        private final JsonGenerator generator;
+        private final Format format;
+        private long count;
+
+        private Writer(JsonGenerator generator, Format format) throws IOException {
+            this.generator = generator;
+            this.format = format;
+
+            generator.setRootValueSeparator(null);
+
+            if (format == Format.JSON_ARRAY)
+                generator.writeStartArray();
+        }
+
+        /**
+         * Write a single Pojo.
+         *
+         * @param pojo The Pojo to write
+         * @return This writer
+         * @throws UncheckedIOException if the output cannot be written
+         */
+        public Writer write(Pojo pojo) {
+            try {
+
+                WRITER.writeValue(generator, Objects.requireNonNull(pojo));
+
+                if (format == Format.NDJSON)
+                    generator.writeRaw('\n');
+
+                count++;
+                return this;
+
+            } catch (IOException e) {
+
+                throw new UncheckedIOException(e);
+
+            }
+        }
+
+        /**
+         * Write every Pojo of a stream, in encounter order.
+         *
+         * @param pojos The Pojos to write
+         * @return This writer
+         */
+        public Writer writeAll(Stream<Pojo> pojos) {
+            pojos.forEachOrdered(this::write);
+            return this;
+        }
+
+        /**
+         * Write every Pojo of an iterable, in iteration order.
+         *
+         * @param pojos The Pojos to write
+         * @return This writer
+         */
+        public Writer writeAll(Iterable<Pojo> pojos) {
+            pojos.forEach(this::write);
+            return this;
+        }
+
+        /**
+         * The number of Pojos written so far.
+         *
+         * @return The count of Pojos
+         */
+        public long count() {
+            return count;
+        }
+
+        @Override
+        public void flush() {
+            try {
+
+                generator.flush();
+
+            } catch (IOException e) {
+
+                throw new UncheckedIOException(e);
+
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+
+                if (format == Format.JSON_ARRAY && !generator.isClosed())
+                    generator.writeEndArray();
+
+                generator.close();
+
+            } catch (IOException e) {
+
+                throw new UncheckedIOException(e);
+
+            }
+        }
+    }
+}
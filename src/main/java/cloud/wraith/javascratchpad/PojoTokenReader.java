@@ -0,0 +1,280 @@
+package cloud.wraith.javascratchpad;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.UTF8StreamJsonParser;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Reads a Pojo field by field from a streaming parser, without going through databind.
+ *
+ * Follows the same rules as Jackson's handling of Pojo.jsonCreator: unknown properties are skipped,
+ * missing or null values take their defaults, scalars are coerced to text, and a record that fails
+ * validation is reported as an InvalidDefinitionException. The type of thing is looked up straight
+ * from the parser's text buffer, so no string is built for it.
+ */
+final class PojoTokenReader {
+    static final String ID = "id";
+    static final String NAME = "name";
+    static final String INT_VALUE = "intValue";
+    static final String TYPE_OF_THING = "typeOfThing";
+
+    private static final JavaType POJO_TYPE = PojoCodec.reader().getTypeFactory().constructType(Pojo.class);
+
+    /**
+     * Hide the constructor of a static utility class.
+     */
+    private PojoTokenReader() {
+    }
+
+    /**
+     * Read a Pojo from the object at the parser's current token, leaving the parser on its END_OBJECT.
+     *
+     * @param parser A parser whose current token is START_OBJECT
+     * @return The Pojo
+     * @throws JsonMappingException if the object is not a valid Pojo
+     * @throws IOException if the input is malformed or cannot be read
+     */
+    static Pojo read(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT)
+            throw MismatchedInputException.from(parser, Pojo.class, "Expected a json object but found " + parser.currentToken());
+
+        String id = null;
+        String name = null;
+        int intValue = 0;
+        Pojo.TypeOfThing typeOfThing = null;
+
+        for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+            final JsonToken token = parser.nextToken();
+
+            switch (field) {
+                case ID:
+                    id = readText(parser, token);
+                    break;
+                case NAME:
+                    name = readText(parser, token);
+                    break;
+                case INT_VALUE:
+                    intValue = readInt(parser, token);
+                    break;
+                case TYPE_OF_THING:
+                    typeOfThing = readTypeOfThing(parser, token);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        final PojoValidation validation = PojoValidation.validate(id, name, intValue, typeOfThing);
+
+        if (!validation.isValid())
+            throw InvalidDefinitionException.from(parser, validation.getMessage(), POJO_TYPE);
+
+        return PojoInterner.canonical(Pojo.ofValidated(id, name, intValue, typeOfThing));
+    }
+
+    /**
+     * Read the object at the parser's current token into a reusable target, without building any
+     * Strings, leaving the parser on its END_OBJECT.
+     *
+     * @param parser A parser whose current token is START_OBJECT
+     * @param target The target, which is cleared first
+     * @throws JsonMappingException if the object is not a valid Pojo
+     * @throws IOException if the input is malformed or cannot be read
+     */
+    static void readInto(JsonParser parser, MutablePojo target) throws IOException {
+        readInto(parser, target, PojoFilter.all());
+    }
+
+    /**
+     * Read the object at the parser's current token into a reusable target, checking each field
+     * against a filter as soon as it is read. At the first field that fails, the rest of the object is
+     * skipped token by token. Either way the parser is left on the object's END_OBJECT.
+     *
+     * Records are only validated once they pass the filter, so a record that fails it is skipped
+     * rather than rejected, even if it is not a valid Pojo.
+     *
+     * @param parser A parser whose current token is START_OBJECT
+     * @param target The target, which is cleared first
+     * @param filter The filter
+     * @return True if the record passed the filter, or false if it was skipped
+     * @throws JsonMappingException if the record passed the filter but is not a valid Pojo
+     * @throws IOException if the input is malformed or cannot be read
+     */
+    static boolean readInto(JsonParser parser, MutablePojo target, PojoFilter filter) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT)
+            throw MismatchedInputException.from(parser, Pojo.class, "Expected a json object but found " + parser.currentToken());
+
+        target.clear();
+
+        for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+            final JsonToken token = parser.nextToken();
+            boolean accepted = true;
+
+            switch (field) {
+                case ID:
+                    readText(parser, token, target.id());
+                    accepted = filter.acceptsId(target.id());
+                    break;
+                case NAME:
+                    readText(parser, token, target.name());
+                    break;
+                case INT_VALUE:
+                    target.setIntValue(readInt(parser, token));
+                    accepted = filter.acceptsIntValue(target.getIntValue());
+                    break;
+                case TYPE_OF_THING:
+                    target.setTypeOfThing(readTypeOfThing(parser, token));
+                    accepted = filter.acceptsType(target.getType());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+
+            if (!accepted) {
+                skipRest(parser);
+                return false;
+            }
+        }
+
+        // Catch the conditions on fields that were missing, and so took their defaults
+        if (!filter.test(target))
+            return false;
+
+        final PojoValidation validation = target.validate();
+
+        if (!validation.isValid())
+            throw InvalidDefinitionException.from(parser, validation.getMessage(), POJO_TYPE);
+
+        return true;
+    }
+
+    /**
+     * Read only the projected fields of the object at the parser's current token, leaving the parser on
+     * its END_OBJECT. Every other property is skipped at token level, without being decoded.
+     *
+     * @param parser A parser whose current token is START_OBJECT
+     * @param fields The fields to read
+     * @param view The same fields as an unmodifiable set, to share with the projection
+     * @return The projection
+     * @throws JsonMappingException if a projected field is not valid
+     * @throws IOException if the input is malformed or cannot be read
+     */
+    static PojoProjection project(JsonParser parser, EnumSet<PojoField> fields, Set<PojoField> view) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT)
+            throw MismatchedInputException.from(parser, Pojo.class, "Expected a json object but found " + parser.currentToken());
+
+        String id = null;
+        String name = null;
+        int intValue = 0;
+        Pojo.TypeOfThing typeOfThing = null;
+
+        for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+            final JsonToken token = parser.nextToken();
+
+            if (ID.equals(field) && fields.contains(PojoField.ID))
+                id = readText(parser, token);
+            else if (NAME.equals(field) && fields.contains(PojoField.NAME))
+                name = readText(parser, token);
+            else if (INT_VALUE.equals(field) && fields.contains(PojoField.INT_VALUE))
+                intValue = readInt(parser, token);
+            else if (TYPE_OF_THING.equals(field) && fields.contains(PojoField.TYPE_OF_THING))
+                typeOfThing = readTypeOfThing(parser, token);
+            else
+                parser.skipChildren();
+        }
+
+        if (fields.contains(PojoField.ID) && StringUtils.isBlank(id))
+            throw InvalidDefinitionException.from(parser, PojoValidation.of(PojoValidation.Reason.BLANK_ID).getMessage(), POJO_TYPE);
+        if (fields.contains(PojoField.TYPE_OF_THING) && Objects.isNull(typeOfThing))
+            throw InvalidDefinitionException.from(parser, PojoValidation.of(PojoValidation.Reason.INVALID_TYPE_OF_THING).getMessage(), POJO_TYPE);
+
+        return new PojoProjection(view, id, fields.contains(PojoField.NAME) ? StringUtils.defaultString(name) : null, intValue, typeOfThing);
+    }
+
+    /**
+     * Skip the remaining properties of the object being read, up to and including its END_OBJECT.
+     */
+    private static void skipRest(JsonParser parser) throws IOException {
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_OBJECT && token != null; token = parser.nextToken())
+            parser.skipChildren();
+    }
+
+    static void readText(JsonParser parser, JsonToken token, MutablePojo.Text target) throws IOException {
+        if (token == JsonToken.VALUE_NULL)
+            target.set(null);
+        else if (token.isScalarValue())
+            target.set(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        else
+            throw MismatchedInputException.from(parser, String.class, "Expected text for property '" + parser.getCurrentName() + "' but found " + token);
+    }
+
+    static String readText(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL)
+            return null;
+        if (token.isScalarValue())
+            return parser.getText();
+
+        throw MismatchedInputException.from(parser, String.class, "Expected text for property '" + parser.getCurrentName() + "' but found " + token);
+    }
+
+    static int readInt(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_NUMBER_INT:
+                // A well formed number that does not fit is a bad record, not malformed json
+                if (parser.getNumberType() != JsonParser.NumberType.INT)
+                    throw InvalidFormatException.from(parser, "Expected an int for property '" + parser.getCurrentName() + "' but found " + parser.getText(), parser.getText(), Integer.TYPE);
+
+                return parser.getIntValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getValueAsInt();
+            case VALUE_NULL:
+                return 0;
+            case VALUE_STRING:
+                final String text = parser.getText().trim();
+                try {
+
+                    return text.isEmpty() ? 0 : Integer.parseInt(text);
+
+                } catch (NumberFormatException e) {
+
+                    throw InvalidFormatException.from(parser, "Expected an int for property '" + parser.getCurrentName() + "' but found \"" + text + "\"", text, Integer.TYPE);
+
+                }
+            default:
+                throw MismatchedInputException.from(parser, Integer.TYPE, "Expected an int for property '" + parser.getCurrentName() + "' but found " + token);
+        }
+    }
+
+    /**
+     * The byte offset in the parser's input of its current token, or of the token it failed to read,
+     * without allocating a location for it as getTokenLocation() does.
+     *
+     * @param parser The parser
+     * @return The offset, or -1 if the parser does not read bytes
+     */
+    static long tokenOffset(JsonParser parser) {
+        // The byte parser counts its token offset from one, as its getTokenLocation() corrects for
+        return parser instanceof UTF8StreamJsonParser
+            ? ((UTF8StreamJsonParser) parser).getTokenCharacterOffset() - 1
+            : parser.getTokenLocation().getByteOffset();
+    }
+
+    static Pojo.TypeOfThing readTypeOfThing(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_STRING)
+            return Pojo.TypeOfThing.lookup(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+
+        return Pojo.TypeOfThing.lookup(StringUtils.defaultString(readText(parser, token)));
+    }
+}
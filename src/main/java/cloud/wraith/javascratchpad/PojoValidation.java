@@ -0,0 +1,109 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.Arrays;
+
+import javax.annotation.concurrent.Immutable;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The result of validating the fields of a Pojo.
+ *
+ * Validation never throws and never allocates: there is exactly one shared instance per reason code,
+ * and its message is built once, up front.
+ */
+@Immutable
+public final class PojoValidation {
+    private static final PojoValidation[] RESULTS = Arrays.stream(Reason.values())
+        .map(PojoValidation::new)
+        .toArray(PojoValidation[]::new);
+
+    private static final PojoValidation VALID = RESULTS[Reason.VALID.ordinal()];
+
+    private final Reason reason;
+
+    /**
+     * Reason codes for the outcome of a validation.
+     */
+    public enum Reason {
+        VALID("Valid"),
+        BLANK_ID("Id should not be blank"),
+        INVALID_TYPE_OF_THING("Type of thing should be one of " + Arrays.toString(Pojo.TypeOfThing.values()));
+
+        private final String message;
+
+        Reason(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return this.message;
+        }
+    }
+
+    private PojoValidation(Reason reason) {
+        this.reason = reason;
+    }
+
+    /**
+     * Returns the shared result for a reason code.
+     *
+     * @param reason The reason code
+     * @return The result for that reason
+     */
+    public static PojoValidation of(Reason reason) {
+        return RESULTS[reason.ordinal()];
+    }
+
+    /**
+     * Validate the fields of a prospective Pojo.
+     *
+     * @param id Value of id
+     * @param name Value of name
+     * @param intValue Value of intValue
+     * @param typeOfThing Value of typeOfThing
+     * @return The result of the validation, reporting the first rule that failed
+     */
+    static PojoValidation validate(String id, String name, int intValue, String typeOfThing) {
+        return validate(id, name, intValue, Pojo.TypeOfThing.lookup(typeOfThing));
+    }
+
+    /**
+     * Validate the fields of a prospective Pojo, whose type of thing has already been looked up.
+     *
+     * @param id Value of id
+     * @param name Value of name
+     * @param intValue Value of intValue
+     * @param typeOfThing Value of typeOfThing, null if the name did not match a type of thing
+     * @return The result of the validation, reporting the first rule that failed
+     */
+    static PojoValidation validate(String id, String name, int intValue, Pojo.TypeOfThing typeOfThing) {
+        if (StringUtils.isBlank(id))
+            return of(Reason.BLANK_ID);
+
+        if (typeOfThing == null)
+            return of(Reason.INVALID_TYPE_OF_THING);
+
+        return VALID;
+    }
+
+    public boolean isValid() {
+        return this.reason == Reason.VALID;
+    }
+
+    public Reason getReason() {
+        return this.reason;
+    }
+
+    public String getMessage() {
+        return this.reason.getMessage();
+    }
+
+    @Override
+    public String toString() {
+        return "{" +
+            " reason='" + getReason() + "'" +
+            ", message='" + getMessage() + "'" +
+            "}";
+    }
+}
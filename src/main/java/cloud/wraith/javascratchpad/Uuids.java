@@ -0,0 +1,99 @@
+package cloud.wraith.javascratchpad;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Packing of ids that are canonical UUID strings into two longs, and back.
+ *
+ * Only the canonical lower case form, as produced by UUID.toString(), is packed, so that unpacking
+ * always gives back exactly the original string.
+ */
+final class Uuids {
+    static final int LENGTH = 36;
+
+    private static final byte[] HEX = new byte[128];
+
+    static {
+        Arrays.fill(HEX, (byte) -1);
+
+        for (char c = '0'; c <= '9'; c++)
+            HEX[c] = (byte) (c - '0');
+        for (char c = 'a'; c <= 'f'; c++)
+            HEX[c] = (byte) (c - 'a' + 10);
+    }
+
+    /**
+     * Hide the constructor of a static utility class.
+     */
+    private Uuids() {
+    }
+
+    /**
+     * Whether an id is a UUID in canonical lower case form, eg. 578da685-f6ea-4ffe-869a-49acbbc998b2.
+     *
+     * @param id The id
+     * @return True if the id can be packed and unpacked without loss
+     */
+    static boolean isCanonical(CharSequence id) {
+        if (id == null || id.length() != LENGTH)
+            return false;
+
+        for (int i = 0; i < LENGTH; i++) {
+            final char c = id.charAt(i);
+
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-')
+                    return false;
+            } else if (c >= HEX.length || HEX[c] < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The high 64 bits of a canonical UUID.
+     *
+     * @param id A canonical UUID
+     * @return The most significant bits
+     */
+    static long mostSignificantBits(CharSequence id) {
+        return bits(id, 0, 18);
+    }
+
+    /**
+     * The low 64 bits of a canonical UUID.
+     *
+     * @param id A canonical UUID
+     * @return The least significant bits
+     */
+    static long leastSignificantBits(CharSequence id) {
+        return bits(id, 19, LENGTH);
+    }
+
+    /**
+     * The canonical string form of a packed UUID.
+     *
+     * @param mostSignificantBits The high 64 bits
+     * @param leastSignificantBits The low 64 bits
+     * @return The canonical UUID
+     */
+    static String toString(long mostSignificantBits, long leastSignificantBits) {
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
+
+    private static long bits(CharSequence id, int from, int to) {
+        long bits = 0;
+
+        for (int i = from; i < to; i++) {
+            final char c = id.charAt(i);
+
+            if (c != '-')
+                bits = (bits << 4) | HEX[c];
+        }
+
+        return bits;
+    }
+}
@@ -0,0 +1,28 @@
+#!/bin/sh
+#
+# Launches App from the jar built by: mvn -Pcds package -DskipTests
+#
+# Uses the AppCDS archive in target/cds when there is one, so the JDK, Jackson and Pojo classes are
+# mapped in already parsed and verified instead of being loaded from jars. Set APP_CDS=off to launch
+# without it, eg. to compare startup times. Extra JVM options can be passed in JAVA_OPTS.
+#
+set -eu
+
+ROOT=$(cd "$(dirname "$0")/../../.." && pwd)
+CDS="$ROOT/target/cds"
+JAR="$ROOT/target/javascratchpad-1.0-SNAPSHOT.jar"
+
+if [ ! -f "$JAR" ] || [ ! -f "$CDS/dependencies.txt" ]; then
+    echo "Build first with: mvn -Pcds package -DskipTests" >&2
+    exit 1
+fi
+
+SHARE="-Xshare:auto"
+
+if [ "${APP_CDS:-on}" != "off" ] && [ -f "$CDS/app.jsa" ]; then
+    SHARE="-XX:SharedArchiveFile=$CDS/app.jsa -Xshare:auto"
+fi
+
+# The class path must match the one the archive was dumped with
+exec java $SHARE ${JAVA_OPTS:-} -Dapp.launched="$(date +%s%N)" \
+    -cp "$JAR:$(cat "$CDS/dependencies.txt")" cloud.wraith.javascratchpad.App "$@"
@@ -0,0 +1,30 @@
+#!/bin/sh
+#
+# Reports App's time to first record, the median of a number of runs, launched with and without the
+# AppCDS archive and with and without the warm-up hook. Build first with: mvn -Pcds package -DskipTests
+#
+# Usage: measure-startup.sh [runs]
+#
+set -eu
+
+HERE=$(cd "$(dirname "$0")" && pwd)
+RUNS=${1:-10}
+INPUT=$(mktemp)
+trap 'rm -f "$INPUT"' EXIT
+
+printf '{"id":"578da685-f6ea-4ffe-869a-49acbbc998b2","name":"my-test-name","intValue":12345,"typeOfThing":"SOME_THING"}\n' > "$INPUT"
+
+# Print the median time to first record, in milliseconds, of RUNS launches with the given settings
+median() {
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        env APP_CDS="$1" "$HERE/app.sh" --report-startup $2 < "$INPUT" 2>&1 >/dev/null | sed -n 's/^Time to first record: \([0-9]*\)ms$/\1/p'
+        i=$((i + 1))
+    done | sort -n | awk '{ times[NR] = $1 } END { print times[int((NR + 1) / 2)] }'
+}
+
+printf '%-28s %s\n' "Launch" "Time to first record (median of $RUNS)"
+printf '%-28s %sms\n' "default JDK CDS" "$(median off '')"
+printf '%-28s %sms\n' "AppCDS" "$(median on '')"
+printf '%-28s %sms\n' "default JDK CDS, --warm-up" "$(median off --warm-up)"
+printf '%-28s %sms\n' "AppCDS, --warm-up" "$(median on --warm-up)"
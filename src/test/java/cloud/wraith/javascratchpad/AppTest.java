@@ -1,20 +1,152 @@
 package cloud.wraith.javascratchpad;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
 import org.junit.Test;
 
 /**
- * Unit test for simple App.
+ * Unit test for App class.
  */
-public class AppTest
-{
+public class AppTest {
+    private static final Pojo POJO = Pojo.of("578da685-f6ea-4ffe-869a-49acbbc998b2", "my-test-name", 12345, Pojo.TypeOfThing.SOME_THING).orElseThrow();
+
+    /**
+     * Test copying the valid records of stdin to stdout, with the startup report.
+     */
+    @Test
+    public void shouldCopyValidRecords() {
+        final String input = "[" + POJO.toJson().orElseThrow() + ",{\"id\":\"\"}," + POJO.toJson().orElseThrow() + "]";
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        final int status = App.run(new String[] {"--warm-up", "--report-startup"}, new ByteArrayInputStream(input.getBytes()), out,
+            new PrintStream(err, true));
+
+        assertEquals("Status should match", App.OK, status);
+        assertEquals("Output should match", POJO.toJson().orElseThrow() + "\n" + POJO.toJson().orElseThrow() + "\n", out.toString(StandardCharsets.UTF_8));
+        assertTrue("Should report startup", err.toString(StandardCharsets.UTF_8).startsWith("Time to first record: "));
+    }
+
+    /**
+     * Test filtering files and converting them to a json array in a file, with the report on exit.
+     */
+    @Test
+    public void shouldFilterAndConvertFiles() throws IOException {
+        final Pojo other = Pojo.of("26f974dd-8762-4e7b-b5f7-7fd6c14e4de8", "my-other-name", 2, Pojo.TypeOfThing.THIS_THING).orElseThrow();
+        final Path input = Files.createTempFile("pojos", ".ndjson");
+        final Path output = Files.createTempFile("pojos", ".json");
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        try {
+
+            Files.writeString(input, POJO.toJson().orElseThrow() + "\n{\"id\":\"\"}\n" + other.toJson().orElseThrow() + "\n");
+
+            final int status = App.run(new String[] {"--type", "SOME_THING,THAT_THING", "--format", "json", "--output", output.toString(), input.toString()},
+                new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(), new PrintStream(err, true));
+
+            assertEquals("Status should match", App.OK, status);
+            assertEquals("Output should match", "[" + POJO.toJson().orElseThrow() + "]", Files.readString(output));
+            assertTrue("Should report counts", err.toString(StandardCharsets.UTF_8).contains("records/s: wrote 1, skipped 1, rejected 1"));
+
+        } finally {
+
+            Files.delete(input);
+            Files.delete(output);
+
+        }
+    }
+
+    /**
+     * Test logging rejects and a throughput summary to an event log.
+     */
+    @Test
+    public void shouldLogEvents() throws IOException {
+        final String input = POJO.toJson().orElseThrow() + "\n{\"id\":\"\",\"typeOfThing\":\"SOME_THING\"}\n{\"id\":\n";
+        final Path events = Files.createTempFile("events", ".ndjson");
+
+        try {
+
+            final int status = App.run(new String[] {"--event-log", events.toString()}, new ByteArrayInputStream(input.getBytes()),
+                new ByteArrayOutputStream(), new PrintStream(new ByteArrayOutputStream(), true));
+            final List<String> lines = Files.readAllLines(events);
+
+            assertEquals("Status should match", App.OK, status);
+            assertEquals("Events should match", 3, lines.size());
+            assertTrue("Should log the reject", lines.get(0).contains("\"event\":\"reject\",") && lines.get(0).contains("\"index\":1,"));
+            assertTrue("Should log the parse failure", lines.get(1).contains("\"event\":\"parseFailure\","));
+            assertTrue("Should log the summary", lines.get(2).contains("\"event\":\"throughput\",") && lines.get(2).contains("\"rejected\":2,"));
+
+        } finally {
+
+            Files.delete(events);
+
+        }
+    }
+
+    /**
+     * Test an input that cannot be read.
+     */
+    @Test
+    public void shouldFailOnAMissingFile() {
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        assertEquals("Status should match", App.FAILED, App.run(new String[] {"no-such-file.ndjson"}, new ByteArrayInputStream(new byte[0]),
+            new ByteArrayOutputStream(), new PrintStream(err, true)));
+        assertTrue("Should report the failure", err.toString(StandardCharsets.UTF_8).startsWith("Failed: "));
+    }
+
+    /**
+     * Test a training run, which reads nothing and writes nothing.
+     */
+    @Test
+    public void shouldTrainWithoutReading() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals("Status should match", App.OK, App.run(new String[] {"--train"}, new ByteArrayInputStream(new byte[0]), out, System.err));
+        assertEquals("Should write nothing", 0, out.size());
+    }
+
+    /**
+     * Test unknown and incomplete options.
+     */
+    @Test
+    public void shouldRejectAnUnknownOption() {
+        for (String[] args : new String[][] {{"--bogus"}, {"--format", "xml"}, {"--type", "NOT_A_THING"}, {"--batch-size", "0"}, {"--output"}}) {
+            final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+            assertEquals("Status should match", App.USAGE, App.run(args, new ByteArrayInputStream(new byte[0]),
+                new ByteArrayOutputStream(), new PrintStream(err, true)));
+            assertTrue("Should print usage", err.toString(StandardCharsets.UTF_8).contains("Usage"));
+        }
+    }
+
     /**
-     * Rigorous Test :-)
+     * Test the launch time given by a launcher.
      */
     @Test
-    public void shouldAnswerWithTrue()
-    {
-        assertTrue( true );
+    public void shouldMeasureFromTheLaunchTime() {
+        final long nanos = System.currentTimeMillis() * 1_000_000L - 5_000_000_000L;
+
+        System.setProperty(App.LAUNCHED_PROPERTY, Long.toString(nanos));
+
+        try {
+
+            assertTrue("Should be about five seconds", App.sinceLaunch().getSeconds() >= 5);
+
+        } finally {
+
+            System.clearProperty(App.LAUNCHED_PROPERTY);
+
+        }
     }
 }
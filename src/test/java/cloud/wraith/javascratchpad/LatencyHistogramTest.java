@@ -0,0 +1,115 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit test for LatencyHistogram class.
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Test that every bucket starts where the one before it ends, and that values land in the bucket
+     * that holds them.
+     */
+    @Test
+    public void shouldCoverEveryValue() {
+        long expected = 0;
+
+        for (int i = 0; LatencyHistogram.highestValueAt(i) != Long.MAX_VALUE; i++) {
+            assertEquals("Bucket should start after the last", expected, LatencyHistogram.lowestValueAt(i));
+            assertEquals("Lowest value should be in the bucket", i, LatencyHistogram.indexOf(LatencyHistogram.lowestValueAt(i)));
+            assertEquals("Highest value should be in the bucket", i, LatencyHistogram.indexOf(LatencyHistogram.highestValueAt(i)));
+
+            expected = LatencyHistogram.highestValueAt(i) + 1;
+        }
+
+        assertEquals("Last bucket should hold the largest value", 3711, LatencyHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    /**
+     * Test percentiles, to within the precision of a bucket.
+     */
+    @Test
+    public void shouldReportPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        for (long i = 1; i <= 10_000; i++)
+            histogram.record(i * 1000);
+
+        assertEquals("Count should match", 10_000, histogram.count());
+        assertEquals("Max should be exact", 10_000_000, histogram.max());
+        assertEquals("Mean should be exact", 5_000_500, histogram.mean(), 0.001);
+        assertEquals("Median should match", 5_000_000, histogram.percentile(50), 5_000_000 / 64);
+        assertEquals("p99 should match", 9_900_000, histogram.percentile(99), 9_900_000 / 64);
+        assertEquals("p100 should be the max", 10_000_000, histogram.percentile(100));
+        assertEquals("p0 should be the min", 1000, histogram.percentile(0), 1000 / 64);
+        assertTrue("Report should be in microseconds", histogram.report().contains("max=10000.0 (us)"));
+
+        histogram.reset();
+
+        assertEquals("Count should be reset", 0, histogram.count());
+        assertEquals("Percentile should be zero", 0, histogram.percentile(99));
+    }
+
+    /**
+     * Test recording from many threads at once.
+     */
+    @Test
+    public void shouldRecordConcurrently() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+            final Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++)
+                    histogram.record(i);
+            });
+
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals("Count should match", 400_000, histogram.count());
+        assertEquals("Max should match", 99_999, histogram.max());
+    }
+
+    /**
+     * Test that draining while recording loses nothing, each latency landing in one drain or the next.
+     */
+    @Test
+    public void shouldDrainWithoutLosingLatencies() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final Thread recorder = new Thread(() -> {
+            for (int i = 0; i < 1_000_000; i++)
+                histogram.record(i & 1023);
+        });
+        long drained = 0;
+
+        recorder.start();
+
+        while (recorder.isAlive())
+            drained += histogram.drain().count();
+
+        drained += histogram.drain().count();
+
+        assertEquals("Count should match", 1_000_000, drained);
+        assertEquals("Should be empty", 0, histogram.count());
+    }
+
+    /**
+     * Test a percentile out of range.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptABadPercentile() {
+        new LatencyHistogram().percentile(101);
+    }
+}
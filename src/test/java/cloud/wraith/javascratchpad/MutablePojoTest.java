@@ -0,0 +1,115 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * Unit test for MutablePojo class.
+ */
+public class MutablePojoTest {
+    private static final Pojo POJO = Pojo.of("578da685-f6ea-4ffe-869a-49acbbc998b2", "my-test-name", 12345, Pojo.TypeOfThing.SOME_THING).orElseThrow();
+
+    /**
+     * Test the views and freezing.
+     */
+    @Test
+    public void shouldFreezeIntoAnEqualPojo() {
+        final MutablePojo actual = MutablePojo.create().set(POJO);
+
+        assertTrue("Id should match", actual.idEquals(POJO.getId()));
+        assertTrue("Name should match", actual.nameEquals(POJO.getName()));
+        assertEquals("Id should match", POJO.getId(), actual.getId().toString());
+        assertEquals("Name should match", "my", actual.getName().subSequence(0, 2));
+        assertEquals("Int value should match", POJO.getIntValue(), actual.getIntValue());
+        assertEquals("Type of thing should match", POJO.getType(), actual.getType());
+        assertEquals("Pojos should match", POJO, actual.freeze().orElseThrow());
+        assertFalse("Should not freeze an empty record", actual.clear().freeze().isPresent());
+        assertEquals("Reason should match", PojoValidation.Reason.BLANK_ID, actual.setTypeOfThing(Pojo.TypeOfThing.SOME_THING).validate().getReason());
+        assertEquals("Reason should match", PojoValidation.Reason.INVALID_TYPE_OF_THING, actual.setId("id").setTypeOfThing(null).validate().getReason());
+        assertSame("Should be one instance per thread", MutablePojo.local(), MutablePojo.local());
+    }
+
+    /**
+     * Test refilling one target from a stream, with the same results as the iterator.
+     */
+    @Test
+    public void shouldRefillFromAStream() {
+        final String json = "[" + POJO.toJson().orElseThrow() + ",{\"id\":\"\",\"typeOfThing\":\"SOME_THING\"},"
+            + "{\"id\":7,\"name\":null,\"intValue\":\"-1\",\"typeOfThing\":\"THAT_THING\",\"extra\":[1,{}]},"
+            + "{\"id\":\"" + "x".repeat(1000) + "\",\"typeOfThing\":\"THIS_THING\"}]";
+        final List<Long> rejects = new ArrayList<>();
+        final List<Pojo> actual = new ArrayList<>();
+        final MutablePojo target = MutablePojo.create();
+
+        try (PojoStreams.Reader reader = PojoStreams.iterator(new ByteArrayInputStream(json.getBytes()), (index, cause) -> rejects.add(index))) {
+            while (reader.readInto(target))
+                actual.add(target.freeze().orElseThrow());
+
+            assertFalse("Should stay at the end", reader.readInto(target));
+        }
+
+        assertEquals("Pojos should match", List.of(POJO, Pojo.of("7", "", -1, "THAT_THING").orElseThrow(),
+            Pojo.of("x".repeat(1000), "", 0, "THIS_THING").orElseThrow()), actual);
+        assertEquals("Rejects should match", List.of(1L), rejects);
+    }
+
+    /**
+     * Test that a filter loop over NDJSON allocates nothing per record.
+     */
+    @Test
+    public void shouldFilterWithoutAllocating() {
+        final StringBuilder ndjson = new StringBuilder();
+        final int records = 20_000;
+
+        for (int i = 0; i < records; i++)
+            ndjson.append(json(UUID.randomUUID().toString(), "name-" + i, i, Pojo.TypeOfThing.lookup(i & 3).name())).append('\n');
+
+        final byte[] bytes = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+
+        // Once to warm up, then measured
+        filter(bytes);
+        final long[] actual = filter(bytes);
+
+        assertEquals("Matches should match", records / 4, actual[0]);
+        assertTrue("Should allocate under a byte per record, not " + actual[1], actual[1] < records);
+    }
+
+    /**
+     * Filter records and measure the bytes allocated by the loop itself.
+     *
+     * @return The number of matches and the bytes allocated
+     */
+    private static long[] filter(byte[] bytes) {
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final MutablePojo record = MutablePojo.local();
+        long matches = 0;
+        long allocated;
+
+        try (PojoStreams.Reader reader = PojoStreams.iterator(new ByteArrayInputStream(bytes), PojoStreams.IGNORE_REJECTS)) {
+            final long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+
+            while (reader.readInto(record))
+                if (record.getType() == Pojo.TypeOfThing.THIS_THING && record.getIntValue() >= 0)
+                    matches++;
+
+            allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+        }
+
+        return new long[] {matches, allocated};
+    }
+
+    private static String json(String id, String name, int intValue, String typeOfThing) {
+        return "{\"id\":\"" + id + "\",\"name\":\"" + name + "\",\"intValue\":" + intValue + ",\"typeOfThing\":\"" + typeOfThing + "\"}";
+    }
+}
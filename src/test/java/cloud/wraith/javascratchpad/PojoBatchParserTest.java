@@ -0,0 +1,180 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoBatchParser class.
+ */
+public class PojoBatchParserTest {
+    private static final int RECORDS = 2000;
+    private static final String INVALID = "{\"id\":\"\",\"name\":\"no id, [or] {braces}\",\"typeOfThing\":\"SOME_THING\"}";
+
+    private static final List<Pojo> EXPECTED = new ArrayList<>();
+
+    static {
+        final Pojo.TypeOfThing[] types = Pojo.TypeOfThing.values();
+
+        for (int i = 0; i < RECORDS; i++)
+            EXPECTED.add(Pojo.of(UUID.randomUUID().toString(), "name \"" + i + "\", [x] {y}", i, types[i % types.length]).orElseThrow());
+    }
+
+    private static String ndjson() {
+        final StringBuilder json = new StringBuilder();
+
+        for (int i = 0; i < RECORDS; i++) {
+            json.append(EXPECTED.get(i).toJson().orElseThrow()).append('\n');
+            if (i % 100 == 0)
+                json.append(INVALID).append('\n');
+        }
+
+        return json.toString();
+    }
+
+    private static String array() {
+        final StringBuilder json = new StringBuilder("[");
+
+        for (int i = 0; i < RECORDS; i++) {
+            json.append(EXPECTED.get(i).toJson().orElseThrow()).append(",\n");
+            if (i % 100 == 0)
+                json.append(INVALID).append(',');
+        }
+
+        return json.append("42]").toString();
+    }
+
+    /**
+     * Test parsing newline-delimited json in many chunks.
+     */
+    @Test
+    public void shouldParseNdjsonInChunks() {
+        final PojoBatchParser.Result actual = PojoBatchParser.of().withChunkSize(4096).parse(ndjson().getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("Pojos should match in order", EXPECTED, actual.getPojos());
+        assertTrue("Should be split into chunks", actual.getChunks().size() > 10);
+        assertEquals("Accepted count should match", RECORDS, actual.getAccepted());
+        assertEquals("Rejected count should match", RECORDS / 100, actual.getRejected());
+    }
+
+    /**
+     * Test parsing a json array in many chunks, with separators inside strings.
+     */
+    @Test
+    public void shouldParseAnArrayInChunks() {
+        final PojoBatchParser.Result actual = PojoBatchParser.of().withChunkSize(4096).parse(array().getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("Pojos should match in order", EXPECTED, actual.getPojos());
+        assertTrue("Should be split into chunks", actual.getChunks().size() > 10);
+        assertEquals("Rejected count should match", RECORDS / 100 + 1, actual.getRejected());
+    }
+
+    /**
+     * Test that malformed records are rejected one by one, in lines and in array elements, and that
+     * parsing carries on with the next record in the same chunk.
+     */
+    @Test
+    public void shouldRejectMalformedRecordsOneByOne() {
+        final String[] lines = {"{\"id\":\"a\"", "{\"id\":\"x\",\"name\":", "{\"id\":}", "x"};
+        final String[] elements = {"{\"id\":\"a\" \"b\"}", "{\"id\":\"x\",\"name\":}", "{\"id\":}", "x"};
+        final StringBuilder ndjson = new StringBuilder();
+        final StringBuilder array = new StringBuilder("[");
+
+        for (int i = 0; i < RECORDS; i++) {
+            final String json = EXPECTED.get(i).toJson().orElseThrow();
+
+            ndjson.append(json).append('\n');
+            array.append(json).append(',');
+
+            if (i % 100 == 0) {
+                ndjson.append(lines[i / 100 % lines.length]).append('\n');
+                array.append(elements[i / 100 % elements.length]).append(',');
+            }
+        }
+
+        for (String json : new String[] {ndjson.toString(), array.append("42]").toString()}) {
+            final PojoBatchParser.Result actual = PojoBatchParser.of().withChunkSize(4096).parse(json.getBytes(StandardCharsets.UTF_8));
+
+            assertEquals("Pojo count should match", RECORDS, actual.getPojos().size());
+            assertEquals("Pojos should match in order", EXPECTED, actual.getPojos());
+            assertEquals("Rejected count should match", RECORDS / 100 + (json.startsWith("[") ? 1 : 0), actual.getRejected());
+        }
+    }
+
+    /**
+     * Test that per-chunk counts add up.
+     */
+    @Test
+    public void shouldCountPerChunk() {
+        final PojoBatchParser.Result actual = PojoBatchParser.of().withChunkSize(4096).parse(ndjson().getBytes(StandardCharsets.UTF_8));
+
+        for (int i = 0; i < actual.getChunks().size(); i++)
+            assertEquals("Chunks should be numbered in order", i, actual.getChunks().get(i).getIndex());
+
+        assertEquals("Chunk sizes should cover the input", ndjson().length(), actual.getChunks().stream().mapToInt(PojoBatchParser.ChunkStats::getBytes).sum());
+    }
+
+    /**
+     * Test handing Pojos to a sink, in order and out of order.
+     */
+    @Test
+    public void shouldHandPojosToASink() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final ByteBuffer input = ByteBuffer.wrap(ndjson().getBytes(StandardCharsets.UTF_8));
+
+        try {
+
+            final List<Pojo> ordered = new ArrayList<>();
+            PojoBatchParser.of().withPool(pool).withChunkSize(2048).forEach(input, ordered::add);
+            assertEquals("Ordered sink should see input order", EXPECTED, ordered);
+
+            final ConcurrentLinkedQueue<Pojo> unordered = new ConcurrentLinkedQueue<>();
+            final PojoBatchParser.Result result = PojoBatchParser.of().withPool(pool).withChunkSize(2048).withOrdered(false).forEach(input, unordered::add);
+            final Set<Pojo> expected = new HashSet<>(EXPECTED);
+
+            assertEquals("Unordered sink should see every Pojo", expected, new HashSet<>(unordered));
+            assertEquals("Unordered sink should see each Pojo once", RECORDS, unordered.size());
+            assertTrue("Result should not hold the Pojos", result.getPojos().isEmpty());
+
+        } finally {
+
+            pool.shutdown();
+
+        }
+    }
+
+    /**
+     * Test parsing files of each layout.
+     */
+    @Test
+    public void shouldParseFiles() throws IOException {
+        final Path path = Files.createTempFile("pojos", ".json");
+
+        try {
+
+            for (String json : new String[] {ndjson(), "  " + array()}) {
+                Files.write(path, json.getBytes(StandardCharsets.UTF_8));
+                assertEquals("Pojos should match", EXPECTED, PojoBatchParser.of().withChunkSize(8192).parse(path).getPojos());
+            }
+
+        } finally {
+
+            Files.delete(path);
+
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoBatchWriter class.
+ */
+public class PojoBatchWriterTest {
+    private static final List<Pojo> POJOS = new ArrayList<>();
+
+    static {
+        for (int i = 0; i < 1000; i++)
+            POJOS.add(Pojo.of(UUID.randomUUID().toString(), "naïve ☃ name-" + i, i, Pojo.TypeOfThing.lookup(i & 3)).orElseThrow());
+    }
+
+    /**
+     * Test that every target gets the same bytes as PojoStreams.Writer, in both layouts.
+     */
+    @Test
+    public void shouldWriteTheSameBytesAsAStreamWriter() throws IOException {
+        // Small buffers, so a batch spans several gathering writes
+        final PojoBatchWriter batchWriter = PojoBatchWriter.of().withChunkSize(1000).withPoolSize(4);
+
+        for (PojoStreams.Format format : PojoStreams.Format.values()) {
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+            try (PojoStreams.Writer writer = PojoStreams.writer(expected, format)) {
+                writer.writeAll(POJOS);
+            }
+
+            final ByteBuffer buffer = ByteBuffer.allocate(expected.size() + 1).put((byte) ' ');
+
+            assertEquals("Size should match", expected.size(), batchWriter.write(POJOS.toArray(new Pojo[0]), format, buffer));
+            assertEquals("Buffer should match", ByteBuffer.wrap(expected.toByteArray()), buffer.flip().position(1));
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            assertEquals("Size should match", expected.size(), batchWriter.write(POJOS.stream(), format, out));
+            assertEquals("Stream should match", expected.toString("UTF-8"), out.toString("UTF-8"));
+
+            out.reset();
+
+            assertEquals("Size should match", expected.size(), batchWriter.write(POJOS, format, Channels.newChannel(out)));
+            assertEquals("Channel should match", expected.toString("UTF-8"), out.toString("UTF-8"));
+
+            final Path path = Files.createTempFile("pojos", ".json");
+
+            try {
+
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    assertEquals("Size should match", expected.size(), batchWriter.write(POJOS, format, channel));
+                }
+
+                assertEquals("File should match", expected.toString("UTF-8"), Files.readString(path));
+
+            } finally {
+
+                Files.delete(path);
+
+            }
+        }
+    }
+
+    /**
+     * Test a round trip, and writing nothing.
+     */
+    @Test
+    public void shouldRoundTrip() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        PojoBatchWriter.of().write(POJOS, PojoStreams.Format.NDJSON, Channels.newChannel(out));
+
+        try (Stream<Pojo> actual = PojoStreams.stream(new ByteArrayInputStream(out.toByteArray()), PojoStreams.IGNORE_REJECTS)) {
+            assertEquals("Pojos should match", POJOS, actual.collect(Collectors.toList()));
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(2);
+
+        assertEquals("Should write an empty array", 2, PojoBatchWriter.of().write(List.of(), PojoStreams.Format.JSON_ARRAY, buffer));
+        assertEquals("Should write an empty array", "[]", new String(buffer.array()));
+        assertEquals("Should write nothing", 0, PojoBatchWriter.of().write(List.of(), PojoStreams.Format.NDJSON, Channels.newChannel(out)));
+    }
+
+    /**
+     * Test that a buffer that is too small is left as it was.
+     */
+    @Test
+    public void shouldNotOverflowABuffer() {
+        final ByteBuffer buffer = ByteBuffer.allocate(1000).position(10);
+
+        try {
+
+            PojoBatchWriter.of().write(POJOS, PojoStreams.Format.NDJSON, buffer);
+            throw new AssertionError("Should overflow");
+
+        } catch (BufferOverflowException e) {
+
+            assertEquals("Position should not move", 10, buffer.position());
+
+        }
+    }
+
+    /**
+     * Test that the buffers are returned to the pool and reused.
+     */
+    @Test
+    public void shouldReuseBuffers() {
+        final PojoBatchWriter batchWriter = PojoBatchWriter.of().withChunkSize(1000).withPoolSize(4);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        batchWriter.write(POJOS, PojoStreams.Format.NDJSON, Channels.newChannel(out));
+
+        assertEquals("Should fill the pool", 4, batchWriter.pooled());
+
+        batchWriter.write(POJOS.subList(0, 1), PojoStreams.Format.NDJSON, Channels.newChannel(out));
+
+        assertEquals("Should return the buffer it took", 4, batchWriter.pooled());
+        assertTrue("Should have written both batches", out.size() > 1000);
+    }
+
+    /**
+     * Test bad configuration.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptAnEmptyPool() {
+        PojoBatchWriter.of().withPoolSize(0);
+    }
+}
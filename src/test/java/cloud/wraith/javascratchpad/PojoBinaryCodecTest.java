@@ -0,0 +1,155 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoBinaryCodec class.
+ */
+public class PojoBinaryCodecTest {
+    private static final Pojo UUID_ID = Pojo.of("578da685-f6ea-4ffe-869a-49acbbc998b2", "my-test-name", 12345, Pojo.TypeOfThing.SOME_THING).orElseThrow();
+    private static final Pojo UPPER_CASE_UUID_ID = Pojo.of("578DA685-F6EA-4FFE-869A-49ACBBC998B2", "", -1, Pojo.TypeOfThing.THIS_THING).orElseThrow();
+    private static final Pojo TEXT_ID = Pojo.of("not a uuid", "naïve ☃ name", Integer.MIN_VALUE, Pojo.TypeOfThing.OTHER_THING).orElseThrow();
+
+    private static final List<Pojo> POJOS = Arrays.asList(UUID_ID, UPPER_CASE_UUID_ID, TEXT_ID);
+
+    /**
+     * Test a round trip through a byte array.
+     */
+    @Test
+    public void shouldRoundTrip() {
+        for (Pojo expected : POJOS)
+            assertEquals("Pojo should survive a round trip", expected, PojoBinaryCodec.decode(PojoBinaryCodec.encode(expected)).orElseThrow());
+    }
+
+    /**
+     * Test the layout of a record with a UUID id.
+     */
+    @Test
+    public void shouldPackAUuidId() {
+        final byte[] actual = PojoBinaryCodec.encode(UUID_ID);
+
+        assertEquals("Version should come first", PojoBinaryCodec.VERSION, actual[0]);
+        assertEquals("UUID flag should be set", PojoBinaryCodec.FLAG_UUID_ID, actual[1]);
+        // version, flags, 16 byte id, 1 byte length and 12 bytes of name, 3 byte varint, ordinal
+        assertEquals("Size should match", 2 + 16 + 13 + 3 + 1, actual.length);
+        assertTrue("Should be under a third of the json", 3 * actual.length < UUID_ID.toBytes().orElseThrow().length);
+        assertEquals("Upper case UUID should not be packed", 0, PojoBinaryCodec.encode(UPPER_CASE_UUID_ID)[1]);
+    }
+
+    /**
+     * Test concatenated records in a buffer and a stream.
+     */
+    @Test
+    public void shouldReadConcatenatedRecords() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(1024);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for (Pojo pojo : POJOS) {
+            PojoBinaryCodec.encode(pojo, buffer);
+            PojoBinaryCodec.encode(pojo, out);
+        }
+
+        buffer.flip();
+        final InputStream in = new ByteArrayInputStream(out.toByteArray());
+
+        for (Pojo expected : POJOS) {
+            assertEquals("Pojo from buffer should match", expected, PojoBinaryCodec.decode(buffer).orElseThrow());
+            assertEquals("Pojo from stream should match", expected, PojoBinaryCodec.decode(in).orElseThrow());
+        }
+
+        assertTrue("Buffer should be consumed", !buffer.hasRemaining());
+        assertTrue("Stream should end", PojoBinaryCodec.decode(in).isEmpty());
+    }
+
+    /**
+     * Test that a full buffer is left as it was.
+     */
+    @Test
+    public void shouldNotWritePartOfARecord() {
+        final ByteBuffer buffer = ByteBuffer.allocate(10);
+
+        try {
+
+            PojoBinaryCodec.encode(UUID_ID, buffer);
+
+        } catch (BufferOverflowException e) {
+
+            assertEquals("Position should be unchanged", 0, buffer.position());
+            return;
+
+        }
+
+        throw new AssertionError("Encoding should overflow");
+    }
+
+    /**
+     * Test that invalid and truncated records are rejected.
+     */
+    @Test
+    public void shouldRejectBadRecords() throws IOException {
+        final byte[] bytes = PojoBinaryCodec.encode(UUID_ID);
+        final byte[] badVersion = bytes.clone();
+        final byte[] badType = bytes.clone();
+        final byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+
+        badVersion[0] = 99;
+        badType[bytes.length - 1] = 99;
+
+        assertTrue("Bad version should be empty", PojoBinaryCodec.decode(badVersion).isEmpty());
+        assertTrue("Bad type should be empty", PojoBinaryCodec.decode(badType).isEmpty());
+        assertTrue("Truncated record should be empty", PojoBinaryCodec.decode(truncated).isEmpty());
+
+        final ByteBuffer buffer = ByteBuffer.wrap(truncated);
+        assertTrue("Truncated buffer should be empty", PojoBinaryCodec.decode(buffer).isEmpty());
+        assertEquals("Position should be unchanged", 0, buffer.position());
+
+        try {
+
+            PojoBinaryCodec.decode(new ByteArrayInputStream(truncated));
+            throw new AssertionError("Truncated stream should throw");
+
+        } catch (EOFException e) {
+
+            assertTrue("Should report the truncation", e.getMessage().contains("part way"));
+
+        }
+
+        try {
+
+            PojoBinaryCodec.decode(new ByteArrayInputStream(badType));
+            throw new AssertionError("Bad type should throw");
+
+        } catch (StreamCorruptedException e) {
+
+            assertEquals("Should report the reason", PojoValidation.Reason.INVALID_TYPE_OF_THING.getMessage(), e.getMessage());
+
+        }
+    }
+
+    /**
+     * Test conversion to and from the json form.
+     */
+    @Test
+    public void shouldConvertToAndFromJson() {
+        final byte[] json = UUID_ID.toBytes().orElseThrow();
+        final byte[] binary = PojoBinaryCodec.fromJson(json).orElseThrow();
+
+        assertArrayEquals("Binary should match", PojoBinaryCodec.encode(UUID_ID), binary);
+        assertArrayEquals("Json should match", json, PojoBinaryCodec.toJson(binary).orElseThrow());
+    }
+}
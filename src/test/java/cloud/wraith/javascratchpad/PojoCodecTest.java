@@ -0,0 +1,103 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoCodec class.
+ */
+public class PojoCodecTest {
+    private static final String JSON = "{\"id\":\"578da685-f6ea-4ffe-869a-49acbbc998b2\",\"name\":\"my-test-name\",\"intValue\":12345,\"typeOfThing\":\"SOME_THING\"}";
+
+    private static final String JSON_ARRAY = "[" +
+        "{\"id\":\"84f6ff48-80bc-442c-8b67-00aa9e526beb\",\"name\":\"Pojo one\",\"intValue\":1,\"typeOfThing\":\"SOME_THING\"}," +
+        "{\"id\":\"26f974dd-8762-4e7b-b5f7-7fd6c14e4de8\",\"name\":\"Pojo two\",\"intValue\":2,\"typeOfThing\":\"THIS_THING\"}" +
+    "]";
+
+    private static final Pojo POJO = Pojo.of("578da685-f6ea-4ffe-869a-49acbbc998b2", "my-test-name", 12345, "SOME_THING").orElseThrow();
+
+    private static final Pojo[] ARRAY_OF_POJOS = new Pojo[] {
+        Pojo.of("84f6ff48-80bc-442c-8b67-00aa9e526beb", "Pojo one", 1, Pojo.TypeOfThing.SOME_THING.toString()).orElseThrow(),
+        Pojo.of("26f974dd-8762-4e7b-b5f7-7fd6c14e4de8", "Pojo two", 2, Pojo.TypeOfThing.THIS_THING.toString()).orElseThrow()
+    };
+
+    /**
+     * Test reading a Pojo from a string and a byte array.
+     */
+    @Test
+    public void shouldReadAPojo() {
+        assertEquals("Pojo from string should match", POJO, PojoCodec.read(JSON).orElseThrow());
+        assertEquals("Pojo from bytes should match", POJO, PojoCodec.read(JSON.getBytes()).orElseThrow());
+    }
+
+    /**
+     * Test that null and invalid input give an empty optional.
+     */
+    @Test
+    public void shouldTolerateNullAndInvalidInput() {
+        assertTrue("Null string should be empty", PojoCodec.read((String) null).isEmpty());
+        assertTrue("Null bytes should be empty", PojoCodec.read((byte[]) null).isEmpty());
+        assertTrue("Malformed json should be empty", PojoCodec.read("{\"id\":").isEmpty());
+        assertTrue("Invalid Pojo should be empty", PojoCodec.read("{}").isEmpty());
+        assertTrue("Invalid element should empty the list", PojoCodec.readList("[{}]").isEmpty());
+    }
+
+    /**
+     * Test that json of null, and null elements, give an empty optional rather than a null.
+     */
+    @Test
+    public void shouldTreatJsonNullAsEmpty() {
+        assertTrue("Json null string should be empty", PojoCodec.read("null").isEmpty());
+        assertTrue("Json null bytes should be empty", PojoCodec.read("null".getBytes()).isEmpty());
+        assertTrue("Json null array should be empty", PojoCodec.readArray("null").isEmpty());
+        assertTrue("Json null array bytes should be empty", PojoCodec.readArray("null".getBytes()).isEmpty());
+        assertTrue("Json null list should be empty", PojoCodec.readList("null").isEmpty());
+        assertTrue("Json null list bytes should be empty", PojoCodec.readList("null".getBytes()).isEmpty());
+        assertTrue("Null element should empty the array", PojoCodec.readArray("[null]").isEmpty());
+        assertTrue("Null element should empty the list", PojoCodec.readList("[" + JSON + ",null]").isEmpty());
+        assertTrue("Null element should empty the list from bytes", PojoCodec.readList("[null]".getBytes()).isEmpty());
+        assertTrue("Pojo of json null should be empty", Pojo.of("null").isEmpty());
+        assertTrue("Pojo of json null bytes should be empty", Pojo.of("null".getBytes()).isEmpty());
+    }
+
+    /**
+     * Test writing a Pojo to a string and a byte array.
+     */
+    @Test
+    public void shouldWriteAPojo() {
+        assertEquals("Json should match", JSON, PojoCodec.toJson(POJO).orElseThrow());
+        assertArrayEquals("Bytes should match", JSON.getBytes(), PojoCodec.toBytes(POJO).orElseThrow());
+    }
+
+    /**
+     * Test reading arrays and lists of Pojos.
+     */
+    @Test
+    public void shouldReadArraysAndLists() {
+        final List<Pojo> expected = Arrays.asList(ARRAY_OF_POJOS);
+
+        assertArrayEquals("Array should match", ARRAY_OF_POJOS, PojoCodec.readArray(JSON_ARRAY).orElseThrow());
+        assertArrayEquals("Array from bytes should match", ARRAY_OF_POJOS, PojoCodec.readArray(JSON_ARRAY.getBytes()).orElseThrow());
+        assertEquals("List should match", expected, PojoCodec.readList(JSON_ARRAY).orElseThrow());
+        assertEquals("List from bytes should match", expected, PojoCodec.readList(JSON_ARRAY.getBytes()).orElseThrow());
+    }
+
+    /**
+     * Test writing arrays and lists of Pojos.
+     */
+    @Test
+    public void shouldWriteArraysAndLists() {
+        final List<Pojo> listOfPojos = Arrays.asList(ARRAY_OF_POJOS);
+
+        assertEquals("Array json should match", JSON_ARRAY, PojoCodec.toJson(ARRAY_OF_POJOS).orElseThrow());
+        assertEquals("List json should match", JSON_ARRAY, PojoCodec.toJson(listOfPojos).orElseThrow());
+        assertArrayEquals("Array bytes should match", JSON_ARRAY.getBytes(), PojoCodec.toBytes(ARRAY_OF_POJOS).orElseThrow());
+        assertArrayEquals("List bytes should match", JSON_ARRAY.getBytes(), PojoCodec.toBytes(listOfPojos).orElseThrow());
+    }
+}
@@ -0,0 +1,286 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoEventLog class.
+ */
+public class PojoEventLogTest {
+    private static final JsonProcessingException MALFORMED = new JsonParseException(null, "bad");
+
+    private static JsonProcessingException invalid(String json) {
+        try {
+
+            PojoCodec.reader().readValue(json);
+            throw new AssertionError("Should be invalid");
+
+        } catch (JsonProcessingException e) {
+
+            return e;
+
+        } catch (IOException e) {
+
+            throw new AssertionError(e);
+
+        }
+    }
+
+    private static List<Map<?, ?>> events(String ndjson) throws IOException {
+        final List<Map<?, ?>> events = new ArrayList<>();
+
+        for (String line : ndjson.split("\n"))
+            events.add(PojoCodec.reader(Map.class).readValue(line));
+
+        return events;
+    }
+
+    /**
+     * Test that each kind of event is written as a line of json.
+     */
+    @Test
+    public void shouldWriteEachEvent() throws IOException {
+        final StringWriter out = new StringWriter();
+
+        try (PojoEventLog.Running log = PojoEventLog.of().start(out)) {
+            log.reject(3, invalid("{\"id\":\"\",\"typeOfThing\":\"SOME_THING\"}"));
+            log.reject(4, MismatchedInputException.from(null, Pojo.class, "not a pojo"));
+            log.reject(5, MALFORMED);
+            log.throughput(1000, 3, TimeUnit.MILLISECONDS.toNanos(500));
+        }
+
+        final List<Map<?, ?>> events = events(out.toString());
+
+        assertEquals("Events should match", 4, events.size());
+        assertEquals("Event should match", "reject", events.get(0).get("event"));
+        assertEquals("Index should match", 3, events.get(0).get("index"));
+        assertEquals("Reason should match", "BLANK_ID", events.get(0).get("reason"));
+        assertEquals("Thread should match", Thread.currentThread().getName(), events.get(0).get("thread"));
+        assertEquals("Event should match", "parseFailure", events.get(1).get("event"));
+        assertEquals("Message should match", "not a pojo", events.get(1).get("message"));
+        assertEquals("Reason should match", "MALFORMED_JSON", events.get(2).get("reason"));
+        assertEquals("Event should match", "throughput", events.get(3).get("event"));
+        assertEquals("Rate should match", 2000, events.get(3).get("recordsPerSecond"));
+        assertTrue("Should have a timestamp", events.get(3).get("@timestamp").toString().endsWith("Z"));
+    }
+
+    /**
+     * Test many callers at once, each of whose events are written in the order they were logged.
+     */
+    @Test
+    public void shouldWriteEveryEventFromConcurrentCallers() throws IOException, InterruptedException {
+        final StringWriter out = new StringWriter();
+        final List<Thread> threads = new ArrayList<>();
+        final PojoEventLog.Running log = PojoEventLog.of().withBatchSize(10).start(out);
+
+        try (log) {
+            for (int t = 0; t < 4; t++) {
+                final Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 1000; i++)
+                        log.reject(i, MALFORMED);
+                }, "caller-" + t);
+
+                threads.add(thread);
+                thread.start();
+            }
+
+            for (Thread thread : threads)
+                thread.join();
+        }
+
+        final PojoEventLog.Stats stats = log.stats();
+        final Map<Object, Integer> next = new HashMap<>();
+        int rejects = 0;
+
+        for (Map<?, ?> event : events(out.toString())) {
+            if (!"parseFailure".equals(event.get("event")))
+                continue;
+
+            final int expected = next.getOrDefault(event.get("thread"), 0);
+
+            assertEquals("Each caller's events should be in order", expected, event.get("index"));
+            next.put(event.get("thread"), expected + 1);
+            rejects++;
+        }
+
+        assertEquals("Should account for every event", 4000, stats.getPublished() + stats.getDropped());
+        assertEquals("Should write what was published", stats.getPublished(), stats.getWritten());
+        assertEquals("Lines should match", stats.getWritten(), rejects);
+    }
+
+    /**
+     * Test that a full ring drops events rather than wait for a stuck writer, and that the drops are
+     * logged once it is free.
+     */
+    @Test
+    public void shouldDropWhenFull() throws IOException, InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final StringWriter out = new StringWriter();
+        final Writer stuck = new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) {
+                out.write(chars, offset, length);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                try {
+
+                    release.await();
+
+                } catch (InterruptedException e) {
+
+                    throw new IOException(e);
+
+                }
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        final PojoEventLog.Running log = PojoEventLog.of().withCapacity(16).withBatchSize(1).start(stuck);
+
+        try {
+
+            for (int i = 0; i < 100; i++)
+                log.reject(i, MALFORMED);
+
+            final PojoEventLog.Stats stats = log.stats();
+
+            assertTrue("Should drop what does not fit", stats.getDropped() >= 100 - 16 - 1);
+            assertEquals("Should account for every event", 100, stats.getPublished() + stats.getDropped());
+
+        } finally {
+
+            release.countDown();
+            log.close();
+
+        }
+
+        Map<?, ?> drops = Map.of();
+
+        for (Map<?, ?> event : events(out.toString()))
+            if ("dropped".equals(event.get("event")))
+                drops = event;
+
+        assertTrue("Should log the drops", (Integer) drops.get("dropped") >= 100 - 16 - 1);
+    }
+
+    /**
+     * Test that sampling keeps a few rejects once the ring is filling, and still has room for summaries.
+     */
+    @Test
+    public void shouldSampleWhenFilling() throws IOException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final Writer stuck = new StringWriter() {
+            @Override
+            public void flush() {
+                try {
+
+                    release.await();
+
+                } catch (InterruptedException e) {
+
+                    Thread.currentThread().interrupt();
+
+                }
+            }
+        };
+
+        final PojoEventLog.Running log = PojoEventLog.of().withCapacity(64).withBatchSize(1).withSampling(1_000_000).start(stuck);
+
+        try {
+
+            for (int i = 0; i < 1000; i++)
+                log.reject(i, MALFORMED);
+
+            log.throughput(1000, 1000, 1);
+
+            final PojoEventLog.Stats stats = log.stats();
+
+            assertTrue("Should sample most rejects", stats.getSampled() > 900);
+            assertEquals("Should drop nothing", 0, stats.getDropped());
+            assertEquals("Should account for every event", 1001, stats.getPublished() + stats.getSampled());
+
+        } finally {
+
+            release.countDown();
+            log.close();
+
+        }
+    }
+
+    /**
+     * Test that nothing is taken after closing.
+     */
+    @Test
+    public void shouldDropAfterClose() {
+        final StringWriter out = new StringWriter();
+        final PojoEventLog.Running log = PojoEventLog.of().start(out);
+
+        log.close();
+        log.throughput(1, 0, 1);
+
+        assertEquals("Should drop the event", 1, log.stats().getDropped());
+        assertEquals("Should write nothing", "", out.toString());
+    }
+
+    /**
+     * Test that events logged while the log is closing are each either written or counted as dropped.
+     */
+    @Test
+    public void shouldAccountForEventsLoggedWhileClosing() throws IOException, InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            final StringWriter out = new StringWriter();
+            final PojoEventLog.Running log = PojoEventLog.of().withCapacity(1 << 16).start(out);
+            final List<Thread> threads = new ArrayList<>();
+
+            for (int t = 0; t < 4; t++) {
+                final Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 10_000; i++)
+                        log.reject(i, MALFORMED);
+                });
+
+                threads.add(thread);
+                thread.start();
+            }
+
+            log.close();
+
+            for (Thread thread : threads)
+                thread.join();
+
+            final PojoEventLog.Stats stats = log.stats();
+
+            assertEquals("Should account for every event", 40_000, stats.getPublished() + stats.getDropped());
+            assertEquals("Should write what was published", stats.getPublished(), stats.getWritten());
+            assertEquals("Lines should match", stats.getWritten(), events(out.toString()).stream().filter(event -> !"dropped".equals(event.get("event"))).count());
+        }
+    }
+
+    /**
+     * Test bad configuration.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptACapacityThatIsNotAPowerOfTwo() {
+        PojoEventLog.of().withCapacity(1000);
+    }
+}
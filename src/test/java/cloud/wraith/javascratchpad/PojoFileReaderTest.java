@@ -0,0 +1,116 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for PojoFileReader class.
+ */
+public class PojoFileReaderTest {
+    private static final String ONE = "{\"id\":\"84f6ff48-80bc-442c-8b67-00aa9e526beb\",\"name\":\"Pojo one\",\"intValue\":1,\"typeOfThing\":\"SOME_THING\"}";
+    private static final String TWO = "{\"id\":\"26f974dd-8762-4e7b-b5f7-7fd6c14e4de8\",\"name\":\"Pojo two\",\"intValue\":2,\"typeOfThing\":\"THIS_THING\"}";
+    private static final String INVALID = "{\"id\":\"a986347e-6925-4a0e-8625-29eba7ff6a91\",\"name\":\"Pojo three\",\"intValue\":3,\"typeOfThing\":\"NOT_A_THING\"}";
+    private static final String MALFORMED = "{\"id\":\"b61d92ba-6b9e-4dbb-afb8-5f84ffad34d6\",\"name\":}";
+
+    private Path path;
+
+    @Before
+    public void createFile() throws IOException {
+        path = Files.createTempFile("pojos", ".ndjson");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    private List<Pojo> readAll(int windowSize, List<Long> rejected) {
+        final List<Pojo> actual = new ArrayList<>();
+
+        try (PojoFileReader reader = PojoFileReader.open(path, windowSize)) {
+            reader.forEach(actual::add, (index, cause) -> rejected.add(index));
+        }
+
+        return actual;
+    }
+
+    /**
+     * Test reading a file in windows smaller than a record, which must grow to fit.
+     */
+    @Test
+    public void shouldReadAcrossWindows() throws IOException {
+        Files.write(path, (ONE + "\n" + TWO + "\n" + ONE).getBytes(StandardCharsets.UTF_8));
+
+        for (int windowSize : new int[] {16, 150, 1024}) {
+            final List<Long> rejected = new ArrayList<>();
+
+            assertEquals("Pojos should match for window " + windowSize, Arrays.asList(Pojo.of(ONE).orElseThrow(), Pojo.of(TWO).orElseThrow(), Pojo.of(ONE).orElseThrow()), readAll(windowSize, rejected));
+            assertTrue("Nothing should be rejected", rejected.isEmpty());
+        }
+    }
+
+    /**
+     * Test that every slice ends on a record boundary.
+     */
+    @Test
+    public void shouldSliceOnRecordBoundaries() throws IOException {
+        Files.write(path, (ONE + "\n" + TWO + "\n" + ONE + "\n").getBytes(StandardCharsets.UTF_8));
+
+        try (PojoFileReader reader = PojoFileReader.open(path, 200)) {
+            long total = 0;
+
+            for (Iterator<ByteBuffer> slices = reader.slices(); slices.hasNext(); ) {
+                final ByteBuffer slice = slices.next();
+
+                assertEquals("Slice should end with a newline", '\n', slice.get(slice.limit() - 1));
+                total += slice.remaining();
+            }
+
+            assertEquals("Slices should cover the file", reader.size(), total);
+        }
+    }
+
+    /**
+     * Test that invalid and malformed records are rejected and reading carries on.
+     */
+    @Test
+    public void shouldRejectAndCarryOn() throws IOException {
+        Files.write(path, (INVALID + "\n" + ONE + "\n" + MALFORMED + "\n" + TWO + "\n").getBytes(StandardCharsets.UTF_8));
+
+        final List<Long> rejected = new ArrayList<>();
+
+        assertEquals("Valid Pojos should be read", Arrays.asList(Pojo.of(ONE).orElseThrow(), Pojo.of(TWO).orElseThrow()), readAll(1024, rejected));
+        assertEquals("Invalid records should be rejected", Arrays.asList(0L, 2L), rejected);
+    }
+
+    /**
+     * Test that a truncated line is rejected once and the next line is read, even though the parser only
+     * fails once it is inside that next line.
+     */
+    @Test
+    public void shouldResynchroniseAfterTruncatedLines() throws IOException {
+        for (String truncated : new String[] {"{\"id\":\"a\"", "{\"id\":\"x\",\"name\":", "x"}) {
+            Files.write(path, (ONE + "\n" + truncated + "\n" + TWO + "\n" + ONE + "\n").getBytes(StandardCharsets.UTF_8));
+
+            final List<Long> rejected = new ArrayList<>();
+
+            assertEquals("Valid Pojos should be read after " + truncated, Arrays.asList(Pojo.of(ONE).orElseThrow(), Pojo.of(TWO).orElseThrow(), Pojo.of(ONE).orElseThrow()),
+                readAll(1024, rejected));
+            assertEquals("Truncated record should be rejected once", Arrays.asList(1L), rejected);
+        }
+    }
+}
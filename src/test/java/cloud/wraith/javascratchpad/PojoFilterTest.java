@@ -0,0 +1,144 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoFilter class.
+ */
+public class PojoFilterTest {
+    private static final Pojo POJO = Pojo.of("578da685-f6ea-4ffe-869a-49acbbc998b2", "my-test-name", 12345, Pojo.TypeOfThing.SOME_THING).orElseThrow();
+
+    /**
+     * Test each condition on a Pojo.
+     */
+    @Test
+    public void shouldTestAPojo() {
+        assertTrue("Should accept everything", PojoFilter.all().test(POJO));
+        assertTrue("Should accept the type", PojoFilter.all().withTypes(Pojo.TypeOfThing.THIS_THING, Pojo.TypeOfThing.SOME_THING).test(POJO));
+        assertFalse("Should not accept the type", PojoFilter.all().withTypes(Pojo.TypeOfThing.THIS_THING).test(POJO));
+        assertTrue("Should accept the int value", PojoFilter.all().withIntValueBetween(12345, 12345).test(POJO));
+        assertFalse("Should not accept the int value", PojoFilter.all().withIntValue(intValue -> intValue > 12345).test(POJO));
+        assertTrue("Should accept the id", PojoFilter.all().withId(id -> id.charAt(0) == '5').test(POJO));
+        assertFalse("Should not accept the id", PojoFilter.all().withTypes(Pojo.TypeOfThing.SOME_THING).withId(id -> id.length() == 0).test(POJO));
+        assertTrue("Should test a MutablePojo the same way", PojoFilter.all().withIntValueBetween(0, 12345).test(MutablePojo.create().set(POJO)));
+    }
+
+    /**
+     * Test an empty range.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptAnEmptyRange() {
+        PojoFilter.all().withIntValueBetween(1, 0);
+    }
+
+    /**
+     * Test filtering a stream, with records that fail a condition skipped and invalid records that pass
+     * every condition rejected.
+     */
+    @Test
+    public void shouldFilterAStream() {
+        final String json = "[" + POJO.toJson().orElseThrow() + ","
+            + "{\"id\":\"a\",\"intValue\":5,\"typeOfThing\":\"THIS_THING\"},"
+            + "{\"id\":\"b\",\"extra\":{\"nested\":[1,2]},\"intValue\":-1,\"typeOfThing\":\"SOME_THING\"},"
+            + "{\"id\":\"c\",\"typeOfThing\":\"SOME_THING\"},"
+            + "{\"id\":\"\",\"intValue\":7,\"typeOfThing\":\"THAT_THING\"},"
+            + "{\"id\":\"\",\"intValue\":8,\"typeOfThing\":\"SOME_THING\"},"
+            + "{\"id\":\"d\",\"intValue\":9,\"typeOfThing\":\"NOT_A_THING\"},"
+            + "{\"typeOfThing\":\"SOME_THING\",\"intValue\":10,\"id\":\"e\",\"name\":\"last\"}]";
+        final PojoFilter filter = PojoFilter.all().withTypes(Pojo.TypeOfThing.SOME_THING).withIntValue(intValue -> intValue > 0);
+        final List<Long> rejects = new ArrayList<>();
+        final List<Pojo> actual = new ArrayList<>();
+
+        try (PojoStreams.Reader reader = PojoStreams.iterator(new ByteArrayInputStream(json.getBytes()), filter, (index, cause) -> rejects.add(index))) {
+            reader.forEachRemaining(actual::add);
+
+            assertEquals("Count should match", 8, reader.count());
+            assertEquals("Skipped should match", 4, reader.skipped());
+            assertEquals("Accepted should match", 2, reader.accepted());
+            assertEquals("Selectivity should match", 0.25, reader.selectivity(), 0.0);
+        }
+
+        assertEquals("Pojos should match", List.of(POJO, Pojo.of("e", "last", 10, "SOME_THING").orElseThrow()), actual);
+        assertEquals("Rejects should match", List.of(5L, 6L), rejects);
+    }
+
+    /**
+     * Test that the filter applies to readInto and to streams in the same way.
+     */
+    @Test
+    public void shouldFilterEveryWayOfReading() {
+        final String ndjson = Stream.of(Pojo.TypeOfThing.values())
+            .map(type -> POJO.withTypeOfThing(type).orElseThrow().toJson().orElseThrow())
+            .collect(Collectors.joining("\n"));
+        final PojoFilter filter = PojoFilter.all().withTypes(Pojo.TypeOfThing.OTHER_THING);
+        final MutablePojo target = MutablePojo.create();
+        int matches = 0;
+
+        try (PojoStreams.Reader reader = PojoStreams.iterator(new ByteArrayInputStream(ndjson.getBytes()), filter, PojoStreams.IGNORE_REJECTS)) {
+            while (reader.readInto(target)) {
+                assertEquals("Type of thing should match", Pojo.TypeOfThing.OTHER_THING, target.getType());
+                matches++;
+            }
+        }
+
+        assertEquals("Matches should match", 1, matches);
+
+        try (Stream<Pojo> pojos = PojoStreams.stream(new ByteArrayInputStream(ndjson.getBytes()), filter, PojoStreams.IGNORE_REJECTS)) {
+            assertEquals("Pojos should match", List.of(POJO.withTypeOfThing(Pojo.TypeOfThing.OTHER_THING).orElseThrow()),
+                pojos.collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Test that skipping records allocates nothing per record.
+     */
+    @Test
+    public void shouldSkipWithoutAllocating() {
+        final StringBuilder ndjson = new StringBuilder();
+        final int records = 20_000;
+
+        for (int i = 0; i < records; i++)
+            ndjson.append("{\"id\":\"").append(UUID.randomUUID()).append("\",\"name\":\"name-").append(i).append("\",\"intValue\":").append(i)
+                .append(",\"typeOfThing\":\"").append(Pojo.TypeOfThing.lookup(i & 3).name()).append("\"}\n");
+
+        final byte[] bytes = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+        final PojoFilter filter = PojoFilter.all().withTypes(Pojo.TypeOfThing.THIS_THING).withIntValue(intValue -> intValue < 0);
+
+        // Once to warm up, then measured
+        skip(bytes, filter);
+        final long allocated = skip(bytes, filter);
+
+        assertTrue("Should allocate under a byte per record, not " + allocated, allocated < records);
+    }
+
+    /**
+     * Read every record through a filter that matches none, and measure the bytes allocated.
+     *
+     * @return The bytes allocated
+     */
+    private static long skip(byte[] bytes, PojoFilter filter) {
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        try (PojoStreams.Reader reader = PojoStreams.iterator(new ByteArrayInputStream(bytes), filter, PojoStreams.IGNORE_REJECTS)) {
+            final long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            final boolean matched = reader.hasNext();
+            final long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+            assertFalse("Should not match any record", matched);
+            return allocated;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoIngestServer class.
+ */
+public class PojoIngestServerTest {
+    private static final InetSocketAddress ANY_PORT = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    private static final String INVALID = "{\"id\":\"\",\"typeOfThing\":\"SOME_THING\"}";
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 1000 && !condition.getAsBoolean(); i++)
+            Thread.sleep(10);
+
+        assertTrue("Should happen within ten seconds", condition.getAsBoolean());
+    }
+
+    private static void send(SocketChannel channel, String text) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    private static List<Pojo> pojos(int connection, int count) {
+        final List<Pojo> pojos = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++)
+            pojos.add(Pojo.of(UUID.randomUUID().toString(), "naïve ☃ name-" + connection, i, Pojo.TypeOfThing.lookup(i & 3)).orElseThrow());
+
+        return pojos;
+    }
+
+    /**
+     * Test many connections, each sending records split across writes at awkward places, with invalid
+     * records in among them and a last record with no newline.
+     */
+    @Test
+    public void shouldReadEveryConnection() throws IOException, InterruptedException {
+        final List<Pojo> received = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> rejects = Collections.synchronizedList(new ArrayList<>());
+        final List<Pojo> expected = new ArrayList<>();
+
+        final PojoIngestServer.Running server = PojoIngestServer.of().withLoops(3).withConsumers(2).withBatchSize(10)
+            .withRejects((index, cause) -> rejects.add(index)).start(ANY_PORT, received::addAll);
+
+        try (server) {
+
+            final List<SocketChannel> channels = new ArrayList<>();
+
+            for (int c = 0; c < 50; c++)
+                channels.add(SocketChannel.open(server.address()));
+
+            for (int c = 0; c < channels.size(); c++) {
+                final StringBuilder text = new StringBuilder();
+                final List<Pojo> pojos = pojos(c, 20);
+
+                for (Pojo pojo : pojos)
+                    text.append(pojo.toJson().orElseThrow()).append('\n');
+
+                text.append(INVALID).append('\n');
+                text.setLength(text.length() - 1);
+
+                for (int start = 0; start < text.length(); start += 7 + c)
+                    send(channels.get(c), text.substring(start, Math.min(text.length(), start + 7 + c)));
+
+                expected.addAll(pojos);
+            }
+
+            for (SocketChannel channel : channels)
+                channel.close();
+
+            await(() -> server.stats().getOpen() == 0);
+        }
+
+        final PojoIngestServer.Stats stats = server.stats();
+        final Comparator<Pojo> byIdentity = Comparator.comparing(Pojo::getId);
+
+        received.sort(byIdentity);
+        expected.sort(byIdentity);
+
+        assertEquals("Pojos should match", expected, received);
+        assertEquals("Connections should match", 50, stats.getConnections());
+        assertEquals("Records should match", 1000, stats.getRecords());
+        assertEquals("Rejected should match", 50, stats.getRejected());
+        assertEquals("Each reject should be the last record of its connection", Collections.nCopies(50, 20L), rejects);
+        assertEquals("Hand-offs should be timed", stats.getBatches(), server.handOffLatency().count());
+    }
+
+    /**
+     * Test that a truncated line is rejected on its own, and the valid line after it in the same read
+     * is still delivered.
+     */
+    @Test
+    public void shouldReadTheLineAfterATruncatedOne() throws IOException, InterruptedException {
+        final List<Pojo> received = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> rejects = Collections.synchronizedList(new ArrayList<>());
+        final List<Pojo> pojos = pojos(0, 3);
+
+        try (PojoIngestServer.Running server = PojoIngestServer.of().withRejects((index, cause) -> rejects.add(index))
+            .start(ANY_PORT, received::addAll)) {
+
+            try (SocketChannel channel = SocketChannel.open(server.address())) {
+                send(channel, pojos.get(0).toJson().orElseThrow() + "\n{\"id\":\"a\"\n" + pojos.get(1).toJson().orElseThrow()
+                    + "\n{\"id\":\"x\",\"name\":\n" + pojos.get(2).toJson().orElseThrow() + "\n");
+            }
+
+            await(() -> server.stats().getOpen() == 0 && received.size() + rejects.size() == 5);
+
+            assertEquals("Pojos should match", pojos, received);
+            assertEquals("Each truncated line should be rejected once", List.of(1L, 3L), rejects);
+        }
+    }
+
+    /**
+     * Test that a record longer than the largest buffer is rejected and skipped, and a long record
+     * that fits is read.
+     */
+    @Test
+    public void shouldSkipARecordThatIsTooLong() throws IOException, InterruptedException {
+        final List<Pojo> received = Collections.synchronizedList(new ArrayList<>());
+        final Pojo small = pojos(0, 1).get(0);
+        final Pojo large = Pojo.of(UUID.randomUUID().toString(), "x".repeat(200), 1, Pojo.TypeOfThing.THIS_THING).orElseThrow();
+
+        try (PojoIngestServer.Running server = PojoIngestServer.of().withBufferSize(64, 512).start(ANY_PORT, received::addAll)) {
+
+            try (SocketChannel channel = SocketChannel.open(server.address())) {
+                send(channel, large.toJson().orElseThrow() + "\n{\"name\":\"" + "y".repeat(2000) + "\"}\n" + small.toJson().orElseThrow() + "\n");
+            }
+
+            await(() -> received.size() == 2);
+
+            assertEquals("Pojos should match", List.of(large, small), received);
+            assertEquals("Should reject the long record", 1, server.stats().getRejected());
+        }
+    }
+
+    /**
+     * Test that a slow consumer holds back reading, and that everything is delivered in the end.
+     */
+    @Test
+    public void shouldApplyBackPressure() throws IOException, InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Pojo> received = Collections.synchronizedList(new ArrayList<>());
+        final List<Pojo> pojos = pojos(0, 5000);
+
+        try (PojoIngestServer.Running server = PojoIngestServer.of().withLoops(1).withBatchSize(1).withQueueSize(2).start(ANY_PORT, batch -> {
+            try {
+
+                release.await();
+                received.addAll(batch);
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+
+            }
+        })) {
+
+            final Thread producer = new Thread(() -> {
+                try (SocketChannel channel = SocketChannel.open(server.address())) {
+
+                    for (Pojo pojo : pojos)
+                        send(channel, pojo.toJson().orElseThrow() + "\n");
+
+                } catch (IOException e) {
+
+                    throw new AssertionError(e);
+
+                }
+            });
+
+            producer.start();
+
+            try {
+
+                // One batch held by the consumer and two in the queue, whether or not the consumer took
+                // the first before the loop first stalled
+                await(() -> server.stats().getStalls() > 0 && server.stats().getBatches() == 3);
+                Thread.sleep(100);
+
+                assertEquals("Should stop reading while the queue is full", 3, server.stats().getBatches());
+
+            } finally {
+
+                release.countDown();
+
+            }
+
+            producer.join();
+
+            await(() -> received.size() == pojos.size());
+
+            assertEquals("Pojos should match", pojos, received);
+        }
+    }
+
+    /**
+     * Test that closing hands on what has been read.
+     */
+    @Test
+    public void shouldDeliverOnClose() throws IOException, InterruptedException {
+        final List<Pojo> received = Collections.synchronizedList(new ArrayList<>());
+        final PojoIngestServer.Running server = PojoIngestServer.of().withBatchSize(1000).start(ANY_PORT, received::addAll);
+
+        try (SocketChannel channel = SocketChannel.open(server.address())) {
+
+            send(channel, pojos(0, 1).get(0).toJson().orElseThrow() + "\n");
+            await(() -> server.stats().getRecords() == 1);
+            server.close();
+
+        }
+
+        assertEquals("Should deliver the partial batch", 1, received.size());
+        assertEquals("Should close the connection", 0, server.stats().getOpen());
+    }
+
+    /**
+     * Test that a consumer that throws an error is counted, and the server carries on and closes.
+     */
+    @Test(timeout = 10_000)
+    public void shouldCountAConsumerError() throws IOException, InterruptedException {
+        final List<Pojo> received = Collections.synchronizedList(new ArrayList<>());
+        final List<Pojo> pojos = pojos(0, 3);
+        final PojoIngestServer.Running server = PojoIngestServer.of().withBatchSize(1).withQueueSize(1).start(ANY_PORT, batch -> {
+            if (batch.contains(pojos.get(0)))
+                throw new AssertionError("Consumer failed");
+
+            received.addAll(batch);
+        });
+
+        try (server; SocketChannel channel = SocketChannel.open(server.address())) {
+
+            for (Pojo pojo : pojos)
+                send(channel, pojo.toJson().orElseThrow() + "\n");
+
+            await(() -> received.size() == 2);
+
+        }
+
+        assertEquals("Pojos should match", pojos.subList(1, 3), received);
+        assertEquals("Failures should match", 1, server.stats().getFailures());
+    }
+
+    /**
+     * Test that closing from several threads at once returns in every one of them, with fewer places in
+     * the queue than consumers.
+     */
+    @Test(timeout = 10_000)
+    public void shouldCloseConcurrently() throws InterruptedException {
+        final PojoIngestServer.Running server = PojoIngestServer.of().withConsumers(4).withQueueSize(1).start(ANY_PORT, batch -> { });
+        final List<Thread> threads = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+            final Thread thread = new Thread(server::close);
+
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals("Should close the connections", 0, server.stats().getOpen());
+    }
+
+    /**
+     * Test bad configuration.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptABufferLargerThanARecord() {
+        PojoIngestServer.of().withBufferSize(1024, 512);
+    }
+}
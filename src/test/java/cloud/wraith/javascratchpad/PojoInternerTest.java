@@ -0,0 +1,114 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoInterner class.
+ */
+public class PojoInternerTest {
+    private static final String ID = "578da685-f6ea-4ffe-869a-49acbbc998b2";
+    private static final String JSON = "{\"id\":\"" + ID + "\",\"name\":\"my-test-name\",\"intValue\":12345,\"typeOfThing\":\"SOME_THING\"}";
+
+    /**
+     * Test that equal records from the factories and the json path share one instance.
+     */
+    @Test
+    public void shouldShareEqualPojos() {
+        for (PojoInterner interner : new PojoInterner[] {PojoInterner.weak(), PojoInterner.bounded(100)}) {
+            final Pojo first = interner.of(ID, "my-test-name", 12345, "SOME_THING").orElseThrow();
+
+            assertSame("Should share the instance", first, interner.of(ID, new String("my-test-name"), 12345, Pojo.TypeOfThing.SOME_THING).orElseThrow());
+            assertSame("Should share the instance", first, interner.of(JSON).orElseThrow());
+            assertSame("Should share the instance", first, interner.of(JSON.getBytes()).orElseThrow());
+            assertNotSame("Should not share an unequal Pojo", first, interner.of(ID, "my-test-name", 1, "SOME_THING").orElseThrow());
+            assertTrue("Should not intern an invalid Pojo", interner.of("", "my-test-name", 1, "SOME_THING").isEmpty());
+        }
+    }
+
+    /**
+     * Test the hit rate and bytes saved.
+     */
+    @Test
+    public void shouldReportStats() {
+        final PojoInterner interner = PojoInterner.weak();
+        final Pojo pojo = Pojo.of(JSON).orElseThrow();
+
+        for (int i = 0; i < 4; i++)
+            interner.of(JSON);
+
+        final PojoInterner.Stats stats = interner.stats();
+
+        assertEquals("Hits should match", 3, stats.getHits());
+        assertEquals("Misses should match", 1, stats.getMisses());
+        assertEquals("Hit rate should match", 0.75, stats.getHitRate(), 0.0);
+        assertEquals("Bytes saved should match", 3 * PojoInterner.estimatedSize(pojo), stats.getBytesSaved());
+        // 32 for the Pojo, 24 + 56 for the id and 24 + 32 for the name
+        assertEquals("Estimated size should match", 168, PojoInterner.estimatedSize(pojo));
+        assertEquals("Hit rate should start at zero", 0.0, PojoInterner.weak().stats().getHitRate(), 0.0);
+    }
+
+    /**
+     * Test that a bounded pool evicts.
+     */
+    @Test
+    public void shouldEvictFromABoundedPool() {
+        final PojoInterner interner = PojoInterner.bounded(10);
+        final Pojo first = interner.of(ID, "name-0", 0, "SOME_THING").orElseThrow();
+
+        for (int i = 1; i < 100; i++)
+            interner.of(ID, "name-" + i, i, "SOME_THING");
+
+        assertNotSame("Should have evicted the first Pojo", first, interner.of(ID, "name-0", 0, "SOME_THING").orElseThrow());
+        assertEquals("Every Pojo should miss", 101, interner.stats().getMisses());
+    }
+
+    /**
+     * Test that an installed pool is used by Pojo's own factories, the databind creator and the json
+     * readers, and that nothing is pooled once it is removed.
+     */
+    @Test
+    public void shouldPoolThroughTheFactoriesWhenInstalled() throws IOException {
+        final PojoInterner interner = PojoInterner.weak();
+
+        PojoInterner.install(interner);
+
+        try {
+
+            final Pojo first = Pojo.of(ID, "my-test-name", 12345, "SOME_THING").orElseThrow();
+
+            assertSame("Should share the instance", first, Pojo.of(JSON).orElseThrow());
+            assertSame("Should share the instance", first, Pojo.of(JSON.getBytes()).orElseThrow());
+            assertSame("Should share the instance", first, new ObjectMapper().readValue(JSON, Pojo.class));
+            assertSame("Should share the instance", first, PojoStreams.stream(new ByteArrayInputStream((JSON + "\n" + JSON).getBytes()),
+                PojoStreams.IGNORE_REJECTS).reduce((a, b) -> a == b ? a : null).orElseThrow());
+            assertSame("Should share the instance", first, interner.of(JSON).orElseThrow());
+            assertEquals("Misses should match", 1, interner.stats().getMisses());
+            assertEquals("Hits should match", 6, interner.stats().getHits());
+
+        } finally {
+
+            PojoInterner.install(null);
+
+        }
+
+        assertNotSame("Should not pool once removed", Pojo.of(JSON).orElseThrow(), Pojo.of(JSON).orElseThrow());
+    }
+
+    /**
+     * Test that a bounded pool must hold something.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectAnEmptyBound() {
+        PojoInterner.bounded(0);
+    }
+}
@@ -0,0 +1,54 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoLoadGenerator class.
+ */
+public class PojoLoadGeneratorTest {
+
+    /**
+     * Test a short, paced run, which should receive everything it sends.
+     */
+    @Test
+    public void shouldReport() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final int status = PojoLoadGenerator.run(new String[] {"--connections", "20", "--seconds", "1", "--warm-up-seconds", "0", "--rate", "2000"},
+            new PrintStream(out, true), System.err);
+
+        final String report = out.toString(StandardCharsets.UTF_8);
+
+        assertEquals("Status should match", PojoLoadGenerator.OK, status);
+        assertTrue("Should report what was sent", report.contains(" records on 20 connections in "));
+        assertTrue("Should receive everything", report.contains("rejected 0, stalled 0 times"));
+        assertTrue("Should report latency", report.contains("End to end  count="));
+    }
+
+    /**
+     * Test bad options, including a rate or connections that do not go round the producers.
+     */
+    @Test
+    public void shouldRejectABadOption() {
+        final String[][] bad = {
+            {"--connections", "0"},
+            {"--warm-up-seconds", "-1"},
+            {"--rate", "1", "--producers", "2"},
+            {"--connections", "1", "--producers", "2"}
+        };
+
+        for (String[] args : bad) {
+            final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+            assertEquals("Status should match", PojoLoadGenerator.USAGE, PojoLoadGenerator.run(args, System.out, new PrintStream(err, true)));
+            assertTrue("Should print usage", err.toString(StandardCharsets.UTF_8).contains("Usage"));
+        }
+    }
+}
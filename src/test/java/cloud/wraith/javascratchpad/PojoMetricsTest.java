@@ -0,0 +1,195 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.WriterAppender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for PojoMetrics class.
+ */
+public class PojoMetricsTest {
+    private static final String JSON = "{\"id\":\"578da685-f6ea-4ffe-869a-49acbbc998b2\",\"name\":\"my-test-name\",\"intValue\":12345,\"typeOfThing\":\"SOME_THING\"}";
+
+    @Before
+    public void setUp() {
+        PojoMetrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        PojoMetrics.setEnabled(false);
+        PojoMetrics.reset();
+    }
+
+    /**
+     * Test that nothing is recorded when metrics are off.
+     */
+    @Test
+    public void shouldRecordNothingWhenOff() {
+        PojoMetrics.setEnabled(false);
+
+        Pojo.of(JSON).orElseThrow().toBytes();
+        Pojo.of("{\"id\":\"\"}");
+
+        final PojoMetrics.Snapshot snapshot = PojoMetrics.snapshot();
+
+        assertEquals("Should not count calls", 0, snapshot.getCalls(PojoMetrics.Operation.OF_JSON));
+        assertEquals("Should not count rejects", 0, snapshot.getRejects(PojoMetrics.RejectReason.BLANK_ID));
+        assertTrue("Should have no operations", snapshot.operations().isEmpty());
+    }
+
+    /**
+     * Test counts and latencies of each operation.
+     */
+    @Test
+    public void shouldRecordEachOperation() {
+        PojoMetrics.setEnabled(true);
+
+        final Pojo pojo = Pojo.of(JSON).orElseThrow();
+
+        Pojo.of(JSON.getBytes()).orElseThrow();
+        Pojo.of("578da685-f6ea-4ffe-869a-49acbbc998b2", "my-test-name", 12345, Pojo.TypeOfThing.SOME_THING).orElseThrow();
+        pojo.toJson().orElseThrow();
+        pojo.toBytes().orElseThrow();
+        pojo.toBytes().orElseThrow();
+        pojo.clone();
+
+        final PojoMetrics.Snapshot snapshot = PojoMetrics.snapshot();
+
+        for (PojoMetrics.Operation operation : PojoMetrics.Operation.values()) {
+            final long expected = operation == PojoMetrics.Operation.TO_BYTES ? 2 : 1;
+
+            assertEquals("Calls should match for " + operation, expected, snapshot.getCalls(operation));
+            assertEquals("Failures should match for " + operation, 0, snapshot.getFailures(operation));
+            assertTrue("Latency should be recorded for " + operation, snapshot.getMaxLatency(operation) > 0);
+            assertTrue("Percentiles should be in order for " + operation,
+                snapshot.getLatency(operation, 50) <= snapshot.getLatency(operation, 99) && snapshot.getLatency(operation, 99.9) <= snapshot.getMaxLatency(operation));
+        }
+
+        final Map<String, Long> toBytes = snapshot.operations().get("TO_BYTES");
+
+        assertEquals("Map should match", 2L, (long) toBytes.get("calls"));
+        assertEquals("Map should have every field", "[calls, failures, meanNanos, p50Nanos, p99Nanos, p999Nanos, maxNanos]", toBytes.keySet().toString());
+    }
+
+    /**
+     * Test that snapshots taken while calls are recorded add up to every call, with none reset away.
+     */
+    @Test
+    public void shouldNotLoseCallsBetweenSnapshots() throws InterruptedException {
+        PojoMetrics.setEnabled(true);
+
+        final Thread caller = new Thread(() -> {
+            for (int i = 0; i < 100_000; i++)
+                Pojo.of(JSON);
+        });
+        long calls = 0;
+
+        caller.start();
+
+        while (caller.isAlive())
+            calls += PojoMetrics.snapshotThenReset().getCalls(PojoMetrics.Operation.OF_JSON);
+
+        calls += PojoMetrics.snapshotThenReset().getCalls(PojoMetrics.Operation.OF_JSON);
+
+        assertEquals("Calls should match", 100_000, calls);
+    }
+
+    /**
+     * Test rejects by reason.
+     */
+    @Test
+    public void shouldCountRejectsByReason() {
+        PojoMetrics.setEnabled(true);
+
+        Pojo.of("{\"id\":\" \",\"typeOfThing\":\"SOME_THING\"}");
+        Pojo.of("{\"id\":\"x\",\"typeOfThing\":\"NOT_A_THING\"}".getBytes());
+        Pojo.of("x", "name", 1, (Pojo.TypeOfThing) null);
+        Pojo.of("", "name", 1, Pojo.TypeOfThing.SOME_THING);
+        Pojo.of("{\"id\":\"x\",\"intValue\":\"twelve\",\"typeOfThing\":\"SOME_THING\"}");
+        Pojo.of("[]");
+        Pojo.of("{\"id\":");
+
+        final PojoMetrics.Snapshot snapshot = PojoMetrics.snapshot();
+
+        assertEquals("Blank ids should match", 2, snapshot.getRejects(PojoMetrics.RejectReason.BLANK_ID));
+        assertEquals("Invalid types should match", 2, snapshot.getRejects(PojoMetrics.RejectReason.INVALID_TYPE_OF_THING));
+        assertEquals("Mismatched input should match", 2, snapshot.getRejects(PojoMetrics.RejectReason.MISMATCHED_INPUT));
+        assertEquals("Malformed json should match", 1, snapshot.getRejects(PojoMetrics.RejectReason.MALFORMED_JSON));
+        assertEquals("Failures should match", 4, snapshot.getFailures(PojoMetrics.Operation.OF_JSON));
+        assertEquals("Failures should match", 1, snapshot.getFailures(PojoMetrics.Operation.OF_BYTES));
+        assertEquals("Failures should match", 2, snapshot.getFailures(PojoMetrics.Operation.OF_FIELDS));
+    }
+
+    /**
+     * Test the reason for an exception that is not from validation.
+     */
+    @Test
+    public void shouldClassifyExceptions() {
+        assertEquals("Reason should match", PojoMetrics.RejectReason.MALFORMED_JSON, PojoMetrics.reasonOf(new JsonParseException(null, "bad")));
+        assertEquals("Reason should match", PojoMetrics.RejectReason.MISMATCHED_INPUT, PojoMetrics.reasonOf(MismatchedInputException.from(null, Pojo.class, "bad")));
+        assertEquals("Reason should match", PojoMetrics.RejectReason.MISMATCHED_INPUT, PojoMetrics.reasonOf(new IOException("bad")));
+    }
+
+    /**
+     * Test that a reporter logs a json snapshot and resets the metrics.
+     */
+    @Test
+    public void shouldReportThroughTheJsonLogger() throws IOException {
+        final ByteArrayOutputStream logged = new ByteArrayOutputStream();
+        final WriterAppender appender = new WriterAppender(new PatternLayout("%m%n"), logged);
+        final Logger logger = Logger.getLogger(PojoMetrics.class);
+
+        logger.addAppender(appender);
+        logger.setAdditivity(false);
+
+        try {
+
+            PojoMetrics.setEnabled(true);
+
+            // Closing reports what was counted since the reporter started
+            final PojoMetrics.Reporter reporter = PojoMetrics.report(Duration.ofHours(1));
+
+            try (reporter) {
+                Pojo.of(JSON).orElseThrow();
+                Pojo.of("{\"id\":\"\"}");
+            }
+
+            final Map<?, ?> report = PojoCodec.reader(Map.class).readValue(new StringReader(logged.toString()));
+
+            assertEquals("Message should match", "Pojo metrics", report.get("message"));
+            assertEquals("Calls should match", 2, ((Map<?, ?>) ((Map<?, ?>) report.get("operations")).get("OF_JSON")).get("calls"));
+            assertEquals("Rejects should match", 1, ((Map<?, ?>) report.get("rejects")).get("BLANK_ID"));
+            assertEquals("Should reset after reporting", 0, PojoMetrics.snapshot().getCalls(PojoMetrics.Operation.OF_JSON));
+
+        } finally {
+
+            logger.removeAppender(appender);
+            logger.setAdditivity(true);
+
+        }
+    }
+
+    /**
+     * Test bad configuration.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptAZeroPeriod() {
+        PojoMetrics.report(Duration.ZERO);
+    }
+}
@@ -0,0 +1,104 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoModule class. Runs every PojoTest case with the module registered, as well.
+ */
+public class PojoModuleTest extends PojoTest {
+    private static final ObjectMapper ANNOTATED = new ObjectMapper();
+    private static final ObjectMapper MODULE = new ObjectMapper().registerModule(new PojoModule());
+
+    private static final List<Pojo> POJOS = List.of(
+        Pojo.of("578da685-f6ea-4ffe-869a-49acbbc998b2", "my-test-name", 12345, Pojo.TypeOfThing.SOME_THING).orElseThrow(),
+        Pojo.of("not a uuid", "naïve ☃ name \"quoted\"\n\t\u0001", Integer.MIN_VALUE, Pojo.TypeOfThing.OTHER_THING).orElseThrow(),
+        Pojo.of("x", null, -1, Pojo.TypeOfThing.THAT_THING).orElseThrow(),
+        Pojo.of("y", "</script>", Integer.MAX_VALUE, Pojo.TypeOfThing.THIS_THING).orElseThrow());
+
+    private static final String[] INPUTS = {
+        "{\"id\":\"a\",\"name\":\"b\",\"intValue\":1,\"typeOfThing\":\"SOME_THING\"}",
+        "{\"typeOfThing\":\"THIS_THING\",\"extra\":{\"nested\":[1,{}]},\"id\":7,\"name\":null,\"intValue\":null}",
+        "{\"id\":true,\"name\":1.5,\"intValue\":\"42\",\"typeOfThing\":\"THAT_THING\"}",
+        "{\"id\":\"a\",\"intValue\":2.7,\"typeOfThing\":\"OTHER_THING\"}",
+        "{\"id\":\"a\",\"id\":\"b\",\"typeOfThing\":\"OTHER_THING\"}",
+        "{\"id\":\" \",\"typeOfThing\":\"SOME_THING\"}",
+        "{\"id\":\"a\",\"typeOfThing\":\"some_thing\"}",
+        "{\"id\":\"a\",\"intValue\":\"x\",\"typeOfThing\":\"SOME_THING\"}",
+        "{\"id\":[\"a\"],\"typeOfThing\":\"SOME_THING\"}",
+        "[]",
+        "\"a string\"",
+        "null"
+    };
+
+    @Override
+    ObjectMapper createMapper() {
+        return new ObjectMapper().registerModule(new PojoModule());
+    }
+
+    /**
+     * Test that the module writes exactly the bytes the annotations do, alone and in containers.
+     */
+    @Test
+    public void shouldWriteTheSameBytes() throws IOException {
+        for (Pojo pojo : POJOS) {
+            assertEquals("Json should match", ANNOTATED.writeValueAsString(pojo), MODULE.writeValueAsString(pojo));
+            assertArrayEquals("Bytes should match", ANNOTATED.writeValueAsBytes(pojo), MODULE.writeValueAsBytes(pojo));
+            assertEquals("Json should match toJson()", pojo.toJson().orElseThrow(), MODULE.writeValueAsString(pojo));
+        }
+
+        final Map<String, Object> wrapper = Map.of("pojos", POJOS);
+
+        assertEquals("Json should match", ANNOTATED.writeValueAsString(wrapper), MODULE.writeValueAsString(wrapper));
+        assertEquals("Pretty json should match", ANNOTATED.writerWithDefaultPrettyPrinter().writeValueAsString(POJOS),
+            MODULE.writerWithDefaultPrettyPrinter().writeValueAsString(POJOS));
+    }
+
+    /**
+     * Test that the module reads, and rejects, the same inputs as the annotations do.
+     */
+    @Test
+    public void shouldReadTheSameValues() {
+        for (String input : INPUTS)
+            assertEquals("Outcome should match for " + input, read(ANNOTATED, input), read(MODULE, input));
+    }
+
+    /**
+     * Test reading Pojos nested in other values.
+     */
+    @Test
+    public void shouldReadNestedPojos() throws IOException {
+        final String json = MODULE.writeValueAsString(Map.of("pojos", POJOS));
+        final TypeReference<Map<String, List<Pojo>>> type = new TypeReference<Map<String, List<Pojo>>>() {};
+
+        final Map<String, List<Pojo>> actual = MODULE.readValue(json, type);
+        final Map<String, List<Pojo>> expected = ANNOTATED.readValue(json, type);
+
+        assertEquals("Pojos should match", Map.of("pojos", POJOS), actual);
+        assertEquals("Pojos should match", expected, actual);
+    }
+
+    /**
+     * Read with a mapper, describing the result or the type of failure.
+     */
+    private static String read(ObjectMapper mapper, String json) {
+        try {
+
+            return String.valueOf(mapper.readValue(json, Pojo.class));
+
+        } catch (IOException e) {
+
+            return e.getClass().getSimpleName();
+
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoParseCache class.
+ */
+public class PojoParseCacheTest {
+    private static final String JSON = "{\"id\":\"578da685-f6ea-4ffe-869a-49acbbc998b2\",\"name\":\"my-test-name\",\"intValue\":12345,\"typeOfThing\":\"SOME_THING\"}";
+
+    private static byte[] json(int intValue) {
+        return JSON.replace("12345", Integer.toString(intValue)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test that a replay of the same bytes, in another array, returns the Pojo already parsed.
+     */
+    @Test
+    public void shouldReturnTheParsedPojoForAReplay() {
+        final PojoParseCache cache = PojoParseCache.bySize(100);
+        final Pojo cached = cache.of(json(12345)).orElseThrow();
+
+        assertEquals("Pojos should match", Pojo.of(JSON).orElseThrow(), cached);
+        assertSame("Should return the cached instance", cached, cache.of(json(12345)).orElseThrow());
+        assertSame("Should return the cached instance", cached, cache.of(json(12345)).orElseThrow());
+
+        final PojoParseCache.Stats stats = cache.stats();
+
+        assertEquals("Hits should match", 2, stats.getHits());
+        assertEquals("Misses should match", 1, stats.getMisses());
+        assertEquals("Hit rate should match", 2.0 / 3, stats.getHitRate(), 0.0);
+        assertEquals("Entries should match", 1, stats.getEntries());
+    }
+
+    /**
+     * Test that the cache keeps its own copy of the bytes, so a reused array cannot change an entry.
+     */
+    @Test
+    public void shouldCopyTheBytes() {
+        final PojoParseCache cache = PojoParseCache.bySize(100);
+        final byte[] buffer = json(12345);
+        final Pojo first = cache.of(buffer).orElseThrow();
+
+        System.arraycopy(json(54321), 0, buffer, 0, buffer.length);
+
+        assertEquals("Should parse the new bytes", 54321, cache.of(buffer).orElseThrow().getIntValue());
+        assertSame("Should still return the cached instance", first, cache.of(json(12345)).orElseThrow());
+    }
+
+    /**
+     * Test that payloads that are not valid Pojos are cached as empty results.
+     */
+    @Test
+    public void shouldCacheRejects() {
+        final PojoParseCache cache = PojoParseCache.bySize(100);
+        final byte[] invalid = "{\"id\":\"\",\"typeOfThing\":\"SOME_THING\"}".getBytes(StandardCharsets.UTF_8);
+
+        for (int i = 0; i < 3; i++)
+            assertTrue("Should reject", cache.of(invalid.clone()).isEmpty());
+
+        assertEquals("Hits should match", 2, cache.stats().getHits());
+        assertEquals("Should tolerate null", Optional.<Pojo>empty(), cache.of(null));
+    }
+
+    /**
+     * Test that payloads that share a hash are told apart by their bytes, and the resident entry kept.
+     */
+    @Test
+    public void shouldNotConfuseCollidingPayloads() {
+        final PojoParseCache cache = PojoParseCache.bySize(100).withHash(bytes -> 42L);
+        final Pojo first = cache.of(json(1)).orElseThrow();
+
+        assertEquals("Should parse the colliding bytes", 2, cache.of(json(2)).orElseThrow().getIntValue());
+        assertSame("Should keep the resident entry", first, cache.of(json(1)).orElseThrow());
+
+        final PojoParseCache.Stats stats = cache.stats();
+
+        assertEquals("Collisions should match", 1, stats.getCollisions());
+        assertEquals("Hits should match", 1, stats.getHits());
+        assertEquals("Misses should match", 2, stats.getMisses());
+    }
+
+    /**
+     * Test that a cache bounded by size or by weight evicts.
+     */
+    @Test
+    public void shouldEvict() {
+        final PojoParseCache bySize = PojoParseCache.bySize(10);
+        final PojoParseCache byWeight = PojoParseCache.byWeight(3500);
+
+        for (int i = 0; i < 200; i++) {
+            bySize.of(json(i / 2));
+            byWeight.of(json(i / 2));
+        }
+
+        for (PojoParseCache cache : new PojoParseCache[] {bySize, byWeight}) {
+            final PojoParseCache.Stats stats = cache.stats();
+
+            assertEquals("Hits should match", 100, stats.getHits());
+            assertEquals("Misses should match", 100, stats.getMisses());
+            assertTrue("Should evict", stats.getEvictions() > 0);
+        }
+
+        // Each entry weighs over 350 bytes
+        assertTrue("Should hold at most the size", bySize.stats().getEntries() <= 10);
+        assertTrue("Should hold at most the weight", byWeight.stats().getEntries() <= 10);
+
+        bySize.invalidateAll();
+
+        assertEquals("Should be empty", 0, bySize.stats().getEntries());
+    }
+
+    /**
+     * Test that payloads replayed after a quarter as many distinct payloads as the cache holds mostly
+     * hit, since the oldest of the entries that tie on hits is the one evicted. A set of four that
+     * happens to take more than four new payloads first still loses one, as it would under LRU.
+     */
+    @Test
+    public void shouldEvictTheLeastRecentlyUsedOfTheColdest() {
+        final PojoParseCache cache = PojoParseCache.bySize(4096);
+
+        for (int i = 0; i < 100_000; i++) {
+            cache.of(json(i));
+
+            if (i >= 1000)
+                cache.of(json(i - 1000));
+        }
+
+        final PojoParseCache.Stats stats = cache.stats();
+
+        assertTrue("Should hit most replays, not " + stats.getHits(), stats.getHits() > 99_000 * 4 / 5);
+    }
+
+    /**
+     * Test bad configuration.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptAZeroWeight() {
+        PojoParseCache.byWeight(0);
+    }
+}
@@ -0,0 +1,216 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoPipeline class.
+ */
+public class PojoPipelineTest {
+    private static final String INVALID = "{\"id\":\"\",\"typeOfThing\":\"SOME_THING\"}";
+    private static final List<Pojo> POJOS = new ArrayList<>();
+    private static final byte[] INPUT;
+
+    static {
+        final StringBuilder input = new StringBuilder();
+
+        for (int i = 0; i < 1000; i++) {
+            final Pojo pojo = Pojo.of(UUID.randomUUID().toString(), "naïve ☃ name-" + i, i, Pojo.TypeOfThing.lookup(i & 3)).orElseThrow();
+
+            POJOS.add(pojo);
+            input.append(pojo.toJson().orElseThrow()).append('\n');
+
+            if (i % 100 == 0)
+                input.append(INVALID).append('\n');
+        }
+
+        INPUT = input.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] expected(PojoStreams.Format format, List<Pojo> pojos) {
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+
+        try (PojoStreams.Writer writer = PojoStreams.writer(expected, format)) {
+            writer.writeAll(pojos);
+        }
+
+        return expected.toByteArray();
+    }
+
+    /**
+     * Test that every output layout holds the valid Pojos, in input order, across many small batches.
+     */
+    @Test
+    public void shouldWriteEveryOutput() {
+        final PojoPipeline pipeline = PojoPipeline.of().withBatchSize(7).withQueueSize(2);
+
+        for (PojoPipeline.Output output : PojoPipeline.Output.values()) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final PojoPipeline.Result result = pipeline.withOutput(output).run(new ByteArrayInputStream(INPUT), out);
+
+            assertEquals("Read should match", 1010, result.getRead());
+            assertEquals("Written should match", 1000, result.getWritten());
+            assertEquals("Rejected should match", 10, result.getRejected());
+            assertEquals("Bytes should match", out.size(), result.getBytes());
+            assertTrue("Should have written", result.getFirstWrite().isPresent());
+
+            if (output == PojoPipeline.Output.BINARY) {
+                final ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+                final List<Pojo> actual = new ArrayList<>();
+
+                while (buffer.hasRemaining())
+                    actual.add(PojoBinaryCodec.decode(buffer).orElseThrow());
+
+                assertEquals("Pojos should match", POJOS, actual);
+            } else {
+                final PojoStreams.Format format = output == PojoPipeline.Output.NDJSON ? PojoStreams.Format.NDJSON : PojoStreams.Format.JSON_ARRAY;
+
+                assertEquals("Output should match", new String(expected(format, POJOS), StandardCharsets.UTF_8), out.toString(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Test filtering, and the counts and rejects that go with it.
+     */
+    @Test
+    public void shouldFilterAndCount() {
+        final List<Long> rejects = new ArrayList<>();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final PojoPipeline.Result result = PojoPipeline.of()
+            .withFilter(PojoFilter.all().withTypes(Pojo.TypeOfThing.SOME_THING))
+            .withRejects((index, cause) -> rejects.add(index))
+            .run(new ByteArrayInputStream(INPUT), out);
+
+        final List<Pojo> expected = POJOS.stream().filter(pojo -> pojo.getType() == Pojo.TypeOfThing.SOME_THING).collect(Collectors.toList());
+
+        assertEquals("Output should match", new String(expected(PojoStreams.Format.NDJSON, expected), StandardCharsets.UTF_8),
+            out.toString(StandardCharsets.UTF_8));
+        assertEquals("Read should match", 1010, result.getRead());
+        assertEquals("Written should match", 250, result.getWritten());
+        assertEquals("Skipped should match", 750, result.getSkipped());
+        assertEquals("Rejected should match", 10, result.getRejected());
+        assertEquals("Reject indexes should match", List.of(1L, 102L, 203L, 304L, 405L, 506L, 607L, 708L, 809L, 910L), rejects);
+    }
+
+    /**
+     * Test that a record whose intValue does not fit an int is one reject, and every record after it
+     * is still written.
+     */
+    @Test
+    public void shouldRejectAnOverflowingRecordAndCarryOn() {
+        final List<Long> rejects = new ArrayList<>();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final String overflowing = "{\"id\":\"" + UUID.randomUUID() + "\",\"intValue\":4294967296,\"typeOfThing\":\"SOME_THING\"}\n";
+        final ByteArrayOutputStream input = new ByteArrayOutputStream();
+
+        input.writeBytes(expected(PojoStreams.Format.NDJSON, POJOS.subList(0, 500)));
+        input.writeBytes(overflowing.getBytes(StandardCharsets.UTF_8));
+        input.writeBytes(expected(PojoStreams.Format.NDJSON, POJOS.subList(500, 1000)));
+
+        final PojoPipeline.Result result = PojoPipeline.of().withRejects((index, cause) -> rejects.add(index))
+            .run(new ByteArrayInputStream(input.toByteArray()), out);
+
+        assertEquals("Output should match", new String(expected(PojoStreams.Format.NDJSON, POJOS), StandardCharsets.UTF_8),
+            out.toString(StandardCharsets.UTF_8));
+        assertEquals("Written should match", 1000, result.getWritten());
+        assertEquals("Rejected should match", 1, result.getRejected());
+        assertEquals("Reject indexes should match", List.of(500L), rejects);
+    }
+
+    /**
+     * Test reading files one after another, one a json array and one newline-delimited json.
+     */
+    @Test
+    public void shouldReadFilesInTurn() throws IOException {
+        final Path array = Files.createTempFile("pojos", ".json");
+        final Path ndjson = Files.createTempFile("pojos", ".ndjson");
+
+        try {
+
+            Files.write(array, expected(PojoStreams.Format.JSON_ARRAY, POJOS.subList(0, 500)));
+            Files.write(ndjson, expected(PojoStreams.Format.NDJSON, POJOS.subList(500, 1000)));
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final PojoPipeline.Result result = PojoPipeline.of().withOutput(PojoPipeline.Output.JSON_ARRAY).run(List.of(array, ndjson), out);
+
+            assertEquals("Written should match", 1000, result.getWritten());
+            assertEquals("Output should match", new String(expected(PojoStreams.Format.JSON_ARRAY, POJOS), StandardCharsets.UTF_8),
+                out.toString(StandardCharsets.UTF_8));
+
+        } finally {
+
+            Files.delete(array);
+            Files.delete(ndjson);
+
+        }
+    }
+
+    /**
+     * Test that empty input writes nothing, or an empty array.
+     */
+    @Test
+    public void shouldWriteNothingForNoInput() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final PojoPipeline.Result result = PojoPipeline.of().run(new ByteArrayInputStream(new byte[0]), out);
+
+        assertEquals("Should write nothing", 0, out.size());
+        assertEquals("Should read nothing", 0, result.getRead());
+        assertTrue("Should not have written", result.getFirstWrite().isEmpty());
+
+        PojoPipeline.of().withOutput(PojoPipeline.Output.JSON_ARRAY).run(new ByteArrayInputStream(new byte[0]), out);
+
+        assertEquals("Should write an empty array", "[]", out.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test that a failure in the write stage stops the other stages, rather than leaving them blocked
+     * on full queues.
+     */
+    @Test(timeout = 10_000)
+    public void shouldStopWhenTheOutputFails() {
+        final OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        try {
+
+            PojoPipeline.of().withBatchSize(1).withQueueSize(1).run(new ByteArrayInputStream(INPUT), broken);
+            throw new AssertionError("Should fail");
+
+        } catch (UncheckedIOException e) {
+
+            assertEquals("Message should match", "Broken pipe", e.getCause().getMessage());
+
+        }
+    }
+
+    /**
+     * Test bad configuration.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAcceptAnEmptyBatch() {
+        PojoPipeline.of().withBatchSize(0);
+    }
+}
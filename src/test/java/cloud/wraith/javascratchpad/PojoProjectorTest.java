@@ -0,0 +1,106 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoProjector class.
+ */
+public class PojoProjectorTest {
+    private static final String JSON = "{\"id\":\"578da685-f6ea-4ffe-869a-49acbbc998b2\",\"name\":\"my-test-name\",\"intValue\":12345,\"typeOfThing\":\"SOME_THING\"}";
+
+    private static final PojoProjector ID_AND_INT_VALUE = PojoCodec.project(EnumSet.of(PojoField.ID, PojoField.INT_VALUE));
+
+    /**
+     * Test projecting a single object.
+     */
+    @Test
+    public void shouldProjectAnObject() {
+        final PojoProjection actual = ID_AND_INT_VALUE.read(JSON).orElseThrow();
+
+        assertEquals("Id should match", "578da685-f6ea-4ffe-869a-49acbbc998b2", actual.getId());
+        assertEquals("Int value should match", 12345, actual.getIntValue());
+        assertTrue("Should have the id", actual.has(PojoField.ID));
+        assertFalse("Should not have the name", actual.has(PojoField.NAME));
+        assertEquals("Fields should match", EnumSet.of(PojoField.ID, PojoField.INT_VALUE), actual.getFields());
+        assertEquals("Projections from bytes and string should match", actual, ID_AND_INT_VALUE.read(JSON.getBytes()).orElseThrow());
+
+        final PojoProjection all = PojoCodec.project(EnumSet.allOf(PojoField.class)).read(JSON).orElseThrow();
+        final Pojo pojo = Pojo.of(JSON).orElseThrow();
+
+        assertEquals("Name should match", pojo.getName(), all.getName());
+        assertEquals("Type of thing should match", pojo.getType(), all.getType());
+    }
+
+    /**
+     * Test that a field that was not projected cannot be read.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotReadAFieldThatWasNotProjected() {
+        ID_AND_INT_VALUE.read(JSON).orElseThrow().getName();
+    }
+
+    /**
+     * Test that only the projected fields are validated.
+     */
+    @Test
+    public void shouldOnlyValidateProjectedFields() {
+        final String invalidType = "{\"id\":\"a\",\"name\":{\"not\":\"text\"},\"intValue\":1,\"typeOfThing\":\"NOT_A_THING\"}";
+
+        assertEquals("Int value should match", 1, ID_AND_INT_VALUE.read(invalidType).orElseThrow().getIntValue());
+        assertFalse("Should not project an invalid type", PojoCodec.project(EnumSet.of(PojoField.TYPE_OF_THING)).read(invalidType).isPresent());
+        assertFalse("Should not project a blank id", ID_AND_INT_VALUE.read("{\"id\":\" \"}").isPresent());
+        assertEquals("Name should default to empty", "", PojoCodec.project(EnumSet.of(PojoField.NAME)).read("{}").orElseThrow().getName());
+        assertFalse("Should not project null", ID_AND_INT_VALUE.read((String) null).isPresent());
+        assertFalse("Should not project an array as an object", ID_AND_INT_VALUE.read("[" + JSON + "]").isPresent());
+    }
+
+    /**
+     * Test that an empty projection is refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotProjectNoFields() {
+        PojoCodec.project(EnumSet.noneOf(PojoField.class));
+    }
+
+    /**
+     * Test projecting a json array, which fails as a whole if any element cannot be projected.
+     */
+    @Test
+    public void shouldProjectAnArray() {
+        final List<PojoProjection> actual = ID_AND_INT_VALUE.readList("[" + JSON + ",{\"id\":\"b\",\"intValue\":2}]").orElseThrow();
+
+        assertEquals("Size should match", 2, actual.size());
+        assertEquals("Id should match", "b", actual.get(1).getId());
+        assertEquals("Projections from bytes and string should match", actual,
+            ID_AND_INT_VALUE.readList(("[" + JSON + ",{\"id\":\"b\",\"intValue\":2}]").getBytes()).orElseThrow());
+        assertFalse("Should not project an invalid element", ID_AND_INT_VALUE.readList("[" + JSON + ",{\"id\":\"\"}]").isPresent());
+        assertFalse("Should not project a scalar element", ID_AND_INT_VALUE.readList("[" + JSON + ",1]").isPresent());
+        assertTrue("Should project an empty array", ID_AND_INT_VALUE.readList("[]").orElseThrow().isEmpty());
+    }
+
+    /**
+     * Test projecting a stream of newline-delimited json, with invalid records rejected.
+     */
+    @Test
+    public void shouldProjectAStream() {
+        final String ndjson = JSON + "\n{\"id\":\"\"}\n{\"id\":\"c\",\"intValue\":\"3\",\"extra\":[{}]}\n";
+        final List<Long> rejects = new ArrayList<>();
+
+        try (Stream<PojoProjection> projections = ID_AND_INT_VALUE.stream(new ByteArrayInputStream(ndjson.getBytes()), (index, cause) -> rejects.add(index))) {
+            assertEquals("Int values should match", List.of(12345, 3), projections.map(PojoProjection::getIntValue).collect(Collectors.toList()));
+        }
+
+        assertEquals("Rejects should match", List.of(1L), rejects);
+    }
+}
@@ -0,0 +1,149 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoRepository class.
+ */
+public class PojoRepositoryTest {
+    private static final Pojo UUID_ID = Pojo.of("578da685-f6ea-4ffe-869a-49acbbc998b2", "my-test-name", 12345, Pojo.TypeOfThing.SOME_THING).orElseThrow();
+    private static final Pojo TEXT_ID = Pojo.of("not a uuid", "my-other-name", -1, Pojo.TypeOfThing.OTHER_THING).orElseThrow();
+    private static final Pojo OTHER = Pojo.of("a0000000-0000-4000-8000-000000000000", "your-name", 7, Pojo.TypeOfThing.SOME_THING).orElseThrow();
+
+    /**
+     * Test lookups on the primary index.
+     */
+    @Test
+    public void shouldFindById() {
+        final PojoRepository repository = PojoRepository.create();
+
+        for (Pojo pojo : Arrays.asList(UUID_ID, TEXT_ID, OTHER))
+            assertTrue("Should be new", repository.put(pojo).isEmpty());
+
+        final UUID uuid = UUID.fromString(UUID_ID.getId());
+
+        assertEquals("Pojos should match", UUID_ID, repository.get(UUID_ID.getId()).orElseThrow());
+        assertEquals("Pojos should match", UUID_ID, repository.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()).orElseThrow());
+        assertEquals("Pojos should match", TEXT_ID, repository.get(TEXT_ID.getId()).orElseThrow());
+        assertFalse("Should not find an unknown id", repository.contains(UUID.randomUUID().toString()));
+        assertFalse("Should not find a null id", repository.contains(null));
+        assertEquals("Size should match", 3, repository.size());
+    }
+
+    /**
+     * Test that replacing and removing keep every index in step.
+     */
+    @Test
+    public void shouldReplaceAndRemove() {
+        final PojoRepository repository = PojoRepository.create();
+        final Pojo renamed = Pojo.of(UUID_ID.getId(), "renamed", 1, Pojo.TypeOfThing.THAT_THING).orElseThrow();
+
+        repository.put(UUID_ID);
+        repository.put(TEXT_ID);
+
+        assertEquals("Should replace", UUID_ID, repository.put(renamed).orElseThrow());
+        assertEquals("Pojos should match", renamed, repository.get(UUID_ID.getId()).orElseThrow());
+        assertEquals("Size should match", 2, repository.size());
+        assertEquals("Old type should be unindexed", 0, repository.findByType(Pojo.TypeOfThing.SOME_THING).count());
+        assertEquals("Old name should be unindexed", 0, repository.findByNamePrefix("my-test").count());
+        assertEquals("Old int value should be unindexed", 0, repository.findByIntValue(12345, 12345).count());
+
+        assertEquals("Should remove", TEXT_ID, repository.remove(TEXT_ID.getId()).orElseThrow());
+        assertEquals("Should remove", renamed, repository.remove(UUID_ID.getId()).orElseThrow());
+        assertTrue("Should not remove twice", repository.remove(UUID_ID.getId()).isEmpty());
+        assertEquals("Size should match", 0, repository.size());
+        assertEquals("Should be unindexed", 0, repository.findByIntValue(Integer.MIN_VALUE, Integer.MAX_VALUE).count());
+    }
+
+    /**
+     * Test the secondary indexes.
+     */
+    @Test
+    public void shouldQueryTheSecondaryIndexes() {
+        final PojoRepository repository = PojoRepository.create();
+
+        for (Pojo pojo : Arrays.asList(UUID_ID, TEXT_ID, OTHER))
+            repository.put(pojo);
+
+        assertEquals("Types should match", Set.of(UUID_ID, OTHER), repository.findByType(Pojo.TypeOfThing.SOME_THING).collect(Collectors.toSet()));
+        assertEquals("Names should match", Arrays.asList(TEXT_ID, UUID_ID), repository.findByNamePrefix("my-").collect(Collectors.toList()));
+        assertEquals("Names should match", 3, repository.findByNamePrefix("").count());
+        assertEquals("Int values should match", Arrays.asList(TEXT_ID, OTHER), repository.findByIntValue(-1, 7).collect(Collectors.toList()));
+        assertEquals("Int values should match", 0, repository.findByIntValue(8, 12344).count());
+    }
+
+    /**
+     * Test removal from the middle of a probe run, with enough ids to grow every stripe.
+     */
+    @Test
+    public void shouldGrowAndRemoveFromProbeRuns() {
+        final PojoRepository repository = PojoRepository.create();
+        final List<Pojo> pojos = new ArrayList<>();
+
+        for (int i = 0; i < 20_000; i++)
+            pojos.add(Pojo.of(UUID.randomUUID().toString(), "name-" + i, i, Pojo.TypeOfThing.THIS_THING).orElseThrow());
+
+        pojos.forEach(repository::put);
+
+        for (int i = 0; i < pojos.size(); i += 2)
+            repository.remove(pojos.get(i).getId());
+
+        for (int i = 0; i < pojos.size(); i++)
+            assertEquals("Should find only the odd Pojos", i % 2 == 1, repository.contains(pojos.get(i).getId()));
+
+        assertEquals("Size should match", pojos.size() / 2, repository.size());
+    }
+
+    /**
+     * Test many writers and readers at once.
+     */
+    @Test
+    public void shouldAllowConcurrentWriters() throws Exception {
+        final PojoRepository repository = PojoRepository.create(64 * 1000);
+        final ExecutorService executor = Executors.newFixedThreadPool(64);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        try {
+
+            for (int writer = 0; writer < 64; writer++) {
+                final int first = writer * 1000;
+
+                futures.add(executor.submit(() -> {
+                    for (int i = first; i < first + 1000; i++) {
+                        final String id = i % 10 == 0 ? "id-" + i : new UUID(i, i).toString();
+                        repository.put(Pojo.of(id, "name-" + i, i, Pojo.TypeOfThing.lookup(i % 4)).orElseThrow());
+
+                        if (!repository.contains(id))
+                            throw new AssertionError("Should read its own write of " + id);
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures)
+                future.get();
+
+        } finally {
+
+            executor.shutdown();
+
+        }
+
+        assertEquals("Size should match", 64 * 1000, repository.size());
+        assertEquals("Types should match", 16 * 1000, repository.findByType(Pojo.TypeOfThing.THAT_THING).count());
+        assertEquals("Int values should match", 100, repository.findByIntValue(500, 599).count());
+    }
+}
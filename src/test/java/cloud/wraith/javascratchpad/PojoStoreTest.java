@@ -0,0 +1,178 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoStore class.
+ */
+public class PojoStoreTest {
+    private static final Pojo UUID_ID = Pojo.of("578da685-f6ea-4ffe-869a-49acbbc998b2", "my-test-name", 12345, Pojo.TypeOfThing.SOME_THING).orElseThrow();
+    private static final Pojo TEXT_ID = Pojo.of("not a uuid", "naïve ☃ name", Integer.MIN_VALUE, Pojo.TypeOfThing.OTHER_THING).orElseThrow();
+
+    /**
+     * Test that records read back as the Pojos added, in place and copied out.
+     */
+    @Test
+    public void shouldReadBackAddedPojos() {
+        final PojoStore store = PojoStore.create();
+        final long uuidId = store.add(UUID_ID);
+        final long textId = store.add(TEXT_ID);
+        final PojoStore.View view = store.view(textId);
+
+        assertEquals("Pojos should match", UUID_ID, store.get(uuidId).orElseThrow());
+        assertEquals("Pojos should match", TEXT_ID, store.get(textId).orElseThrow());
+        assertEquals("Ids should match", TEXT_ID.getId(), view.getId());
+        assertEquals("Names should match", TEXT_ID.getName(), view.getName());
+        assertEquals("Int values should match", TEXT_ID.getIntValue(), view.getIntValue());
+        assertEquals("Types should match", TEXT_ID.getTypeOfThing(), view.getTypeOfThing());
+        assertEquals("Names should match", UUID_ID.getName(), view.moveTo(uuidId).getName());
+        assertEquals("Size should match", 2, store.size());
+    }
+
+    /**
+     * Test that freed records are gone, and that stale handles are not reused.
+     */
+    @Test
+    public void shouldFreeARecord() {
+        final PojoStore store = PojoStore.create();
+        final long handle = store.add(UUID_ID);
+
+        assertTrue("Should free the record", store.free(handle));
+        assertFalse("Should not free the record twice", store.free(handle));
+        assertFalse("Should not contain the record", store.contains(handle));
+        assertTrue("Should be empty", store.get(handle).isEmpty());
+        assertFalse("Should not reuse the handle", store.add(UUID_ID) == handle);
+        assertFalse("Should not contain an unknown handle", store.contains(-1));
+        assertEquals("Size should match", 1, store.size());
+    }
+
+    /**
+     * Test that churning records reuses the slots of freed handles, without the stale handles reading
+     * the records that took their slots.
+     */
+    @Test
+    public void shouldReuseTheSlotsOfFreedHandles() {
+        final PojoStore store = PojoStore.create(1024 * 1024);
+        long stale = store.add(UUID_ID);
+
+        for (int i = 0; i < 2 * PojoStore.LOCATIONS_PER_CHUNK; i++) {
+            store.free(stale);
+
+            final long handle = store.add(TEXT_ID);
+
+            assertFalse("Stale handle should be missing", store.contains(stale));
+            assertEquals("Record should match", TEXT_ID, store.get(handle).orElseThrow());
+            stale = handle;
+
+            if (i % 10_000 == 0)
+                store.compact();
+        }
+
+        store.compact();
+
+        assertEquals("Size should match", 1, store.size());
+        assertEquals("Should hold one segment and one chunk of handles", 1024 * 1024 + PojoStore.LOCATIONS_PER_CHUNK * Long.BYTES, store.allocatedBytes());
+    }
+
+    /**
+     * Test that a view of a freed record cannot be moved to.
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void shouldNotViewAFreedRecord() {
+        final PojoStore store = PojoStore.create();
+        final long handle = store.add(UUID_ID);
+
+        store.free(handle);
+        store.view(handle);
+    }
+
+    /**
+     * Test that compaction reclaims space and keeps handles, across many segments.
+     */
+    @Test
+    public void shouldCompact() {
+        final PojoStore store = PojoStore.create(4096);
+        final List<Pojo> pojos = new ArrayList<>();
+        final List<Long> handles = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            final String id = i % 3 == 0 ? "id-" + i : UUID.randomUUID().toString();
+            final Pojo pojo = Pojo.of(id, "name-" + i, i, Pojo.TypeOfThing.lookup(i % 4)).orElseThrow();
+            pojos.add(pojo);
+            handles.add(store.add(pojo));
+        }
+
+        final int segments = store.segmentCount();
+
+        for (int i = 0; i < pojos.size(); i++)
+            if (i % 4 != 0)
+                store.free(handles.get(i));
+
+        final long live = store.liveBytes();
+
+        assertTrue("Should reclaim space", store.compact() > 0);
+        assertEquals("Used should match live", live, store.usedBytes());
+        assertTrue("Should release segments", store.segmentCount() <= segments / 3);
+
+        for (int i = 0; i < pojos.size(); i++)
+            assertEquals("Should keep only live records", i % 4 == 0 ? pojos.get(i) : null, store.get(handles.get(i)).orElse(null));
+
+        final long added = store.add(UUID_ID);
+        assertEquals("Should add after compaction", UUID_ID, store.get(added).orElseThrow());
+
+        for (long handle : handles)
+            store.free(handle);
+        store.free(added);
+        store.compact();
+
+        assertEquals("Should release every segment", 0, store.segmentCount());
+        assertEquals("Should add to an empty store", TEXT_ID, store.get(store.add(TEXT_ID)).orElseThrow());
+    }
+
+    /**
+     * Test that a Pojo too large for a segment is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectAPojoLargerThanASegment() {
+        PojoStore.create(1024).add(Pojo.of("id", "x".repeat(1024), 0, Pojo.TypeOfThing.SOME_THING).orElseThrow());
+    }
+
+    /**
+     * Test that the heap stays flat as the store grows.
+     */
+    @Test
+    public void shouldKeepTheHeapFlat() {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        final PojoStore store = PojoStore.create(1024 * 1024);
+        final int records = 500_000;
+
+        store.add(UUID_ID);
+        final long before = usedHeap(memory);
+
+        for (int i = 0; i < records; i++)
+            store.add(Pojo.of(UUID.randomUUID().toString(), "name-" + i, i, Pojo.TypeOfThing.THAT_THING).orElseThrow());
+
+        final long growth = usedHeap(memory) - before;
+
+        assertTrue("Off-heap use should grow: " + store, store.usedBytes() > 20L * records);
+        assertTrue("Heap should stay flat, grew by " + growth + " bytes", growth < 4L * 1024 * 1024);
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++)
+            System.gc();
+
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,190 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoStreams class.
+ */
+public class PojoStreamsTest {
+    private static final String ONE = "{\"id\":\"84f6ff48-80bc-442c-8b67-00aa9e526beb\",\"name\":\"Pojo one\",\"intValue\":1,\"typeOfThing\":\"SOME_THING\"}";
+    private static final String TWO = "{\"id\":\"26f974dd-8762-4e7b-b5f7-7fd6c14e4de8\",\"name\":\"Pojo two\",\"intValue\":2,\"typeOfThing\":\"THIS_THING\"}";
+    private static final String INVALID = "{\"id\":\"a986347e-6925-4a0e-8625-29eba7ff6a91\",\"name\":\"Pojo three\",\"intValue\":3,\"typeOfThing\":\"NOT_A_THING\"}";
+    private static final String NESTED = "{\"id\":\"\",\"extra\":{\"deep\":[1,{\"x\":2}]},\"typeOfThing\":\"SOME_THING\"}";
+
+    private static final List<Pojo> EXPECTED = Arrays.asList(
+        Pojo.of(ONE).orElseThrow(),
+        Pojo.of(TWO).orElseThrow()
+    );
+
+    private static InputStream input(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test reading newline-delimited json.
+     */
+    @Test
+    public void shouldReadNdjson() {
+        try (Stream<Pojo> actual = PojoStreams.stream(input(ONE + "\n" + TWO + "\n"), PojoStreams.IGNORE_REJECTS)) {
+            assertEquals("Pojos should match", EXPECTED, actual.collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Test reading a json array.
+     */
+    @Test
+    public void shouldReadAJsonArray() {
+        try (Stream<Pojo> actual = PojoStreams.stream(input("[" + ONE + "," + TWO + "]"), PojoStreams.IGNORE_REJECTS)) {
+            assertEquals("Pojos should match", EXPECTED, actual.collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Test that invalid records are rejected without aborting the stream.
+     */
+    @Test
+    public void shouldRejectInvalidRecordsAndCarryOn() {
+        final List<Long> rejected = new ArrayList<>();
+
+        for (String json : new String[] {
+            INVALID + "\n" + ONE + "\n" + NESTED + "\n42\n" + TWO,
+            "[" + INVALID + "," + ONE + "," + NESTED + ",42," + TWO + "]"
+        }) {
+            rejected.clear();
+
+            try (Stream<Pojo> actual = PojoStreams.stream(input(json), (index, cause) -> rejected.add(index))) {
+                assertEquals("Valid Pojos should be read", EXPECTED, actual.collect(Collectors.toList()));
+            }
+
+            assertEquals("Invalid records should be rejected", Arrays.asList(0L, 2L, 3L), rejected);
+        }
+    }
+
+    /**
+     * Test that a well formed record whose int value does not fit is rejected without aborting the stream.
+     */
+    @Test
+    public void shouldRejectAnIntValueThatDoesNotFit() {
+        final String overflow = "{\"id\":\"x\",\"intValue\":99999999999,\"typeOfThing\":\"SOME_THING\"}";
+        final List<Long> rejected = new ArrayList<>();
+
+        for (String json : new String[] {ONE + "\n" + overflow + "\n" + TWO + "\n", "[" + ONE + "," + overflow + "," + TWO + "]"}) {
+            rejected.clear();
+
+            try (Stream<Pojo> actual = PojoStreams.stream(input(json), (index, cause) -> rejected.add(index))) {
+                assertEquals("Valid Pojos should be read", EXPECTED, actual.collect(Collectors.toList()));
+            }
+
+            assertEquals("Overflowing record should be rejected", Arrays.asList(1L), rejected);
+        }
+    }
+
+    /**
+     * Test that malformed newline-delimited json is rejected as one record and reading picks up again on
+     * the line after the one where it began, even when the parser only fails on that next line.
+     */
+    @Test
+    public void shouldResynchroniseAfterMalformedLines() {
+        final List<Long> rejected = new ArrayList<>();
+
+        for (String malformed : new String[] {"{\"id\":}", "{\"id\":\"a\"", "{\"id\":\"x\",\"name\":", "not json", "x"}) {
+            rejected.clear();
+
+            try (Stream<Pojo> actual = PojoStreams.stream(input(ONE + "\n" + malformed + "\n" + TWO + "\n" + ONE), (index, cause) -> rejected.add(index))) {
+                assertEquals("Valid Pojos should be read after " + malformed, Arrays.asList(EXPECTED.get(0), EXPECTED.get(1), EXPECTED.get(0)),
+                    actual.collect(Collectors.toList()));
+            }
+
+            assertEquals("Malformed record should be rejected once", Arrays.asList(1L), rejected);
+        }
+    }
+
+    /**
+     * Test that a truncated last line is rejected.
+     */
+    @Test
+    public void shouldRejectATruncatedLastLine() {
+        final List<Long> rejected = new ArrayList<>();
+
+        try (Stream<Pojo> actual = PojoStreams.stream(input(ONE + "\n" + TWO.substring(0, 20)), (index, cause) -> rejected.add(index))) {
+            assertEquals("First Pojo should be read", EXPECTED.subList(0, 1), actual.collect(Collectors.toList()));
+        }
+
+        assertEquals("Truncated record should be rejected", Arrays.asList(1L), rejected);
+    }
+
+    /**
+     * Test that malformed json in an array ends the stream with a rejection.
+     */
+    @Test
+    public void shouldRejectMalformedJson() {
+        final List<Long> rejected = new ArrayList<>();
+        final PojoStreams.Reader reader = PojoStreams.iterator(input("[" + ONE + ",{\"id\":}," + TWO + "]"), (index, cause) -> rejected.add(index));
+
+        assertEquals("First Pojo should be read", EXPECTED.get(0), reader.next());
+        assertFalse("Stream should end", reader.hasNext());
+        assertEquals("Malformed record should be rejected", Arrays.asList(1L), rejected);
+    }
+
+    /**
+     * Test writing newline-delimited json and a json array.
+     */
+    @Test
+    public void shouldWriteEachFormat() {
+        final ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        final ByteArrayOutputStream array = new ByteArrayOutputStream();
+
+        try (PojoStreams.Writer writer = PojoStreams.writer(ndjson, PojoStreams.Format.NDJSON)) {
+            writer.writeAll(EXPECTED);
+            assertEquals("Count should match", 2, writer.count());
+        }
+
+        try (PojoStreams.Writer writer = PojoStreams.writer(array, PojoStreams.Format.JSON_ARRAY)) {
+            writer.writeAll(EXPECTED.stream());
+        }
+
+        assertEquals("Ndjson should match", ONE + "\n" + TWO + "\n", ndjson.toString(StandardCharsets.UTF_8));
+        assertEquals("Array should match", "[" + ONE + "," + TWO + "]", array.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test a round trip through a file.
+     */
+    @Test
+    public void shouldRoundTripThroughAFile() throws IOException {
+        final Path path = Files.createTempFile("pojos", ".ndjson");
+
+        try {
+
+            try (PojoStreams.Writer writer = PojoStreams.writer(path, PojoStreams.Format.NDJSON)) {
+                writer.writeAll(EXPECTED);
+            }
+
+            try (Stream<Pojo> actual = PojoStreams.stream(path, PojoStreams.IGNORE_REJECTS)) {
+                assertEquals("Pojos should match", EXPECTED, actual.collect(Collectors.toList()));
+            }
+
+        } finally {
+
+            Files.delete(path);
+
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoTable class.
+ */
+public class PojoTableTest {
+    private static final Pojo UUID_ID = Pojo.of("578da685-f6ea-4ffe-869a-49acbbc998b2", "my-test-name", 12345, Pojo.TypeOfThing.SOME_THING).orElseThrow();
+    private static final Pojo TEXT_ID = Pojo.of("not a uuid", "naïve ☃ name", Integer.MIN_VALUE, Pojo.TypeOfThing.OTHER_THING).orElseThrow();
+    private static final Pojo EMPTY_NAME = Pojo.of("578DA685-F6EA-4FFE-869A-49ACBBC998B2", "", -1, Pojo.TypeOfThing.SOME_THING).orElseThrow();
+
+    private static final List<Pojo> POJOS = Arrays.asList(UUID_ID, TEXT_ID, EMPTY_NAME);
+
+    /**
+     * Test that rows read back as the Pojos appended.
+     */
+    @Test
+    public void shouldReadBackAppendedPojos() {
+        final PojoTable table = PojoTable.create().appendAll(POJOS);
+
+        assertEquals("Size should match", POJOS.size(), table.size());
+
+        for (int row = 0; row < POJOS.size(); row++) {
+            final Pojo expected = POJOS.get(row);
+            final PojoTable.Row view = table.row(row);
+
+            assertEquals("Pojos should match", expected, table.get(row));
+            assertEquals("Ids should match", expected.getId(), view.getId());
+            assertEquals("Names should match", expected.getName(), view.getName());
+            assertEquals("Int values should match", expected.getIntValue(), view.getIntValue());
+            assertEquals("Types should match", expected.getTypeOfThing(), view.getTypeOfThing());
+            assertEquals("Pojos should match", expected, view.toPojo());
+        }
+    }
+
+    /**
+     * Test growing past the initial capacity, and past one page of names.
+     */
+    @Test
+    public void shouldGrow() {
+        final PojoTable table = PojoTable.create(0);
+        final List<Pojo> expected = new ArrayList<>();
+        final String longName = "x".repeat(PackedUtf8Column.PAGE_SIZE + 1);
+
+        for (int i = 0; i < 10_000; i++) {
+            final String id = i % 3 == 0 ? "id-" + i : UUID.randomUUID().toString();
+            final String name = i == 5_000 ? longName : "name-" + i;
+            expected.add(Pojo.of(id, name, i, Pojo.TypeOfThing.lookup(i % 4)).orElseThrow());
+        }
+
+        table.appendAll(expected);
+
+        for (int row = 0; row < expected.size(); row++)
+            assertEquals("Pojos should match", expected.get(row), table.get(row));
+    }
+
+    /**
+     * Test the scans over the primitive columns.
+     */
+    @Test
+    public void shouldScan() {
+        final PojoTable table = PojoTable.create().appendAll(POJOS);
+
+        assertEquals("Count should match", 2, table.count(Pojo.TypeOfThing.SOME_THING));
+        assertEquals("Count should match", 0, table.count(Pojo.TypeOfThing.THIS_THING));
+        assertArrayEquals("Counts should match", new int[] {1, 2, 0, 0}, table.countByType());
+        assertEquals("Sum should match", 12345L + Integer.MIN_VALUE - 1, table.sumIntValues());
+        assertEquals("Sum should match", 12344L, table.sumIntValues(Pojo.TypeOfThing.SOME_THING));
+        assertEquals("Count should match", 2, table.countIntValuesBetween(-1, Integer.MAX_VALUE));
+        assertArrayEquals("Rows should match", new int[] {0, 2}, table.filter(Pojo.TypeOfThing.SOME_THING, -1, 12345));
+        assertArrayEquals("Rows should match", new int[] {2}, table.filter(Pojo.TypeOfThing.SOME_THING, Integer.MIN_VALUE, 0));
+    }
+
+    /**
+     * Test visiting every row through a single view.
+     */
+    @Test
+    public void shouldVisitEveryRow() {
+        final PojoTable table = PojoTable.create().appendAll(POJOS);
+        final List<Pojo> actual = new ArrayList<>();
+
+        table.forEach(row -> actual.add(row.toPojo()));
+
+        assertEquals("Pojos should match", POJOS, actual);
+    }
+
+    /**
+     * Test that rows outside the table are rejected.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldRejectARowOutsideTheTable() {
+        PojoTable.create(100).appendAll(POJOS).row(0).moveTo(POJOS.size());
+    }
+
+    /**
+     * Test that a row of UUIDs takes a fraction of the heap of the Pojo.
+     */
+    @Test
+    public void shouldBeCompact() {
+        final int rows = 100_000;
+        final PojoTable table = PojoTable.create(rows);
+
+        for (int i = 0; i < rows; i++)
+            table.append(Pojo.of(UUID.randomUUID().toString(), "name-" + i, i, Pojo.TypeOfThing.THAT_THING).orElseThrow());
+
+        assertTrue("Should take under 64 bytes a row: " + table, table.estimatedHeapBytes() < 64L * rows);
+    }
+}
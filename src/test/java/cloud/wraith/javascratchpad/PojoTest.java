@@ -56,7 +56,15 @@ public class PojoTest {
         ).orElseThrow();
     }
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = createMapper();
+
+    /**
+     * The mapper the json tests run against, which relies on Pojo's annotations alone.
+     * Overridden to run every test again with PojoModule.
+     */
+    ObjectMapper createMapper() {
+        return new ObjectMapper();
+    }
 
     /**
      * Test construction with factory function.
@@ -151,7 +159,7 @@ public class PojoTest {
 
         final Pojo actual = Pojo.of(POJO).orElseThrow();
 
-        assertTrue("Should be different objects", POJO != actual);
+        assertTrue("Should be the same object, since a Pojo is immutable", POJO == actual);
         assertTrue("Values should match", actual.equals(POJO));
         assertTrue("Values should match via Objects.equals", Objects.equals(actual, POJO));
         assertTrue("Values should match via Objects.deepEquals", Objects.deepEquals(actual, POJO));
@@ -164,6 +172,44 @@ public class PojoTest {
 
     }
 
+    /**
+     * Test derived copies, which validate only the changed field.
+     */
+    @Test
+    public void shouldDeriveACopy() {
+        final Pojo renamed = POJO.withName("another-name");
+
+        assertEquals("Name should match", "another-name", renamed.getName());
+        assertEquals("Id should match", POJO.getId(), renamed.getId());
+        assertTrue("Should be the same object when unchanged", POJO == POJO.withName(new String(NAME_PAIR[VALUE])));
+        assertTrue("Should be the same object when unchanged", POJO == POJO.withIntValue(POJO.getIntValue()));
+        assertTrue("Should be the same object when unchanged", POJO == POJO.withId(ID_PAIR[VALUE]).orElseThrow());
+        assertTrue("Should be the same object when unchanged", POJO == POJO.withTypeOfThing(TYPE_OF_THING_PAIR[VALUE]).orElseThrow());
+        assertEquals("Int value should match", -1, POJO.withIntValue(-1).getIntValue());
+        assertEquals("Id should match", "another-id", POJO.withId("another-id").orElseThrow().getId());
+        assertEquals("Type of thing should match", Pojo.TypeOfThing.THIS_THING, POJO.withTypeOfThing(Pojo.TypeOfThing.THIS_THING).orElseThrow().getType());
+        assertEquals("Null name should be empty", StringUtils.EMPTY, POJO.withName(null).getName());
+        assertFalse("Blank id should be rejected", POJO.withId(" ").isPresent());
+        assertFalse("Invalid type of thing should be rejected", POJO.withTypeOfThing("not-a-thing").isPresent());
+    }
+
+    /**
+     * Test derived copies through a builder.
+     */
+    @Test
+    public void shouldBuildACopy() {
+        final Pojo actual = POJO.toBuilder().name("another-name").intValue(1).typeOfThing("THAT_THING").build().orElseThrow();
+
+        assertEquals("Id should match", POJO.getId(), actual.getId());
+        assertEquals("Name should match", "another-name", actual.getName());
+        assertEquals("Int value should match", 1, actual.getIntValue());
+        assertEquals("Type of thing should match", "THAT_THING", actual.getTypeOfThing());
+        assertTrue("Should be the same object when unchanged", POJO == POJO.toBuilder().build().orElseThrow());
+        assertTrue("Should be the same object when set back", POJO == POJO.toBuilder().intValue(1).intValue(POJO.getIntValue()).build().orElseThrow());
+        assertEquals("Blank id should be rejected", PojoValidation.Reason.BLANK_ID, POJO.toBuilder().id("").validate().getReason());
+        assertFalse("Invalid type of thing should be rejected", POJO.toBuilder().typeOfThing("not-a-thing").build().isPresent());
+    }
+
     /**
      * Test json serialisation.
      * @throws JsonProcessingException
@@ -332,6 +378,45 @@ public class PojoTest {
         final int expected = Objects.hash(ID_PAIR[VALUE], NAME_PAIR[VALUE], Integer.parseInt(INT_VALUE_PAIR[VALUE]), TYPE_OF_THING_PAIR[VALUE], StringUtils.EMPTY);
 
         assertEquals("Hash codes should match", expected, POJO.hashCode());
+        assertEquals("Hash codes should stay the same", expected, POJO.hashCode());
+    }
+
+    /**
+     * Test the stable 64-bit hash, which must never change between releases.
+     */
+    @Test
+    public void shouldHashStably() {
+        final Pojo renamed = Pojo.of(ID_PAIR[VALUE], "another-name", 1, Pojo.TypeOfThing.THIS_THING).orElseThrow();
+
+        assertEquals("Stable hash should match", 6374705899170310262L, POJO.stableHash());
+        assertEquals("Stable hash should depend only on the id", POJO.stableHash(), renamed.stableHash());
+    }
+
+    /**
+     * Test equality, before and after the hash codes are cached.
+     */
+    @Test
+    public void shouldCompareEachField() {
+        final Pojo[] others = {
+            Pojo.of("a0000000-0000-4000-8000-000000000000", NAME_PAIR[VALUE], Integer.parseInt(INT_VALUE_PAIR[VALUE]), TYPE_OF_THING_PAIR[VALUE]).orElseThrow(),
+            Pojo.of(ID_PAIR[VALUE], "another-name", Integer.parseInt(INT_VALUE_PAIR[VALUE]), TYPE_OF_THING_PAIR[VALUE]).orElseThrow(),
+            Pojo.of(ID_PAIR[VALUE], NAME_PAIR[VALUE], 1, TYPE_OF_THING_PAIR[VALUE]).orElseThrow(),
+            Pojo.of(ID_PAIR[VALUE], NAME_PAIR[VALUE], Integer.parseInt(INT_VALUE_PAIR[VALUE]), Pojo.TypeOfThing.THIS_THING).orElseThrow()
+        };
+
+        for (Pojo other : others)
+            assertFalse("Pojos should differ before hashing", POJO.equals(other));
+
+        for (Pojo other : others) {
+            other.hashCode();
+            assertFalse("Pojos should differ after hashing", POJO.equals(other));
+        }
+
+        final Pojo copy = Pojo.of(JSON).orElseThrow();
+
+        assertTrue("Pojos should match before hashing", POJO.equals(copy));
+        copy.hashCode();
+        assertTrue("Pojos should match after hashing", POJO.equals(copy));
     }
 
     /**
@@ -0,0 +1,80 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.lang3.StringUtils;
+
+import org.junit.Test;
+
+/**
+ * Unit test for PojoValidation class.
+ */
+public class PojoValidationTest {
+    private static final String ID = "578da685-f6ea-4ffe-869a-49acbbc998b2";
+    private static final String NAME = "my-test-name";
+    private static final int INT_VALUE = 12345;
+    private static final String TYPE_OF_THING = Pojo.TypeOfThing.SOME_THING.toString();
+
+    /**
+     * Test a valid set of fields.
+     */
+    @Test
+    public void shouldValidate() {
+        final PojoValidation actual = Pojo.validate(ID, NAME, INT_VALUE, TYPE_OF_THING);
+
+        assertTrue("Should be valid", actual.isValid());
+        assertEquals("Reason should be valid", PojoValidation.Reason.VALID, actual.getReason());
+    }
+
+    /**
+     * Test the reason codes for blank ids.
+     */
+    @Test
+    public void shouldReportABlankId() {
+        assertEquals("Null id should be blank", PojoValidation.Reason.BLANK_ID, Pojo.validate(null, NAME, INT_VALUE, TYPE_OF_THING).getReason());
+        assertEquals("Empty id should be blank", PojoValidation.Reason.BLANK_ID, Pojo.validate(StringUtils.EMPTY, NAME, INT_VALUE, TYPE_OF_THING).getReason());
+        assertEquals("Whitespace id should be blank", PojoValidation.Reason.BLANK_ID, Pojo.validate(" \t", NAME, INT_VALUE, TYPE_OF_THING).getReason());
+    }
+
+    /**
+     * Test the reason codes for invalid types of thing.
+     */
+    @Test
+    public void shouldReportAnInvalidTypeOfThing() {
+        assertEquals("Null type should be invalid", PojoValidation.Reason.INVALID_TYPE_OF_THING, Pojo.validate(ID, NAME, INT_VALUE, null).getReason());
+        assertEquals("Empty type should be invalid", PojoValidation.Reason.INVALID_TYPE_OF_THING, Pojo.validate(ID, NAME, INT_VALUE, StringUtils.EMPTY).getReason());
+        assertEquals("Unknown type should be invalid", PojoValidation.Reason.INVALID_TYPE_OF_THING, Pojo.validate(ID, NAME, INT_VALUE, "some_thing").getReason());
+        assertFalse("Should not be valid", Pojo.validate(ID, NAME, INT_VALUE, "some_thing").isValid());
+    }
+
+    /**
+     * Test that results are shared rather than allocated per call.
+     */
+    @Test
+    public void shouldShareResults() {
+        assertSame("Rejections should be shared", Pojo.validate(null, NAME, INT_VALUE, TYPE_OF_THING), Pojo.validate(StringUtils.EMPTY, NAME, INT_VALUE, TYPE_OF_THING));
+        assertSame("Results should be shared", PojoValidation.of(PojoValidation.Reason.VALID), Pojo.validate(ID, NAME, INT_VALUE, TYPE_OF_THING));
+    }
+
+    /**
+     * Test that the json creator still throws, with the reason as its message.
+     */
+    @Test
+    public void shouldThrowFromTheJsonCreator() {
+        try {
+
+            Pojo.jsonCreator(ID, NAME, INT_VALUE, "this-thing-is-not-a-valid-enum-value");
+
+        } catch (IllegalArgumentException e) {
+
+            assertEquals("Message should match", PojoValidation.Reason.INVALID_TYPE_OF_THING.getMessage(), e.getMessage());
+            return;
+
+        }
+
+        throw new AssertionError("Json creator should throw");
+    }
+}
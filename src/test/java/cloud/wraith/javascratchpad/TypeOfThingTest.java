@@ -0,0 +1,76 @@
+package cloud.wraith.javascratchpad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit test for the Pojo.TypeOfThing enum.
+ */
+public class TypeOfThingTest {
+
+    /**
+     * Test lookup by name as a string and a char sequence.
+     */
+    @Test
+    public void shouldLookUpByName() {
+        for (Pojo.TypeOfThing expected : Pojo.TypeOfThing.values()) {
+            assertSame("Should find by string", expected, Pojo.TypeOfThing.lookup(expected.name()));
+            assertSame("Should find by char sequence", expected, Pojo.TypeOfThing.lookup(new StringBuilder(expected.name())));
+            assertSame("Should find by optional", expected, Pojo.TypeOfThing.of(expected.name()).orElseThrow());
+        }
+
+        assertNull("Null should not match", Pojo.TypeOfThing.lookup((CharSequence) null));
+        assertNull("Lower case should not match", Pojo.TypeOfThing.lookup("some_thing"));
+        assertTrue("Unknown name should be empty", Pojo.TypeOfThing.of("NOT_A_THING").isEmpty());
+    }
+
+    /**
+     * Test lookup by slices of char and byte buffers.
+     */
+    @Test
+    public void shouldLookUpBySlice() {
+        final String text = "{\"typeOfThing\":\"THAT_THING\"}";
+        final char[] chars = text.toCharArray();
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        final int offset = text.indexOf("THAT_THING");
+
+        assertSame("Should find in chars", Pojo.TypeOfThing.THAT_THING, Pojo.TypeOfThing.lookup(chars, offset, 10));
+        assertSame("Should find in bytes", Pojo.TypeOfThing.THAT_THING, Pojo.TypeOfThing.lookup(bytes, offset, 10));
+        assertNull("Short slice should not match", Pojo.TypeOfThing.lookup(bytes, offset, 9));
+        assertNull("Offset slice should not match", Pojo.TypeOfThing.lookup(chars, offset + 1, 10));
+    }
+
+    /**
+     * Test lookup by ordinal.
+     */
+    @Test
+    public void shouldLookUpByOrdinal() {
+        assertSame("Should find by ordinal", Pojo.TypeOfThing.THIS_THING, Pojo.TypeOfThing.lookup(Pojo.TypeOfThing.THIS_THING.ordinal()));
+        assertNull("Out of range should not match", Pojo.TypeOfThing.lookup(Pojo.TypeOfThing.values().length));
+    }
+
+    /**
+     * Test that a Pojo exposes its type as an enum while keeping the string form.
+     */
+    @Test
+    public void shouldHoldTheTypeAsAnEnum() {
+        final Pojo pojo = Pojo.of("578da685-f6ea-4ffe-869a-49acbbc998b2", "my-test-name", 1, Pojo.TypeOfThing.THIS_THING).orElseThrow();
+        final Map<Pojo.TypeOfThing, Integer> routes = new EnumMap<>(Pojo.TypeOfThing.class);
+
+        routes.merge(pojo.getType(), 1, Integer::sum);
+
+        assertSame("Type should be the enum", Pojo.TypeOfThing.THIS_THING, pojo.getType());
+        assertEquals("Type of thing should be the name", "THIS_THING", pojo.getTypeOfThing());
+        assertEquals("Should route by enum", Integer.valueOf(1), routes.get(Pojo.TypeOfThing.THIS_THING));
+        assertEquals("Should equal the string built Pojo", Pojo.of(pojo.getId(), pojo.getName(), 1, "THIS_THING").orElseThrow(), pojo);
+        assertTrue("Null enum should be rejected", Pojo.of(pojo.getId(), pojo.getName(), 1, (Pojo.TypeOfThing) null).isEmpty());
+    }
+}